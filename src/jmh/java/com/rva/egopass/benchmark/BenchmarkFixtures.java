@@ -0,0 +1,89 @@
+package com.rva.egopass.benchmark;
+
+import com.rva.egopass.dto.EGoPassRequest;
+import com.rva.egopass.model.EGoPass;
+import com.rva.egopass.model.FlightInfo;
+import com.rva.egopass.model.PassengerInfo;
+import com.rva.egopass.payload.PassPayload;
+import com.rva.egopass.payload.PassPayloadCodec;
+import com.rva.egopass.payload.PassSigningKeys;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Données représentatives d'une émission d'e-GoPass, partagées par les benchmarks.
+ */
+final class BenchmarkFixtures {
+
+    static final String HMAC_KEY = "6B3F2A9C1D8E4F7051A6C3E9B2D4F8A17E5C0B9D3A6F2E8C4B1D7A9E3F5C2B80";
+
+    // Paire Ed25519 éphémère, partagée pour que les contenus encodés restent vérifiables
+    static final PassPayloadCodec PASS_PAYLOAD_CODEC =
+            new PassPayloadCodec(new PassSigningKeys("", "", "", List.of(), true), true, HMAC_KEY, false);
+
+    static final String QR_CODE_PAYLOAD = PASS_PAYLOAD_CODEC.encode(passPayload());
+
+    /** Ancien contenu JSON du QR code, conservé pour comparaison. */
+    static final String LEGACY_QR_CODE_PAYLOAD = "{\"passNumber\":\"EGP-1A2B3C4D5E\",\"passengerName\":\"Jean Mbala\","
+            + "\"nationality\":\"Congolaise\",\"flightNumber\":\"KQ555\",\"flightCompany\":\"Kenya Airways\","
+            + "\"origin\":\"FIH\",\"destination\":\"NBO\",\"issueDate\":\"2025-03-14T10:30:00\"}";
+
+    private BenchmarkFixtures() {
+    }
+
+    static EGoPass eGoPass() {
+        return EGoPass.builder()
+                .id(1L)
+                .passNumber("EGP-1A2B3C4D5E")
+                .issueDate(LocalDateTime.of(2025, 3, 14, 10, 30))
+                .qrCodePayload(QR_CODE_PAYLOAD)
+                .passengerInfo(PassengerInfo.builder()
+                        .firstName("Jean")
+                        .lastName("Mbala")
+                        .nationality("Congolaise")
+                        .passportNumber("OB1234567")
+                        .passportIssueDate(LocalDate.of(2020, 1, 1))
+                        .build())
+                .flightInfo(FlightInfo.builder()
+                        .flightType("INTERNATIONAL")
+                        .flightNumber("KQ555")
+                        .flightCompany("Kenya Airways")
+                        .origin("FIH")
+                        .destination("NBO")
+                        .departureDate(LocalDate.of(2025, 3, 15))
+                        .build())
+                .build();
+    }
+
+    static EGoPassRequest eGoPassRequest() {
+        return EGoPassRequest.builder()
+                .flightType("INTERNATIONAL")
+                .flightNumber("KQ555")
+                .flightCompany("Kenya Airways")
+                .origin("FIH")
+                .destination("NBO")
+                .departureDate(LocalDate.of(2025, 3, 15))
+                .firstName("Jean")
+                .lastName("Mbala")
+                .nationality("Congolaise")
+                .passportNumber("OB1234567")
+                .passportIssueDate(LocalDate.of(2020, 1, 1))
+                .email("jean.mbala@example.com")
+                .phone("+243810000000")
+                .build();
+    }
+
+    static PassPayload passPayload() {
+        return PassPayload.builder()
+                .passNumber("EGP-1A2B3C4D5E")
+                .flightNumber("KQ555")
+                .origin("FIH")
+                .destination("NBO")
+                .departureDate(LocalDate.of(2025, 3, 15))
+                .passengerName("Jean Mbala")
+                .issueDate(LocalDateTime.of(2025, 3, 14, 10, 30))
+                .build();
+    }
+}
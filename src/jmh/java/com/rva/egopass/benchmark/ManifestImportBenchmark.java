@@ -0,0 +1,75 @@
+package com.rva.egopass.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rva.egopass.dto.EGoPassRequest;
+import com.rva.egopass.enums.ManifestFormat;
+import com.rva.egopass.service.ManifestReader;
+import com.rva.egopass.service.PassengerRequestValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture et validation d'un manifeste CSV de 10 000 passagers, hors insertion en base,
+ * et coût de la validation d'une demande seule.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ManifestImportBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private byte[] manifest;
+    private EGoPassRequest request;
+
+    @Setup
+    public void setUp() {
+        StringBuilder csv = new StringBuilder("flightType,flightNumber,origin,destination,flightCompany,departureDate,"
+                + "firstName,lastName,nationality,passportNumber,passportIssueDate,email,phone\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append("INTERNATIONAL,KQ555,FIH,NBO,Kenya Airways,2025-03-15,Jean,Mbala,Congolaise,OB")
+                    .append(1_000_000 + i)
+                    .append(",2020-01-01,jean.mbala").append(i).append("@example.com,+243810000000\n");
+        }
+        manifest = csv.toString().getBytes(StandardCharsets.UTF_8);
+        request = BenchmarkFixtures.eGoPassRequest();
+    }
+
+    @Benchmark
+    public int readAndValidateManifest() throws IOException {
+        int valid = 0;
+        try (ManifestReader reader = new ManifestReader(new ByteArrayInputStream(manifest), ManifestFormat.CSV, objectMapper)) {
+            ManifestReader.Row row;
+            while ((row = reader.next()) != null) {
+                if (PassengerRequestValidator.checkFlight(row.request()) == null
+                        && PassengerRequestValidator.checkPassenger(row.request()) == null) {
+                    valid++;
+                }
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public PassengerRequestValidator.Violation validatePassenger() {
+        return PassengerRequestValidator.checkPassenger(request);
+    }
+
+    /** Ancienne validation de l'email et du téléphone, qui recompilait les expressions à chaque appel. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean validatePassengerLegacyMatches() {
+        return request.getEmail().matches("^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,}$")
+                && request.getPhone().matches("^\\+?[0-9]{7,15}$");
+    }
+}
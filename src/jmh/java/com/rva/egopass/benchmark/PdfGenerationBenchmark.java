@@ -0,0 +1,43 @@
+package com.rva.egopass.benchmark;
+
+import com.rva.egopass.enums.PdfRenderingMode;
+import com.rva.egopass.model.EGoPass;
+import com.rva.egopass.service.EGoPassPdfTemplate;
+import com.rva.egopass.service.PDFGeneratorService;
+import com.rva.egopass.service.QRCodeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendu du PDF d'un e-GoPass, en mode gabarit et en mode mise en page complète.
+ * Seul le rendu est mesuré : ni stockage, ni pool, ni base de données.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfGenerationBenchmark {
+
+    @Param({"TEMPLATE", "LAYOUT"})
+    private PdfRenderingMode renderingMode;
+
+    private PDFGeneratorService pdfGeneratorService;
+    private EGoPass eGoPass;
+
+    @Setup
+    public void setUp() {
+        pdfGeneratorService = new PDFGeneratorService(null, null, new EGoPassPdfTemplate(), null,
+                new QRCodeService(), null);
+        ReflectionTestUtils.setField(pdfGeneratorService, "renderingMode", renderingMode);
+        eGoPass = BenchmarkFixtures.eGoPass();
+    }
+
+    @Benchmark
+    public byte[] generateEGoPassPDF() throws Exception {
+        return pdfGeneratorService.generateEGoPassPDF(eGoPass);
+    }
+}
@@ -0,0 +1,37 @@
+package com.rva.egopass.benchmark;
+
+import com.google.zxing.common.BitMatrix;
+import com.rva.egopass.service.QRCodeService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodage du QR code : image PNG 300x300 et matrice brute utilisée pour le rendu vectoriel,
+ * avec le contenu signé compact et, pour comparaison, l'ancien contenu JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QRCodeBenchmark {
+
+    private final QRCodeService qrCodeService = new QRCodeService();
+
+    @Benchmark
+    public byte[] generateQRCodePng() {
+        return qrCodeService.generateQRCode(BenchmarkFixtures.QR_CODE_PAYLOAD);
+    }
+
+    @Benchmark
+    public BitMatrix generateQRCodeMatrix() {
+        return qrCodeService.generateQRCodeMatrix(BenchmarkFixtures.QR_CODE_PAYLOAD);
+    }
+
+    @Benchmark
+    public BitMatrix generateQRCodeMatrixLegacyJson() {
+        return qrCodeService.generateQRCodeMatrix(BenchmarkFixtures.LEGACY_QR_CODE_PAYLOAD);
+    }
+}
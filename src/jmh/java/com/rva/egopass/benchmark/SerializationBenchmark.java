@@ -0,0 +1,64 @@
+package com.rva.egopass.benchmark;
+
+import com.rva.egopass.dto.EGoPassDTO;
+import com.rva.egopass.dto.EGoPassRequest;
+import com.rva.egopass.mapper.EGoPassMapper;
+import com.rva.egopass.model.EGoPass;
+import com.rva.egopass.model.FlightInfo;
+import com.rva.egopass.model.PassengerInfo;
+import com.rva.egopass.payload.PassPayload;
+import com.rva.egopass.payload.PassPayloadCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodage et décodage du contenu signé du QR code et conversions MapStruct de l'émission.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private final PassPayloadCodec passPayloadCodec = BenchmarkFixtures.PASS_PAYLOAD_CODEC;
+    private final EGoPassMapper eGoPassMapper = EGoPassMapper.INSTANCE;
+
+    private PassPayload passPayload;
+    private EGoPassRequest request;
+    private EGoPass eGoPass;
+
+    @Setup
+    public void setUp() {
+        passPayload = BenchmarkFixtures.passPayload();
+        request = BenchmarkFixtures.eGoPassRequest();
+        eGoPass = BenchmarkFixtures.eGoPass();
+    }
+
+    @Benchmark
+    public String encodePassPayload() {
+        return passPayloadCodec.encode(passPayload);
+    }
+
+    @Benchmark
+    public PassPayload decodePassPayload() {
+        return passPayloadCodec.decode(BenchmarkFixtures.QR_CODE_PAYLOAD);
+    }
+
+    @Benchmark
+    public FlightInfo mapToFlightInfo() {
+        return eGoPassMapper.mapToFlightInfo(request);
+    }
+
+    @Benchmark
+    public PassengerInfo mapToPassengerInfo() {
+        return eGoPassMapper.mapToPassengerInfo(request);
+    }
+
+    @Benchmark
+    public EGoPassDTO toDto() {
+        return eGoPassMapper.toDto(eGoPass);
+    }
+}
@@ -0,0 +1,119 @@
+package com.rva.egopass.common;
+
+import com.rva.egopass.service.DocumentContent;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Écrit un {@link DocumentContent} directement dans la réponse servlet, en gérant les en-têtes
+ * {@code Range}, {@code If-Range} et {@code If-None-Match}.
+ * Une seule plage est servie ; une requête multi-plages reçoit le document complet.
+ */
+public final class RangeDownloadSupport {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private RangeDownloadSupport() {
+    }
+
+    /**
+     * @param content   Le document à servir.
+     * @param mediaType Le type du document.
+     * @param filename  Le nom de fichier proposé au client.
+     * @param request   La requête HTTP.
+     * @param response  La réponse HTTP dans laquelle le document est écrit.
+     * @throws IOException En cas d'erreur de lecture du document ou d'écriture de la réponse.
+     */
+    public static void write(DocumentContent content, MediaType mediaType, String filename,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length = content.getContentLength();
+        String eTag = content.getETag();
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(filename).build().toString());
+        if (eTag != null) {
+            response.setHeader(HttpHeaders.ETAG, eTag);
+            if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0 && isRangeApplicable(request.getHeader(HttpHeaders.IF_RANGE), eTag)) {
+            List<HttpRange> ranges = parseRanges(rangeHeader);
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+                if (start < 0 || start >= length || start > end) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = Math.max(0, end - start + 1);
+        response.setContentType(mediaType.toString());
+        response.setContentLengthLong(count);
+        if (count == 0) {
+            return;
+        }
+
+        try (InputStream inputStream = content.openStream(start, count)) {
+            OutputStream outputStream = response.getOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Une plage n'est honorée que si {@code If-Range} est absent ou désigne exactement la version courante.
+     */
+    private static boolean isRangeApplicable(String ifRange, String eTag) {
+        if (ifRange == null) {
+            return true;
+        }
+        return eTag != null && !ifRange.startsWith("W/") && ifRange.trim().equals(eTag);
+    }
+
+    private static boolean matchesAny(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(eTag) || tag.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<HttpRange> parseRanges(String rangeHeader) {
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            // En-tête Range invalide : ignoré, le document complet est servi
+            return List.of();
+        }
+    }
+}
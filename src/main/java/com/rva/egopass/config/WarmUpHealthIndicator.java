@@ -0,0 +1,32 @@
+package com.rva.egopass.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * État du préchauffage dans {@code /actuator/health} : OUT_OF_SERVICE tant qu'il est en cours,
+ * puis UP avec le temps passé.
+ */
+@Component
+@RequiredArgsConstructor
+public class WarmUpHealthIndicator implements HealthIndicator {
+
+    private final WarmUpRunner warmUpRunner;
+
+    @Override
+    public Health health() {
+        if (!warmUpRunner.isCompleted()) {
+            return Health.outOfService().withDetail("warmUp", "en cours").build();
+        }
+        Health.Builder health = Health.up();
+        if (warmUpRunner.getDuration() != null) {
+            health.withDetail("durationMs", warmUpRunner.getDuration().toMillis());
+        }
+        if (warmUpRunner.getFailure() != null) {
+            health.withDetail("failure", warmUpRunner.getFailure());
+        }
+        return health.build();
+    }
+}
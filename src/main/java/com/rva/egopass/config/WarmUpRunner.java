@@ -0,0 +1,129 @@
+package com.rva.egopass.config;
+
+import com.rva.egopass.model.EGoPass;
+import com.rva.egopass.model.FlightInfo;
+import com.rva.egopass.model.PassengerInfo;
+import com.rva.egopass.payload.PassPayload;
+import com.rva.egopass.payload.PassPayloadCodec;
+import com.rva.egopass.security.JwtService;
+import com.rva.egopass.service.PDFGeneratorService;
+import com.rva.egopass.service.QRCodeService;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Préchauffe au démarrage les chemins de l'émission d'un e-GoPass (contenu signé du QR code, encodage ZXing
+ * et PNG, rendu iText, JWT) avec des données synthétiques, pour que le premier pass réel ne paie ni le chargement
+ * des classes ni la compilation JIT. Tant que le préchauffage n'est pas terminé, {@link WarmUpHealthIndicator} signale
+ * l'application hors service.
+ */
+@Component
+@Slf4j
+public class WarmUpRunner implements ApplicationRunner {
+
+    private final QRCodeService qrCodeService;
+    private final PDFGeneratorService pdfGeneratorService;
+    private final JwtService jwtService;
+    private final PassPayloadCodec passPayloadCodec;
+    private final boolean enabled;
+    private final int iterations;
+
+    @Getter
+    private volatile boolean completed;
+    @Getter
+    private volatile Duration duration;
+    @Getter
+    private volatile String failure;
+
+    public WarmUpRunner(QRCodeService qrCodeService,
+                        PDFGeneratorService pdfGeneratorService,
+                        JwtService jwtService,
+                        PassPayloadCodec passPayloadCodec,
+                        @Value("${app.warm-up.enabled:true}") boolean enabled,
+                        @Value("${app.warm-up.iterations:10}") int iterations) {
+        this.qrCodeService = qrCodeService;
+        this.pdfGeneratorService = pdfGeneratorService;
+        this.jwtService = jwtService;
+        this.passPayloadCodec = passPayloadCodec;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.completed = !enabled;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        log.info("Préchauffage des chemins d'émission ({} itérations)", iterations);
+        long start = System.nanoTime();
+        try {
+            EGoPass eGoPass = syntheticPass();
+            PassPayload payload = syntheticPayload(eGoPass);
+            UserDetails userDetails = User.withUsername("warm-up").password("warm-up").authorities("ROLE_USER").build();
+            for (int i = 0; i < iterations; i++) {
+                String content = passPayloadCodec.encode(payload);
+                passPayloadCodec.decode(content);
+                eGoPass.setQrCodePayload(content);
+                qrCodeService.generateQRCode(content);
+                pdfGeneratorService.generateEGoPassPDF(eGoPass);
+                String token = jwtService.generateToken(userDetails);
+                jwtService.isTokenValid(token, userDetails);
+            }
+        } catch (Exception e) {
+            // Le préchauffage n'est qu'une optimisation : il ne doit pas empêcher le démarrage
+            failure = e.getMessage();
+            log.warn("Préchauffage interrompu: {}", e.getMessage(), e);
+        } finally {
+            duration = Duration.ofNanos(System.nanoTime() - start);
+            completed = true;
+            log.info("Préchauffage terminé en {} ms", duration.toMillis());
+        }
+    }
+
+    private static EGoPass syntheticPass() {
+        return EGoPass.builder()
+                .passNumber("EGP-WARMUP0000")
+                .issueDate(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS))
+                .passengerInfo(PassengerInfo.builder()
+                        .firstName("Warm")
+                        .lastName("Up")
+                        .nationality("Congolaise")
+                        .passportNumber("OB0000000")
+                        .passportIssueDate(LocalDate.of(2020, 1, 1))
+                        .build())
+                .flightInfo(FlightInfo.builder()
+                        .flightType("INTERNATIONAL")
+                        .flightNumber("XX000")
+                        .flightCompany("Warm Up Airways")
+                        .origin("FIH")
+                        .destination("NBO")
+                        .departureDate(LocalDate.now())
+                        .build())
+                .build();
+    }
+
+    private static PassPayload syntheticPayload(EGoPass eGoPass) {
+        return PassPayload.builder()
+                .passNumber(eGoPass.getPassNumber())
+                .flightNumber(eGoPass.getFlightInfo().getFlightNumber())
+                .origin(eGoPass.getFlightInfo().getOrigin())
+                .destination(eGoPass.getFlightInfo().getDestination())
+                .departureDate(eGoPass.getFlightInfo().getDepartureDate())
+                .passengerName(eGoPass.getPassengerInfo().getFullName())
+                .issueDate(eGoPass.getIssueDate())
+                .build();
+    }
+}
@@ -0,0 +1,154 @@
+package com.rva.egopass.controller;
+
+import com.rva.egopass.dto.GateSnapshot;
+import com.rva.egopass.dto.ManifestImportReport;
+import com.rva.egopass.dto.OfflineScanBatch;
+import com.rva.egopass.dto.OfflineScanReport;
+import com.rva.egopass.dto.PassValidationRequest;
+import com.rva.egopass.dto.PassValidationResponse;
+import com.rva.egopass.enums.ManifestFormat;
+import com.rva.egopass.enums.PassExportFormat;
+import com.rva.egopass.model.EGoPass;
+import com.rva.egopass.model.User;
+import com.rva.egopass.service.FlightPassExportService;
+import com.rva.egopass.service.GateSnapshotService;
+import com.rva.egopass.service.ManifestImportService;
+import com.rva.egopass.service.OfflineScanService;
+import com.rva.egopass.service.PassValidationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/admin")
+@RequiredArgsConstructor
+@Tag(name = "Administration eGoPass", description = "Opérations réservées aux administrateurs")
+public class AdminEGoPassController {
+    private final FlightPassExportService flightPassExportService;
+    private final ManifestImportService manifestImportService;
+    private final PassValidationService passValidationService;
+    private final GateSnapshotService gateSnapshotService;
+    private final OfflineScanService offlineScanService;
+
+    @Operation(
+            summary = "Exporter les eGoPass d'un vol",
+            description = "Télécharge en un seul fichier (ZIP ou PDF fusionné) tous les eGoPass d'un vol à une date donnée. " +
+                    "Les PDF manquants sont générés pendant la diffusion."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export diffusé",
+                    content = {@Content(mediaType = "application/zip"), @Content(mediaType = "application/pdf")}),
+            @ApiResponse(responseCode = "404", description = "Aucun eGoPass pour ce vol"),
+            @ApiResponse(responseCode = "503", description = "Pool de rendu saturé"),
+            @ApiResponse(responseCode = "500", description = "Erreur lors de la génération des PDF")
+    })
+    @GetMapping("/flights/{flightNumber}/passes/export")
+    public void exportFlightPasses(
+            @Parameter(description = "Numéro de vol") @PathVariable String flightNumber,
+            @Parameter(description = "Date du vol (AAAA-MM-JJ)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @Parameter(description = "Format de l'export") @RequestParam(defaultValue = "ZIP") PassExportFormat format,
+            HttpServletResponse response) throws Exception {
+        // Recherche avant toute écriture : un vol inconnu reçoit encore une réponse 404
+        List<EGoPass> passes = flightPassExportService.findFlightPasses(flightNumber, date);
+
+        String extension = format == PassExportFormat.PDF ? ".pdf" : ".zip";
+        response.setContentType(format == PassExportFormat.PDF ? MediaType.APPLICATION_PDF_VALUE : "application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("egopass-" + flightNumber + "-" + date + extension)
+                .build()
+                .toString());
+
+        flightPassExportService.export(passes, format, response.getOutputStream());
+    }
+
+    @Operation(
+            summary = "Importer un manifeste de passagers",
+            description = "Crée une réservation en attente de paiement pour chaque passager valide d'un manifeste " +
+                    "CSV (text/csv, ligne d'en-tête) ou JSON lignes (application/x-ndjson). Le fichier est lu en flux ; " +
+                    "les lignes invalides sont écartées et listées dans le rapport."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Manifeste importé, rapport ligne par ligne",
+                    content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "400", description = "Utilisateur inconnu ou en-tête CSV absent"),
+            @ApiResponse(responseCode = "500", description = "Erreur lors de l'import")
+    })
+    @PostMapping(value = "/manifests/import/{id}", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ManifestImportReport> importManifest(
+            @Parameter(description = "ID de l'utilisateur titulaire des réservations") @PathVariable Long id,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws Exception {
+        ManifestFormat format = contentType.isCompatibleWith(MediaType.valueOf("text/csv"))
+                ? ManifestFormat.CSV : ManifestFormat.NDJSON;
+        return ResponseEntity.ok(manifestImportService.importManifest(id, format, body));
+    }
+
+    @Operation(
+            summary = "Instantané des eGoPass pour le contrôle hors ligne",
+            description = "Renvoie les numéros triés des passes valides et déjà utilisés d'un vol (ou de tous les vols) " +
+                    "sur une période de dates de vol. Avec since, seuls les changements depuis cette version sont renvoyés."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Instantané ou delta",
+                    content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "400", description = "Période inversée ou trop longue")
+    })
+    @GetMapping("/gate-snapshots")
+    public ResponseEntity<GateSnapshot> getGateSnapshot(
+            @Parameter(description = "Numéro de vol ; tous les vols si absent") @RequestParam(required = false) String flightNumber,
+            @Parameter(description = "Première date de vol (AAAA-MM-JJ)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Dernière date de vol (AAAA-MM-JJ), from par défaut") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Version d'un instantané déjà reçu") @RequestParam(required = false) Long since) {
+        return ResponseEntity.ok(gateSnapshotService.snapshot(flightNumber, from, to, since));
+    }
+
+    @Operation(
+            summary = "Valider un eGoPass à l'embarquement",
+            description = "Vérifie le QR code lu (ou le numéro saisi), marque le passe utilisé et renvoie le résumé " +
+                    "du passager. Un passe ne peut être validé qu'une fois, même lu simultanément à plusieurs portes."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Passe validé",
+                    content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "400", description = "QR code invalide, numéro mal formé ou porte manquante, ou passe inconnu"),
+            @ApiResponse(responseCode = "409", description = "Passe déjà utilisé")
+    })
+    @PostMapping("/passes/validate")
+    public ResponseEntity<PassValidationResponse> validatePass(@RequestBody PassValidationRequest request,
+                                                               @AuthenticationPrincipal User agent) {
+        return ResponseEntity.ok(passValidationService.validate(request, agent.getId()));
+    }
+
+    @Operation(
+            summary = "Transmettre les lectures hors ligne d'un scanner",
+            description = "Applique en une fois un lot de lectures (numéro, porte, heure) faites sans réseau. " +
+                    "Pour chaque passe, la première lecture est retenue ; les lectures suivantes et celles de passes " +
+                    "déjà validés sont signalées en conflit avec la validation retenue."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lot appliqué, lectures non appliquées détaillées",
+                    content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "400", description = "Lot vide ou trop grand")
+    })
+    @PostMapping("/passes/scans")
+    public ResponseEntity<OfflineScanReport> uploadScans(@RequestBody OfflineScanBatch batch,
+                                                         @AuthenticationPrincipal User agent) {
+        return ResponseEntity.ok(offlineScanService.upload(batch, agent.getId()));
+    }
+}
@@ -1,17 +1,25 @@
 package com.rva.egopass.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.rva.egopass.common.RangeDownloadSupport;
 import com.rva.egopass.dto.*;
+import com.rva.egopass.enums.QRCodeImageFormat;
+import com.rva.egopass.service.DocumentContent;
 import com.rva.egopass.service.EGoPassService;
+import com.rva.egopass.service.PaymentCallbackService;
 import com.rva.egopass.service.PaymentService;
+import com.rva.egopass.service.QRCodeImage;
+import com.rva.egopass.service.QRCodeImageService;
+import com.rva.egopass.service.ReservationExpiryPolicy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
 import io.swagger.v3.oas.annotations.Parameter;
-import org.springframework.http.HttpHeaders;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -26,6 +34,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class EGoPassController {
     private final EGoPassService eGoPassService;
     private final PaymentService paymentService;
+    private final PaymentCallbackService paymentCallbackService;
+    private final QRCodeImageService qrCodeImageService;
+    private final ReservationExpiryPolicy reservationExpiryPolicy;
 
     @Operation(
             summary = "Initier un eGoPass",
@@ -56,7 +67,38 @@ public class EGoPassController {
                 EGoPassInitiationResponse.builder()
                         .reservationId(reservationId)
                         .message("Réservation créée avec succès. Veuillez procéder au paiement.")
-                        .expiresIn(3600) // 1 heure avant expiration
+                        .expiresIn(reservationExpiryPolicy.getTtl().toSeconds())
+                        .transactionReference(paymentResponse.getTransactionReference())
+                        .redirectUrl(paymentResponse.getRedirectUrl())
+                        .build()
+        );
+    }
+
+    @Operation(
+            summary = "Initier les eGoPass d'un groupe",
+            description = "Crée en une fois les réservations de plusieurs passagers d'un même vol et initie un paiement " +
+                    "unique pour le groupe. Les eGoPass de tous les passagers sont émis à la confirmation du paiement."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Initiation réussie",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = GroupEGoPassInitiationResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Requête invalide (le champ en erreur indique le passager)"),
+            @ApiResponse(responseCode = "404", description = "ID non trouvé"),
+            @ApiResponse(responseCode = "500", description = "Erreur interne du serveur")
+    })
+    @PostMapping("/initiate-group/{id}")
+    public ResponseEntity<GroupEGoPassInitiationResponse> initiateGroupEGoPass(
+            @RequestBody @Valid GroupEGoPassRequest request, @Parameter(description = "ID de l'utilisateur") @PathVariable Long id) {
+        Long groupId = eGoPassService.createGroupReservation(request, id);
+        PaymentInitiationResponse paymentResponse = paymentService.initiateGroupPayment(
+                groupId, request.getPaymentMethod(), request.getCardDetails());
+        return ResponseEntity.ok(
+                GroupEGoPassInitiationResponse.builder()
+                        .groupId(groupId)
+                        .passengerCount(request.getPassengers().size())
+                        .message("Réservations du groupe créées avec succès. Veuillez procéder au paiement.")
+                        .expiresIn(reservationExpiryPolicy.getTtl().toSeconds())
                         .transactionReference(paymentResponse.getTransactionReference())
                         .redirectUrl(paymentResponse.getRedirectUrl())
                         .build()
@@ -65,7 +107,8 @@ public class EGoPassController {
 
     @Operation(
             summary = "Callback de paiement",
-            description = "Endpoint pour recevoir les notifications de la passerelle de paiement"
+            description = "Endpoint pour recevoir les notifications de la passerelle de paiement. " +
+                    "Le résultat du paiement est enregistré ; l'eGoPass est émis en arrière-plan."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Callback traité avec succès"),
@@ -74,12 +117,9 @@ public class EGoPassController {
     })
     @PostMapping("/payment/callback")
     public ResponseEntity<Void> paymentCallback(
-            @RequestBody PaymentCallbackRequest callback) throws JsonProcessingException {
-        // Traiter le retour de la passerelle de paiement
-        if (paymentService.verifyPayment(callback)) {
-            // Si le paiement est réussi, générer l'eGoPass
-            eGoPassService.generateEGoPassFromReservation(callback.getReservationId());
-        }
+            @RequestBody PaymentCallbackRequest callback) {
+        // Enregistrer le résultat du paiement ; l'eGoPass est émis en arrière-plan
+        paymentCallbackService.handleCallback(callback);
         return ResponseEntity.ok().build();
     }
 
@@ -101,6 +141,24 @@ public class EGoPassController {
         return ResponseEntity.ok(eGoPassService.getEGoPass(id));
     }
 
+    @Operation(
+            summary = "Rechercher un eGoPass par numéro",
+            description = "Récupère un eGoPass par son numéro (EGP-XXXXXXXX-C). Casse, tirets et préfixe sont " +
+                    "indifférents ; un numéro dont le caractère de contrôle est faux est rejeté sans accès à la base."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "eGoPass trouvé",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = EGoPassDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Numéro invalide"),
+            @ApiResponse(responseCode = "404", description = "eGoPass non trouvé")
+    })
+    @GetMapping("/by-number/{passNumber}")
+    public ResponseEntity<EGoPassDTO> getEGoPassByNumber(
+            @Parameter(description = "Numéro du eGoPass") @PathVariable String passNumber) {
+        return ResponseEntity.ok(eGoPassService.getEGoPassByNumber(passNumber));
+    }
+
     @Operation(
             summary = "Télécharger un eGoPass",
             description = "Génère et télécharge le PDF d'un eGoPass"
@@ -108,17 +166,50 @@ public class EGoPassController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "PDF généré avec succès",
                     content = @Content(mediaType = "application/pdf")),
+            @ApiResponse(responseCode = "206", description = "Plage du PDF demandée via l'en-tête Range",
+                    content = @Content(mediaType = "application/pdf")),
+            @ApiResponse(responseCode = "304", description = "Document inchangé (If-None-Match)"),
             @ApiResponse(responseCode = "404", description = "eGoPass non trouvé"),
+            @ApiResponse(responseCode = "416", description = "Plage demandée invalide"),
             @ApiResponse(responseCode = "500", description = "Erreur lors de la génération du PDF")
     })
     @GetMapping("/{id}/download")
-    public ResponseEntity<ByteArrayResource> downloadEGoPass(@Parameter(description = "ID du eGoPass") @PathVariable Long id) throws Exception {
-        // Récupérer le PDF généré
-        ByteArrayResource pdfResource = eGoPassService.generatePDF(id);
+    public void downloadEGoPass(@Parameter(description = "ID du eGoPass") @PathVariable Long id,
+                                HttpServletRequest request, HttpServletResponse response) throws Exception {
+        // Diffuser le PDF depuis le stockage, directement dans la réponse
+        DocumentContent pdfDocument = eGoPassService.getPDFDocument(id);
+        RangeDownloadSupport.write(pdfDocument, MediaType.APPLICATION_PDF, "egopass-" + id + ".pdf", request, response);
+    }
+
+    @Operation(
+            summary = "Image du QR code d'un eGoPass",
+            description = "Retourne le QR code d'un eGoPass en PNG ou en SVG, à la taille et avec la marge demandées. " +
+                    "La réponse porte un ETag fort : un client qui le renvoie dans If-None-Match reçoit 304 tant que l'image est inchangée."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Image du QR code",
+                    content = {@Content(mediaType = "image/png"), @Content(mediaType = "image/svg+xml")}),
+            @ApiResponse(responseCode = "304", description = "Image inchangée (If-None-Match)"),
+            @ApiResponse(responseCode = "400", description = "Taille ou marge invalide, ou eGoPass non trouvé"),
+            @ApiResponse(responseCode = "500", description = "Erreur lors de la génération du QR code")
+    })
+    @GetMapping("/{id}/qr-code")
+    public ResponseEntity<byte[]> getQRCode(
+            @Parameter(description = "ID du eGoPass") @PathVariable Long id,
+            @Parameter(description = "Format de l'image") @RequestParam(defaultValue = "PNG") QRCodeImageFormat format,
+            @Parameter(description = "Côté de l'image, en pixels (64 à 1200)") @RequestParam(defaultValue = "300") int size,
+            @Parameter(description = "Zone de silence, en modules (0 à 16)") @RequestParam(defaultValue = "4") int margin,
+            WebRequest request) {
+        QRCodeImage image = qrCodeImageService.getQRCodeImage(id, format, size, margin);
+        if (request.checkNotModified(image.getETag())) {
+            // Réponse 304 déjà préparée
+            return null;
+        }
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"egopass-" + id + ".pdf\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(pdfResource);
+                .contentType(MediaType.parseMediaType(image.getMediaType()))
+                .eTag(image.getETag())
+                // Toujours revalider : l'application mobile interroge l'image en continu, la 304 est peu coûteuse
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(image.getContent());
     }
 }
@@ -0,0 +1,51 @@
+package com.rva.egopass.controller;
+
+import com.rva.egopass.dto.PassPublicKeyDTO;
+import com.rva.egopass.payload.PassSigningKeys;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/public")
+@RequiredArgsConstructor
+@Tag(name = "Clés de signature", description = "Clés publiques de vérification des QR codes eGoPass")
+public class PassKeyController {
+    private final PassSigningKeys passSigningKeys;
+
+    @Operation(
+            summary = "Clés publiques des QR codes",
+            description = "Liste les clés Ed25519 permettant de vérifier hors ligne la signature des QR codes eGoPass. " +
+                    "Chaque QR code porte l'identifiant de la clé qui l'a signé ; les clés retirées restent publiées " +
+                    "tant que des passes signés avec elles sont en circulation."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Clés publiées")
+    })
+    @GetMapping("/pass-keys")
+    public ResponseEntity<List<PassPublicKeyDTO>> getPassKeys() {
+        List<PassPublicKeyDTO> keys = passSigningKeys.getPublicKeys().entrySet().stream()
+                .map(entry -> PassPublicKeyDTO.builder()
+                        .keyId(entry.getKey())
+                        .algorithm(entry.getValue().getAlgorithm())
+                        .publicKey(Base64.getEncoder().encodeToString(entry.getValue().getEncoded()))
+                        .active(entry.getKey().equals(passSigningKeys.getActiveKeyId()))
+                        .build())
+                .toList();
+        // Les lecteurs rafraîchissent leurs clés périodiquement
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofHours(1)).cachePublic())
+                .body(keys);
+    }
+}
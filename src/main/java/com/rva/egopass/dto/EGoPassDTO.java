@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Data
@@ -20,6 +21,7 @@ public class EGoPassDTO {
     private String flightNumber;
     private String origin;
     private String destination;
+    private LocalDate departureDate;
     private LocalDateTime issueDate;
     private String qrCodeUrl;
     private String downloadUrl;
@@ -19,6 +19,7 @@ public class EGoPassRequest {
     private String origin;
     private String destination;
     private String flightCompany;
+    private LocalDate departureDate;
 
     // Passenger Information
     private String firstName;
@@ -0,0 +1,23 @@
+package com.rva.egopass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GateSnapshot {
+    private String flightNumber; // null : tous les vols de la période
+    private LocalDate from;
+    private LocalDate to;
+    private long version; // à renvoyer en paramètre since pour obtenir les changements suivants
+    private boolean delta; // true : valid et used ne contiennent que les changements depuis since
+    private List<String> valid; // numéros des passes non utilisés, triés
+    private List<String> used; // numéros des passes déjà validés, triés
+}
@@ -0,0 +1,19 @@
+package com.rva.egopass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupEGoPassInitiationResponse {
+    private Long groupId;
+    private int passengerCount;
+    private String message;
+    private long expiresIn; // in seconds
+    private String transactionReference;
+    private String redirectUrl;
+}
@@ -0,0 +1,55 @@
+package com.rva.egopass.dto;
+
+import com.rva.egopass.enums.PaymentMethod;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupEGoPassRequest {
+    // Flight Information, shared by the whole group
+    private String flightType; // LOCAL or INTERNATIONAL
+    private String flightNumber;
+    private String origin;
+    private String destination;
+    private String flightCompany;
+    private LocalDate departureDate;
+
+    // Contact Information of the group
+    private String email;
+    private String phone;
+
+    private List<GroupPassengerRequest> passengers;
+
+    // payment, one for the whole group
+    private PaymentMethod paymentMethod;
+    private CardDetails cardDetails; // Only required for CREDIT_CARD
+
+    /**
+     * @return La demande individuelle équivalente pour un passager du groupe.
+     */
+    public EGoPassRequest toPassengerRequest(GroupPassengerRequest passenger) {
+        return EGoPassRequest.builder()
+                .flightType(flightType)
+                .flightNumber(flightNumber)
+                .origin(origin)
+                .destination(destination)
+                .flightCompany(flightCompany)
+                .departureDate(departureDate)
+                .firstName(passenger.getFirstName())
+                .lastName(passenger.getLastName())
+                .nationality(passenger.getNationality())
+                .passportNumber(passenger.getPassportNumber())
+                .passportIssueDate(passenger.getPassportIssueDate())
+                .email(email)
+                .phone(phone)
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.rva.egopass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupPassengerRequest {
+    private String firstName;
+    private String lastName;
+    private String nationality;
+    private String passportNumber;
+    private LocalDate passportIssueDate;
+}
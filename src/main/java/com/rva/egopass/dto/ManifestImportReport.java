@@ -0,0 +1,20 @@
+package com.rva.egopass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ManifestImportReport {
+    private int totalRows;
+    private int importedRows;
+    private int rejectedRows;
+    private List<ManifestRowError> errors;
+    private boolean errorsTruncated; // true si seules les premières erreurs sont listées
+}
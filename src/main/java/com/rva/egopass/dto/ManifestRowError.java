@@ -0,0 +1,16 @@
+package com.rva.egopass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ManifestRowError {
+    private int line; // numéro de ligne dans le fichier, en-tête compris
+    private String field;
+    private String message;
+}
@@ -0,0 +1,18 @@
+package com.rva.egopass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OfflineScan {
+    private String passNumber;
+    private String gate;
+    private LocalDateTime scannedAt; // heure de la lecture par le scanner
+}
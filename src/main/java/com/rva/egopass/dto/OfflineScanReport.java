@@ -0,0 +1,20 @@
+package com.rva.egopass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OfflineScanReport {
+    private int received;
+    private int applied;
+    private int conflicts; // passes utilisés plus d'une fois
+    private int rejected; // lectures invalides ou passes inconnus
+    private List<ScanRejectionDetail> rejections;
+}
@@ -0,0 +1,17 @@
+package com.rva.egopass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PassPublicKeyDTO {
+    private String keyId;
+    private String algorithm;
+    private String publicKey; // X.509 SubjectPublicKeyInfo, encodé en Base64
+    private boolean active;
+}
@@ -0,0 +1,16 @@
+package com.rva.egopass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PassValidationRequest {
+    private String qrContent; // texte lu dans le QR code ; prioritaire sur passNumber
+    private String passNumber; // saisie manuelle, si le QR code est illisible
+    private String gate;
+}
@@ -0,0 +1,28 @@
+package com.rva.egopass.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PassValidationResponse {
+    private String passNumber;
+    private String firstName;
+    private String lastName;
+    private String nationality;
+    private String passportNumber;
+    private String flightNumber;
+    private String origin;
+    private String destination;
+    private LocalDate departureDate;
+    private LocalDateTime validationDate;
+    private String gate;
+    private boolean legacyPayload; // QR code JSON non signé (ancien format) : contrôler le passager manuellement
+}
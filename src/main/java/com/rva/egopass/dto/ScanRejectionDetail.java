@@ -0,0 +1,21 @@
+package com.rva.egopass.dto;
+
+import com.rva.egopass.enums.ScanRejection;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanRejectionDetail {
+    private int index; // position de la lecture dans le lot
+    private String passNumber;
+    private ScanRejection reason;
+    private LocalDateTime validationDate; // validation retenue, pour ALREADY_VALIDATED
+    private String validationGate;
+}
@@ -0,0 +1,9 @@
+package com.rva.egopass.enums;
+
+/**
+ * Formats acceptés pour l'import d'un manifeste de passagers.
+ */
+public enum ManifestFormat {
+    CSV, // text/csv, première ligne = noms des colonnes
+    NDJSON // application/x-ndjson, un objet JSON par ligne
+}
@@ -0,0 +1,7 @@
+package com.rva.egopass.enums;
+
+public enum OutboxStatus {
+    PENDING, // À traiter, éventuellement après un délai de nouvelle tentative
+    DONE,
+    FAILED   // Abandonné : erreur définitive ou tentatives épuisées
+}
@@ -0,0 +1,6 @@
+package com.rva.egopass.enums;
+
+public enum PassExportFormat {
+    ZIP, // Une entrée PDF par e-GoPass
+    PDF  // Un seul PDF regroupant tous les e-GoPass
+}
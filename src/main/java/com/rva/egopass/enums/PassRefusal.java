@@ -0,0 +1,7 @@
+package com.rva.egopass.enums;
+
+public enum PassRefusal {
+    EXPIRED,              // Date d'expiration du passe dépassée
+    WRONG_DATE,           // Vol d'un autre jour que celui du contrôle
+    RESERVATION_INACTIVE  // Réservation annulée, expirée ou non payée
+}
@@ -0,0 +1,6 @@
+package com.rva.egopass.enums;
+
+public enum PdfRenderingMode {
+    TEMPLATE, // Gabarit statique pré-rendu, seuls les champs du pass sont apposés
+    LAYOUT    // Reconstruction complète du document via le moteur de mise en page iText
+}
@@ -0,0 +1,6 @@
+package com.rva.egopass.enums;
+
+public enum QRCodeImageFormat {
+    PNG, // Image matricielle, aux dimensions demandées
+    SVG  // Dessin vectoriel, exprimé en modules
+}
@@ -0,0 +1,6 @@
+package com.rva.egopass.enums;
+
+public enum RenderPriority {
+    INTERACTIVE, // Un utilisateur attend le document (téléchargement)
+    BACKGROUND   // Pré-rendu après émission du pass
+}
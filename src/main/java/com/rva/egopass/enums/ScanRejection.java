@@ -0,0 +1,7 @@
+package com.rva.egopass.enums;
+
+public enum ScanRejection {
+    INVALID,           // Numéro, porte ou date de lecture manquant ou mal formé
+    UNKNOWN_PASS,
+    ALREADY_VALIDATED  // Passe déjà utilisé, éventuellement par une lecture précédente du même lot
+}
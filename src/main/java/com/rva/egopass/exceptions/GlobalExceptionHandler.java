@@ -5,6 +5,7 @@ import com.rva.egopass.common.APIResponse;
 import com.rva.egopass.common.StatusConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -58,7 +59,8 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(InvalidReservationStateException.class)
     public ResponseEntity<APIResponse<?>> handleInvalidReservationStateException(InvalidReservationStateException ex) {
-        logger.error("Product error: {}", ex.getMessage(), ex);
+        // Erreur attendue (requête rejouée, réservation déjà payée) : pas de trace de pile
+        logger.warn("Product error: {}", ex.getMessage());
         APIResponse<?> response = new APIResponse<>(
                 StatusConstants.REQUEST_FAILURE_STATUS,
                 ex.getErrorCode(),
@@ -82,6 +84,21 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(response);
     }
 
+    @ExceptionHandler(PaymentGatewayUnavailableException.class)
+    public ResponseEntity<APIResponse<?>> handlePaymentGatewayUnavailableException(PaymentGatewayUnavailableException ex) {
+        logger.warn("Payment gateway unavailable: {}", ex.getMessage());
+        APIResponse<?> response = new APIResponse<>(
+                StatusConstants.REQUEST_FAILURE_STATUS,
+                ex.getErrorCode(),
+                ex.getMessage(),
+                null,
+                null
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "10")
+                .body(response);
+    }
+
     @ExceptionHandler(PDFGenerationException.class)
     public ResponseEntity<APIResponse<?>> handlePDFGenerationException(PDFGenerationException ex) {
         logger.error("Product error: {}", ex.getMessage(), ex);
@@ -95,6 +112,62 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(response);
     }
 
+    @ExceptionHandler(PassAlreadyValidatedException.class)
+    public ResponseEntity<APIResponse<?>> handlePassAlreadyValidatedException(PassAlreadyValidatedException ex) {
+        // Refus attendu à l'embarquement : pas de trace de pile
+        logger.warn("Pass already validated: {}", ex.getMessage());
+        APIResponse<?> response = new APIResponse<>(
+                StatusConstants.REQUEST_FAILURE_STATUS,
+                ex.getErrorCode(),
+                ex.getMessage(),
+                null,
+                null
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    @ExceptionHandler(PassRefusedException.class)
+    public ResponseEntity<APIResponse<?>> handlePassRefusedException(PassRefusedException ex) {
+        // Refus attendu à l'embarquement : pas de trace de pile
+        logger.warn("Pass refused: {}", ex.getMessage());
+        APIResponse<?> response = new APIResponse<>(
+                StatusConstants.REQUEST_FAILURE_STATUS,
+                ex.getErrorCode(),
+                ex.getMessage(),
+                null,
+                null
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    @ExceptionHandler(InvalidPassPayloadException.class)
+    public ResponseEntity<APIResponse<?>> handleInvalidPassPayloadException(InvalidPassPayloadException ex) {
+        logger.warn("Invalid pass payload: {}", ex.getMessage());
+        APIResponse<?> response = new APIResponse<>(
+                StatusConstants.REQUEST_FAILURE_STATUS,
+                ex.getErrorCode(),
+                ex.getMessage(),
+                null,
+                null
+        );
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    @ExceptionHandler(PDFRenderingOverloadedException.class)
+    public ResponseEntity<APIResponse<?>> handlePDFRenderingOverloadedException(PDFRenderingOverloadedException ex) {
+        logger.warn("PDF rendering overloaded: {}", ex.getMessage());
+        APIResponse<?> response = new APIResponse<>(
+                StatusConstants.REQUEST_FAILURE_STATUS,
+                ex.getErrorCode(),
+                ex.getMessage(),
+                null,
+                null
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(response);
+    }
+
     @ExceptionHandler(QRCodeGenerationException.class)
     public ResponseEntity<APIResponse<?>> handleQRCodeGenerationException(QRCodeGenerationException ex) {
         logger.error("Product error: {}", ex.getMessage(), ex);
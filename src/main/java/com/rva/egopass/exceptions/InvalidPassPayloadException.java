@@ -0,0 +1,18 @@
+package com.rva.egopass.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class InvalidPassPayloadException extends RuntimeException {
+    private final String errorCode;
+
+    public InvalidPassPayloadException(String message) {
+        super(message);
+        this.errorCode = "INVALID_PASS_PAYLOAD";
+    }
+
+    public InvalidPassPayloadException(String message, Throwable cause) {
+        super(message, cause);
+        this.errorCode = "INVALID_PASS_PAYLOAD";
+    }
+}
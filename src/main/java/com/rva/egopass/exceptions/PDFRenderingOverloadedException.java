@@ -0,0 +1,14 @@
+package com.rva.egopass.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class PDFRenderingOverloadedException extends RuntimeException {
+    private final String errorCode;
+
+    public PDFRenderingOverloadedException(String message) {
+        super(message);
+        this.errorCode = "PDF_RENDERING_OVERLOADED";
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.rva.egopass.exceptions;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+public class PassAlreadyValidatedException extends RuntimeException {
+    private final String errorCode;
+    private final LocalDateTime validationDate;
+    private final String validationGate;
+
+    public PassAlreadyValidatedException(String passNumber, LocalDateTime validationDate, String validationGate) {
+        super("EGoPass " + passNumber + " already validated on " + validationDate
+                + (validationGate != null ? " at gate " + validationGate : ""));
+        this.errorCode = "PASS_ALREADY_VALIDATED";
+        this.validationDate = validationDate;
+        this.validationGate = validationGate;
+    }
+}
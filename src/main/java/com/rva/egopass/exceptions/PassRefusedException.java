@@ -0,0 +1,16 @@
+package com.rva.egopass.exceptions;
+
+import com.rva.egopass.enums.PassRefusal;
+import lombok.Getter;
+
+@Getter
+public class PassRefusedException extends RuntimeException {
+    private final String errorCode;
+    private final PassRefusal refusal;
+
+    public PassRefusedException(String passNumber, PassRefusal refusal) {
+        super("EGoPass " + passNumber + " refused: " + refusal);
+        this.errorCode = refusal.name();
+        this.refusal = refusal;
+    }
+}
@@ -0,0 +1,14 @@
+package com.rva.egopass.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class PaymentGatewayUnavailableException extends RuntimeException {
+    private final String errorCode;
+
+    public PaymentGatewayUnavailableException(String message) {
+        super(message);
+        this.errorCode = "PAYMENT_GATEWAY_UNAVAILABLE";
+    }
+
+}
@@ -19,6 +19,7 @@ public interface EGoPassMapper {
     @Mapping(target = "origin", source = "origin")
     @Mapping(target = "destination", source = "destination")
     @Mapping(target = "flightCompany", source = "flightCompany")
+    @Mapping(target = "departureDate", source = "departureDate")
     FlightInfo mapToFlightInfo(EGoPassRequest request);
 
     @Mapping(target = "firstName", source = "firstName")
@@ -35,6 +36,7 @@ public interface EGoPassMapper {
     @Mapping(target = "flightNumber", source = "flightInfo.flightNumber")
     @Mapping(target = "origin", source = "flightInfo.origin")
     @Mapping(target = "destination", source = "flightInfo.destination")
+    @Mapping(target = "departureDate", source = "flightInfo.departureDate")
     @Mapping(target = "issueDate", source = "issueDate")
     @Mapping(target = "qrCodeUrl", expression = "java(generateQrCodeUrl(egopass.getId()))")
     @Mapping(target = "downloadUrl", expression = "java(generateDownloadUrl(egopass.getId()))")
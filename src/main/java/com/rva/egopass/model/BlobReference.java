@@ -0,0 +1,19 @@
+package com.rva.egopass.model;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class BlobReference {
+
+    private String blobKey;   // Clé du contenu dans le BlobStore
+    private Long sizeBytes;
+    private String sha256;    // Empreinte hexadécimale du contenu
+}
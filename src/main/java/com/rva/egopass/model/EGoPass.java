@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.SourceType;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
@@ -13,13 +15,16 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "egopasses")
+// Index des instantanés par date de vol (PassValidationRepository.findSummaries)
+@Table(name = "egopasses", indexes = @Index(name = "idx_egopasses_departure_date", columnList = "departure_date"))
 public class EGoPass {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Index unique : recherche au contrôle par numéro, et garde-fou contre un doublon
+    @Column(unique = true)
     private String passNumber;
 
     @OneToOne
@@ -32,13 +37,26 @@ public class EGoPass {
     @Embedded
     private FlightInfo flightInfo;
 
-    @Lob
-    @Column(name = "qr_code_image")
-    private byte[] qrCodeImage;
+    // Contenu encodé dans le QR code, dessiné en vectoriel dans le PDF
+    @Column(name = "qr_code_payload", length = 2048)
+    private String qrCodePayload;
 
-    @Lob
-    @Column(name = "pdf_document")
-    private byte[] pdfDocument;
+    // Image QR (e-GoPass émis avant le rendu vectoriel) et PDF stockés dans le BlobStore : seule leur référence est en base
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "blobKey", column = @Column(name = "qr_code_blob_key")),
+            @AttributeOverride(name = "sizeBytes", column = @Column(name = "qr_code_size")),
+            @AttributeOverride(name = "sha256", column = @Column(name = "qr_code_sha256", length = 64))
+    })
+    private BlobReference qrCodeBlob;
+
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "blobKey", column = @Column(name = "pdf_blob_key")),
+            @AttributeOverride(name = "sizeBytes", column = @Column(name = "pdf_size")),
+            @AttributeOverride(name = "sha256", column = @Column(name = "pdf_sha256", length = 64))
+    })
+    private BlobReference pdfBlob;
 
     private LocalDateTime issueDate;
     private LocalDateTime expiryDate;
@@ -46,6 +64,13 @@ public class EGoPass {
     private boolean validated = false;
     private LocalDateTime validationDate;
 
+    @Column(name = "validation_gate", length = 50)
+    private String validationGate;
+
+    // Horloge de la base : sert de version aux instantanés des portes (GateSnapshotService)
+    @UpdateTimestamp(source = SourceType.DB)
+    private LocalDateTime lastModifiedAt;
+
     @ManyToOne
     @JoinColumn(name = "validation_user_id")
     private User user;
@@ -6,6 +6,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -18,5 +20,6 @@ public class FlightInfo {
     private String origin;
     private String destination;
     private String flightCompany;
+    private LocalDate departureDate;
 }
 
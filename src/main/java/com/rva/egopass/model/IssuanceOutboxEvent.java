@@ -0,0 +1,55 @@
+package com.rva.egopass.model;
+
+import com.rva.egopass.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Demande d'émission d'un e-GoPass, enregistrée dans la même transaction que le résultat du paiement
+ * et traitée ensuite par {@link com.rva.egopass.service.IssuanceOutboxWorker}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "issuance_outbox",
+        indexes = @Index(name = "idx_issuance_outbox_due", columnList = "status, next_attempt_at"))
+public class IssuanceOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Une seule demande par réservation : un callback rejoué n'en crée pas de nouvelle
+    @Column(name = "reservation_id", nullable = false, unique = true)
+    private Long reservationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Tant que cette date n'est pas dépassée, la demande est en cours de traitement par un nœud
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
@@ -16,17 +16,22 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = @Index(name = "idx_payments_reservation_group_id", columnList = "reservation_group_id"))
 public class Payment {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Pour un paiement de groupe : la première réservation du groupe
     @OneToOne
     @JoinColumn(name = "reservation_id", nullable = false)
     private Reservation reservation;
 
+    @ManyToOne
+    @JoinColumn(name = "reservation_group_id")
+    private ReservationGroup reservationGroup;
+
     private BigDecimal amount;
 
     @Enumerated(EnumType.STRING)
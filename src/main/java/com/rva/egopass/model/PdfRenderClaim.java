@@ -0,0 +1,29 @@
+package com.rva.egopass.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "pdf_render_claims")
+public class PdfRenderClaim {
+
+    // Une seule réservation de rendu par e-GoPass, tous nœuds confondus
+    @Id
+    @Column(name = "egopass_id")
+    private Long eGoPassId;
+
+    @Column(name = "node_id", nullable = false)
+    private String nodeId;
+
+    @Column(name = "claimed_at", nullable = false)
+    private LocalDateTime claimedAt;
+}
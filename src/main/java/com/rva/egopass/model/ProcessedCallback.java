@@ -0,0 +1,36 @@
+package com.rva.egopass.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Callback de paiement déjà traité, identifié par sa référence de transaction.
+ * Un callback rejoué par la passerelle est acquitté avec le résultat enregistré, sans nouveau traitement.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "processed_callbacks")
+public class ProcessedCallback {
+
+    @Id
+    @Column(name = "transaction_reference", length = 100)
+    private String transactionReference;
+
+    @Column(name = "reservation_id")
+    private Long reservationId;
+
+    // Null tant que la transaction qui traite le callback n'est pas validée
+    @Column(name = "confirmed")
+    private Boolean confirmed;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+}
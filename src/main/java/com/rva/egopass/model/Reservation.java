@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "reservations")
+// Index de l'expiration des réservations en attente (ReservationExpiryJob)
+@Table(name = "reservations", indexes = @Index(name = "idx_reservations_status_expires_at", columnList = "status, expires_at"))
 public class Reservation {
 
     @Id
@@ -25,6 +26,11 @@ public class Reservation {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // Renseigné pour les réservations de groupe, réglées par un seul paiement
+    @ManyToOne
+    @JoinColumn(name = "group_id")
+    private ReservationGroup group;
+
     @Embedded
     private PassengerInfo passengerInfo;
 
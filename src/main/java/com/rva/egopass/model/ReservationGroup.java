@@ -0,0 +1,36 @@
+package com.rva.egopass.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Réservation de groupe (famille, voyage organisé) : plusieurs passagers d'un même vol,
+ * réglés par un seul paiement.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "reservation_groups")
+public class ReservationGroup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "passenger_count", nullable = false)
+    private int passengerCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,85 @@
+package com.rva.egopass.payload;
+
+import java.util.Arrays;
+
+/**
+ * Encodage Base45 (RFC 9285). L'alphabet est celui du mode alphanumérique des QR codes :
+ * une chaîne Base45 y est encodée à 5,5 bits par caractère, contre 8 en mode octet.
+ */
+public final class Base45 {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:".toCharArray();
+    private static final int[] VALUES = new int[128];
+
+    static {
+        Arrays.fill(VALUES, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = i;
+        }
+    }
+
+    private Base45() {
+    }
+
+    /**
+     * @param data Les octets à encoder.
+     * @return La chaîne Base45 : trois caractères par paire d'octets, deux pour un octet final isolé.
+     */
+    public static String encode(byte[] data) {
+        StringBuilder builder = new StringBuilder((data.length / 2) * 3 + (data.length % 2) * 2);
+        int i = 0;
+        for (; i + 1 < data.length; i += 2) {
+            int value = (data[i] & 0xFF) << 8 | (data[i + 1] & 0xFF);
+            builder.append(ALPHABET[value % 45]);
+            builder.append(ALPHABET[value / 45 % 45]);
+            builder.append(ALPHABET[value / (45 * 45)]);
+        }
+        if (i < data.length) {
+            int value = data[i] & 0xFF;
+            builder.append(ALPHABET[value % 45]);
+            builder.append(ALPHABET[value / 45]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @param text La chaîne Base45.
+     * @return Les octets décodés.
+     * @throws IllegalArgumentException Si la chaîne contient un caractère hors alphabet, a une longueur
+     *                                  invalide ou un groupe dépassant sa valeur maximale.
+     */
+    public static byte[] decode(CharSequence text) {
+        int length = text.length();
+        if (length % 3 == 1) {
+            throw new IllegalArgumentException("Longueur Base45 invalide : " + length);
+        }
+        byte[] data = new byte[(length / 3) * 2 + (length % 3 == 2 ? 1 : 0)];
+        int out = 0;
+        int i = 0;
+        for (; i + 2 < length; i += 3) {
+            int value = value(text, i) + value(text, i + 1) * 45 + value(text, i + 2) * 45 * 45;
+            if (value > 0xFFFF) {
+                throw new IllegalArgumentException("Groupe Base45 invalide à la position " + i);
+            }
+            data[out++] = (byte) (value >> 8);
+            data[out++] = (byte) value;
+        }
+        if (i < length) {
+            int value = value(text, i) + value(text, i + 1) * 45;
+            if (value > 0xFF) {
+                throw new IllegalArgumentException("Groupe Base45 invalide à la position " + i);
+            }
+            data[out] = (byte) value;
+        }
+        return data;
+    }
+
+    private static int value(CharSequence text, int index) {
+        char c = text.charAt(index);
+        int value = c < VALUES.length ? VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Caractère Base45 invalide à la position " + index);
+        }
+        return value;
+    }
+}
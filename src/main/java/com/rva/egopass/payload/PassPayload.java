@@ -0,0 +1,27 @@
+package com.rva.egopass.payload;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Contenu du QR code d'un e-GoPass : le numéro du pass et les informations contrôlées à la porte.
+ * Le détail complet du passager reste en base, retrouvé à partir du numéro.
+ */
+@Value
+@Builder(toBuilder = true)
+public class PassPayload {
+
+    String passNumber;
+    String flightNumber;
+    String origin;
+    String destination;
+    /** Date du vol, absente pour les réservations antérieures à sa saisie. */
+    LocalDate departureDate;
+    /** Nom du passager, tronqué à {@value PassPayloadCodec#MAX_PASSENGER_NAME_LENGTH} caractères. */
+    String passengerName;
+    /** Date d'émission, à la seconde près. */
+    LocalDateTime issueDate;
+}
@@ -0,0 +1,160 @@
+package com.rva.egopass.payload;
+
+import com.rva.egopass.exceptions.InvalidPassPayloadException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Encode et décode le contenu signé du QR code d'un e-GoPass, côté émission comme côté contrôle.
+ * <p>
+ * Les nouveaux contenus sont en version 2 : signés en Ed25519 avec la clé active de {@link PassSigningKeys},
+ * ils se vérifient hors ligne avec {@link PassPayloadVerifier}. La version 1, signée par un HMAC-SHA256 tronqué
+ * à 8 octets ({@code version (1) | corps | HMAC (8)}), n'est acceptée au décodage que si
+ * {@code app.pass-payload.accept-version-1} l'autorise, le temps que les passes émis avant Ed25519 expirent :
+ * quiconque détient sa clé peut en fabriquer. Cette clé, secrète, n'est lue que dans l'environnement ; seul le
+ * profil {@code test} s'en passe, et refuse alors les contenus en version 1.
+ * Le tout est encodé en Base45 derrière le préfixe {@value #PREFIX}, ce qui reste dans l'alphabet du mode
+ * alphanumérique des QR codes.
+ */
+@Component
+public class PassPayloadCodec {
+
+    public static final String PREFIX = PassPayloadFormat.PREFIX;
+    public static final int MAX_PASSENGER_NAME_LENGTH = PassPayloadFormat.MAX_PASSENGER_NAME_LENGTH;
+
+    static final int HMAC_SIGNATURE_LENGTH = 8;
+
+    private static final int MIN_KEY_LENGTH = 32;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final PassSigningKeys signingKeys;
+    private final PassPayloadVerifier verifier;
+    private final ThreadLocal<Mac> mac;
+    private final ThreadLocal<Signature> signer;
+
+    /**
+     * @param signingKeys         Les clés Ed25519 de signature.
+     * @param acceptVersion1      Si les contenus en version 1 sont acceptés (désactivé par défaut).
+     * @param hmacKey             La clé HMAC des contenus en version 1 (hexadécimal), ignorée s'ils sont refusés.
+     * @param allowMissingHmacKey Si la clé HMAC peut manquer (profil test) : les contenus en version 1 sont
+     *                            alors refusés.
+     * @throws IllegalStateException Si la version 1 est acceptée sans clé HMAC hors de ce profil, ou si la clé
+     *                               est trop courte.
+     */
+    public PassPayloadCodec(PassSigningKeys signingKeys,
+                            @Value("${app.pass-payload.accept-version-1:false}") boolean acceptVersion1,
+                            @Value("${app.pass-payload.signing-key:}") String hmacKey,
+                            @Value("#{environment.matchesProfiles('test')}") boolean allowMissingHmacKey) {
+        if (acceptVersion1 && hmacKey.isBlank() && !allowMissingHmacKey) {
+            throw new IllegalStateException("Aucune clé HMAC des QR codes version 1 configurée "
+                    + "(app.pass-payload.signing-key, variable PASS_PAYLOAD_SIGNING_KEY)");
+        }
+        this.signingKeys = signingKeys;
+        this.verifier = new PassPayloadVerifier(signingKeys.getPublicKeys());
+        this.mac = !acceptVersion1 || hmacKey.isBlank() ? null : hmac(hmacKey);
+        this.signer = ThreadLocal.withInitial(() -> {
+            try {
+                Signature instance = Signature.getInstance(PassPayloadVerifier.SIGNATURE_ALGORITHM);
+                instance.initSign(signingKeys.getActivePrivateKey());
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Ed25519 indisponible", e);
+            }
+        });
+    }
+
+    private static ThreadLocal<Mac> hmac(String hmacKey) {
+        byte[] key = HexFormat.of().parseHex(hmacKey.trim());
+        if (key.length < MIN_KEY_LENGTH) {
+            throw new IllegalStateException("La clé de signature des QR codes doit faire au moins "
+                    + MIN_KEY_LENGTH + " octets");
+        }
+        SecretKeySpec keySpec = new SecretKeySpec(key, HMAC_ALGORITHM);
+        return ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+                instance.init(keySpec);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 indisponible", e);
+            }
+        });
+    }
+
+    /**
+     * Encode et signe un contenu avec la clé active (version 2).
+     *
+     * @param payload Le contenu à encoder.
+     * @return Le texte à placer dans le QR code.
+     */
+    public String encode(PassPayload payload) {
+        byte[] keyId = PassPayloadFormat.utf8(signingKeys.getActiveKeyId());
+        byte[] body = PassPayloadFormat.writeBody(payload);
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 + keyId.length + body.length + PassPayloadVerifier.SIGNATURE_LENGTH);
+        buffer.put(PassPayloadFormat.VERSION_2);
+        PassPayloadFormat.putString(buffer, keyId);
+        buffer.put(body);
+        try {
+            // Après un sign(), l'instance est réinitialisée avec la même clé
+            Signature instance = signer.get();
+            instance.update(buffer.array(), 0, buffer.position());
+            buffer.put(instance.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Échec de la signature du QR code", e);
+        }
+        return PassPayloadFormat.toText(buffer.array());
+    }
+
+    /**
+     * Décode un contenu de QR code après vérification de sa signature, quelle que soit sa version.
+     *
+     * @param text Le texte lu dans le QR code.
+     * @return Le contenu décodé.
+     * @throws InvalidPassPayloadException Si le texte n'est pas un contenu e-GoPass, si sa version n'est pas
+     *                                     prise en charge ou si sa signature est invalide.
+     */
+    public PassPayload decode(String text) {
+        byte[] data = PassPayloadFormat.fromText(text);
+        return switch (data[0]) {
+            case PassPayloadFormat.VERSION_2 -> verifier.verify(data);
+            case PassPayloadFormat.VERSION_1 -> decodeVersion1(data);
+            default -> throw new InvalidPassPayloadException("Version du contenu du QR code non prise en charge");
+        };
+    }
+
+    /**
+     * @return Le vérificateur des contenus en version 2, fondé sur les seules clés publiques.
+     */
+    public PassPayloadVerifier getVerifier() {
+        return verifier;
+    }
+
+    private PassPayload decodeVersion1(byte[] data) {
+        if (mac == null) {
+            throw new InvalidPassPayloadException("Version du contenu du QR code non prise en charge");
+        }
+        int signedLength = data.length - HMAC_SIGNATURE_LENGTH;
+        if (signedLength < 2) {
+            throw new InvalidPassPayloadException("Contenu du QR code tronqué");
+        }
+
+        Mac instance = mac.get();
+        instance.update(data, 0, signedLength);
+        byte[] expected = Arrays.copyOf(instance.doFinal(), HMAC_SIGNATURE_LENGTH);
+        byte[] actual = Arrays.copyOfRange(data, signedLength, data.length);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new InvalidPassPayloadException("Signature du QR code invalide");
+        }
+        return PassPayloadFormat.readBody(ByteBuffer.wrap(data, 1, signedLength - 1));
+    }
+}
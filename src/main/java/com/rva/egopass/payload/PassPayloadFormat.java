@@ -0,0 +1,142 @@
+package com.rva.egopass.payload;
+
+import com.rva.egopass.exceptions.InvalidPassPayloadException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Mise en octets du contenu du QR code, commune à toutes les versions du format.
+ * <p>
+ * Corps (entiers big-endian) :
+ * <pre>
+ *   flags (1) | émission, secondes epoch UTC (4) | [date du vol, jour epoch (2)]
+ *   | numéro du pass | numéro de vol | origine | destination | nom du passager
+ * </pre>
+ * Chaque chaîne est précédée de sa longueur UTF-8 sur un octet ; le bit 0 des flags signale la date du vol.
+ * Le texte du QR code est l'encodage Base45 des octets, derrière le préfixe {@value #PREFIX}.
+ */
+final class PassPayloadFormat {
+
+    static final String PREFIX = "EGP:";
+    static final int MAX_PASSENGER_NAME_LENGTH = 20;
+
+    static final byte VERSION_1 = 1; // HMAC-SHA256 tronqué, vérifiable par le serveur seul
+    static final byte VERSION_2 = 2; // Ed25519, vérifiable hors ligne avec la clé publique
+
+    private static final int FLAG_DEPARTURE_DATE = 1;
+
+    private PassPayloadFormat() {
+    }
+
+    static byte[] writeBody(PassPayload payload) {
+        byte[] passNumber = utf8(payload.getPassNumber());
+        byte[] flightNumber = utf8(payload.getFlightNumber());
+        byte[] origin = utf8(payload.getOrigin());
+        byte[] destination = utf8(payload.getDestination());
+        byte[] passengerName = utf8(truncate(payload.getPassengerName()));
+        LocalDate departureDate = payload.getDepartureDate();
+
+        int length = 5 + (departureDate != null ? 2 : 0)
+                + 5 + passNumber.length + flightNumber.length + origin.length + destination.length + passengerName.length;
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put((byte) (departureDate != null ? FLAG_DEPARTURE_DATE : 0));
+        buffer.putInt((int) payload.getIssueDate().toEpochSecond(ZoneOffset.UTC));
+        if (departureDate != null) {
+            buffer.putShort((short) departureDate.toEpochDay());
+        }
+        putString(buffer, passNumber);
+        putString(buffer, flightNumber);
+        putString(buffer, origin);
+        putString(buffer, destination);
+        putString(buffer, passengerName);
+        return buffer.array();
+    }
+
+    /**
+     * Lit le corps jusqu'à la fin du tampon.
+     *
+     * @throws InvalidPassPayloadException Si le corps est tronqué ou suivi d'octets inattendus.
+     */
+    static PassPayload readBody(ByteBuffer buffer) {
+        try {
+            int flags = buffer.get();
+            LocalDateTime issueDate = LocalDateTime.ofEpochSecond(buffer.getInt() & 0xFFFFFFFFL, 0, ZoneOffset.UTC);
+            LocalDate departureDate = (flags & FLAG_DEPARTURE_DATE) != 0
+                    ? LocalDate.ofEpochDay(buffer.getShort() & 0xFFFF)
+                    : null;
+            PassPayload payload = PassPayload.builder()
+                    .issueDate(issueDate)
+                    .departureDate(departureDate)
+                    .passNumber(getString(buffer))
+                    .flightNumber(getString(buffer))
+                    .origin(getString(buffer))
+                    .destination(getString(buffer))
+                    .passengerName(getString(buffer))
+                    .build();
+            if (buffer.hasRemaining()) {
+                throw new InvalidPassPayloadException("Contenu du QR code malformé");
+            }
+            return payload;
+        } catch (BufferUnderflowException e) {
+            throw new InvalidPassPayloadException("Contenu du QR code tronqué", e);
+        }
+    }
+
+    static String toText(byte[] data) {
+        return PREFIX + Base45.encode(data);
+    }
+
+    /**
+     * @throws InvalidPassPayloadException Si le texte n'est pas un contenu e-GoPass lisible.
+     */
+    static byte[] fromText(String text) {
+        if (text == null || !text.startsWith(PREFIX)) {
+            throw new InvalidPassPayloadException("Le QR code ne contient pas un e-GoPass");
+        }
+        byte[] data;
+        try {
+            data = Base45.decode(text.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPassPayloadException("Contenu du QR code illisible", e);
+        }
+        if (data.length == 0) {
+            throw new InvalidPassPayloadException("Contenu du QR code tronqué");
+        }
+        return data;
+    }
+
+    static void putString(ByteBuffer buffer, byte[] value) {
+        buffer.put((byte) value.length);
+        buffer.put(value);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        byte[] value = new byte[buffer.get() & 0xFF];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    static byte[] utf8(String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFF) {
+            throw new IllegalArgumentException("Champ trop long pour le QR code : " + value);
+        }
+        return bytes;
+    }
+
+    private static String truncate(String passengerName) {
+        if (passengerName == null || passengerName.length() <= MAX_PASSENGER_NAME_LENGTH) {
+            return passengerName;
+        }
+        int end = MAX_PASSENGER_NAME_LENGTH;
+        if (Character.isHighSurrogate(passengerName.charAt(end - 1))) {
+            end--;
+        }
+        return passengerName.substring(0, end);
+    }
+}
@@ -0,0 +1,85 @@
+package com.rva.egopass.payload;
+
+import com.rva.egopass.exceptions.InvalidPassPayloadException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Vérifie hors ligne le contenu signé (version 2) du QR code d'un e-GoPass : seules les clés publiques
+ * sont nécessaires, sans accès à la base ni au secret du serveur. Le même code peut être embarqué
+ * dans les lecteurs aux portes.
+ * <p>
+ * Format version 2 :
+ * <pre>
+ *   version (1) | identifiant de clé (chaîne) | corps (voir {@link PassPayloadFormat}) | signature Ed25519 (64)
+ * </pre>
+ * La signature couvre tous les octets qui la précèdent, identifiant de clé compris.
+ */
+public final class PassPayloadVerifier {
+
+    static final String SIGNATURE_ALGORITHM = "Ed25519";
+    static final int SIGNATURE_LENGTH = 64;
+
+    private final Map<String, PublicKey> publicKeys;
+
+    /**
+     * @param publicKeys Les clés publiques acceptées, par identifiant (clé active et clés retirées).
+     */
+    public PassPayloadVerifier(Map<String, PublicKey> publicKeys) {
+        this.publicKeys = Map.copyOf(publicKeys);
+    }
+
+    /**
+     * @param text Le texte lu dans le QR code.
+     * @return Le contenu du pass, authentifié.
+     * @throws InvalidPassPayloadException Si le contenu n'est pas un e-GoPass en version 2, si la clé est inconnue
+     *                                     ou si la signature est invalide.
+     */
+    public PassPayload verify(String text) {
+        return verify(PassPayloadFormat.fromText(text));
+    }
+
+    PassPayload verify(byte[] data) {
+        if (data[0] != PassPayloadFormat.VERSION_2) {
+            throw new InvalidPassPayloadException("Version du contenu du QR code non prise en charge");
+        }
+        int signedLength = data.length - SIGNATURE_LENGTH;
+        if (signedLength < 2) {
+            throw new InvalidPassPayloadException("Contenu du QR code tronqué");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data, 1, signedLength - 1);
+        int keyIdLength = buffer.get() & 0xFF;
+        if (keyIdLength > buffer.remaining()) {
+            throw new InvalidPassPayloadException("Contenu du QR code tronqué");
+        }
+        String keyId = new String(data, buffer.position(), keyIdLength, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + keyIdLength);
+
+        PublicKey publicKey = publicKeys.get(keyId);
+        if (publicKey == null) {
+            throw new InvalidPassPayloadException("Clé de signature du QR code inconnue : " + keyId);
+        }
+        if (!isValid(publicKey, data, signedLength)) {
+            throw new InvalidPassPayloadException("Signature du QR code invalide");
+        }
+        return PassPayloadFormat.readBody(buffer);
+    }
+
+    private static boolean isValid(PublicKey publicKey, byte[] data, int signedLength) {
+        try {
+            Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
+            signature.initVerify(publicKey);
+            signature.update(data, 0, signedLength);
+            return signature.verify(Arrays.copyOfRange(data, signedLength, data.length));
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.rva.egopass.payload;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Clés Ed25519 de signature des QR codes. La clé active signe les nouveaux passes ; les clés retirées,
+ * dont seule la partie publique est conservée, continuent de valider les passes déjà émis.
+ * Une clé doit être configurée : une paire générée au démarrage ne serait connue que d'une instance, jusqu'à son
+ * arrêt. Seuls les profils {@code dev} et {@code test} s'en passent, avec une paire éphémère.
+ */
+@Component
+@Slf4j
+public class PassSigningKeys {
+
+    private final String activeKeyId;
+    private final PrivateKey activePrivateKey;
+    private final Map<String, PublicKey> publicKeys;
+
+    /**
+     * @param keyId             L'identifiant de la clé active.
+     * @param privateKey        La clé privée active (PKCS#8, Base64).
+     * @param publicKey         La clé publique active (X.509, Base64).
+     * @param retiredPublicKeys Les clés publiques retirées, sous la forme {@code identifiant:clé X.509 Base64}.
+     * @param allowEphemeralKey Si une paire éphémère peut remplacer une clé absente (profils dev et test).
+     * @throws IllegalStateException Si aucune clé n'est configurée hors de ces profils, ou si une clé est invalide.
+     */
+    public PassSigningKeys(@Value("${app.pass-payload.signing.key-id:}") String keyId,
+                           @Value("${app.pass-payload.signing.private-key:}") String privateKey,
+                           @Value("${app.pass-payload.signing.public-key:}") String publicKey,
+                           @Value("${app.pass-payload.signing.retired-public-keys:}") List<String> retiredPublicKeys,
+                           @Value("#{environment.matchesProfiles('dev', 'test')}") boolean allowEphemeralKey) {
+        if (privateKey.isBlank() && !allowEphemeralKey) {
+            throw new IllegalStateException("Aucune clé de signature des QR codes configurée "
+                    + "(app.pass-payload.signing.private-key) : les QR codes ne seraient vérifiables que par cette "
+                    + "instance, jusqu'à son arrêt. Une clé éphémère n'est admise qu'avec les profils dev ou test.");
+        }
+        Map<String, PublicKey> keys = new LinkedHashMap<>();
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(PassPayloadVerifier.SIGNATURE_ALGORITHM);
+            if (privateKey.isBlank()) {
+                KeyPair keyPair = KeyPairGenerator.getInstance(PassPayloadVerifier.SIGNATURE_ALGORITHM).generateKeyPair();
+                this.activeKeyId = "tmp-" + UUID.randomUUID().toString().substring(0, 8);
+                this.activePrivateKey = keyPair.getPrivate();
+                keys.put(activeKeyId, keyPair.getPublic());
+                log.warn("Aucune clé de signature des QR codes configurée : clé éphémère {} générée. "
+                        + "Les passes émis ne seront plus vérifiables après redémarrage.", activeKeyId);
+            } else {
+                if (keyId.isBlank() || publicKey.isBlank()) {
+                    throw new IllegalStateException("La clé de signature des QR codes doit avoir un identifiant "
+                            + "et une clé publique");
+                }
+                this.activeKeyId = keyId;
+                this.activePrivateKey = keyFactory.generatePrivate(
+                        new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKey.trim())));
+                keys.put(keyId, keyFactory.generatePublic(
+                        new X509EncodedKeySpec(Base64.getDecoder().decode(publicKey.trim()))));
+            }
+
+            for (String retired : retiredPublicKeys) {
+                if (retired.isBlank()) {
+                    continue;
+                }
+                int separator = retired.indexOf(':');
+                if (separator <= 0) {
+                    throw new IllegalStateException("Clé publique retirée invalide (identifiant:clé attendu) : " + retired);
+                }
+                keys.putIfAbsent(retired.substring(0, separator).trim(), keyFactory.generatePublic(
+                        new X509EncodedKeySpec(Base64.getDecoder().decode(retired.substring(separator + 1).trim()))));
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Clés de signature des QR codes invalides", e);
+        }
+        this.publicKeys = Collections.unmodifiableMap(keys);
+        log.info("Clés de signature des QR codes : active {}, {} clé(s) publique(s)", activeKeyId, publicKeys.size());
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    PrivateKey getActivePrivateKey() {
+        return activePrivateKey;
+    }
+
+    /**
+     * @return Les clés publiques acceptées, par identifiant ; la clé active en premier.
+     */
+    public Map<String, PublicKey> getPublicKeys() {
+        return publicKeys;
+    }
+}
@@ -1,21 +1,45 @@
 package com.rva.egopass.repository;
 
 
+import com.rva.egopass.model.BlobReference;
 import com.rva.egopass.model.EGoPass;
 import com.rva.egopass.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface EGoPassRepository extends JpaRepository<EGoPass, Long> {
     List<EGoPass> findByReservationUser(User user);
 
+    Optional<EGoPass> findByPassNumber(String passNumber);
+
+    @Query("SELECT e.pdfBlob FROM EGoPass e WHERE e.id = ?1 AND e.pdfBlob.blobKey IS NOT NULL")
+    Optional<BlobReference> findPdfBlob(Long id);
+
+    // Contenu du QR code seul, sans charger l'eGoPass
+    @Query("SELECT e.qrCodePayload FROM EGoPass e WHERE e.id = ?1")
+    Optional<String> findQrCodePayload(Long id);
+
+    @Query("SELECT e.qrCodeBlob FROM EGoPass e WHERE e.id = ?1 AND e.qrCodeBlob.blobKey IS NOT NULL")
+    Optional<BlobReference> findQrCodeBlob(Long id);
+
+    // N'écrase jamais la référence d'un PDF déjà enregistré
+    @Modifying
+    @Transactional
+    @Query("UPDATE EGoPass e SET e.pdfBlob.blobKey = ?2, e.pdfBlob.sizeBytes = ?3, e.pdfBlob.sha256 = ?4 " +
+            "WHERE e.id = ?1 AND e.pdfBlob.blobKey IS NULL")
+    int attachPdfBlob(Long id, String blobKey, Long sizeBytes, String sha256);
+
     @Query("SELECT e FROM EGoPass e WHERE e.reservation.user = ?1 ORDER BY e.issueDate DESC")
     Page<EGoPass> findByUserOrderByIssueDateDesc(User user, Pageable pageable);
 
@@ -26,4 +50,12 @@ public interface EGoPassRepository extends JpaRepository<EGoPass, Long> {
             "LOWER(e.reservation.passengerInfo.lastName) LIKE LOWER(CONCAT('%', ?1, '%')) OR " +
             "LOWER(e.reservation.flightInfo.flightNumber) LIKE LOWER(CONCAT('%', ?1, '%'))")
     List<EGoPass> searchEGoPasses(String searchTerm);
+
+    // Passes d'un vol à une date donnée ; sans date de départ renseignée, la date d'émission fait foi
+    @Query("SELECT e FROM EGoPass e WHERE UPPER(e.flightInfo.flightNumber) = UPPER(?1) AND " +
+            "(e.flightInfo.departureDate = ?2 OR " +
+            "(e.flightInfo.departureDate IS NULL AND e.issueDate >= ?3 AND e.issueDate < ?4)) " +
+            "ORDER BY e.passengerInfo.lastName, e.passengerInfo.firstName, e.id")
+    List<EGoPass> findByFlight(String flightNumber, LocalDate departureDate,
+                               LocalDateTime issuedFrom, LocalDateTime issuedUntil);
 }
@@ -0,0 +1,103 @@
+package com.rva.egopass.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * File des demandes d'émission d'e-GoPass (table {@code issuance_outbox}).
+ * Les demandes sont réservées par lots avec {@code FOR UPDATE SKIP LOCKED} : plusieurs nœuds
+ * peuvent consommer la file sans se bloquer ni traiter deux fois la même demande. Une réservation
+ * a une durée limitée, au-delà de laquelle la demande d'un nœud arrêté en plein traitement est reprise.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IssuanceOutboxRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record OutboxEntry(Long id, Long reservationId, int attempts) {
+    }
+
+    /**
+     * Ajoute une demande d'émission. À appeler dans la transaction qui enregistre le paiement.
+     *
+     * @param reservationId L'identifiant de la réservation payée.
+     * @return false si une demande existait déjà pour cette réservation.
+     */
+    public boolean enqueue(Long reservationId) {
+        return jdbcTemplate.update(
+                "INSERT INTO issuance_outbox (reservation_id, status, attempts, next_attempt_at, created_at) "
+                        + "VALUES (?, 'PENDING', 0, localtimestamp, localtimestamp) "
+                        + "ON CONFLICT (reservation_id) DO NOTHING",
+                reservationId) == 1;
+    }
+
+    /**
+     * Ajoute en un seul lot les demandes d'émission d'un paiement de groupe.
+     *
+     * @param reservationIds Les identifiants des réservations payées.
+     * @return Le nombre de demandes ajoutées, hors celles qui existaient déjà.
+     */
+    public int enqueueAll(List<Long> reservationIds) {
+        int[][] counts = jdbcTemplate.batchUpdate(
+                "INSERT INTO issuance_outbox (reservation_id, status, attempts, next_attempt_at, created_at) "
+                        + "VALUES (?, 'PENDING', 0, localtimestamp, localtimestamp) "
+                        + "ON CONFLICT (reservation_id) DO NOTHING",
+                reservationIds, reservationIds.size(), (ps, reservationId) -> ps.setLong(1, reservationId));
+        int inserted = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Statement.SUCCESS_NO_INFO : le pilote ne détaille pas, la ligne est comptée
+                inserted += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Réserve un lot de demandes échues et incrémente leur nombre de tentatives.
+     *
+     * @param limit Le nombre maximal de demandes.
+     * @param lease La durée de la réservation.
+     * @return Les demandes réservées, les plus anciennes d'abord.
+     */
+    public List<OutboxEntry> claimDue(int limit, Duration lease) {
+        return jdbcTemplate.query(
+                "UPDATE issuance_outbox SET locked_until = localtimestamp + make_interval(secs => ?), "
+                        + "attempts = attempts + 1 "
+                        + "WHERE id IN (SELECT id FROM issuance_outbox "
+                        + "WHERE status = 'PENDING' AND next_attempt_at <= localtimestamp "
+                        + "AND (locked_until IS NULL OR locked_until < localtimestamp) "
+                        + "ORDER BY next_attempt_at, id LIMIT ? FOR UPDATE SKIP LOCKED) "
+                        + "RETURNING id, reservation_id, attempts",
+                (rs, rowNum) -> new OutboxEntry(rs.getLong("id"), rs.getLong("reservation_id"), rs.getInt("attempts")),
+                lease.toMillis() / 1000.0, limit);
+    }
+
+    public void markDone(Long id) {
+        jdbcTemplate.update("UPDATE issuance_outbox SET status = 'DONE', processed_at = localtimestamp, "
+                + "locked_until = NULL, last_error = NULL WHERE id = ?", id);
+    }
+
+    /**
+     * Libère une demande en échec pour une nouvelle tentative après le délai indiqué.
+     */
+    public void scheduleRetry(Long id, String error, Duration delay) {
+        jdbcTemplate.update("UPDATE issuance_outbox SET next_attempt_at = localtimestamp + make_interval(secs => ?), "
+                + "locked_until = NULL, last_error = ? WHERE id = ?", delay.toMillis() / 1000.0, truncate(error), id);
+    }
+
+    public void markFailed(Long id, String error) {
+        jdbcTemplate.update("UPDATE issuance_outbox SET status = 'FAILED', processed_at = localtimestamp, "
+                + "locked_until = NULL, last_error = ? WHERE id = ?", truncate(error), id);
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+}
@@ -0,0 +1,227 @@
+package com.rva.egopass.repository;
+
+import com.rva.egopass.model.BlobReference;
+import com.rva.egopass.service.DocumentContent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Accès aux anciennes colonnes {@code qr_code_image} et {@code pdf_document}, stockées en large objects PostgreSQL
+ * avant le passage au BlobStore. Ces colonnes ne sont plus mappées par l'entité : elles ne sont lues que pour
+ * servir les documents pas encore migrés et pour la migration elle-même.
+ * Les documents sont lus par tranches ({@code lo_get}) : chaque tranche emprunte une connexion le temps
+ * d'une requête, si bien qu'un téléchargement ne monopolise ni le tas ni une connexion du pool.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LegacyDocumentRepository {
+
+    private static final int CHUNK_SIZE = 256 * 1024;
+    private static final int INV_READ = 0x40000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean legacyColumnsPresent;
+
+    /**
+     * Ligne possédant encore au moins un document en large object.
+     */
+    public record LegacyLobRow(Long id, Long qrCodeOid, Long pdfOid) {
+    }
+
+    /**
+     * @return true si la table egopasses possède encore les anciennes colonnes de documents.
+     */
+    public boolean hasLegacyColumns() {
+        Boolean present = legacyColumnsPresent;
+        if (present == null) {
+            Integer count = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM information_schema.columns WHERE table_schema = current_schema() "
+                            + "AND table_name = 'egopasses' AND column_name IN ('qr_code_image', 'pdf_document')",
+                    Integer.class);
+            present = count != null && count == 2;
+            legacyColumnsPresent = present;
+        }
+        return present;
+    }
+
+    /**
+     * Récupère les métadonnées du PDF non migré d'un e-GoPass sans charger son contenu.
+     *
+     * @param eGoPassId L'identifiant du e-GoPass.
+     * @return Le document, ou vide si le e-GoPass n'a pas de PDF en large object.
+     */
+    public Optional<DocumentContent> findPdfDocument(Long eGoPassId) {
+        if (!hasLegacyColumns()) {
+            return Optional.empty();
+        }
+        List<DocumentContent> documents = jdbcTemplate.query(
+                "SELECT e.pdf_document AS oid, lo_lseek64(lo_open(e.pdf_document, " + INV_READ + "), 0, 2) AS size "
+                        + "FROM egopasses e WHERE e.id = ? AND e.pdf_document IS NOT NULL",
+                (rs, rowNum) -> new LargeObjectDocument(eGoPassId, rs.getLong("oid"), rs.getLong("size")),
+                eGoPassId);
+        return documents.stream().findFirst();
+    }
+
+    /**
+     * @param afterId Identifiant de la dernière ligne déjà parcourue (0 pour commencer au début).
+     * @param limit   Nombre maximal de lignes.
+     * @return Les lignes suivantes possédant encore un document en large object, par identifiant croissant.
+     */
+    public List<LegacyLobRow> findRowsWithLegacyLobs(long afterId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT e.id, e.qr_code_image, e.pdf_document FROM egopasses e "
+                        + "WHERE (e.qr_code_image IS NOT NULL OR e.pdf_document IS NOT NULL) AND e.id > ? "
+                        + "ORDER BY e.id LIMIT ?",
+                (rs, rowNum) -> new LegacyLobRow(
+                        rs.getLong("id"),
+                        (Long) rs.getObject("qr_code_image"),
+                        (Long) rs.getObject("pdf_document")),
+                afterId, limit);
+    }
+
+    /**
+     * Lit un large object en entier.
+     *
+     * @param oid L'OID du large object.
+     * @return Son contenu.
+     */
+    public byte[] readLargeObject(long oid) {
+        return jdbcTemplate.queryForObject("SELECT lo_get(CAST(? AS oid))", byte[].class, oid);
+    }
+
+    /**
+     * Remplace l'image QR en large object d'un e-GoPass par sa référence dans le BlobStore, puis supprime
+     * le large object. La référence existante est conservée si le e-GoPass en possède déjà une.
+     *
+     * @return true si la ligne a été migrée.
+     */
+    public boolean replaceQrCodeImage(Long eGoPassId, long oid, BlobReference reference) {
+        return replace("qr_code_image", "qr_code", eGoPassId, oid, reference);
+    }
+
+    /**
+     * Remplace le PDF en large object d'un e-GoPass par sa référence dans le BlobStore, puis supprime
+     * le large object. La référence existante est conservée si le e-GoPass en possède déjà une.
+     *
+     * @return true si la ligne a été migrée.
+     */
+    public boolean replacePdfDocument(Long eGoPassId, long oid, BlobReference reference) {
+        return replace("pdf_document", "pdf", eGoPassId, oid, reference);
+    }
+
+    private boolean replace(String lobColumn, String blobPrefix, Long eGoPassId, long oid, BlobReference reference) {
+        String key = blobPrefix + "_blob_key";
+        int updated = jdbcTemplate.update(
+                "UPDATE egopasses SET "
+                        + key + " = CASE WHEN " + key + " IS NULL THEN ? ELSE " + key + " END, "
+                        + blobPrefix + "_size = CASE WHEN " + key + " IS NULL THEN ? ELSE " + blobPrefix + "_size END, "
+                        + blobPrefix + "_sha256 = CASE WHEN " + key + " IS NULL THEN ? ELSE " + blobPrefix + "_sha256 END, "
+                        + lobColumn + " = NULL "
+                        + "WHERE id = ? AND " + lobColumn + " = CAST(? AS oid)",
+                reference.getBlobKey(), reference.getSizeBytes(), reference.getSha256(), eGoPassId, oid);
+        if (updated == 1) {
+            jdbcTemplate.queryForObject("SELECT lo_unlink(CAST(? AS oid))", Integer.class, oid);
+        }
+        return updated == 1;
+    }
+
+    private byte[] readChunk(long oid, long offset, int length) {
+        return jdbcTemplate.queryForObject("SELECT lo_get(CAST(? AS oid), ?, ?)", byte[].class, oid, offset, length);
+    }
+
+    /**
+     * PDF stocké dans un large object. L'OID change à chaque réécriture du document, il sert donc d'ETag fort.
+     */
+    private final class LargeObjectDocument implements DocumentContent {
+
+        private final long oid;
+        private final long size;
+        private final String eTag;
+
+        private LargeObjectDocument(Long eGoPassId, long oid, long size) {
+            this.oid = oid;
+            this.size = size;
+            this.eTag = "\"" + eGoPassId + "-" + oid + "\"";
+        }
+
+        @Override
+        public long getContentLength() {
+            return size;
+        }
+
+        @Override
+        public String getETag() {
+            return eTag;
+        }
+
+        @Override
+        public InputStream openStream(long offset, long length) {
+            return new LargeObjectInputStream(oid, offset, Math.min(size, offset + length));
+        }
+    }
+
+    /**
+     * Flux lisant un large object par tranches de {@link #CHUNK_SIZE} octets.
+     */
+    private final class LargeObjectInputStream extends InputStream {
+
+        private final long oid;
+        private final long end;
+        private long position;
+        private byte[] chunk = new byte[0];
+        private int chunkIndex;
+
+        private LargeObjectInputStream(long oid, long start, long end) {
+            this.oid = oid;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return chunk[chunkIndex++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(length, chunk.length - chunkIndex);
+            System.arraycopy(chunk, chunkIndex, buffer, offset, count);
+            chunkIndex += count;
+            return count;
+        }
+
+        private boolean fill() throws IOException {
+            if (chunkIndex < chunk.length) {
+                return true;
+            }
+            if (position >= end) {
+                return false;
+            }
+            int length = (int) Math.min(CHUNK_SIZE, end - position);
+            byte[] next = readChunk(oid, position, length);
+            if (next == null || next.length == 0) {
+                throw new IOException("Large object " + oid + " tronqué à la position " + position);
+            }
+            chunk = next;
+            chunkIndex = 0;
+            position += next.length;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.rva.egopass.repository;
+
+import com.rva.egopass.enums.ScanRejection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Application en une seule requête d'un lot de lectures faites hors ligne par les scanners des portes.
+ * Les lectures sont passées en tableaux et dépliées par {@code unnest} ; pour chaque passe, la première
+ * lecture du lot est appliquée si le passe n'est pas encore validé. Les passes sont verrouillés par
+ * identifiant croissant avant la mise à jour : deux lots qui se recoupent ne peuvent pas s'interbloquer.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OfflineScanRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Scan(int index, String passNumber, String gate, LocalDateTime scannedAt) {
+    }
+
+    /**
+     * Lecture non appliquée. Pour un passe déjà utilisé, la validation retenue : celle déjà en base,
+     * ou la première lecture du lot.
+     */
+    public record Rejected(int index, String passNumber, ScanRejection reason,
+                           LocalDateTime validationDate, String validationGate) {
+    }
+
+    /**
+     * @param scans   Les lectures, numéros canoniques.
+     * @param agentId L'utilisateur qui transmet le lot.
+     * @return Les lectures non appliquées ; toutes les autres l'ont été.
+     */
+    public List<Rejected> apply(List<Scan> scans, Long agentId) {
+        String sql = "WITH scans AS (SELECT * FROM unnest(?::int[], ?::text[], ?::text[], ?::timestamp[]) "
+                + "AS s(scan_index, pass_number, gate, scanned_at)), "
+                + "first_scans AS (SELECT DISTINCT ON (pass_number) scan_index, pass_number, gate, scanned_at FROM scans "
+                + "ORDER BY pass_number, scanned_at, scan_index), "
+                + "locked AS (SELECT e.id, f.gate, f.scanned_at FROM egopasses e JOIN first_scans f "
+                + "ON f.pass_number = e.pass_number WHERE e.validated = false ORDER BY e.id FOR UPDATE OF e), "
+                + "applied AS (UPDATE egopasses e SET validated = true, validation_date = l.scanned_at, "
+                + "validation_gate = l.gate, validation_user_id = ?, last_modified_at = localtimestamp "
+                + "FROM locked l WHERE e.id = l.id AND e.validated = false RETURNING e.pass_number) "
+                + "SELECT s.scan_index, s.pass_number, "
+                + "CASE WHEN e.id IS NULL THEN 'UNKNOWN_PASS' ELSE 'ALREADY_VALIDATED' END AS reason, "
+                + "CASE WHEN e.validated THEN e.validation_date WHEN f.scan_index <> s.scan_index THEN f.scanned_at END AS validation_date, "
+                + "CASE WHEN e.validated THEN e.validation_gate WHEN f.scan_index <> s.scan_index THEN f.gate END AS validation_gate "
+                + "FROM scans s JOIN first_scans f ON f.pass_number = s.pass_number "
+                + "LEFT JOIN egopasses e ON e.pass_number = s.pass_number "
+                + "WHERE NOT (f.scan_index = s.scan_index AND EXISTS (SELECT 1 FROM applied a WHERE a.pass_number = s.pass_number)) "
+                + "ORDER BY s.scan_index";
+
+        Integer[] indexes = new Integer[scans.size()];
+        String[] numbers = new String[scans.size()];
+        String[] gates = new String[scans.size()];
+        Timestamp[] scannedAt = new Timestamp[scans.size()];
+        for (int i = 0; i < scans.size(); i++) {
+            Scan scan = scans.get(i);
+            indexes[i] = scan.index();
+            numbers[i] = scan.passNumber();
+            gates[i] = scan.gate();
+            scannedAt[i] = Timestamp.valueOf(scan.scannedAt());
+        }
+
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("int4", indexes));
+            statement.setArray(2, connection.createArrayOf("text", numbers));
+            statement.setArray(3, connection.createArrayOf("text", gates));
+            statement.setArray(4, connection.createArrayOf("timestamp", scannedAt));
+            statement.setLong(5, agentId);
+            return statement;
+        }, (rs, rowNum) -> {
+            Timestamp validationDate = rs.getTimestamp("validation_date");
+            return new Rejected(rs.getInt("scan_index"), rs.getString("pass_number"),
+                    ScanRejection.valueOf(rs.getString("reason")),
+                    validationDate != null ? validationDate.toLocalDateTime() : null,
+                    rs.getString("validation_gate"));
+        });
+    }
+}
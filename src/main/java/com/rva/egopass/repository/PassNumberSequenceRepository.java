@@ -0,0 +1,43 @@
+package com.rva.egopass.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Séquence {@code egopass_number_seq} des numéros d'e-GoPass, consommée par blocs : chaque appel à
+ * {@code nextval} réserve un bloc dont la taille est le pas de la séquence. Lire ce pas en même temps
+ * que la valeur garantit des blocs disjoints, même si le pas a été modifié entre deux démarrages.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PassNumberSequenceRepository {
+
+    static final String SEQUENCE_NAME = "egopass_number_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean sequenceCreated;
+
+    public record Block(long start, int size) {
+    }
+
+    /**
+     * Réserve le prochain bloc de numéros, en créant la séquence au premier appel si nécessaire.
+     *
+     * @param blockSize Le pas donné à la séquence si elle est créée.
+     * @return Le bloc réservé, valeurs {@code [start, start + size)}.
+     */
+    public Block allocateBlock(int blockSize) {
+        if (!sequenceCreated) {
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE_NAME
+                    + " START WITH 1 MINVALUE 1 INCREMENT BY " + blockSize);
+            sequenceCreated = true;
+        }
+        return jdbcTemplate.queryForObject(
+                "SELECT nextval('" + SEQUENCE_NAME + "') AS start, "
+                        + "(SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() "
+                        + "AND sequencename = '" + SEQUENCE_NAME + "') AS size",
+                (rs, rowNum) -> new Block(rs.getLong("start"), rs.getInt("size")));
+    }
+}
@@ -0,0 +1,165 @@
+package com.rva.egopass.repository;
+
+import com.rva.egopass.dto.PassValidationResponse;
+import com.rva.egopass.enums.PassRefusal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Validation des e-GoPass à l'embarquement. Un passe est marqué utilisé par un seul {@code UPDATE} conditionnel,
+ * validé dès son exécution : entre plusieurs lectures simultanées du même passe, seule la première modifie
+ * la ligne, les autres la trouvent déjà validée une fois son verrou libéré et ne modifient rien. Le même
+ * {@code UPDATE} écarte les passes inutilisables : expirés, d'un vol d'un autre jour ou d'une réservation qui
+ * n'est plus payée (annulée, expirée).
+ * Les passes d'une période de vols y sont aussi lus, pour l'index de validation comme pour les instantanés des portes.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PassValidationRepository {
+
+    private static final String SUMMARY_COLUMNS = "pass_number, validated, validation_date, validation_gate, "
+            + "first_name, last_name, nationality, passport_number, flight_number, origin, destination, departure_date";
+
+    private static final RowMapper<PassSummary> SUMMARY_MAPPER = (rs, rowNum) -> {
+        Timestamp validationDate = rs.getTimestamp("validation_date");
+        Date departureDate = rs.getDate("departure_date");
+        return new PassSummary(
+                rs.getString("pass_number"),
+                rs.getBoolean("validated"),
+                validationDate != null ? validationDate.toLocalDateTime() : null,
+                rs.getString("validation_gate"),
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getString("nationality"),
+                rs.getString("passport_number"),
+                rs.getString("flight_number"),
+                rs.getString("origin"),
+                rs.getString("destination"),
+                departureDate != null ? departureDate.toLocalDate() : null);
+    };
+
+    // Conditions d'usage d'un passe ; les paramètres sont la tolérance sur la date du vol, en jours, deux fois
+    private static final String NOT_EXPIRED = "(expiry_date IS NULL OR expiry_date >= localtimestamp)";
+    private static final String FLIGHT_TODAY = "(departure_date BETWEEN current_date - ? AND current_date + ?)";
+    private static final String RESERVATION_ACTIVE = "EXISTS (SELECT 1 FROM reservations r "
+            + "WHERE r.id = egopasses.reservation_id AND r.status = 'COMPLETED')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param refusal La raison pour laquelle le passe ne peut pas être validé, ou null s'il peut l'être.
+     */
+    public record ValidationState(boolean validated, LocalDateTime validationDate, String validationGate,
+                                  PassRefusal refusal) {
+    }
+
+    /**
+     * État de validation d'un passe et résumé de son passager.
+     */
+    public record PassSummary(String passNumber, boolean validated, LocalDateTime validationDate, String validationGate,
+                              String firstName, String lastName, String nationality, String passportNumber,
+                              String flightNumber, String origin, String destination, LocalDate departureDate) {
+
+        public PassSummary validatedAt(LocalDateTime date, String gate) {
+            return new PassSummary(passNumber, true, date, gate, firstName, lastName, nationality, passportNumber,
+                    flightNumber, origin, destination, departureDate);
+        }
+
+        public PassValidationResponse toResponse() {
+            return PassValidationResponse.builder()
+                    .passNumber(passNumber)
+                    .firstName(firstName)
+                    .lastName(lastName)
+                    .nationality(nationality)
+                    .passportNumber(passportNumber)
+                    .flightNumber(flightNumber)
+                    .origin(origin)
+                    .destination(destination)
+                    .departureDate(departureDate)
+                    .validationDate(validationDate)
+                    .gate(validationGate)
+                    .build();
+        }
+    }
+
+    /**
+     * Marque le passe utilisé s'il ne l'est pas encore et s'il est utilisable aujourd'hui.
+     *
+     * @param passNumber             Le numéro canonique du passe.
+     * @param gate                   La porte d'embarquement.
+     * @param agentId                L'utilisateur qui a lu le passe.
+     * @param departureToleranceDays Écart admis, en jours, entre la date du vol et celle du contrôle.
+     * @return Le passe validé, ou vide si le passe est inconnu, déjà utilisé ou inutilisable.
+     */
+    public Optional<PassSummary> markValidated(String passNumber, String gate, Long agentId,
+                                               int departureToleranceDays) {
+        return jdbcTemplate.query(
+                "UPDATE egopasses SET validated = true, validation_date = localtimestamp, validation_gate = ?, "
+                        + "validation_user_id = ?, last_modified_at = localtimestamp WHERE pass_number = ? AND validated = false "
+                        + "AND " + NOT_EXPIRED + " AND " + FLIGHT_TODAY + " AND " + RESERVATION_ACTIVE + " "
+                        + "RETURNING " + SUMMARY_COLUMNS,
+                SUMMARY_MAPPER, gate, agentId, passNumber, departureToleranceDays, departureToleranceDays)
+                .stream().findFirst();
+    }
+
+    /**
+     * @return L'état de validation du passe, lu après un échec de {@link #markValidated} pour en donner la raison.
+     */
+    public Optional<ValidationState> findValidationState(String passNumber, int departureToleranceDays) {
+        return jdbcTemplate.query(
+                "SELECT validated, validation_date, validation_gate, NOT " + NOT_EXPIRED + " AS expired, "
+                        + "NOT COALESCE(" + FLIGHT_TODAY + ", false) AS wrong_date, "
+                        + "NOT " + RESERVATION_ACTIVE + " AS reservation_inactive "
+                        + "FROM egopasses WHERE pass_number = ?",
+                (rs, rowNum) -> {
+                    Timestamp validationDate = rs.getTimestamp("validation_date");
+                    PassRefusal refusal = rs.getBoolean("expired") ? PassRefusal.EXPIRED
+                            : rs.getBoolean("wrong_date") ? PassRefusal.WRONG_DATE
+                            : rs.getBoolean("reservation_inactive") ? PassRefusal.RESERVATION_INACTIVE
+                            : null;
+                    return new ValidationState(rs.getBoolean("validated"),
+                            validationDate != null ? validationDate.toLocalDateTime() : null,
+                            rs.getString("validation_gate"), refusal);
+                },
+                departureToleranceDays, departureToleranceDays, passNumber).stream().findFirst();
+    }
+
+    /**
+     * @return L'heure courante de la base, horloge des dates de modification des passes.
+     */
+    public LocalDateTime currentTimestamp() {
+        return jdbcTemplate.queryForObject("SELECT localtimestamp", LocalDateTime.class);
+    }
+
+    /**
+     * @param flightNumber Le numéro de vol, ou null pour tous les vols.
+     * @param from         La première date de vol.
+     * @param to           La dernière date de vol.
+     * @param since        Si renseignée, seuls les passes modifiés après cette date sont lus.
+     * @return Les passes des vols de la période, sans ordre garanti ni chargement des entités.
+     */
+    public List<PassSummary> findSummaries(String flightNumber, LocalDate from, LocalDate to, LocalDateTime since) {
+        StringBuilder sql = new StringBuilder("SELECT " + SUMMARY_COLUMNS + " FROM egopasses "
+                + "WHERE departure_date BETWEEN ? AND ? AND pass_number IS NOT NULL");
+        List<Object> args = new ArrayList<>(List.of(from, to));
+        if (flightNumber != null) {
+            sql.append(" AND UPPER(flight_number) = UPPER(?)");
+            args.add(flightNumber);
+        }
+        if (since != null) {
+            sql.append(" AND last_modified_at > ?");
+            args.add(since);
+        }
+        return jdbcTemplate.query(sql.toString(), SUMMARY_MAPPER, args.toArray());
+    }
+}
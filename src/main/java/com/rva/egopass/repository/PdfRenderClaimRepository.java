@@ -0,0 +1,47 @@
+package com.rva.egopass.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+
+/**
+ * Réservations de rendu PDF partagées entre les nœuds de l'application.
+ * Un nœud ne rend le PDF d'un e-GoPass qu'après avoir obtenu sa réservation ; une réservation
+ * non libérée (nœud arrêté en plein rendu) expire au bout de sa durée de validité.
+ * Les dates sont celles du serveur de base de données, commun à tous les nœuds.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PdfRenderClaimRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Tente de réserver le rendu du PDF d'un e-GoPass.
+     *
+     * @param eGoPassId L'identifiant du e-GoPass.
+     * @param nodeId    L'identifiant du nœud demandeur.
+     * @param ttl       Durée au-delà de laquelle une réservation existante est considérée comme abandonnée.
+     * @return true si la réservation est obtenue.
+     */
+    public boolean tryClaim(Long eGoPassId, String nodeId, Duration ttl) {
+        int updated = jdbcTemplate.update(
+                "INSERT INTO pdf_render_claims (egopass_id, node_id, claimed_at) VALUES (?, ?, localtimestamp) "
+                        + "ON CONFLICT (egopass_id) DO UPDATE SET node_id = EXCLUDED.node_id, claimed_at = EXCLUDED.claimed_at "
+                        + "WHERE pdf_render_claims.claimed_at < localtimestamp - make_interval(secs => ?)",
+                eGoPassId, nodeId, ttl.toMillis() / 1000.0);
+        return updated == 1;
+    }
+
+    /**
+     * Libère la réservation du rendu, si elle appartient toujours au nœud.
+     *
+     * @param eGoPassId L'identifiant du e-GoPass.
+     * @param nodeId    L'identifiant du nœud.
+     */
+    public void release(Long eGoPassId, String nodeId) {
+        jdbcTemplate.update("DELETE FROM pdf_render_claims WHERE egopass_id = ? AND node_id = ?", eGoPassId, nodeId);
+    }
+}
@@ -0,0 +1,54 @@
+package com.rva.egopass.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Registre des callbacks de paiement traités (table {@code processed_callbacks}).
+ * La référence de transaction est la clé primaire : deux traitements concurrents du même callback
+ * se sérialisent sur l'insertion, le second attendant la fin du premier pour lire son résultat.
+ * Seule une confirmation est définitive : un paiement encore en attente ou refusé peut être confirmé par
+ * un callback ultérieur, qui reprend alors le traitement.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProcessedCallbackRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Réserve le traitement d'un callback. À appeler dans la transaction qui traite le callback.
+     *
+     * @param transactionReference La référence de transaction du callback.
+     * @param reservationId        La réservation concernée.
+     * @return false si le paiement a déjà été confirmé.
+     */
+    public boolean claim(String transactionReference, Long reservationId) {
+        return jdbcTemplate.update(
+                "INSERT INTO processed_callbacks (transaction_reference, reservation_id, processed_at) "
+                        + "VALUES (?, ?, localtimestamp) ON CONFLICT (transaction_reference) DO UPDATE "
+                        + "SET reservation_id = EXCLUDED.reservation_id, processed_at = EXCLUDED.processed_at, confirmed = NULL "
+                        + "WHERE processed_callbacks.confirmed IS NOT TRUE",
+                transactionReference, reservationId) == 1;
+    }
+
+    public void complete(String transactionReference, boolean confirmed) {
+        jdbcTemplate.update("UPDATE processed_callbacks SET confirmed = ? WHERE transaction_reference = ?",
+                confirmed, transactionReference);
+    }
+
+    /**
+     * @param transactionReference La référence de transaction du callback.
+     * @return Le résultat enregistré, vide si le callback n'a pas été traité.
+     */
+    public Optional<Boolean> findOutcome(String transactionReference) {
+        List<Boolean> outcomes = jdbcTemplate.queryForList(
+                "SELECT confirmed FROM processed_callbacks WHERE transaction_reference = ? AND confirmed IS NOT NULL",
+                Boolean.class, transactionReference);
+        return outcomes.stream().findFirst();
+    }
+}
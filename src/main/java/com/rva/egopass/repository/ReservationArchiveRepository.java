@@ -0,0 +1,166 @@
+package com.rva.egopass.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Archive des réservations terminées (table {@code reservations_archive}, partitionnée par mois de création).
+ * Une réservation est archivée avec son e-GoPass, ses paiements et son groupe, en un document JSONB par réservation,
+ * puis supprimée des tables courantes : les requêtes courantes ne parcourent plus que les données récentes.
+ * Un groupe est supprimé avec sa dernière réservation.
+ * <p>
+ * Les tables courantes restent non partitionnées : leurs clés {@code IDENTITY} sont référencées par des clés
+ * étrangères et gérées par Hibernate, ce qu'une table partitionnée (clé primaire incluant la clé de partition)
+ * ne permet pas. Les documents sont compressés par TOAST dès 128 octets ; les PDF et images restent dans
+ * le BlobStore, l'archive en garde la référence.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReservationArchiveRepository {
+
+    static final String TABLE_NAME = "reservations_archive";
+
+    // Date de rattachement d'une réservation à sa partition, identique au choix et à l'insertion
+    private static final String CREATED_AT = "COALESCE(r.created_at, e.issue_date, r.updated_at, localtimestamp)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean tableCreated;
+
+    public record Candidate(long reservationId, YearMonth month) {
+    }
+
+    /**
+     * Crée la table d'archive au premier appel si nécessaire.
+     */
+    public void ensureArchiveTable() {
+        if (tableCreated) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " ("
+                + "reservation_id bigint NOT NULL, created_at timestamp NOT NULL, status varchar(30), "
+                + "pass_number varchar(255), passport_number varchar(255), archived_at timestamp NOT NULL, "
+                + "document jsonb NOT NULL, PRIMARY KEY (created_at, reservation_id)) "
+                + "PARTITION BY RANGE (created_at)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_reservations_archive_pass_number ON "
+                + TABLE_NAME + " (pass_number)");
+        tableCreated = true;
+    }
+
+    /**
+     * Crée la partition d'un mois si elle n'existe pas.
+     */
+    public void ensurePartition(YearMonth month) {
+        LocalDate start = month.atDay(1);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF " + TABLE_NAME
+                + " FOR VALUES FROM ('" + start + "') TO ('" + start.plusMonths(1) + "') "
+                + "WITH (toast_tuple_target = 128)");
+    }
+
+    /**
+     * Verrouille un lot de réservations à archiver : paiement échoué, annulées ou expirées avant la date limite,
+     * ou dont l'e-GoPass n'est plus valable depuis la date limite (fin de validité, à défaut lendemain du vol,
+     * à défaut date d'émission). Les réservations dont un document est encore en large object sont laissées
+     * à la migration vers le BlobStore.
+     *
+     * @param cutoff              La date limite.
+     * @param legacyColumnsExist  true si la table egopasses a encore les anciennes colonnes de documents.
+     * @param limit               La taille du lot.
+     */
+    public List<Candidate> lockArchivable(LocalDateTime cutoff, boolean legacyColumnsExist, int limit) {
+        return jdbcTemplate.query(
+                "SELECT r.id, date_trunc('month', " + CREATED_AT + ")::date AS month "
+                        + "FROM reservations r LEFT JOIN egopasses e ON e.reservation_id = r.id "
+                        + "WHERE ((r.status = 'COMPLETED' AND e.id IS NOT NULL "
+                        + "AND COALESCE(e.expiry_date, (r.departure_date + 1)::timestamp, e.issue_date) < ?) "
+                        + "OR (r.status IN ('PAYMENT_FAILED', 'CANCELLED', 'EXPIRED') "
+                        + "AND COALESCE(r.updated_at, r.expires_at, r.created_at) < ?)) "
+                        + (legacyColumnsExist ? "AND e.qr_code_image IS NULL AND e.pdf_document IS NULL " : "")
+                        + "ORDER BY r.id LIMIT ? FOR UPDATE OF r SKIP LOCKED",
+                (rs, rowNum) -> new Candidate(rs.getLong("id"),
+                        YearMonth.from(rs.getDate("month").toLocalDate())),
+                cutoff, cutoff, limit);
+    }
+
+    /**
+     * Copie les réservations dans l'archive puis les supprime, avec leur e-GoPass, leurs paiements et leurs
+     * demandes d'émission, en une seule requête. Les partitions des réservations doivent exister.
+     *
+     * @param reservationIds Les réservations verrouillées par {@link #lockArchivable}.
+     * @return Le nombre de réservations archivées.
+     */
+    public int archive(List<Long> reservationIds) {
+        Long[] ids = reservationIds.toArray(Long[]::new);
+        Integer archived = jdbcTemplate.queryForObject(
+                "WITH archived AS (INSERT INTO " + TABLE_NAME + " (reservation_id, created_at, status, pass_number, "
+                        + "passport_number, archived_at, document) "
+                        + "SELECT r.id, " + CREATED_AT + ", r.status, e.pass_number, r.passport_number, localtimestamp, "
+                        + "jsonb_build_object('reservation', to_jsonb(r), 'egopass', to_jsonb(e), "
+                        + "'payments', (SELECT COALESCE(jsonb_agg(to_jsonb(p)), '[]'::jsonb) FROM payments p "
+                        + "WHERE p.reservation_id = r.id), 'group', to_jsonb(g)) "
+                        + "FROM reservations r LEFT JOIN egopasses e ON e.reservation_id = r.id "
+                        + "LEFT JOIN reservation_groups g ON g.id = r.group_id "
+                        + "WHERE r.id = ANY(?) RETURNING reservation_id), "
+                        + "claims AS (DELETE FROM pdf_render_claims WHERE egopass_id IN "
+                        + "(SELECT e.id FROM egopasses e JOIN archived a ON a.reservation_id = e.reservation_id)), "
+                        + "passes AS (DELETE FROM egopasses WHERE reservation_id IN (SELECT reservation_id FROM archived)), "
+                        + "payments AS (DELETE FROM payments WHERE reservation_id IN (SELECT reservation_id FROM archived)), "
+                        + "outbox AS (DELETE FROM issuance_outbox WHERE reservation_id IN (SELECT reservation_id FROM archived)), "
+                        + "deleted AS (DELETE FROM reservations WHERE id IN (SELECT reservation_id FROM archived) RETURNING id, group_id), "
+                        // Toutes les requêtes voient l'état initial : les réservations et paiements restants du groupe
+                        // sont ceux qui ne sont pas supprimés ici
+                        + "groups AS (DELETE FROM reservation_groups g WHERE g.id IN (SELECT group_id FROM deleted) "
+                        + "AND NOT EXISTS (SELECT 1 FROM reservations r WHERE r.group_id = g.id AND r.id <> ALL(?)) "
+                        + "AND NOT EXISTS (SELECT 1 FROM payments p WHERE p.reservation_group_id = g.id "
+                        + "AND p.reservation_id <> ALL(?))) "
+                        + "SELECT count(*) FROM deleted",
+                Integer.class, ids, ids, ids);
+        return archived != null ? archived : 0;
+    }
+
+    /**
+     * @return Les mois des partitions attachées à l'archive.
+     */
+    public List<YearMonth> findPartitions() {
+        return jdbcTemplate.query(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = '" + TABLE_NAME + "' AND p.relnamespace = current_schema()::regnamespace "
+                        + "ORDER BY c.relname",
+                (rs, rowNum) -> monthOf(rs.getString("relname")));
+    }
+
+    /**
+     * @return true si une réservation des tables courantes serait archivée dans la partition de ce mois, quel que
+     * soit son état : tant que c'est le cas, la partition ne doit pas être détachée.
+     */
+    public boolean hasLiveReservations(YearMonth month) {
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM reservations r LEFT JOIN egopasses e ON e.reservation_id = r.id "
+                        + "WHERE " + CREATED_AT + " >= ? AND " + CREATED_AT + " < ?)",
+                Boolean.class, month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+        return Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Détache la partition d'un mois : elle devient une table autonome, à exporter ou supprimer hors de l'application.
+     */
+    public void detachPartition(YearMonth month) {
+        jdbcTemplate.execute("ALTER TABLE " + TABLE_NAME + " DETACH PARTITION " + partitionName(month));
+    }
+
+    static String partitionName(YearMonth month) {
+        return String.format("%s_%04d%02d", TABLE_NAME, month.getYear(), month.getMonthValue());
+    }
+
+    static YearMonth monthOf(String partitionName) {
+        String suffix = partitionName.substring(partitionName.length() - 6);
+        return YearMonth.of(Integer.parseInt(suffix, 0, 4, 10), Integer.parseInt(suffix, 4, 6, 10));
+    }
+}
@@ -0,0 +1,56 @@
+package com.rva.egopass.repository;
+
+import com.rva.egopass.model.FlightInfo;
+import com.rva.egopass.model.PassengerInfo;
+import com.rva.egopass.model.Reservation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Insertion de réservations (groupe, manifeste importé) en un seul lot JDBC, plutôt qu'un {@code INSERT} par passager
+ * (l'identifiant {@code IDENTITY} empêche Hibernate de regrouper les insertions).
+ * Avec {@code reWriteBatchedInserts}, le pilote Postgres en fait une seule requête multi-lignes.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReservationBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param groupId      Le groupe des réservations, null hors réservation de groupe.
+     * @param userId       L'utilisateur à l'origine de la réservation.
+     * @param reservations Les réservations à insérer (statut, passager, vol et dates renseignés).
+     */
+    public void insertAll(Long groupId, Long userId, List<Reservation> reservations) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO reservations (group_id, user_id, status, first_name, last_name, nationality, "
+                        + "passport_number, passport_issue_date, flight_type, flight_number, origin, destination, "
+                        + "flight_company, departure_date, created_at, expires_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                reservations, reservations.size(), (ps, reservation) -> {
+                    PassengerInfo passenger = reservation.getPassengerInfo();
+                    FlightInfo flight = reservation.getFlightInfo();
+                    ps.setObject(1, groupId, Types.BIGINT);
+                    ps.setLong(2, userId);
+                    ps.setString(3, reservation.getStatus().name());
+                    ps.setString(4, passenger.getFirstName());
+                    ps.setString(5, passenger.getLastName());
+                    ps.setString(6, passenger.getNationality());
+                    ps.setString(7, passenger.getPassportNumber());
+                    ps.setObject(8, passenger.getPassportIssueDate());
+                    ps.setString(9, flight.getFlightType());
+                    ps.setString(10, flight.getFlightNumber());
+                    ps.setString(11, flight.getOrigin());
+                    ps.setString(12, flight.getDestination());
+                    ps.setString(13, flight.getFlightCompany());
+                    ps.setObject(14, flight.getDepartureDate());
+                    ps.setObject(15, reservation.getCreatedAt());
+                    ps.setObject(16, reservation.getExpiresAt());
+                });
+    }
+}
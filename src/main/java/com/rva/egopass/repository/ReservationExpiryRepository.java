@@ -0,0 +1,80 @@
+package com.rva.egopass.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Expiration des réservations en attente de paiement, par lots et sans charger les entités.
+ * Les lots sont parcourus par curseur sur {@code (expires_at, id)} : une réservation verrouillée par
+ * une autre transaction est sautée ({@code SKIP LOCKED}) sans être relue à chaque lot.
+ * Une réservation n'expire pas si son émission est déjà demandée ou son paiement confirmé, ni pendant le délai
+ * de grâce qui suit une initiation de paiement encore en attente : le callback du prestataire peut arriver après
+ * la date d'expiration. Un paiement de groupe couvre toutes les réservations du groupe.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReservationExpiryRepository {
+
+    // Paiement confirmé, ou initié depuis moins que le délai de grâce et toujours en attente
+    private static final String PAYMENT_IN_PROGRESS = "(p.status = 'COMPLETED' OR (p.status = 'PENDING' "
+            + "AND p.created_at > localtimestamp - make_interval(secs => ?)))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Cursor(LocalDateTime expiresAt, long id) {
+
+        public static final Cursor START = new Cursor(LocalDateTime.of(1970, 1, 1, 0, 0), 0);
+    }
+
+    /**
+     * Passe à {@code EXPIRED} le lot suivant de réservations échues.
+     *
+     * @param after        La position de la fin du lot précédent.
+     * @param paymentGrace Le délai, depuis son initiation, pendant lequel un paiement en attente retient la réservation.
+     * @param limit        La taille du lot.
+     * @return Les positions des réservations expirées, sans ordre garanti.
+     */
+    public List<Cursor> expireDue(Cursor after, Duration paymentGrace, int limit) {
+        return jdbcTemplate.query(
+                "WITH due AS (SELECT r.id FROM reservations r "
+                        + "WHERE r.status = 'PENDING_PAYMENT' AND r.expires_at < localtimestamp "
+                        + "AND (r.expires_at, r.id) > (?, ?) "
+                        + "AND NOT EXISTS (SELECT 1 FROM issuance_outbox o WHERE o.reservation_id = r.id) "
+                        + "AND NOT EXISTS (SELECT 1 FROM payments p WHERE p.reservation_id = r.id AND " + PAYMENT_IN_PROGRESS + ") "
+                        + "AND NOT EXISTS (SELECT 1 FROM payments p WHERE p.reservation_group_id = r.group_id AND " + PAYMENT_IN_PROGRESS + ") "
+                        + "ORDER BY r.expires_at, r.id LIMIT ? FOR UPDATE OF r SKIP LOCKED) "
+                        + "UPDATE reservations SET status = 'EXPIRED', updated_at = localtimestamp "
+                        + "FROM due WHERE reservations.id = due.id "
+                        + "RETURNING reservations.expires_at, reservations.id",
+                (rs, rowNum) -> new Cursor(rs.getTimestamp("expires_at").toLocalDateTime(), rs.getLong("id")),
+                after.expiresAt(), after.id(), paymentGrace.toMillis() / 1000.0, paymentGrace.toMillis() / 1000.0, limit);
+    }
+
+    /**
+     * Donne une date d'expiration aux réservations en attente créées avant qu'elle ne soit renseignée.
+     *
+     * @return Le nombre de réservations mises à jour.
+     */
+    public int backfillExpiry(Duration ttl, int limit) {
+        return jdbcTemplate.update(
+                "UPDATE reservations SET expires_at = COALESCE(created_at, localtimestamp) + make_interval(secs => ?) "
+                        + "WHERE id IN (SELECT id FROM reservations "
+                        + "WHERE status = 'PENDING_PAYMENT' AND expires_at IS NULL LIMIT ?)",
+                ttl.toMillis() / 1000.0, limit);
+    }
+
+    /**
+     * @return Le nombre de réservations en attente déjà échues.
+     */
+    public long countOverdue() {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM reservations WHERE status = 'PENDING_PAYMENT' AND expires_at < localtimestamp",
+                Long.class);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,9 @@
+package com.rva.egopass.repository;
+
+import com.rva.egopass.model.ReservationGroup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReservationGroupRepository extends JpaRepository<ReservationGroup, Long> {
+}
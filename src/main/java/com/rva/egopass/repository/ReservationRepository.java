@@ -5,6 +5,7 @@ import com.rva.egopass.enums.ReservationStatus;
 import com.rva.egopass.model.Reservation;
 import com.rva.egopass.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -16,5 +17,11 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
     List<Reservation> findByUser(User user);
     List<Reservation> findByUserAndStatus(User user, ReservationStatus status);
     List<Reservation> findByStatusAndExpiresAtBefore(ReservationStatus status, LocalDateTime dateTime);
+    List<Reservation> findByGroupIdOrderById(Long groupId);
+
+    // Réservations couvertes par un paiement de groupe ; vide pour un paiement individuel
+    @Query("SELECT r.id FROM Payment p JOIN Reservation r ON r.group = p.reservationGroup " +
+            "WHERE p.transactionReference = ?1 ORDER BY r.id")
+    List<Long> findIdsByGroupPaymentReference(String transactionReference);
 }
 
@@ -0,0 +1,34 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.model.BlobReference;
+
+/**
+ * Stockage des contenus binaires (images QR, PDF) en dehors de la base de données.
+ * Les contenus sont adressés par leur empreinte : stocker deux fois le même contenu ne le duplique pas.
+ */
+public interface BlobStore {
+
+    /**
+     * Enregistre un contenu.
+     *
+     * @param content Le contenu à stocker.
+     * @return La référence (clé, taille, empreinte) à conserver en base.
+     */
+    BlobReference put(byte[] content);
+
+    /**
+     * Ouvre un contenu pour une lecture par plages, sans le copier sur le tas.
+     *
+     * @param reference La référence du contenu.
+     * @return Le document.
+     */
+    DocumentContent open(BlobReference reference);
+
+    /**
+     * Lit un contenu en entier.
+     *
+     * @param reference La référence du contenu.
+     * @return Le contenu.
+     */
+    byte[] read(BlobReference reference);
+}
@@ -0,0 +1,57 @@
+package com.rva.egopass.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Document binaire consultable par plages, sans devoir être chargé entièrement en mémoire.
+ */
+public interface DocumentContent {
+
+    /**
+     * @return La taille du document en octets.
+     */
+    long getContentLength();
+
+    /**
+     * @return Un ETag fort (entre guillemets) identifiant cette version du document, ou null s'il est inconnu.
+     */
+    String getETag();
+
+    /**
+     * Ouvre un flux sur une plage du document.
+     *
+     * @param offset Position du premier octet à lire.
+     * @param length Nombre d'octets à lire.
+     * @return Un flux limité à la plage demandée.
+     * @throws IOException En cas d'erreur de lecture.
+     */
+    InputStream openStream(long offset, long length) throws IOException;
+
+    /**
+     * Document déjà présent en mémoire, par exemple tout juste rendu.
+     *
+     * @param content Le contenu du document.
+     * @param eTag    L'ETag du document, ou null.
+     * @return Le document.
+     */
+    static DocumentContent of(byte[] content, String eTag) {
+        return new DocumentContent() {
+            @Override
+            public long getContentLength() {
+                return content.length;
+            }
+
+            @Override
+            public String getETag() {
+                return eTag;
+            }
+
+            @Override
+            public InputStream openStream(long offset, long length) {
+                return new ByteArrayInputStream(content, (int) offset, (int) length);
+            }
+        };
+    }
+}
@@ -0,0 +1,261 @@
+package com.rva.egopass.service;
+
+import com.google.zxing.common.BitMatrix;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.rva.egopass.exceptions.PDFGenerationException;
+import com.rva.egopass.model.EGoPass;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Gabarit PDF pré-rendu des e-GoPass.
+ * La mise en page statique (titres, étiquettes, grilles, pied de page) est produite une seule fois au démarrage ;
+ * chaque pass ne fait ensuite qu'importer ce gabarit comme Form XObject et y apposer ses propres valeurs.
+ */
+@Component
+@Slf4j
+public class EGoPassPdfTemplate {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final float MARGIN = 36;
+    private static final float CONTENT_WIDTH = PageSize.A4.getWidth() - 2 * MARGIN;
+    private static final float LABEL_WIDTH = CONTENT_WIDTH * 0.3f;
+    private static final float ROW_HEIGHT = 22;
+    private static final float CELL_PADDING = 4;
+    private static final float SECTION_TITLE_HEIGHT = 24;
+    private static final float SECTION_GAP = 20;
+
+    private static final float TITLE_BASELINE = 780;
+    private static final float SUBTITLE_BASELINE = 756;
+    private static final float QR_CODE_SIZE = 150;
+    private static final float QR_CODE_BOTTOM = 586;
+    private static final float TABLES_TOP = 570;
+
+    private static final float LABEL_FONT_SIZE = 11;
+    private static final float VALUE_FONT_SIZE = 11;
+    private static final float MIN_VALUE_FONT_SIZE = 6;
+    private static final float FOOTER_FONT_SIZE = 10;
+
+    private static final String TITLE = "E-GOPASS";
+    private static final String SUBTITLE = "Reçu Officiel - République du Cameroun";
+    private static final String FOOTER = "Ce document est un titre de voyage officiel. "
+            + "Veuillez le présenter aux autorités lors de votre voyage.";
+
+    /**
+     * Sections du document, dans l'ordre d'affichage.
+     */
+    private enum Section {
+        PASS(null),
+        PASSENGER("Informations du Voyageur"),
+        FLIGHT("Informations du Vol");
+
+        private final String title;
+
+        Section(String title) {
+            this.title = title;
+        }
+    }
+
+    /**
+     * Champs variables apposés sur le gabarit, dans l'ordre d'affichage.
+     */
+    private enum Field {
+        PASS_NUMBER(Section.PASS, "Numéro e-GoPass", EGoPass::getPassNumber),
+        ISSUE_DATE(Section.PASS, "Date d'émission",
+                e -> e.getIssueDate() != null ? e.getIssueDate().format(DATE_FORMATTER) : null),
+        LAST_NAME(Section.PASSENGER, "Nom", e -> e.getPassengerInfo().getLastName()),
+        FIRST_NAME(Section.PASSENGER, "Prénom", e -> e.getPassengerInfo().getFirstName()),
+        NATIONALITY(Section.PASSENGER, "Nationalité", e -> e.getPassengerInfo().getNationality()),
+        PASSPORT(Section.PASSENGER, "Passeport", e -> e.getPassengerInfo().getPassportNumber()),
+        COMPANY(Section.FLIGHT, "Compagnie", e -> e.getFlightInfo().getFlightCompany()),
+        FLIGHT_NUMBER(Section.FLIGHT, "Numéro de Vol", e -> e.getFlightInfo().getFlightNumber()),
+        ORIGIN(Section.FLIGHT, "Origine", e -> e.getFlightInfo().getOrigin()),
+        DESTINATION(Section.FLIGHT, "Destination", e -> e.getFlightInfo().getDestination());
+
+        private final Section section;
+        private final String label;
+        private final Function<EGoPass, String> extractor;
+
+        Field(Section section, String label, Function<EGoPass, String> extractor) {
+            this.section = section;
+            this.label = label;
+            this.extractor = extractor;
+        }
+    }
+
+    private final Map<Field, Rectangle> valueSlots = new EnumMap<>(Field.class);
+    private final Rectangle qrCodeArea = new Rectangle(
+            (PageSize.A4.getWidth() - QR_CODE_SIZE) / 2, QR_CODE_BOTTOM, QR_CODE_SIZE, QR_CODE_SIZE);
+    private final byte[] templateBytes;
+
+    public EGoPassPdfTemplate() {
+        long start = System.nanoTime();
+        this.templateBytes = buildTemplate();
+        log.info("Gabarit PDF e-GoPass pré-rendu en {} ms ({} octets)",
+                (System.nanoTime() - start) / 1_000_000, templateBytes.length);
+    }
+
+    /**
+     * Produit le PDF d'un e-GoPass en apposant ses valeurs sur le gabarit pré-rendu.
+     *
+     * Le QR code est dessiné en vectoriel à partir de sa matrice ; à défaut, son image est intégrée telle quelle.
+     *
+     * @param eGoPass      Le e-GoPass à transformer en PDF.
+     * @param qrCodeMatrix La matrice du QR code, ou null.
+     * @param qrCodeImage  L'image PNG du QR code (e-GoPass émis avant le rendu vectoriel), ou null.
+     * @return Un tableau de bytes contenant le fichier PDF.
+     * @throws IOException En cas d'erreur lors de l'écriture du PDF.
+     */
+    public byte[] stamp(EGoPass eGoPass, BitMatrix qrCodeMatrix, byte[] qrCodeImage) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(8 * 1024);
+
+        try (PdfDocument template = new PdfDocument(new PdfReader(new ByteArrayInputStream(templateBytes)));
+             PdfDocument pdf = new PdfDocument(new PdfWriter(outputStream))) {
+            PdfFormXObject background = template.getFirstPage().copyAsFormXObject(pdf);
+
+            PdfCanvas canvas = new PdfCanvas(pdf.addNewPage(PageSize.A4));
+            canvas.addXObjectAt(background, 0, 0);
+
+            PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+            for (Field field : Field.values()) {
+                drawValue(canvas, font, valueSlots.get(field), field.extractor.apply(eGoPass));
+            }
+
+            if (qrCodeMatrix != null) {
+                QRCodeVectorRenderer.draw(canvas, qrCodeMatrix, qrCodeArea);
+            } else if (qrCodeImage != null) {
+                canvas.addImageFittedIntoRectangle(ImageDataFactory.create(qrCodeImage), qrCodeArea, false);
+            }
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Construit la page statique du gabarit et mémorise l'emplacement des cellules de valeurs.
+     *
+     * @return Le gabarit sous forme de document PDF d'une page.
+     */
+    private byte[] buildTemplate() {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (PdfDocument pdf = new PdfDocument(new PdfWriter(outputStream))) {
+            PdfPage page = pdf.addNewPage(PageSize.A4);
+            PdfCanvas canvas = new PdfCanvas(page);
+            PdfFont regular = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+            PdfFont bold = PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
+            PdfFont italic = PdfFontFactory.createFont(StandardFonts.HELVETICA_OBLIQUE);
+
+            drawCentered(canvas, bold, 24, TITLE, TITLE_BASELINE);
+            drawCentered(canvas, regular, 14, SUBTITLE, SUBTITLE_BASELINE);
+
+            canvas.setLineWidth(0.5f);
+            float cursor = TABLES_TOP;
+            for (Section section : Section.values()) {
+                if (section.title != null) {
+                    cursor -= SECTION_TITLE_HEIGHT;
+                    drawText(canvas, bold, 16, section.title, MARGIN, cursor + 6);
+                }
+                for (Field field : Field.values()) {
+                    if (field.section != section) {
+                        continue;
+                    }
+                    cursor -= ROW_HEIGHT;
+                    Rectangle label = new Rectangle(MARGIN, cursor, LABEL_WIDTH, ROW_HEIGHT);
+                    Rectangle value = new Rectangle(MARGIN + LABEL_WIDTH, cursor, CONTENT_WIDTH - LABEL_WIDTH, ROW_HEIGHT);
+                    canvas.rectangle(label).rectangle(value).stroke();
+                    drawText(canvas, bold, LABEL_FONT_SIZE, field.label, label.getX() + CELL_PADDING,
+                            baseline(label, LABEL_FONT_SIZE));
+                    valueSlots.put(field, value);
+                }
+                cursor -= SECTION_GAP;
+            }
+
+            for (String line : wrap(italic, FOOTER_FONT_SIZE, FOOTER, CONTENT_WIDTH)) {
+                cursor -= FOOTER_FONT_SIZE * 1.4f;
+                drawText(canvas, italic, FOOTER_FONT_SIZE, line, MARGIN, cursor);
+            }
+        } catch (IOException e) {
+            throw new PDFGenerationException("Erreur lors de la construction du gabarit PDF", e);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Appose une valeur dans sa cellule, en réduisant la taille de police si elle déborde.
+     */
+    private void drawValue(PdfCanvas canvas, PdfFont font, Rectangle slot, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        float available = slot.getWidth() - 2 * CELL_PADDING;
+        float fontSize = VALUE_FONT_SIZE;
+        while (fontSize > MIN_VALUE_FONT_SIZE && font.getWidth(value, fontSize) > available) {
+            fontSize -= 0.5f;
+        }
+        canvas.saveState()
+                .rectangle(slot).clip().endPath();
+        drawText(canvas, font, fontSize, value, slot.getX() + CELL_PADDING, baseline(slot, fontSize));
+        canvas.restoreState();
+    }
+
+    private void drawCentered(PdfCanvas canvas, PdfFont font, float fontSize, String text, float baseline) {
+        float x = (PageSize.A4.getWidth() - font.getWidth(text, fontSize)) / 2;
+        drawText(canvas, font, fontSize, text, x, baseline);
+    }
+
+    private void drawText(PdfCanvas canvas, PdfFont font, float fontSize, String text, float x, float y) {
+        canvas.beginText()
+                .setFontAndSize(font, fontSize)
+                .moveText(x, y)
+                .showText(text)
+                .endText();
+    }
+
+    private float baseline(Rectangle cell, float fontSize) {
+        return cell.getY() + (cell.getHeight() - fontSize) / 2 + fontSize * 0.2f;
+    }
+
+    private List<String> wrap(PdfFont font, float fontSize, String text, float width) {
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        for (String word : text.split(" ")) {
+            String candidate = line.length() == 0 ? word : line + " " + word;
+            if (line.length() > 0 && font.getWidth(candidate, fontSize) > width) {
+                lines.add(line.toString());
+                line.setLength(0);
+                line.append(word);
+            } else {
+                line.setLength(0);
+                line.append(candidate);
+            }
+        }
+        if (line.length() > 0) {
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,169 @@
+package com.rva.egopass.service;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.rva.egopass.enums.PassExportFormat;
+import com.rva.egopass.enums.RenderPriority;
+import com.rva.egopass.exceptions.EGoPassNotFoundException;
+import com.rva.egopass.model.BlobReference;
+import com.rva.egopass.model.EGoPass;
+import com.rva.egopass.repository.EGoPassRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Export de tous les e-GoPass d'un vol en un seul téléchargement (archive ZIP ou PDF fusionné).
+ * Les PDF manquants sont rendus et enregistrés en parallèle sur le pool de rendu, dans une fenêtre glissante :
+ * chaque document est écrit dans la réponse dès qu'il est prêt, dans l'ordre de la liste,
+ * sans que l'export complet ne soit jamais construit en mémoire.
+ */
+@Service
+@Slf4j
+public class FlightPassExportService {
+
+    private final EGoPassRepository eGoPassRepository;
+    private final PDFGeneratorService pdfGeneratorService;
+    private final BlobStore blobStore;
+    private final int renderWindow;
+
+    public FlightPassExportService(EGoPassRepository eGoPassRepository,
+                                   PDFGeneratorService pdfGeneratorService,
+                                   BlobStore blobStore,
+                                   @Value("${app.export.render-window:8}") int renderWindow) {
+        this.eGoPassRepository = eGoPassRepository;
+        this.pdfGeneratorService = pdfGeneratorService;
+        this.blobStore = blobStore;
+        this.renderWindow = Math.max(1, renderWindow);
+    }
+
+    /**
+     * Recherche les e-GoPass d'un vol à une date donnée.
+     *
+     * @param flightNumber Le numéro de vol.
+     * @param date         La date du vol.
+     * @return Les e-GoPass du vol, triés par nom de passager.
+     * @throws EGoPassNotFoundException Si aucun e-GoPass ne correspond.
+     */
+    public List<EGoPass> findFlightPasses(String flightNumber, LocalDate date) {
+        List<EGoPass> passes = eGoPassRepository.findByFlight(flightNumber, date,
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+        if (passes.isEmpty()) {
+            throw new EGoPassNotFoundException("Aucun eGoPass pour le vol " + flightNumber + " du " + date);
+        }
+        log.info("Export de {} eGoPass pour le vol {} du {}", passes.size(), flightNumber, date);
+        return passes;
+    }
+
+    /**
+     * Écrit les PDF des e-GoPass dans le flux, au format demandé.
+     *
+     * @param passes       Les e-GoPass à exporter.
+     * @param format       Le format de l'export.
+     * @param outputStream Le flux de sortie (réponse HTTP).
+     * @throws Exception En cas d'erreur lors du rendu ou de l'écriture.
+     */
+    public void export(List<EGoPass> passes, PassExportFormat format, OutputStream outputStream) throws Exception {
+        if (format == PassExportFormat.PDF) {
+            writeMergedPdf(passes, outputStream);
+        } else {
+            writeZip(passes, outputStream);
+        }
+    }
+
+    private void writeZip(List<EGoPass> passes, OutputStream outputStream) throws Exception {
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        // Les PDF sont déjà compressés : inutile de chercher un meilleur taux
+        zip.setLevel(Deflater.BEST_SPEED);
+
+        forEachDocument(passes, (eGoPass, document) -> {
+            zip.putNextEntry(new ZipEntry(entryName(eGoPass)));
+            try (InputStream inputStream = document.openStream(0, document.getContentLength())) {
+                inputStream.transferTo(zip);
+            }
+            zip.closeEntry();
+            zip.flush();
+        });
+
+        zip.finish();
+    }
+
+    private void writeMergedPdf(List<EGoPass> passes, OutputStream outputStream) throws Exception {
+        try (PdfDocument merged = new PdfDocument(new PdfWriter(outputStream))) {
+            forEachDocument(passes, (eGoPass, document) -> {
+                try (InputStream inputStream = document.openStream(0, document.getContentLength());
+                     PdfDocument source = new PdfDocument(new PdfReader(inputStream))) {
+                    int firstPage = merged.getNumberOfPages() + 1;
+                    source.copyPagesTo(1, source.getNumberOfPages(), merged);
+                    // Les pages copiées sont écrites aussitôt dans la réponse puis libérées
+                    for (int page = firstPage; page <= merged.getNumberOfPages(); page++) {
+                        merged.getPage(page).flush(true);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Parcourt les documents des e-GoPass dans l'ordre, en gardant jusqu'à {@code renderWindow} rendus en cours.
+     */
+    private void forEachDocument(List<EGoPass> passes, DocumentConsumer consumer) throws Exception {
+        Deque<PendingDocument> window = new ArrayDeque<>();
+        Iterator<EGoPass> iterator = passes.iterator();
+        try {
+            while (iterator.hasNext() || !window.isEmpty()) {
+                while (iterator.hasNext() && window.size() < renderWindow) {
+                    window.add(prepare(iterator.next()));
+                }
+                PendingDocument next = window.poll();
+                consumer.accept(next.eGoPass(), await(next));
+            }
+        } finally {
+            // Export interrompu : les rendus restants ne servent plus
+            window.forEach(pending -> pending.rendering().cancel(false));
+        }
+    }
+
+    private PendingDocument prepare(EGoPass eGoPass) {
+        // Rendu en BACKGROUND : un export ne doit pas passer devant les téléchargements unitaires
+        return new PendingDocument(eGoPass, pdfGeneratorService.renderAndStore(eGoPass, RenderPriority.BACKGROUND));
+    }
+
+    private DocumentContent await(PendingDocument pending) throws Exception {
+        try {
+            return blobStore.open(pending.rendering().get());
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private static String entryName(EGoPass eGoPass) {
+        return (eGoPass.getPassNumber() != null ? eGoPass.getPassNumber() : "egopass-" + eGoPass.getId()) + ".pdf";
+    }
+
+    @FunctionalInterface
+    private interface DocumentConsumer {
+        void accept(EGoPass eGoPass, DocumentContent document) throws IOException;
+    }
+
+    /**
+     * Document d'un e-GoPass : déjà stocké, ou en cours de rendu.
+     */
+    private record PendingDocument(EGoPass eGoPass, CompletableFuture<BlobReference> rendering) {
+    }
+}
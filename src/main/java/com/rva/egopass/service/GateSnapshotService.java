@@ -0,0 +1,109 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.dto.GateSnapshot;
+import com.rva.egopass.exceptions.InvalidRequestException;
+import com.rva.egopass.repository.PassValidationRepository;
+import com.rva.egopass.repository.PassValidationRepository.PassSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Instantanés des e-GoPass d'un vol ou d'une période de vols, pour un contrôle hors ligne aux portes.
+ * Le scanner vérifie la signature du QR code localement et consulte l'instantané pour savoir si le passe
+ * a déjà été utilisé ; il n'interroge plus le serveur à chaque lecture.
+ * <p>
+ * La version d'un instantané est une date de modification (millisecondes depuis l'époque, horloge de la base).
+ * Elle est reculée de {@code app.gate-snapshot.overlap} : un passe modifié par une transaction validée
+ * après la lecture, mais datée d'avant, figure dans le delta suivant. Les deltas peuvent donc répéter
+ * des changements déjà reçus ; les appliquer deux fois ne change rien.
+ */
+@Service
+@Slf4j
+public class GateSnapshotService {
+
+    private final PassValidationRepository passValidationRepository;
+    private final Duration overlap;
+    private final int maxWindowDays;
+
+    private final Counter fullSnapshots;
+    private final Counter deltaSnapshots;
+
+    public GateSnapshotService(PassValidationRepository passValidationRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.gate-snapshot.overlap:30s}") Duration overlap,
+                               @Value("${app.gate-snapshot.max-window-days:7}") int maxWindowDays) {
+        this.passValidationRepository = passValidationRepository;
+        this.overlap = overlap;
+        this.maxWindowDays = maxWindowDays;
+
+        this.fullSnapshots = Counter.builder("egopass.gate.snapshots").tag("type", "full").register(meterRegistry);
+        this.deltaSnapshots = Counter.builder("egopass.gate.snapshots").tag("type", "delta").register(meterRegistry);
+    }
+
+    /**
+     * @param flightNumber Le numéro de vol, ou null pour tous les vols de la période.
+     * @param from         La première date de vol.
+     * @param to           La dernière date de vol, ou null pour la seule date {@code from}.
+     * @param since        La version d'un instantané déjà reçu, ou null pour un instantané complet.
+     * @return L'instantané, ou les changements depuis {@code since}.
+     * @throws InvalidRequestException Si la période est inversée ou trop longue.
+     */
+    public GateSnapshot snapshot(String flightNumber, LocalDate from, LocalDate to, Long since) {
+        LocalDate until = to != null ? to : from;
+        if (until.isBefore(from)) {
+            throw new InvalidRequestException("to", "La date de fin précède la date de début.");
+        }
+        if (ChronoUnit.DAYS.between(from, until) >= maxWindowDays) {
+            throw new InvalidRequestException("to", "La période couvre au plus " + maxWindowDays + " jours de vols.");
+        }
+        String flight = flightNumber == null || flightNumber.isBlank() ? null : flightNumber.trim();
+
+        // Version lue avant les passes : un changement concurrent figure au plus tard dans le delta suivant
+        LocalDateTime version = passValidationRepository.currentTimestamp().minus(overlap);
+        LocalDateTime modifiedAfter = since != null ? fromVersion(since) : null;
+        List<PassSummary> passes = passValidationRepository.findSummaries(flight, from, until, modifiedAfter);
+
+        List<String> valid = new ArrayList<>();
+        List<String> used = new ArrayList<>();
+        for (PassSummary pass : passes) {
+            (pass.validated() ? used : valid).add(pass.passNumber());
+        }
+        // Tri binaire (numéros ASCII) : le scanner y cherche par dichotomie
+        Collections.sort(valid);
+        Collections.sort(used);
+
+        (since != null ? deltaSnapshots : fullSnapshots).increment();
+        log.debug("Instantané des portes {} {}..{}{}: {} valides, {} utilisés", flight, from, until,
+                since != null ? " depuis " + modifiedAfter : "", valid.size(), used.size());
+        return GateSnapshot.builder()
+                .flightNumber(flight)
+                .from(from)
+                .to(until)
+                .version(toVersion(version))
+                .delta(since != null)
+                .valid(valid)
+                .used(used)
+                .build();
+    }
+
+    static long toVersion(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime fromVersion(long version) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(version), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,121 @@
+package com.rva.egopass.service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Disjoncteur d'un prestataire de paiement, sur les derniers appels terminés.
+ * Quand la fenêtre est pleine et que la part d'échecs atteint le seuil, le disjoncteur s'ouvre : les appels
+ * sont refusés sans solliciter le prestataire pendant la durée d'ouverture. Un seul appel d'essai passe
+ * ensuite ; son succès referme le disjoncteur, son échec le rouvre.
+ */
+final class GatewayCircuitBreaker {
+
+    enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final boolean[] outcomes;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    /**
+     * @param windowSize           Le nombre d'appels terminés pris en compte.
+     * @param failureRateThreshold La part d'échecs (0 à 1) qui ouvre le disjoncteur.
+     * @param openDuration         La durée pendant laquelle les appels sont refusés.
+     * @param clock                La source de temps, en nanosecondes.
+     */
+    GatewayCircuitBreaker(int windowSize, double failureRateThreshold, Duration openDuration, LongSupplier clock) {
+        this.outcomes = new boolean[Math.max(1, windowSize)];
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * @return true si l'appel peut être tenté ; en semi-ouverture, l'appelant détient alors l'unique essai
+     * et doit en signaler l'issue.
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (trialInFlight) {
+                    yield false;
+                }
+                trialInFlight = true;
+                yield true;
+            }
+        };
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset(State.CLOSED);
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+        }
+    }
+
+    /**
+     * Libère l'essai d'un appel autorisé mais finalement pas lancé.
+     */
+    synchronized void onNotPermitted() {
+        trialInFlight = false;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+        if (recorded == outcomes.length && failures >= failureRateThreshold * outcomes.length) {
+            open();
+        }
+    }
+
+    private void open() {
+        reset(State.OPEN);
+        openedAt = clock.getAsLong();
+    }
+
+    private void reset(State newState) {
+        state = newState;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        trialInFlight = false;
+    }
+}
@@ -0,0 +1,164 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.exceptions.InvalidReservationStateException;
+import com.rva.egopass.exceptions.ReservationNotFoundException;
+import com.rva.egopass.repository.IssuanceOutboxRepository;
+import com.rva.egopass.repository.IssuanceOutboxRepository.OutboxEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Émet les e-GoPass des paiements confirmés, à partir de la file {@code issuance_outbox}.
+ * La file est vidée dès qu'une demande est validée ({@link #wakeUp()}), et relue périodiquement
+ * pour les nouvelles tentatives et les demandes déposées par d'autres nœuds.
+ * L'émission et l'acquittement de la demande sont faits dans une même transaction ; un échec
+ * transitoire est retenté avec un délai croissant, une erreur définitive arrête la demande. Une demande arrêtée
+ * laisse un paiement encaissé sans e-GoPass : elle est comptée dans {@code egopass.issuance.compensation}
+ * pour être remboursée ou émise à la main.
+ */
+@Component
+@Slf4j
+public class IssuanceOutboxWorker {
+
+    private final IssuanceOutboxRepository outboxRepository;
+    private final EGoPassService eGoPassService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "issuance-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    private final Counter issued;
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter compensation;
+
+    public IssuanceOutboxWorker(IssuanceOutboxRepository outboxRepository,
+                                EGoPassService eGoPassService,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.issuance.outbox.batch-size:20}") int batchSize,
+                                @Value("${app.issuance.outbox.lease:2m}") Duration lease,
+                                @Value("${app.issuance.outbox.max-attempts:10}") int maxAttempts,
+                                @Value("${app.issuance.outbox.initial-backoff:5s}") Duration initialBackoff,
+                                @Value("${app.issuance.outbox.max-backoff:10m}") Duration maxBackoff) {
+        this.outboxRepository = outboxRepository;
+        this.eGoPassService = eGoPassService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+
+        this.issued = Counter.builder("egopass.issuance.outbox.processed").tag("result", "issued").register(meterRegistry);
+        this.retried = Counter.builder("egopass.issuance.outbox.processed").tag("result", "retried").register(meterRegistry);
+        this.failed = Counter.builder("egopass.issuance.outbox.processed").tag("result", "failed").register(meterRegistry);
+        this.compensation = Counter.builder("egopass.issuance.compensation").register(meterRegistry);
+    }
+
+    /**
+     * Demande le traitement de la file, sans attendre. Les demandes reçues pendant un traitement
+     * en cours sont regroupées en un seul passage supplémentaire.
+     */
+    public void wakeUp() {
+        if (drainRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Arrêt en cours : la demande sera reprise au prochain démarrage
+                drainRequested.set(false);
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.issuance.outbox.poll-interval:5s}",
+            fixedDelayString = "${app.issuance.outbox.poll-interval:5s}")
+    public void poll() {
+        wakeUp();
+    }
+
+    /**
+     * Traite les demandes échues, par lots, jusqu'à épuisement.
+     */
+    void drain() {
+        drainRequested.set(false);
+        try {
+            List<OutboxEntry> batch;
+            do {
+                batch = outboxRepository.claimDue(batchSize, lease);
+                for (OutboxEntry entry : batch) {
+                    process(entry);
+                }
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            log.error("Erreur lors de la lecture de la file d'émission: {}", e.getMessage(), e);
+        }
+    }
+
+    private void process(OutboxEntry entry) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                eGoPassService.generateEGoPassFromReservation(entry.reservationId());
+                outboxRepository.markDone(entry.id());
+            });
+            issued.increment();
+        } catch (ReservationNotFoundException | InvalidReservationStateException e) {
+            // Réservation absente, annulée ou expirée pour un vol parti : une nouvelle tentative n'y changera rien
+            log.error("Émission abandonnée pour la réservation ID: {}, paiement confirmé sans eGoPass à compenser: {}",
+                    entry.reservationId(), e.getMessage());
+            abandon(entry, e.getMessage());
+        } catch (Exception e) {
+            if (entry.attempts() >= maxAttempts) {
+                log.error("Émission abandonnée pour la réservation ID: {} après {} tentatives, "
+                        + "paiement confirmé sans eGoPass à compenser", entry.reservationId(), entry.attempts(), e);
+                abandon(entry, e.getMessage());
+            } else {
+                Duration delay = backoff(entry.attempts());
+                log.warn("Échec de l'émission pour la réservation ID: {} (tentative {}), nouvel essai dans {} s: {}",
+                        entry.reservationId(), entry.attempts(), delay.toSeconds(), e.getMessage());
+                outboxRepository.scheduleRetry(entry.id(), e.getMessage(), delay);
+                retried.increment();
+            }
+        }
+    }
+
+    private void abandon(OutboxEntry entry, String error) {
+        outboxRepository.markFailed(entry.id(), error);
+        failed.increment();
+        compensation.increment();
+    }
+
+    Duration backoff(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 20);
+        Duration delay = initialBackoff.multipliedBy(1L << exponent);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,136 @@
+package com.rva.egopass.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rva.egopass.dto.EGoPassRequest;
+import com.rva.egopass.dto.ManifestImportReport;
+import com.rva.egopass.dto.ManifestRowError;
+import com.rva.egopass.enums.ManifestFormat;
+import com.rva.egopass.enums.ReservationStatus;
+import com.rva.egopass.exceptions.UserNotFoundException;
+import com.rva.egopass.mapper.EGoPassMapper;
+import com.rva.egopass.model.Reservation;
+import com.rva.egopass.model.User;
+import com.rva.egopass.repository.ReservationBatchRepository;
+import com.rva.egopass.repository.UserRepository;
+import com.rva.egopass.service.PassengerRequestValidator.Violation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Import des manifestes de passagers des compagnies aériennes : chaque ligne valide devient une réservation
+ * en attente de paiement. Le manifeste est lu en flux et inséré par lots ; la mémoire utilisée ne dépend
+ * pas de sa taille, hormis la liste des erreurs, plafonnée. Les lignes invalides sont écartées et signalées
+ * dans le rapport, sans interrompre l'import.
+ */
+@Service
+@Slf4j
+public class ManifestImportService {
+
+    private final UserRepository userRepository;
+    private final ReservationBatchRepository reservationBatchRepository;
+    private final EGoPassMapper eGoPassMapper;
+    private final ReservationExpiryPolicy reservationExpiryPolicy;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public ManifestImportService(UserRepository userRepository,
+                                 ReservationBatchRepository reservationBatchRepository,
+                                 EGoPassMapper eGoPassMapper,
+                                 ReservationExpiryPolicy reservationExpiryPolicy,
+                                 ObjectMapper objectMapper,
+                                 @Value("${app.manifest.batch-size:500}") int batchSize,
+                                 @Value("${app.manifest.max-reported-errors:1000}") int maxReportedErrors) {
+        this.userRepository = userRepository;
+        this.reservationBatchRepository = reservationBatchRepository;
+        this.eGoPassMapper = eGoPassMapper;
+        this.reservationExpiryPolicy = reservationExpiryPolicy;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Importe un manifeste. Les insertions sont faites dans une seule transaction : une erreur de base
+     * annule l'import entier, une ligne invalide est seulement écartée.
+     *
+     * @param userId L'utilisateur (compte de la compagnie) titulaire des réservations.
+     * @param format Le format du manifeste.
+     * @param input  Le contenu du manifeste.
+     * @return Le rapport d'import, avec les erreurs ligne par ligne.
+     */
+    @Transactional
+    public ManifestImportReport importManifest(Long userId, ManifestFormat format, InputStream input) throws IOException {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException("Utilisateur non trouvé avec l'ID : " + userId));
+        log.info("Début de l'import d'un manifeste {} pour l'utilisateur ID: {}", format, userId);
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Reservation> batch = new ArrayList<>(batchSize);
+        List<ManifestRowError> errors = new ArrayList<>();
+        int total = 0;
+        int imported = 0;
+        int rejected = 0;
+
+        try (ManifestReader reader = new ManifestReader(input, format, objectMapper)) {
+            ManifestReader.Row row;
+            while ((row = reader.next()) != null) {
+                total++;
+                Violation violation = row.error() != null ? row.error() : validate(row.request());
+                if (violation != null) {
+                    rejected++;
+                    if (errors.size() < maxReportedErrors) {
+                        errors.add(new ManifestRowError(row.line(), violation.field(), violation.message()));
+                    }
+                    continue;
+                }
+
+                batch.add(toReservation(row.request(), now));
+                if (batch.size() == batchSize) {
+                    reservationBatchRepository.insertAll(null, user.getId(), batch);
+                    imported += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            reservationBatchRepository.insertAll(null, user.getId(), batch);
+            imported += batch.size();
+        }
+
+        log.info("Manifeste importé en {} ms: {} lignes, {} réservations créées, {} lignes rejetées",
+                (System.nanoTime() - start) / 1_000_000, total, imported, rejected);
+        return ManifestImportReport.builder()
+                .totalRows(total)
+                .importedRows(imported)
+                .rejectedRows(rejected)
+                .errors(errors)
+                .errorsTruncated(rejected > errors.size())
+                .build();
+    }
+
+    private static Violation validate(EGoPassRequest request) {
+        Violation violation = PassengerRequestValidator.checkFlight(request);
+        return violation != null ? violation : PassengerRequestValidator.checkPassenger(request);
+    }
+
+    private Reservation toReservation(EGoPassRequest request, LocalDateTime now) {
+        Reservation reservation = new Reservation();
+        reservation.setPassengerInfo(eGoPassMapper.mapToPassengerInfo(request));
+        reservation.setFlightInfo(eGoPassMapper.mapToFlightInfo(request));
+        reservation.setStatus(ReservationStatus.PENDING_PAYMENT);
+        reservation.setCreatedAt(now);
+        // Pré-enregistrée par la compagnie : valable jusqu'au jour du vol
+        reservation.setExpiresAt(reservationExpiryPolicy.manifestExpiresAt(request.getDepartureDate(), now));
+        return reservation;
+    }
+}
@@ -0,0 +1,185 @@
+package com.rva.egopass.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.rva.egopass.dto.EGoPassRequest;
+import com.rva.egopass.enums.ManifestFormat;
+import com.rva.egopass.exceptions.InvalidRequestException;
+import com.rva.egopass.service.PassengerRequestValidator.Violation;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiConsumer;
+
+/**
+ * Lit un manifeste de passagers ligne par ligne, sans le charger en mémoire.
+ * En CSV, la première ligne donne les noms des colonnes, ceux des champs de {@link EGoPassRequest}
+ * (casse indifférente, colonnes inconnues ignorées), séparées par des virgules ou des points-virgules ;
+ * les valeurs peuvent être entre guillemets, sur une seule ligne. En NDJSON, chaque ligne est un objet JSON. Les lignes vides sont ignorées.
+ */
+public final class ManifestReader implements Closeable {
+
+    /**
+     * Une ligne du manifeste : la demande lue, ou l'erreur de lecture.
+     */
+    public record Row(int line, EGoPassRequest request, Violation error) {
+    }
+
+    private final BufferedReader reader;
+    private final ManifestFormat format;
+    private final ObjectReader jsonReader;
+    private final List<String> cells = new ArrayList<>();
+    private List<BiConsumer<EGoPassRequest, String>> columns;
+    private List<String> headerNames;
+    private char delimiter = ',';
+    private int line;
+
+    public ManifestReader(InputStream input, ManifestFormat format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.format = format;
+        this.jsonReader = objectMapper.readerFor(EGoPassRequest.class);
+    }
+
+    /**
+     * @return La ligne suivante, ou null à la fin du manifeste.
+     * @throws InvalidRequestException Si l'en-tête CSV est absent.
+     */
+    public Row next() throws IOException {
+        if (format == ManifestFormat.CSV && columns == null) {
+            readHeader();
+        }
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+
+        return format == ManifestFormat.CSV ? parseCsv(text) : parseJson(text);
+    }
+
+    private Row parseJson(String text) {
+        try {
+            return new Row(line, jsonReader.readValue(text), null);
+        } catch (JsonProcessingException e) {
+            return new Row(line, null, new Violation(null, "Ligne JSON invalide: " + e.getOriginalMessage()));
+        }
+    }
+
+    private Row parseCsv(String text) {
+        if (!split(text)) {
+            return new Row(line, null, new Violation(null, "Guillemet non fermé"));
+        }
+        EGoPassRequest request = new EGoPassRequest();
+        for (int i = 0; i < columns.size() && i < cells.size(); i++) {
+            BiConsumer<EGoPassRequest, String> column = columns.get(i);
+            String value = cells.get(i).trim();
+            if (column == null || value.isEmpty()) {
+                continue;
+            }
+            try {
+                column.accept(request, value);
+            } catch (DateTimeParseException e) {
+                return new Row(line, null, new Violation(headerNames.get(i), "Date invalide, format AAAA-MM-JJ attendu: " + value));
+            }
+        }
+        return new Row(line, request, null);
+    }
+
+    private void readHeader() throws IOException {
+        String header;
+        do {
+            header = reader.readLine();
+            if (header == null) {
+                throw new InvalidRequestException("manifest", "Le manifeste CSV doit commencer par une ligne d'en-tête.");
+            }
+            line++;
+        } while (header.isBlank());
+
+        // Marque d'ordre d'octets ajoutée par les tableurs
+        if (header.charAt(0) == '\uFEFF') {
+            header = header.substring(1);
+        }
+        // Les tableurs en français séparent les colonnes par des points-virgules
+        if (header.indexOf(',') < 0 && header.indexOf(';') >= 0) {
+            delimiter = ';';
+        }
+        split(header);
+        columns = new ArrayList<>(cells.size());
+        headerNames = new ArrayList<>(cells.size());
+        for (String cell : cells) {
+            String name = cell.trim();
+            headerNames.add(name);
+            columns.add(column(name.toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    private static BiConsumer<EGoPassRequest, String> column(String name) {
+        return switch (name) {
+            case "flighttype" -> EGoPassRequest::setFlightType;
+            case "flightnumber" -> EGoPassRequest::setFlightNumber;
+            case "origin" -> EGoPassRequest::setOrigin;
+            case "destination" -> EGoPassRequest::setDestination;
+            case "flightcompany" -> EGoPassRequest::setFlightCompany;
+            case "departuredate" -> (request, value) -> request.setDepartureDate(LocalDate.parse(value));
+            case "firstname" -> EGoPassRequest::setFirstName;
+            case "lastname" -> EGoPassRequest::setLastName;
+            case "nationality" -> EGoPassRequest::setNationality;
+            case "passportnumber" -> EGoPassRequest::setPassportNumber;
+            case "passportissuedate" -> (request, value) -> request.setPassportIssueDate(LocalDate.parse(value));
+            case "email" -> EGoPassRequest::setEmail;
+            case "phone" -> EGoPassRequest::setPhone;
+            default -> null;
+        };
+    }
+
+    /**
+     * Découpe une ligne CSV dans {@link #cells}, guillemets doublés compris.
+     *
+     * @return false si un guillemet n'est pas fermé.
+     */
+    private boolean split(String text) {
+        cells.clear();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return !quoted;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
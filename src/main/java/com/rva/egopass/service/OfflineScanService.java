@@ -0,0 +1,152 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.dto.OfflineScan;
+import com.rva.egopass.dto.OfflineScanBatch;
+import com.rva.egopass.dto.OfflineScanReport;
+import com.rva.egopass.dto.ScanRejectionDetail;
+import com.rva.egopass.enums.ScanRejection;
+import com.rva.egopass.exceptions.InvalidRequestException;
+import com.rva.egopass.repository.OfflineScanRepository;
+import com.rva.egopass.repository.OfflineScanRepository.Rejected;
+import com.rva.egopass.repository.OfflineScanRepository.Scan;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Rapprochement des lectures faites hors ligne par les scanners des portes, transmises par lots au
+ * retour du réseau. Les lectures mal formées sont écartées ici ; les autres sont appliquées en une seule
+ * requête par {@link OfflineScanRepository}. Pour chaque passe, la première lecture l'emporte : les
+ * suivantes, comme celles d'un passe déjà validé en ligne, sont signalées en conflit.
+ * {@link PassValidationIndex} reprend les passes validés à son prochain rafraîchissement.
+ */
+@Service
+@Slf4j
+public class OfflineScanService {
+
+    private final OfflineScanRepository offlineScanRepository;
+    private final int maxBatchSize;
+
+    private final Timer uploadTimer;
+    private final Counter applied;
+    private final Counter conflicts;
+    private final Counter unknown;
+    private final Counter invalid;
+
+    public OfflineScanService(OfflineScanRepository offlineScanRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.scan-upload.max-batch-size:10000}") int maxBatchSize) {
+        this.offlineScanRepository = offlineScanRepository;
+        this.maxBatchSize = maxBatchSize;
+
+        this.uploadTimer = Timer.builder("egopass.gate.offline.upload").register(meterRegistry);
+        this.applied = Counter.builder("egopass.gate.offline.scans").tag("result", "applied").register(meterRegistry);
+        this.conflicts = Counter.builder("egopass.gate.offline.scans").tag("result", "conflict").register(meterRegistry);
+        this.unknown = Counter.builder("egopass.gate.offline.scans").tag("result", "unknown").register(meterRegistry);
+        this.invalid = Counter.builder("egopass.gate.offline.scans").tag("result", "invalid").register(meterRegistry);
+    }
+
+    /**
+     * @param batch   Les lectures, dans l'ordre du scanner.
+     * @param agentId L'utilisateur qui transmet le lot.
+     * @return Le bilan du lot ; seules les lectures non appliquées sont détaillées.
+     * @throws InvalidRequestException Si le lot est vide ou dépasse la taille maximale.
+     */
+    public OfflineScanReport upload(OfflineScanBatch batch, Long agentId) {
+        List<OfflineScan> received = batch == null || batch.getScans() == null ? List.of() : batch.getScans();
+        if (received.isEmpty()) {
+            throw new InvalidRequestException("scans", "Au moins une lecture est requise.");
+        }
+        if (received.size() > maxBatchSize) {
+            throw new InvalidRequestException("scans", "Un lot compte au plus " + maxBatchSize + " lectures.");
+        }
+
+        Timer.Sample sample = Timer.start();
+        try {
+            return reconcile(received, agentId);
+        } finally {
+            sample.stop(uploadTimer);
+        }
+    }
+
+    private OfflineScanReport reconcile(List<OfflineScan> received, Long agentId) {
+        List<ScanRejectionDetail> rejections = new ArrayList<>();
+        List<Scan> scans = new ArrayList<>(received.size());
+        for (int i = 0; i < received.size(); i++) {
+            OfflineScan scan = received.get(i);
+            String passNumber = passNumber(scan);
+            String gate = scan == null || scan.getGate() == null ? "" : scan.getGate().trim();
+            if (passNumber == null || gate.isEmpty() || gate.length() > PassValidationService.MAX_GATE_LENGTH
+                    || scan.getScannedAt() == null) {
+                rejections.add(ScanRejectionDetail.builder()
+                        .index(i)
+                        .passNumber(scan == null ? null : scan.getPassNumber())
+                        .reason(ScanRejection.INVALID)
+                        .build());
+                continue;
+            }
+            scans.add(new Scan(i, passNumber, gate, scan.getScannedAt()));
+        }
+
+        int invalidCount = rejections.size();
+        List<Rejected> notApplied = scans.isEmpty() ? List.of() : offlineScanRepository.apply(scans, agentId);
+        int conflictCount = 0;
+        for (Rejected rejected : notApplied) {
+            if (rejected.reason() == ScanRejection.ALREADY_VALIDATED) {
+                conflictCount++;
+            }
+            rejections.add(ScanRejectionDetail.builder()
+                    .index(rejected.index())
+                    .passNumber(rejected.passNumber())
+                    .reason(rejected.reason())
+                    .validationDate(rejected.validationDate())
+                    .validationGate(rejected.validationGate())
+                    .build());
+        }
+        rejections.sort(Comparator.comparingInt(ScanRejectionDetail::getIndex));
+
+        int appliedCount = scans.size() - notApplied.size();
+        int unknownCount = notApplied.size() - conflictCount;
+        applied.increment(appliedCount);
+        conflicts.increment(conflictCount);
+        unknown.increment(unknownCount);
+        invalid.increment(invalidCount);
+
+        if (conflictCount > 0) {
+            log.warn("Lot de lectures hors ligne de l'utilisateur ID: {} : {} lecture(s) de passes déjà utilisés",
+                    agentId, conflictCount);
+        }
+        log.info("Lot de lectures hors ligne de l'utilisateur ID: {} : {} reçue(s), {} appliquée(s), {} conflit(s), {} rejetée(s)",
+                agentId, received.size(), appliedCount, conflictCount, invalidCount + unknownCount);
+
+        return OfflineScanReport.builder()
+                .received(received.size())
+                .applied(appliedCount)
+                .conflicts(conflictCount)
+                .rejected(invalidCount + unknownCount)
+                .rejections(rejections)
+                .build();
+    }
+
+    /**
+     * @return Le numéro canonique, ou null s'il manque ou est mal formé.
+     */
+    private static String passNumber(OfflineScan scan) {
+        if (scan == null || scan.getPassNumber() == null || scan.getPassNumber().isBlank()) {
+            return null;
+        }
+        try {
+            String number = PassNumberFormat.normalizeForLookup(scan.getPassNumber());
+            return PassNumberFormat.key(number) < 0 ? null : number;
+        } catch (InvalidRequestException e) {
+            return null;
+        }
+    }
+}
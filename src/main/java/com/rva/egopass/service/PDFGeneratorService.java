@@ -1,5 +1,6 @@
 package com.rva.egopass.service;
 
+import com.google.zxing.common.BitMatrix;
 import com.itextpdf.io.image.ImageDataFactory;
 import com.itextpdf.io.source.ByteArrayOutputStream;
 import com.itextpdf.kernel.geom.PageSize;
@@ -9,16 +10,27 @@ import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.*;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
+import com.rva.egopass.enums.PdfRenderingMode;
+import com.rva.egopass.enums.RenderPriority;
 import com.rva.egopass.exceptions.EGoPassNotFoundException;
+import com.rva.egopass.exceptions.PDFRenderingOverloadedException;
+import com.rva.egopass.model.BlobReference;
 import com.rva.egopass.model.EGoPass;
 import com.rva.egopass.repository.EGoPassRepository;
 import com.rva.egopass.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service pour la génération des fichiers PDF relatifs aux e-GoPass.
@@ -30,19 +42,55 @@ public class PDFGeneratorService {
 
     private final UserRepository userRepository;
     private final EGoPassRepository eGoPassRepository;
+    private final EGoPassPdfTemplate eGoPassPdfTemplate;
+    private final BlobStore blobStore;
+    private final QRCodeService qrCodeService;
+    private final PdfRenderCoordinator renderCoordinator;
+
+    @Value("${app.pdf.rendering-mode:TEMPLATE}")
+    private PdfRenderingMode renderingMode = PdfRenderingMode.TEMPLATE;
+
+    @Value("${app.pdf.rendering.download-timeout:30s}")
+    private Duration downloadTimeout = Duration.ofSeconds(30);
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
     /**
      * Génère un PDF contenant les informations du e-GoPass et retourne le fichier sous forme de tableau de bytes.
+     * En mode TEMPLATE, seules les valeurs du pass sont apposées sur le gabarit pré-rendu ;
+     * en mode LAYOUT, le document complet est reconstruit.
      *
      * @param eGoPass Le e-GoPass à transformer en PDF.
      * @return Un tableau de bytes contenant le fichier PDF.
      * @throws Exception En cas d'erreur lors de la génération du PDF.
      */
     public byte[] generateEGoPassPDF(EGoPass eGoPass) throws Exception {
-        log.info("Début de la génération du PDF pour le e-GoPass: {}", eGoPass.getPassNumber());
+        log.info("Début de la génération du PDF ({}) pour le e-GoPass: {}", renderingMode, eGoPass.getPassNumber());
+
+        // QR code vectoriel à partir de son contenu ; image PNG stockée pour les e-GoPass plus anciens
+        BitMatrix qrCodeMatrix = eGoPass.getQrCodePayload() != null
+                ? qrCodeService.generateQRCodeMatrix(eGoPass.getQrCodePayload())
+                : null;
+        byte[] qrCodeImage = qrCodeMatrix == null && eGoPass.getQrCodeBlob() != null
+                ? blobStore.read(eGoPass.getQrCodeBlob())
+                : null;
+        byte[] pdfDocument = renderingMode == PdfRenderingMode.TEMPLATE
+                ? eGoPassPdfTemplate.stamp(eGoPass, qrCodeMatrix, qrCodeImage)
+                : generateWithLayout(eGoPass, qrCodeMatrix, qrCodeImage);
 
+        log.info("PDF généré avec succès pour le e-GoPass: {}", eGoPass.getPassNumber());
+        return pdfDocument;
+    }
+
+    /**
+     * Reconstruit intégralement le document du e-GoPass avec le moteur de mise en page iText.
+     *
+     * @param eGoPass      Le e-GoPass à transformer en PDF.
+     * @param qrCodeMatrix La matrice du QR code, ou null.
+     * @param qrCodeImage  L'image PNG du QR code, ou null.
+     * @return Un tableau de bytes contenant le fichier PDF.
+     */
+    private byte[] generateWithLayout(EGoPass eGoPass, BitMatrix qrCodeMatrix, byte[] qrCodeImage) {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         PdfWriter writer = new PdfWriter(outputStream);
         PdfDocument pdf = new PdfDocument(writer);
@@ -64,13 +112,15 @@ public class PDFGeneratorService {
         document.add(new Paragraph("\n"));
 
         // Ajout du QR Code si disponible
-        if (eGoPass.getQrCodeImage() != null) {
+        if (qrCodeMatrix != null || qrCodeImage != null) {
             log.info("Ajout du QR Code pour le e-GoPass: {}", eGoPass.getPassNumber());
-            Image qrCodeImage = new Image(ImageDataFactory.create(eGoPass.getQrCodeImage()));
-            qrCodeImage.setWidth(150);
-            qrCodeImage.setHeight(150);
-            qrCodeImage.setHorizontalAlignment(com.itextpdf.layout.properties.HorizontalAlignment.CENTER);
-            document.add(qrCodeImage);
+            Image qrCode = qrCodeMatrix != null
+                    ? new Image(QRCodeVectorRenderer.toFormXObject(qrCodeMatrix, 150, pdf))
+                    : new Image(ImageDataFactory.create(qrCodeImage));
+            qrCode.setWidth(150);
+            qrCode.setHeight(150);
+            qrCode.setHorizontalAlignment(com.itextpdf.layout.properties.HorizontalAlignment.CENTER);
+            document.add(qrCode);
         }
 
         document.add(new Paragraph("\n"));
@@ -126,7 +176,6 @@ public class PDFGeneratorService {
         document.add(footer);
 
         document.close();
-        log.info("PDF généré avec succès pour le e-GoPass: {}", eGoPass.getPassNumber());
 
         return outputStream.toByteArray();
     }
@@ -144,30 +193,81 @@ public class PDFGeneratorService {
     }
 
     /**
-     * Génère un PDF pour un e-GoPass de manière asynchrone et l'enregistre en base.
+     * Rend et enregistre le PDF d'un e-GoPass pour un utilisateur qui attend le document.
+     * Le rendu passe par le pool dédié avec une priorité INTERACTIVE, devant les pré-rendus ;
+     * si le PDF est déjà en cours de rendu, le résultat de ce rendu est attendu.
+     *
+     * @param eGoPass Le e-GoPass à transformer en PDF.
+     * @return La référence du PDF enregistré.
+     * @throws PDFRenderingOverloadedException Si le pool est saturé ou que le rendu dépasse le délai d'attente.
+     * @throws Exception En cas d'erreur lors de la génération du PDF.
+     */
+    public BlobReference renderForDownload(EGoPass eGoPass) throws Exception {
+        CompletableFuture<BlobReference> future = renderAndStore(eGoPass, RenderPriority.INTERACTIVE);
+        try {
+            return future.get(downloadTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Le rendu partagé n'est pas annulé : il sera enregistré pour les demandes suivantes
+            throw new PDFRenderingOverloadedException(
+                    "Le rendu du PDF du e-GoPass " + eGoPass.getPassNumber() + " a dépassé le délai d'attente");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * Rend et enregistre le PDF d'un e-GoPass sur le pool dédié, sans jamais rendre deux fois le même pass
+     * en parallèle.
+     *
+     * @param eGoPass  Le e-GoPass à transformer en PDF.
+     * @param priority La priorité du rendu.
+     * @return La référence du PDF enregistré, à venir.
+     */
+    public CompletableFuture<BlobReference> renderAndStore(EGoPass eGoPass, RenderPriority priority) {
+        if (eGoPass.getPdfBlob() != null) {
+            return CompletableFuture.completedFuture(eGoPass.getPdfBlob());
+        }
+        return renderCoordinator.render(eGoPass.getId(), priority, () -> generateEGoPassPDF(eGoPass));
+    }
+
+    /**
+     * Programme la génération du PDF d'un e-GoPass sur le pool de rendu, en priorité BACKGROUND.
+     * Si une transaction est active, la soumission est différée après son commit pour que le rendu
+     * ne retienne pas la transaction appelante et voie bien le e-GoPass enregistré.
      *
      * @param eGoPassId L'identifiant du e-GoPass.
      */
-    @Async
     public void scheduleEGoPassPDFGeneration(Long eGoPassId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submitBackgroundRendering(eGoPassId);
+                }
+            });
+        } else {
+            submitBackgroundRendering(eGoPassId);
+        }
+    }
+
+    private void submitBackgroundRendering(Long eGoPassId) {
         log.info("Démarrage de la génération asynchrone du PDF pour l'eGoPass ID: {}", eGoPassId);
-        try {
-            // Récupérer le e-GoPass depuis la base de données
+        renderCoordinator.render(eGoPassId, RenderPriority.BACKGROUND, () -> {
+            // Le e-GoPass est chargé par le thread de rendu, au moment où le rendu démarre
             EGoPass eGoPass = eGoPassRepository.findById(eGoPassId)
                     .orElseThrow(() -> new EGoPassNotFoundException(eGoPassId));
-
-            // Générer le PDF
-            byte[] pdfDocument = generateEGoPassPDF(eGoPass);
-
-            // Enregistrer le PDF dans l'entité e-GoPass
-            eGoPass.setPdfDocument(pdfDocument);
-            eGoPassRepository.save(eGoPass);
-
-            log.info("Génération du PDF terminée avec succès pour l'eGoPass ID: {}", eGoPassId);
-        } catch (EGoPassNotFoundException e) {
-            log.error("Impossible de trouver l'eGoPass avec l'ID: {}", eGoPassId, e);
-        } catch (Exception e) {
-            log.error("Erreur lors de la génération du PDF pour l'eGoPass ID: {}", eGoPassId, e);
-        }
+            return generateEGoPassPDF(eGoPass);
+        }).whenComplete((reference, error) -> {
+            if (error == null) {
+                log.info("Génération du PDF terminée avec succès pour l'eGoPass ID: {}", eGoPassId);
+            } else if (error instanceof PDFRenderingOverloadedException) {
+                // Le PDF sera rendu au premier téléchargement
+                log.warn("Pré-rendu du PDF ignoré pour l'eGoPass ID: {} : {}", eGoPassId, error.getMessage());
+            } else if (error instanceof EGoPassNotFoundException) {
+                log.error("Impossible de trouver l'eGoPass avec l'ID: {}", eGoPassId, error);
+            } else {
+                log.error("Erreur lors de la génération du PDF pour l'eGoPass ID: {}", eGoPassId, error);
+            }
+        });
     }
 }
@@ -0,0 +1,189 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.exceptions.InvalidRequestException;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Format des numéros d'e-GoPass : {@code EGP-XXXXXXXX-C}, soit huit caractères en base 32 de Crockford
+ * (sans I, L, O ni U) suivis d'un caractère de contrôle Luhn mod 32, qui détecte toute erreur de saisie
+ * sur un caractère et la plupart des inversions de caractères voisins.
+ * <p>
+ * La valeur de séquence est mélangée par une bijection sur 40 bits avant encodage : deux passes émis
+ * l'un après l'autre n'ont pas des numéros voisins. Ce mélange n'a rien de secret ; l'authenticité
+ * d'un passe repose sur la signature de son QR code.
+ */
+public final class PassNumberFormat {
+
+    public static final String PREFIX = "EGP-";
+
+    static final int CODE_LENGTH = 8;
+    static final long MAX_VALUE = (1L << (5 * CODE_LENGTH)) - 1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int BASE = ALPHABET.length;
+    private static final int[] DIGITS = new int[128];
+    private static final Pattern LEGACY_PASS_NUMBER = Pattern.compile("EGP-[0-9A-F]{8}-[0-9A-F]");
+    private static final long LEGACY_KEY_FLAG = 1L << 40;
+    private static final long MULTIPLIER_1 = 0x9E3779B97FL;
+    private static final long MULTIPLIER_2 = 0xC2B2AE3D27L;
+
+    static {
+        Arrays.fill(DIGITS, -1);
+        for (int i = 0; i < BASE; i++) {
+            DIGITS[ALPHABET[i]] = i;
+        }
+        // Caractères ambigus acceptés à la saisie
+        DIGITS['O'] = 0;
+        DIGITS['I'] = 1;
+        DIGITS['L'] = 1;
+    }
+
+    private PassNumberFormat() {
+    }
+
+    /**
+     * @param value Une valeur de séquence, entre 0 et 2<sup>40</sup> - 1.
+     * @return Le numéro d'e-GoPass correspondant.
+     */
+    public static String format(long value) {
+        if (value < 0 || value > MAX_VALUE) {
+            throw new IllegalArgumentException("Valeur hors de l'espace des numéros d'eGoPass: " + value);
+        }
+        long scrambled = scramble(value);
+        int[] digits = new int[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            digits[i] = (int) (scrambled & (BASE - 1));
+            scrambled >>>= 5;
+        }
+
+        return render(digits);
+    }
+
+    /**
+     * Ramène un numéro saisi à sa forme canonique : casse, tirets, espaces et préfixe sont indifférents,
+     * et O, I, L sont lus 0, 1, 1.
+     *
+     * @param input Le numéro saisi ou lu.
+     * @return Le numéro canonique.
+     * @throws InvalidRequestException Si le numéro est mal formé ou si son caractère de contrôle est faux.
+     */
+    public static String normalize(String input) {
+        if (input == null) {
+            throw invalid();
+        }
+        StringBuilder compact = new StringBuilder(input.length());
+        for (int i = 0; i < input.length(); i++) {
+            char c = Character.toUpperCase(input.charAt(i));
+            if (c != '-' && !Character.isWhitespace(c)) {
+                compact.append(c);
+            }
+        }
+        int start = compact.indexOf("EGP") == 0 ? 3 : 0;
+        if (compact.length() - start != CODE_LENGTH + 1) {
+            throw invalid();
+        }
+
+        int[] digits = new int[CODE_LENGTH];
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            digits[i] = digit(compact.charAt(start + i));
+        }
+        if (digit(compact.charAt(start + CODE_LENGTH)) != checkDigit(digits)) {
+            throw invalid();
+        }
+
+        return render(digits);
+    }
+
+    /**
+     * Comme {@link #normalize(String)}, mais accepte aussi les numéros émis avant le format à caractère
+     * de contrôle, recherchés tels quels : {@code EGP-} suivi des dix premiers caractères d'un UUID, soit huit
+     * chiffres hexadécimaux, un tiret et un neuvième chiffre.
+     *
+     * @param input Le numéro saisi ou lu.
+     * @return Le numéro à rechercher.
+     * @throws InvalidRequestException Si le numéro n'est dans aucun des deux formats.
+     */
+    public static String normalizeForLookup(String input) {
+        String trimmed = input == null ? "" : input.trim().toUpperCase();
+        return LEGACY_PASS_NUMBER.matcher(trimmed).matches() ? trimmed : normalize(trimmed);
+    }
+
+    /**
+     * Clé numérique d'un numéro canonique, pour les index en mémoire : les 40 bits du code, et pour les
+     * numéros anciens les 36 bits de leurs neuf chiffres hexadécimaux avec le bit 40 en plus. Deux numéros canoniques
+     * distincts ont des clés distinctes.
+     *
+     * @param number Un numéro renvoyé par {@link #normalizeForLookup(String)}.
+     * @return La clé, ou -1 si le numéro n'est pas canonique.
+     */
+    public static long key(String number) {
+        if (number == null) {
+            return -1;
+        }
+        if (LEGACY_PASS_NUMBER.matcher(number).matches()) {
+            // Les tirets ne portent aucune information : seuls les chiffres hexadécimaux forment la clé
+            return LEGACY_KEY_FLAG | Long.parseLong(number.substring(PREFIX.length()).replace("-", ""), 16);
+        }
+        if (number.length() != PREFIX.length() + CODE_LENGTH + 2 || !number.startsWith(PREFIX)
+                || number.charAt(PREFIX.length() + CODE_LENGTH) != '-') {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            char c = number.charAt(PREFIX.length() + i);
+            int digit = c < DIGITS.length ? DIGITS[c] : -1;
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 5) | digit;
+        }
+        return value;
+    }
+
+    private static String render(int[] digits) {
+        StringBuilder number = new StringBuilder(PREFIX.length() + CODE_LENGTH + 2).append(PREFIX);
+        for (int digit : digits) {
+            number.append(ALPHABET[digit]);
+        }
+        return number.append('-').append(ALPHABET[checkDigit(digits)]).toString();
+    }
+
+    /**
+     * Bijection sur 40 bits : multiplications par des constantes impaires et décalages xor, chacun inversible.
+     */
+    static long scramble(long value) {
+        long x = (value * MULTIPLIER_1) & MAX_VALUE;
+        x ^= x >>> 19;
+        x = (x * MULTIPLIER_2) & MAX_VALUE;
+        x ^= x >>> 21;
+        return x;
+    }
+
+    /**
+     * Luhn mod N : un chiffre sur deux, en partant de la droite, est doublé et réduit en base 32.
+     */
+    static int checkDigit(int[] digits) {
+        int factor = 2;
+        int sum = 0;
+        for (int i = digits.length - 1; i >= 0; i--) {
+            int addend = factor * digits[i];
+            sum += addend / BASE + addend % BASE;
+            factor = factor == 2 ? 1 : 2;
+        }
+        return (BASE - sum % BASE) % BASE;
+    }
+
+    private static int digit(char c) {
+        int digit = c < DIGITS.length ? DIGITS[c] : -1;
+        if (digit < 0) {
+            throw invalid();
+        }
+        return digit;
+    }
+
+    private static InvalidRequestException invalid() {
+        return new InvalidRequestException("passNumber", "Numéro d'eGoPass invalide");
+    }
+}
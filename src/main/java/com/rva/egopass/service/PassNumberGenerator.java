@@ -0,0 +1,65 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.repository.PassNumberSequenceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Attribue les numéros d'e-GoPass. Les valeurs sont réservées par blocs dans la séquence Postgres
+ * (hi/lo) puis distribuées en mémoire sans verrou : un seul appel à la base par bloc.
+ * Les valeurs d'un bloc entamé sont perdues à l'arrêt ; la numérotation a des trous, jamais de doublon.
+ */
+@Component
+@Slf4j
+public class PassNumberGenerator {
+
+    private final PassNumberSequenceRepository sequenceRepository;
+    private final int blockSize;
+    private final Object allocationLock = new Object();
+
+    private volatile Block current = new Block(0, 0);
+
+    public PassNumberGenerator(PassNumberSequenceRepository sequenceRepository,
+                               @Value("${app.pass-number.block-size:100}") int blockSize) {
+        this.sequenceRepository = sequenceRepository;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @return Un nouveau numéro d'e-GoPass, au format de {@link PassNumberFormat}.
+     */
+    public String next() {
+        return PassNumberFormat.format(nextValue());
+    }
+
+    long nextValue() {
+        while (true) {
+            Block block = current;
+            long value = block.next.getAndIncrement();
+            if (value < block.limit) {
+                return value;
+            }
+            synchronized (allocationLock) {
+                // Un autre thread a pu réserver le bloc suivant pendant l'attente
+                if (current == block) {
+                    PassNumberSequenceRepository.Block allocated = sequenceRepository.allocateBlock(blockSize);
+                    log.debug("Bloc de numéros d'eGoPass réservé: {} ({} valeurs)", allocated.start(), allocated.size());
+                    current = new Block(allocated.start(), allocated.start() + allocated.size());
+                }
+            }
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long limit;
+
+        private Block(long start, long limit) {
+            this.next = new AtomicLong(start);
+            this.limit = limit;
+        }
+    }
+}
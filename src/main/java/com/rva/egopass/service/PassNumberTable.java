@@ -0,0 +1,84 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.repository.PassValidationRepository.PassSummary;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Table de hachage immuable des passes, par clé de numéro ({@link PassNumberFormat#key(String)}).
+ * Adressage ouvert à sondage linéaire sur un tableau de {@code long} : une recherche ne crée aucun objet
+ * et ne parcourt que des clés contiguës en mémoire.
+ */
+final class PassNumberTable {
+
+    static final PassNumberTable EMPTY = of(List.of());
+
+    private static final long FREE = -1;
+
+    private final long[] keys;
+    private final PassSummary[] values;
+    private final int mask;
+    private final int size;
+
+    private PassNumberTable(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new PassSummary[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, FREE);
+        this.size = 0;
+    }
+
+    private PassNumberTable(long[] keys, PassSummary[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.mask = keys.length - 1;
+        this.size = size;
+    }
+
+    /**
+     * @param passes Les passes à indexer ; ceux dont le numéro n'a pas de clé sont ignorés.
+     */
+    static PassNumberTable of(List<PassSummary> passes) {
+        // Taux de remplissage d'au plus 1/2 : les sondages restent courts
+        int capacity = Integer.highestOneBit(Math.max(passes.size(), 1) * 2 - 1) << 1;
+        PassNumberTable table = new PassNumberTable(capacity);
+        int size = 0;
+        for (PassSummary pass : passes) {
+            long key = PassNumberFormat.key(pass.passNumber());
+            if (key < 0) {
+                continue;
+            }
+            int slot = table.slotOf(key);
+            if (table.keys[slot] == FREE) {
+                table.keys[slot] = key;
+                size++;
+            }
+            table.values[slot] = pass;
+        }
+        return new PassNumberTable(table.keys, table.values, size);
+    }
+
+    /**
+     * @return Le passe de cette clé, ou null.
+     */
+    PassSummary get(long key) {
+        return values[slotOf(key)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return L'emplacement de la clé, ou l'emplacement libre où elle serait insérée.
+     */
+    private int slotOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,183 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.model.EGoPass;
+import com.rva.egopass.repository.PassValidationRepository;
+import com.rva.egopass.repository.PassValidationRepository.PassSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index en mémoire des e-GoPass des vols des prochaines heures ({@code app.validation-index.horizon}) :
+ * état de validation et résumé du passager, par numéro. Un passe déjà utilisé est refusé à la porte sans
+ * accès à la base ; la validation d'un passe valide reste l'{@code UPDATE} conditionnel de
+ * {@link PassValidationRepository}, seul garant de l'usage unique entre les nœuds.
+ * <p>
+ * L'index est une table immuable ({@link PassNumberTable}) reconstruite périodiquement, complétée par
+ * les changements récents : passes émis ou validés sur ce nœud, dès la validation de leur transaction,
+ * et passes modifiés ailleurs, relus par leur date de modification à chaque rafraîchissement.
+ */
+@Component
+@Slf4j
+public class PassValidationIndex {
+
+    private record Change(PassSummary pass, long recordedAt) {
+    }
+
+    private final PassValidationRepository passValidationRepository;
+    private final boolean enabled;
+    private final Duration horizon;
+    private final Duration rebuildInterval;
+    private final Duration overlap;
+
+    private volatile PassNumberTable table = PassNumberTable.EMPTY;
+    private final Map<Long, Change> changes = new ConcurrentHashMap<>();
+    private volatile LocalDate windowStart;
+    private volatile LocalDate windowEnd;
+    private LocalDateTime lastModifiedAfter;
+    private long lastRebuild;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer refreshTimer;
+
+    public PassValidationIndex(PassValidationRepository passValidationRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.validation-index.enabled:true}") boolean enabled,
+                               @Value("${app.validation-index.horizon:24h}") Duration horizon,
+                               @Value("${app.validation-index.rebuild-interval:15m}") Duration rebuildInterval,
+                               @Value("${app.validation-index.overlap:30s}") Duration overlap) {
+        this.passValidationRepository = passValidationRepository;
+        this.enabled = enabled;
+        this.horizon = horizon;
+        this.rebuildInterval = rebuildInterval;
+        this.overlap = overlap;
+
+        this.hits = Counter.builder("egopass.validation.index.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("egopass.validation.index.lookups").tag("result", "miss").register(meterRegistry);
+        this.refreshTimer = Timer.builder("egopass.validation.index.refresh").register(meterRegistry);
+        meterRegistry.gauge("egopass.validation.index.entries", this, PassValidationIndex::size);
+    }
+
+    /**
+     * @param passNumber Le numéro canonique du passe.
+     * @return Le passe s'il est dans l'index, null sinon (vol hors de la période ou passe inconnu).
+     */
+    public PassSummary find(String passNumber) {
+        long key = PassNumberFormat.key(passNumber);
+        if (key < 0) {
+            return null;
+        }
+        Change change = changes.get(key);
+        PassSummary pass = change != null ? change.pass() : table.get(key);
+        (pass != null ? hits : misses).increment();
+        return pass;
+    }
+
+    /**
+     * Enregistre un passe qui vient d'être émis, à la validation de la transaction en cours s'il y en a une.
+     */
+    public void indexIssued(EGoPass eGoPass) {
+        if (!enabled) {
+            return;
+        }
+        PassSummary pass = new PassSummary(eGoPass.getPassNumber(), eGoPass.isValidated(), eGoPass.getValidationDate(),
+                eGoPass.getValidationGate(),
+                eGoPass.getPassengerInfo() != null ? eGoPass.getPassengerInfo().getFirstName() : null,
+                eGoPass.getPassengerInfo() != null ? eGoPass.getPassengerInfo().getLastName() : null,
+                eGoPass.getPassengerInfo() != null ? eGoPass.getPassengerInfo().getNationality() : null,
+                eGoPass.getPassengerInfo() != null ? eGoPass.getPassengerInfo().getPassportNumber() : null,
+                eGoPass.getFlightInfo() != null ? eGoPass.getFlightInfo().getFlightNumber() : null,
+                eGoPass.getFlightInfo() != null ? eGoPass.getFlightInfo().getOrigin() : null,
+                eGoPass.getFlightInfo() != null ? eGoPass.getFlightInfo().getDestination() : null,
+                eGoPass.getFlightInfo() != null ? eGoPass.getFlightInfo().getDepartureDate() : null);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(pass);
+                }
+            });
+        } else {
+            record(pass);
+        }
+    }
+
+    /**
+     * Enregistre l'état d'un passe lu ou modifié en base (validation).
+     */
+    public void record(PassSummary pass) {
+        if (!enabled || pass.departureDate() == null) {
+            return;
+        }
+        LocalDate start = windowStart;
+        LocalDate end = windowEnd;
+        if (start == null || pass.departureDate().isBefore(start) || pass.departureDate().isAfter(end)) {
+            return;
+        }
+        long key = PassNumberFormat.key(pass.passNumber());
+        if (key >= 0) {
+            // Une validation est définitive : une lecture plus ancienne ne la remplace pas
+            changes.merge(key, new Change(pass, System.nanoTime()),
+                    (previous, next) -> previous.pass().validated() && !next.pass().validated() ? previous : next);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.validation-index.initial-delay:10s}",
+            fixedDelayString = "${app.validation-index.refresh-interval:10s}")
+    public void scheduledRefresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            refreshTimer.record(this::refresh);
+        } catch (Exception e) {
+            log.error("Erreur lors du rafraîchissement de l'index de validation: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reconstruit l'index si la période a changé ou si la dernière reconstruction est trop ancienne,
+     * sinon relit seulement les passes modifiés depuis le rafraîchissement précédent.
+     */
+    synchronized void refresh() {
+        LocalDateTime now = passValidationRepository.currentTimestamp();
+        LocalDate start = now.toLocalDate();
+        LocalDate end = now.plus(horizon).toLocalDate();
+        long startedAt = System.nanoTime();
+
+        if (!start.equals(windowStart) || !end.equals(windowEnd) || startedAt - lastRebuild >= rebuildInterval.toNanos()) {
+            List<PassSummary> passes = passValidationRepository.findSummaries(null, start, end, null);
+            windowStart = start;
+            windowEnd = end;
+            table = PassNumberTable.of(passes);
+            // Les changements enregistrés pendant la lecture peuvent être plus récents qu'elle : ils restent
+            changes.values().removeIf(change -> change.recordedAt() < startedAt);
+            lastRebuild = startedAt;
+            log.info("Index de validation reconstruit: {} passes des vols du {} au {}", table.size(), start, end);
+        } else {
+            for (PassSummary pass : passValidationRepository.findSummaries(null, start, end, lastModifiedAfter)) {
+                record(pass);
+            }
+        }
+        // Recul : un changement validé tardivement mais daté d'avant est relu au rafraîchissement suivant
+        lastModifiedAfter = now.minus(overlap);
+    }
+
+    int size() {
+        return table.size() + changes.size();
+    }
+}
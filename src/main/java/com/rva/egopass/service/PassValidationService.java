@@ -0,0 +1,198 @@
+package com.rva.egopass.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rva.egopass.dto.PassValidationRequest;
+import com.rva.egopass.dto.PassValidationResponse;
+import com.rva.egopass.enums.PassRefusal;
+import com.rva.egopass.exceptions.EGoPassNotFoundException;
+import com.rva.egopass.exceptions.InvalidPassPayloadException;
+import com.rva.egopass.exceptions.InvalidRequestException;
+import com.rva.egopass.exceptions.PassAlreadyValidatedException;
+import com.rva.egopass.exceptions.PassRefusedException;
+import com.rva.egopass.payload.PassPayloadCodec;
+import com.rva.egopass.repository.PassValidationRepository;
+import com.rva.egopass.repository.PassValidationRepository.PassSummary;
+import com.rva.egopass.repository.PassValidationRepository.ValidationState;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Contrôle des e-GoPass à l'embarquement. Un passe valide est marqué utilisé et le résumé du passager
+ * renvoyé en une seule requête, hors transaction ; la base n'est relue que pour expliquer un refus. Un passe
+ * expiré, d'un vol d'un autre jour ({@code app.gate-validation.departure-tolerance-days} près) ou d'une
+ * réservation annulée ou expirée n'est pas validé.
+ * La signature du QR code est vérifiée avant tout accès à la base, et un passe que
+ * {@link PassValidationIndex} sait déjà utilisé est refusé sans y accéder.
+ * <p>
+ * Les passes émis avant la signature des QR codes portent un contenu JSON non signé : le passe est cherché par son
+ * numéro, et la réponse signale à l'agent qu'il doit contrôler le passager manuellement.
+ */
+@Service
+@Slf4j
+public class PassValidationService {
+
+    static final int MAX_GATE_LENGTH = 50;
+
+    private final PassValidationRepository passValidationRepository;
+    private final PassPayloadCodec passPayloadCodec;
+    private final PassValidationIndex passValidationIndex;
+    private final ObjectMapper objectMapper;
+    private final int departureToleranceDays;
+
+    private final Timer scanTimer;
+    private final Counter validated;
+    private final Counter alreadyValidated;
+    private final Counter notFound;
+    private final Counter invalid;
+    private final Counter legacy;
+    private final Map<PassRefusal, Counter> refused = new EnumMap<>(PassRefusal.class);
+
+    public PassValidationService(PassValidationRepository passValidationRepository,
+                                 PassPayloadCodec passPayloadCodec,
+                                 PassValidationIndex passValidationIndex,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.gate-validation.departure-tolerance-days:0}")
+                                 int departureToleranceDays) {
+        this.passValidationRepository = passValidationRepository;
+        this.passPayloadCodec = passPayloadCodec;
+        this.passValidationIndex = passValidationIndex;
+        this.objectMapper = objectMapper;
+        this.departureToleranceDays = departureToleranceDays;
+
+        this.scanTimer = Timer.builder("egopass.gate.scan").publishPercentileHistogram().register(meterRegistry);
+        this.validated = Counter.builder("egopass.gate.scans").tag("result", "validated").register(meterRegistry);
+        this.alreadyValidated = Counter.builder("egopass.gate.scans").tag("result", "already_validated").register(meterRegistry);
+        this.notFound = Counter.builder("egopass.gate.scans").tag("result", "not_found").register(meterRegistry);
+        this.invalid = Counter.builder("egopass.gate.scans").tag("result", "invalid").register(meterRegistry);
+        this.legacy = Counter.builder("egopass.gate.scans.legacy").register(meterRegistry);
+        for (PassRefusal refusal : PassRefusal.values()) {
+            refused.put(refusal, Counter.builder("egopass.gate.scans")
+                    .tag("result", refusal.name().toLowerCase()).register(meterRegistry));
+        }
+    }
+
+    /**
+     * @param request Le contenu lu (ou le numéro saisi) et la porte.
+     * @param agentId L'utilisateur qui contrôle le passe.
+     * @return Le résumé du passager du passe, désormais utilisé ; {@code legacyPayload} si le QR code, à l'ancien
+     * format JSON, n'est pas signé.
+     * @throws InvalidRequestException        Si la porte ou le numéro manque ou est mal formé.
+     * @throws InvalidPassPayloadException    Si le QR code n'est pas un contenu e-GoPass authentique.
+     * @throws EGoPassNotFoundException       Si le passe est inconnu.
+     * @throws PassAlreadyValidatedException  Si le passe a déjà été utilisé.
+     * @throws PassRefusedException           Si le passe est expiré, d'un vol d'un autre jour ou d'une réservation
+     *                                        annulée ou expirée.
+     */
+    public PassValidationResponse validate(PassValidationRequest request, Long agentId) {
+        Timer.Sample sample = Timer.start();
+        try {
+            return doValidate(request, agentId);
+        } finally {
+            sample.stop(scanTimer);
+        }
+    }
+
+    private PassValidationResponse doValidate(PassValidationRequest request, Long agentId) {
+        String gate = request.getGate() == null ? "" : request.getGate().trim();
+        if (gate.isEmpty() || gate.length() > MAX_GATE_LENGTH) {
+            invalid.increment();
+            throw new InvalidRequestException("gate", "La porte est requise (" + MAX_GATE_LENGTH + " caractères au plus).");
+        }
+
+        String passNumber;
+        boolean legacyPayload = isLegacyPayload(request.getQrContent());
+        try {
+            passNumber = legacyPayload ? legacyPassNumber(request.getQrContent()) : passNumber(request);
+        } catch (InvalidRequestException | InvalidPassPayloadException e) {
+            invalid.increment();
+            throw e;
+        }
+        if (legacyPayload) {
+            legacy.increment();
+            log.warn("EGoPass {} présenté avec un QR code non signé (ancien format) à la porte {} : contrôle manuel requis",
+                    passNumber, gate);
+        }
+
+        PassSummary indexed = passValidationIndex.find(passNumber);
+        if (indexed != null && indexed.validated()) {
+            throw alreadyValidated(passNumber, gate, indexed.validationDate(), indexed.validationGate());
+        }
+
+        PassSummary pass = passValidationRepository.markValidated(passNumber, gate, agentId, departureToleranceDays)
+                .orElse(null);
+        if (pass != null) {
+            passValidationIndex.record(pass);
+            validated.increment();
+            log.info("EGoPass {} validé à la porte {} par l'utilisateur ID: {}", passNumber, gate, agentId);
+            PassValidationResponse response = pass.toResponse();
+            response.setLegacyPayload(legacyPayload);
+            return response;
+        }
+
+        ValidationState state = passValidationRepository.findValidationState(passNumber, departureToleranceDays)
+                .orElse(null);
+        if (state == null) {
+            notFound.increment();
+            throw new EGoPassNotFoundException("EGoPass not found with number: " + passNumber);
+        }
+        if (!state.validated() && state.refusal() != null) {
+            refused.get(state.refusal()).increment();
+            log.warn("EGoPass {} refusé à la porte {}: {}", passNumber, gate, state.refusal());
+            throw new PassRefusedException(passNumber, state.refusal());
+        }
+        // Le passe existe : il était déjà validé, éventuellement par une lecture simultanée
+        if (indexed != null) {
+            passValidationIndex.record(indexed.validatedAt(state.validationDate(), state.validationGate()));
+        }
+        throw alreadyValidated(passNumber, gate, state.validationDate(), state.validationGate());
+    }
+
+    private PassAlreadyValidatedException alreadyValidated(String passNumber, String gate,
+                                                           LocalDateTime validationDate, String validationGate) {
+        alreadyValidated.increment();
+        log.warn("EGoPass {} présenté à nouveau à la porte {} (validé le {} à la porte {})",
+                passNumber, gate, validationDate, validationGate);
+        return new PassAlreadyValidatedException(passNumber, validationDate, validationGate);
+    }
+
+    private String passNumber(PassValidationRequest request) {
+        if (request.getQrContent() != null && !request.getQrContent().isBlank()) {
+            return PassNumberFormat.normalizeForLookup(passPayloadCodec.decode(request.getQrContent().trim()).getPassNumber());
+        }
+        if (request.getPassNumber() == null || request.getPassNumber().isBlank()) {
+            throw new InvalidRequestException("passNumber", "Le contenu du QR code ou le numéro du passe est requis.");
+        }
+        return PassNumberFormat.normalizeForLookup(request.getPassNumber());
+    }
+
+    private static boolean isLegacyPayload(String qrContent) {
+        return qrContent != null && qrContent.trim().startsWith("{");
+    }
+
+    /**
+     * @return Le numéro du passe d'un contenu JSON de l'ancien format, qui n'est pas signé.
+     */
+    private String legacyPassNumber(String qrContent) {
+        JsonNode passNumber;
+        try {
+            passNumber = objectMapper.readTree(qrContent.trim()).path("passNumber");
+        } catch (JsonProcessingException e) {
+            throw new InvalidPassPayloadException("Contenu du QR code illisible");
+        }
+        if (!passNumber.isTextual() || passNumber.asText().isBlank()) {
+            throw new InvalidPassPayloadException("Contenu du QR code sans numéro de passe");
+        }
+        return PassNumberFormat.normalizeForLookup(passNumber.asText());
+    }
+}
@@ -0,0 +1,89 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.dto.EGoPassRequest;
+import com.rva.egopass.exceptions.InvalidRequestException;
+
+import java.time.LocalDate;
+import java.util.regex.Pattern;
+
+/**
+ * Règles de validation d'une demande d'e-GoPass, communes à la réservation individuelle, aux groupes
+ * et à l'import de manifestes. Les expressions régulières sont compilées une fois : un import de plusieurs
+ * dizaines de milliers de lignes ne les recompile pas à chaque ligne, comme le ferait {@link String#matches}.
+ * Chaque règle renvoie la première violation trouvée plutôt que de lever une exception, pour que l'import
+ * rejette une ligne sans en payer le coût.
+ */
+public final class PassengerRequestValidator {
+
+    private static final Pattern EMAIL = Pattern.compile("^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,}$");
+    private static final Pattern PHONE = Pattern.compile("^\\+?[0-9]{7,15}$");
+
+    public record Violation(String field, String message) {
+
+        public InvalidRequestException toException() {
+            return new InvalidRequestException(field, message);
+        }
+    }
+
+    private PassengerRequestValidator() {
+    }
+
+    /**
+     * @param request La demande d'eGoPass.
+     * @return La première violation des règles passager, ou null si les informations sont valides.
+     */
+    public static Violation checkPassenger(EGoPassRequest request) {
+        if (isBlank(request.getFirstName())) {
+            return new Violation("firstName", "Le prénom du passager est requis.");
+        }
+        if (isBlank(request.getLastName())) {
+            return new Violation("lastName", "Le nom du passager est requis.");
+        }
+        if (isBlank(request.getNationality())) {
+            return new Violation("nationality", "La nationalité du passager est requise.");
+        }
+        if (isBlank(request.getPassportNumber())) {
+            return new Violation("passportNumber", "Le numéro de passeport est requis.");
+        }
+        if (request.getPassportIssueDate() == null || request.getPassportIssueDate().isAfter(LocalDate.now())) {
+            return new Violation("passportIssueDate", "La date de délivrance du passeport est invalide.");
+        }
+        if (request.getEmail() == null || !EMAIL.matcher(request.getEmail()).matches()) {
+            return new Violation("email", "L'email du passager est invalide.");
+        }
+        if (request.getPhone() == null || !PHONE.matcher(request.getPhone()).matches()) {
+            return new Violation("phone", "Le numéro de téléphone est invalide.");
+        }
+        return null;
+    }
+
+    /**
+     * @param request La demande d'eGoPass.
+     * @return La première violation des règles de vol, ou null si les informations sont valides.
+     */
+    public static Violation checkFlight(EGoPassRequest request) {
+        if (!"LOCAL".equals(request.getFlightType()) && !"INTERNATIONAL".equals(request.getFlightType())) {
+            return new Violation("flightType", "Le type de vol doit être 'LOCAL' ou 'INTERNATIONAL'.");
+        }
+        if (isBlank(request.getFlightCompany())) {
+            return new Violation("airline", "Le nom de la compagnie aérienne est requis.");
+        }
+        if (isBlank(request.getFlightNumber())) {
+            return new Violation("flightNumber", "Le numéro de vol est requis.");
+        }
+        if (isBlank(request.getOrigin())) {
+            return new Violation("origin", "L'aéroport d'origine est requis.");
+        }
+        if (isBlank(request.getDestination())) {
+            return new Violation("destination", "L'aéroport de destination est requis.");
+        }
+        if (request.getOrigin().equalsIgnoreCase(request.getDestination())) {
+            return new Violation("destination", "L'origine et la destination ne peuvent pas être identiques.");
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,152 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.dto.PaymentCallbackRequest;
+import com.rva.egopass.exceptions.PaymentException;
+import com.rva.egopass.repository.IssuanceOutboxRepository;
+import com.rva.egopass.repository.ProcessedCallbackRepository;
+import com.rva.egopass.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Traite les callbacks de la passerelle de paiement. Le paiement est vérifié auprès du prestataire avant
+ * la transaction, qui n'enregistre que son résultat et, s'il est confirmé, une demande d'émission : aucune
+ * connexion à la base n'est retenue pendant l'attente du prestataire. L'e-GoPass est émis ensuite
+ * par {@link IssuanceOutboxWorker}, et la passerelle reçoit sa réponse sans attendre l'émission.
+ * <p>
+ * Un paiement n'est confirmé qu'une fois par référence de transaction. Les rejeux de la passerelle sont acquittés
+ * avec la confirmation déjà enregistrée : depuis un cache mémoire pour les callbacks récents, sinon depuis la
+ * table {@code processed_callbacks}, sans nouvelle vérification ni écriture. Deux callbacks simultanés peuvent
+ * tous deux interroger le prestataire, ce qui est sans effet : seul le premier à réserver la référence enregistre
+ * le résultat. Un paiement en attente ou refusé n'est pas définitif : un callback ultérieur pour la même référence
+ * (PENDING puis SUCCESS) est vérifié à nouveau.
+ */
+@Service
+@Slf4j
+public class PaymentCallbackService {
+
+    private final PaymentService paymentService;
+    private final IssuanceOutboxRepository outboxRepository;
+    private final ProcessedCallbackRepository processedCallbackRepository;
+    private final ReservationRepository reservationRepository;
+    private final IssuanceOutboxWorker issuanceOutboxWorker;
+    private final TransactionTemplate transactionTemplate;
+    private final ProcessedCallbackCache processedCallbacks;
+
+    private final Counter processed;
+    private final Counter duplicateFromMemory;
+    private final Counter duplicateFromDatabase;
+
+    public PaymentCallbackService(PaymentService paymentService,
+                                  IssuanceOutboxRepository outboxRepository,
+                                  ProcessedCallbackRepository processedCallbackRepository,
+                                  ReservationRepository reservationRepository,
+                                  IssuanceOutboxWorker issuanceOutboxWorker,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.payment.callback.cache-size:10000}") int cacheSize) {
+        this.paymentService = paymentService;
+        this.outboxRepository = outboxRepository;
+        this.processedCallbackRepository = processedCallbackRepository;
+        this.reservationRepository = reservationRepository;
+        this.issuanceOutboxWorker = issuanceOutboxWorker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.processedCallbacks = new ProcessedCallbackCache(cacheSize);
+
+        this.processed = Counter.builder("egopass.payment.callback.requests").tag("result", "processed").register(meterRegistry);
+        this.duplicateFromMemory = Counter.builder("egopass.payment.callback.requests").tag("result", "duplicate_memory").register(meterRegistry);
+        this.duplicateFromDatabase = Counter.builder("egopass.payment.callback.requests").tag("result", "duplicate_database").register(meterRegistry);
+        meterRegistry.gauge("egopass.payment.callback.cache.entries", processedCallbacks, ProcessedCallbackCache::size);
+    }
+
+    /**
+     * @param callback Les informations reçues de la passerelle de paiement.
+     * @return true si le paiement est confirmé.
+     * @throws PaymentException Si le callback n'a pas de référence de transaction ou si le paiement est inconnu.
+     */
+    public boolean handleCallback(PaymentCallbackRequest callback) {
+        String reference = callback.getTransactionReference();
+        if (reference == null || reference.isBlank()) {
+            throw new PaymentException("Référence de transaction manquante dans le callback");
+        }
+
+        if (processedCallbacks.get(reference) != null) {
+            log.debug("Paiement déjà confirmé pour la référence: {}", reference);
+            duplicateFromMemory.increment();
+            return true;
+        }
+        if (processedCallbackRepository.findOutcome(reference).orElse(false)) {
+            log.info("Paiement déjà confirmé pour la référence: {}", reference);
+            processedCallbacks.put(reference, true);
+            duplicateFromDatabase.increment();
+            return true;
+        }
+
+        // Vérification hors transaction : elle ne modifie rien et peut être répétée
+        boolean confirmed = paymentService.checkPayment(callback);
+        return transactionTemplate.execute(status -> process(callback, confirmed));
+    }
+
+    private boolean process(PaymentCallbackRequest callback, boolean confirmed) {
+        String reference = callback.getTransactionReference();
+        if (!processedCallbackRepository.claim(reference, callback.getReservationId())) {
+            // Le traitement précédent a confirmé le paiement : l'insertion a attendu sa fin
+            boolean alreadyConfirmed = processedCallbackRepository.findOutcome(reference)
+                    .orElseThrow(() -> new PaymentException("Callback en cours de traitement pour la référence: " + reference));
+            log.info("Paiement déjà confirmé pour la référence: {}", reference);
+            processedCallbacks.put(reference, alreadyConfirmed);
+            duplicateFromDatabase.increment();
+            return alreadyConfirmed;
+        }
+
+        paymentService.recordVerification(callback, confirmed);
+        processedCallbackRepository.complete(reference, confirmed);
+        boolean enqueued = confirmed && enqueueIssuance(callback);
+
+        // La confirmation n'est mise en cache, et l'émission lancée, qu'une fois la transaction validée
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (confirmed) {
+                    processedCallbacks.put(reference, true);
+                }
+                if (enqueued) {
+                    issuanceOutboxWorker.wakeUp();
+                }
+            }
+        });
+        processed.increment();
+        return confirmed;
+    }
+
+    /**
+     * Programme l'émission des e-GoPass couverts par le paiement : tous ceux du groupe pour un paiement
+     * de groupe, celui de la réservation du callback sinon.
+     *
+     * @return true si au moins une émission a été programmée.
+     */
+    private boolean enqueueIssuance(PaymentCallbackRequest callback) {
+        List<Long> groupReservationIds = reservationRepository.findIdsByGroupPaymentReference(callback.getTransactionReference());
+        if (!groupReservationIds.isEmpty()) {
+            int enqueued = outboxRepository.enqueueAll(groupReservationIds);
+            log.info("Émission de {} eGoPass programmée pour le paiement de groupe {}", enqueued, callback.getTransactionReference());
+            return enqueued > 0;
+        }
+
+        if (outboxRepository.enqueue(callback.getReservationId())) {
+            log.info("Émission de l'eGoPass programmée pour la réservation ID: {}", callback.getReservationId());
+            return true;
+        }
+        log.info("Émission déjà programmée pour la réservation ID: {}", callback.getReservationId());
+        return false;
+    }
+}
@@ -0,0 +1,297 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.dto.CardDetails;
+import com.rva.egopass.dto.PaymentCallbackRequest;
+import com.rva.egopass.dto.PaymentInitiationResponse;
+import com.rva.egopass.enums.PaymentMethod;
+import com.rva.egopass.exceptions.PaymentException;
+import com.rva.egopass.exceptions.PaymentGatewayUnavailableException;
+import com.rva.egopass.model.Payment;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accès asynchrone aux prestataires de paiement, isolés les uns des autres.
+ * Chaque méthode de paiement a son propre pool borné (cloison), son délai d'appel, son disjoncteur et son budget
+ * de nouvelles tentatives : un prestataire lent ou en panne sature ou ouvre seulement les siens, et les appels
+ * en trop sont refusés aussitôt ({@link PaymentGatewayUnavailableException}) au lieu d'attendre.
+ * <p>
+ * Seules les erreurs techniques d'une vérification sont retentées : une vérification peut être répétée sans effet.
+ * Une initiation ne l'est jamais, ni un appel hors délai : le prestataire a pu recevoir la demande, et une nouvelle
+ * initiation risquerait un double débit. Un refus du prestataire
+ * ({@link PaymentException}) est une réponse : il ne compte pas comme un échec pour le disjoncteur.
+ * <p>
+ * Le délai d'un appel court à partir de son exécution, pas de sa soumission. Un appel resté dans la file de la
+ * cloison plus longtemps que ce délai y est annulé et refusé comme une cloison pleine : le prestataire ne l'a pas
+ * reçu, et le disjoncteur n'en tient pas compte.
+ */
+@Component
+@Slf4j
+public class PaymentGatewayClient {
+
+    private static final long QUEUED = Long.MIN_VALUE;
+    private static final long CANCELLED = Long.MIN_VALUE + 1;
+
+    private final PaymentGatewayService paymentGatewayService;
+    private final Map<PaymentMethod, Provider> providers = new EnumMap<>(PaymentMethod.class);
+    private final int maxAttempts;
+    private final Duration retryDelay;
+
+    public PaymentGatewayClient(PaymentGatewayService paymentGatewayService,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.payment.gateway.mobile-money.timeout:20s}") Duration mobileMoneyTimeout,
+                                @Value("${app.payment.gateway.credit-card.timeout:10s}") Duration creditCardTimeout,
+                                @Value("${app.payment.gateway.paypal.timeout:10s}") Duration payPalTimeout,
+                                @Value("${app.payment.gateway.max-concurrent-calls:16}") int maxConcurrentCalls,
+                                @Value("${app.payment.gateway.queue-capacity:16}") int queueCapacity,
+                                @Value("${app.payment.gateway.circuit-breaker.window-size:20}") int windowSize,
+                                @Value("${app.payment.gateway.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+                                @Value("${app.payment.gateway.circuit-breaker.open-duration:30s}") Duration openDuration,
+                                @Value("${app.payment.gateway.retry.max-attempts:2}") int maxAttempts,
+                                @Value("${app.payment.gateway.retry.delay:200ms}") Duration retryDelay,
+                                @Value("${app.payment.gateway.retry.budget-ratio:0.1}") double retryBudgetRatio) {
+        this.paymentGatewayService = paymentGatewayService;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelay = retryDelay;
+
+        Map<PaymentMethod, Duration> timeouts = Map.of(
+                PaymentMethod.MOBILE_MONEY, mobileMoneyTimeout,
+                PaymentMethod.CREDIT_CARD, creditCardTimeout,
+                PaymentMethod.PAYPAL, payPalTimeout);
+        timeouts.forEach((method, timeout) -> providers.put(method, new Provider(method, timeout, maxConcurrentCalls,
+                queueCapacity, new GatewayCircuitBreaker(windowSize, failureRateThreshold, openDuration, System::nanoTime),
+                new RetryBudget(retryBudgetRatio, maxConcurrentCalls), meterRegistry)));
+
+        log.info("Prestataires de paiement: {} appels simultanés et {} en attente par prestataire, délais {}",
+                maxConcurrentCalls, queueCapacity, timeouts);
+    }
+
+    /**
+     * Initie un paiement enregistré auprès du prestataire de sa méthode.
+     *
+     * @param payment     Le paiement, avec son identifiant et sa méthode.
+     * @param cardDetails Les détails de la carte, pour un paiement par carte.
+     * @return Un future complété avec la réponse du prestataire, ou en erreur : {@link PaymentException} si la
+     * méthode n'est pas prise en charge ou si le prestataire refuse le paiement,
+     * {@link PaymentGatewayUnavailableException} si le prestataire est saturé, indisponible ou hors délai.
+     */
+    public CompletableFuture<PaymentInitiationResponse> initiate(Payment payment, CardDetails cardDetails) {
+        return switch (payment.getPaymentMethod()) {
+            case MOBILE_MONEY -> call(PaymentMethod.MOBILE_MONEY, false,
+                    () -> paymentGatewayService.initiateMobileMoneyPayment(payment));
+            case CREDIT_CARD -> call(PaymentMethod.CREDIT_CARD, false,
+                    () -> paymentGatewayService.initiateCreditCardPayment(payment, cardDetails));
+            case PAYPAL -> call(PaymentMethod.PAYPAL, false,
+                    () -> paymentGatewayService.initiatePayPalPayment(payment));
+            default -> CompletableFuture.failedFuture(new PaymentException("Méthode de paiement non supportée"));
+        };
+    }
+
+    /**
+     * Vérifie un paiement auprès du prestataire de sa méthode, suite à un callback. Une erreur technique est retentée.
+     *
+     * @param paymentMethod La méthode du paiement vérifié.
+     * @param callback      Le callback reçu.
+     * @return Un future complété avec true si le paiement est confirmé.
+     */
+    public CompletableFuture<Boolean> verify(PaymentMethod paymentMethod, PaymentCallbackRequest callback) {
+        if (paymentMethod == null || !providers.containsKey(paymentMethod)) {
+            return CompletableFuture.failedFuture(new PaymentException("Méthode de paiement non supportée"));
+        }
+        return call(paymentMethod, true, () -> paymentGatewayService.verifyPayment(callback));
+    }
+
+    /**
+     * @return L'état du disjoncteur du prestataire de la méthode.
+     */
+    GatewayCircuitBreaker.State getCircuitState(PaymentMethod paymentMethod) {
+        return providers.get(paymentMethod).breaker.getState();
+    }
+
+    /**
+     * @param retryable true si l'appel peut être répété sans effet de bord chez le prestataire.
+     */
+    private <T> CompletableFuture<T> call(PaymentMethod paymentMethod, boolean retryable, Callable<T> task) {
+        Provider provider = providers.get(paymentMethod);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        provider.retryBudget.onRequest();
+        attempt(provider, task, retryable ? maxAttempts : 1, 1, result);
+        return result;
+    }
+
+    private <T> void attempt(Provider provider, Callable<T> task, int attemptLimit, int attempt, CompletableFuture<T> result) {
+        if (!provider.breaker.tryAcquire()) {
+            provider.shortCircuited.increment();
+            result.completeExceptionally(new PaymentGatewayUnavailableException(
+                    "Prestataire " + provider.method + " momentanément indisponible"));
+            return;
+        }
+
+        CompletableFuture<T> call = new CompletableFuture<>();
+        // Début de l'exécution, ou QUEUED tant que l'appel attend dans la file, CANCELLED s'il y a été annulé
+        AtomicLong startedAt = new AtomicLong(QUEUED);
+        Future<?> running;
+        try {
+            running = provider.executor.submit(() -> {
+                if (!startedAt.compareAndSet(QUEUED, System.nanoTime())) {
+                    return;
+                }
+                call.orTimeout(provider.timeout.toMillis(), TimeUnit.MILLISECONDS);
+                try {
+                    call.complete(task.call());
+                } catch (Throwable e) {
+                    call.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectSaturated(provider, result);
+            return;
+        }
+        CompletableFuture.delayedExecutor(provider.timeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (startedAt.compareAndSet(QUEUED, CANCELLED)) {
+                running.cancel(false);
+                provider.executor.remove((Runnable) running);
+                call.completeExceptionally(new RejectedExecutionException("Appel annulé dans la file"));
+            }
+        });
+
+        call.whenComplete((value, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException) {
+                log.warn("Appel au prestataire {} resté plus de {} ms dans la file", provider.method, provider.timeout.toMillis());
+                rejectSaturated(provider, result);
+                return;
+            }
+
+            long elapsed = System.nanoTime() - startedAt.get();
+            if (error == null) {
+                provider.breaker.onSuccess();
+                provider.succeeded.record(elapsed, TimeUnit.NANOSECONDS);
+                result.complete(value);
+                return;
+            }
+
+            if (cause instanceof TimeoutException) {
+                // Interrompt l'appel pour libérer sa place dans la cloison
+                running.cancel(true);
+                provider.breaker.onFailure();
+                provider.timedOut.record(elapsed, TimeUnit.NANOSECONDS);
+                log.warn("Prestataire {} hors délai ({} ms)", provider.method, provider.timeout.toMillis());
+                result.completeExceptionally(new PaymentGatewayUnavailableException(
+                        "Le prestataire " + provider.method + " n'a pas répondu à temps"));
+                return;
+            }
+            if (cause instanceof PaymentException) {
+                provider.breaker.onSuccess();
+                provider.refused.record(elapsed, TimeUnit.NANOSECONDS);
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            provider.breaker.onFailure();
+            provider.failed.record(elapsed, TimeUnit.NANOSECONDS);
+            if (attempt < attemptLimit && provider.retryBudget.tryRetry()) {
+                provider.retried.increment();
+                log.warn("Échec de l'appel au prestataire {} (tentative {}), nouvel essai: {}",
+                        provider.method, attempt, cause.getMessage());
+                CompletableFuture.delayedExecutor(retryDelay.toMillis(), TimeUnit.MILLISECONDS)
+                        .execute(() -> attempt(provider, task, attemptLimit, attempt + 1, result));
+                return;
+            }
+            result.completeExceptionally(cause);
+        });
+    }
+
+    private static void rejectSaturated(Provider provider, CompletableFuture<?> result) {
+        provider.breaker.onNotPermitted();
+        provider.rejected.increment();
+        result.completeExceptionally(new PaymentGatewayUnavailableException(
+                "Trop de paiements " + provider.method + " en cours, réessayez dans quelques instants"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        providers.values().forEach(provider -> provider.executor.shutdownNow());
+    }
+
+    /**
+     * Cloison, délai, disjoncteur, budget et métriques d'un prestataire.
+     */
+    private static final class Provider {
+
+        private final PaymentMethod method;
+        private final Duration timeout;
+        private final ThreadPoolExecutor executor;
+        private final GatewayCircuitBreaker breaker;
+        private final RetryBudget retryBudget;
+
+        private final Timer succeeded;
+        private final Timer refused;
+        private final Timer failed;
+        private final Timer timedOut;
+        private final Counter rejected;
+        private final Counter shortCircuited;
+        private final Counter retried;
+
+        private Provider(PaymentMethod method, Duration timeout, int maxConcurrentCalls, int queueCapacity,
+                         GatewayCircuitBreaker breaker, RetryBudget retryBudget, MeterRegistry meterRegistry) {
+            this.method = method;
+            this.timeout = timeout;
+            this.breaker = breaker;
+            this.retryBudget = retryBudget;
+
+            String tag = method.name().toLowerCase();
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                Thread thread = new Thread(runnable, "payment-" + tag + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+
+            this.succeeded = callTimer(meterRegistry, tag, "success");
+            this.refused = callTimer(meterRegistry, tag, "refused");
+            this.failed = callTimer(meterRegistry, tag, "failure");
+            this.timedOut = callTimer(meterRegistry, tag, "timeout");
+            this.rejected = Counter.builder("egopass.payment.gateway.rejected")
+                    .tag("provider", tag).tag("reason", "bulkhead_full").register(meterRegistry);
+            this.shortCircuited = Counter.builder("egopass.payment.gateway.rejected")
+                    .tag("provider", tag).tag("reason", "circuit_open").register(meterRegistry);
+            this.retried = Counter.builder("egopass.payment.gateway.retries")
+                    .tag("provider", tag).register(meterRegistry);
+            Gauge.builder("egopass.payment.gateway.active", executor, ThreadPoolExecutor::getActiveCount)
+                    .tag("provider", tag).register(meterRegistry);
+            Gauge.builder("egopass.payment.gateway.circuit.state", breaker, b -> b.getState().ordinal())
+                    .tag("provider", tag).register(meterRegistry);
+        }
+
+        private static Timer callTimer(MeterRegistry meterRegistry, String provider, String result) {
+            return Timer.builder("egopass.payment.gateway.calls")
+                    .tag("provider", provider).tag("result", result)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+}
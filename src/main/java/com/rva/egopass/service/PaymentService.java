@@ -1,10 +1,15 @@
 package com.rva.egopass.service;
 
+import com.rva.egopass.dto.CardDetails;
 import com.rva.egopass.dto.PaymentCallbackRequest;
 import com.rva.egopass.dto.PaymentInitiationRequest;
 import com.rva.egopass.dto.PaymentInitiationResponse;
+import com.rva.egopass.enums.PaymentMethod;
 
 public interface PaymentService {
     boolean verifyPayment(PaymentCallbackRequest callback);
+    boolean checkPayment(PaymentCallbackRequest callback);
+    void recordVerification(PaymentCallbackRequest callback, boolean isValid);
     PaymentInitiationResponse initiatePayment(PaymentInitiationRequest request);
+    PaymentInitiationResponse initiateGroupPayment(Long reservationGroupId, PaymentMethod paymentMethod, CardDetails cardDetails);
 }
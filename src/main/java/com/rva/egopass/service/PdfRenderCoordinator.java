@@ -0,0 +1,194 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.enums.RenderPriority;
+import com.rva.egopass.exceptions.PDFRenderingOverloadedException;
+import com.rva.egopass.model.BlobReference;
+import com.rva.egopass.repository.EGoPassRepository;
+import com.rva.egopass.repository.PdfRenderClaimRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Garantit qu'un même PDF n'est rendu qu'une fois à la fois (« single-flight »).
+ * Dans le processus, les demandes concurrentes pour un e-GoPass partagent le même rendu en cours.
+ * Entre les nœuds, le rendu est précédé d'une réservation en base : un nœud qui ne l'obtient pas
+ * attend que le PDF du nœud détenteur soit enregistré, ou que la réservation expire.
+ */
+@Component
+@Slf4j
+public class PdfRenderCoordinator {
+
+    private final EGoPassRepository eGoPassRepository;
+    private final PdfRenderClaimRepository renderClaimRepository;
+    private final PdfRenderingExecutor renderingExecutor;
+    private final BlobStore blobStore;
+    private final String nodeId;
+    private final Duration claimTtl;
+    private final Executor pollExecutor;
+
+    private final Map<Long, Flight> inFlight = new ConcurrentHashMap<>();
+
+    public PdfRenderCoordinator(EGoPassRepository eGoPassRepository,
+                                PdfRenderClaimRepository renderClaimRepository,
+                                PdfRenderingExecutor renderingExecutor,
+                                BlobStore blobStore,
+                                @Value("${app.pdf.rendering.node-id:}") String nodeId,
+                                @Value("${app.pdf.rendering.claim-ttl:2m}") Duration claimTtl,
+                                @Value("${app.pdf.rendering.claim-poll-interval:250ms}") Duration pollInterval) {
+        this.eGoPassRepository = eGoPassRepository;
+        this.renderClaimRepository = renderClaimRepository;
+        this.renderingExecutor = renderingExecutor;
+        this.blobStore = blobStore;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.claimTtl = claimTtl;
+        this.pollExecutor = CompletableFuture.delayedExecutor(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Rend et enregistre le PDF d'un e-GoPass, ou rejoint le rendu déjà en cours.
+     * Une demande INTERACTIVE qui rejoint un pré-rendu encore en file le fait passer en tête.
+     *
+     * @param eGoPassId L'identifiant du e-GoPass.
+     * @param priority  La priorité du rendu sur le pool.
+     * @param renderer  Le rendu à exécuter si aucun n'est en cours.
+     * @return La référence du PDF enregistré.
+     */
+    public CompletableFuture<BlobReference> render(Long eGoPassId, RenderPriority priority, Callable<byte[]> renderer) {
+        Flight flight = new Flight(eGoPassId, renderer);
+        Flight existing = inFlight.putIfAbsent(eGoPassId, flight);
+        if (existing != null) {
+            log.debug("Rendu du PDF déjà en cours pour l'eGoPass ID: {}, attente de son résultat", eGoPassId);
+            if (priority == RenderPriority.INTERACTIVE) {
+                existing.expedite();
+            }
+            return existing.result;
+        }
+
+        flight.result.whenComplete((reference, error) -> inFlight.remove(eGoPassId, flight));
+        try {
+            claimOrWait(flight, priority);
+        } catch (RuntimeException e) {
+            flight.result.completeExceptionally(e);
+        }
+        return flight.result;
+    }
+
+    private void claimOrWait(Flight flight, RenderPriority priority) {
+        Optional<BlobReference> stored = eGoPassRepository.findPdfBlob(flight.eGoPassId);
+        if (stored.isPresent()) {
+            flight.result.complete(stored.get());
+            return;
+        }
+
+        if (renderClaimRepository.tryClaim(flight.eGoPassId, nodeId, claimTtl)) {
+            flight.priority = priority;
+            flight.claimed = true;
+            try {
+                flight.submit(priority);
+            } catch (PDFRenderingOverloadedException e) {
+                renderClaimRepository.release(flight.eGoPassId, nodeId);
+                throw e;
+            }
+            return;
+        }
+
+        // Un autre nœud rend ce PDF : nouvelle vérification après un court délai
+        log.debug("Rendu du PDF de l'eGoPass ID: {} réservé par un autre nœud", flight.eGoPassId);
+        pollExecutor.execute(() -> {
+            try {
+                claimOrWait(flight, priority);
+            } catch (RuntimeException e) {
+                flight.result.completeExceptionally(e);
+            }
+        });
+    }
+
+    private BlobReference renderClaimed(Flight flight) throws Exception {
+        try {
+            // Le PDF a pu être enregistré avant l'obtention de la réservation
+            Optional<BlobReference> stored = eGoPassRepository.findPdfBlob(flight.eGoPassId);
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+
+            BlobReference reference = blobStore.put(flight.renderer.call());
+            if (eGoPassRepository.attachPdfBlob(flight.eGoPassId,
+                    reference.getBlobKey(), reference.getSizeBytes(), reference.getSha256()) == 0) {
+                // Une référence a été enregistrée entre-temps : elle fait foi
+                return eGoPassRepository.findPdfBlob(flight.eGoPassId).orElse(reference);
+            }
+            return reference;
+        } finally {
+            renderClaimRepository.release(flight.eGoPassId, nodeId);
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+
+    /**
+     * Rendu en cours d'un e-GoPass. Il peut être soumis plusieurs fois au pool (promotion en INTERACTIVE),
+     * mais seule la première soumission exécutée effectue le rendu.
+     */
+    private final class Flight {
+
+        private final Long eGoPassId;
+        private final Callable<byte[]> renderer;
+        private final CompletableFuture<BlobReference> result = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile RenderPriority priority;
+        private volatile boolean claimed;
+
+        private Flight(Long eGoPassId, Callable<byte[]> renderer) {
+            this.eGoPassId = eGoPassId;
+            this.renderer = renderer;
+        }
+
+        private void submit(RenderPriority submittedPriority) {
+            renderingExecutor.submit(submittedPriority, () -> {
+                if (started.compareAndSet(false, true)) {
+                    try {
+                        result.complete(renderClaimed(this));
+                    } catch (Exception e) {
+                        result.completeExceptionally(e);
+                    }
+                }
+                return null;
+            });
+        }
+
+        private void expedite() {
+            if (!claimed || priority != RenderPriority.BACKGROUND || started.get()) {
+                return;
+            }
+            priority = RenderPriority.INTERACTIVE;
+            try {
+                submit(RenderPriority.INTERACTIVE);
+                log.debug("Pré-rendu du PDF de l'eGoPass ID: {} promu en INTERACTIVE", eGoPassId);
+            } catch (PDFRenderingOverloadedException e) {
+                // La soumission BACKGROUND reste en file
+                log.debug("Promotion du rendu impossible pour l'eGoPass ID: {} : {}", eGoPassId, e.getMessage());
+            }
+        }
+    }
+}
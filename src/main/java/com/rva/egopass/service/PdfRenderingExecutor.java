@@ -0,0 +1,172 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.enums.RenderPriority;
+import com.rva.egopass.exceptions.PDFRenderingOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool dédié au rendu des PDF e-GoPass.
+ * Le pool est dimensionné sur le nombre de CPU et sa file est bornée : les rendus demandés par un utilisateur
+ * (INTERACTIVE) passent avant les pré-rendus (BACKGROUND), et ces derniers sont refusés dès que la file
+ * atteint sa part réservée afin de toujours laisser de la place aux téléchargements.
+ */
+@Component
+@Slf4j
+public class PdfRenderingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final int backgroundLimit;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<RenderPriority, AtomicInteger> queued = new EnumMap<>(RenderPriority.class);
+    private final Map<RenderPriority, Counter> submittedCounters = new EnumMap<>(RenderPriority.class);
+    private final Map<RenderPriority, Counter> rejectedCounters = new EnumMap<>(RenderPriority.class);
+    private final Map<RenderPriority, Timer> waitTimers = new EnumMap<>(RenderPriority.class);
+    private final Map<RenderPriority, Timer> renderTimers = new EnumMap<>(RenderPriority.class);
+
+    public PdfRenderingExecutor(MeterRegistry meterRegistry,
+                                @Value("${app.pdf.rendering.pool-size:0}") int poolSize,
+                                @Value("${app.pdf.rendering.queue-capacity:500}") int queueCapacity,
+                                @Value("${app.pdf.rendering.background-queue-share:0.8}") double backgroundQueueShare) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = queueCapacity;
+        this.backgroundLimit = (int) Math.max(1, Math.floor(queueCapacity * backgroundQueueShare));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "pdf-render-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (RenderPriority priority : RenderPriority.values()) {
+            String tag = priority.name().toLowerCase();
+            AtomicInteger depth = new AtomicInteger();
+            queued.put(priority, depth);
+            Gauge.builder("egopass.pdf.render.queue.size", depth, AtomicInteger::get)
+                    .tag("priority", tag).register(meterRegistry);
+            submittedCounters.put(priority, Counter.builder("egopass.pdf.render.submitted")
+                    .tag("priority", tag).register(meterRegistry));
+            rejectedCounters.put(priority, Counter.builder("egopass.pdf.render.rejected")
+                    .tag("priority", tag).register(meterRegistry));
+            waitTimers.put(priority, Timer.builder("egopass.pdf.render.wait")
+                    .tag("priority", tag).register(meterRegistry));
+            renderTimers.put(priority, Timer.builder("egopass.pdf.render.duration")
+                    .tag("priority", tag).register(meterRegistry));
+        }
+        Gauge.builder("egopass.pdf.render.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("egopass.pdf.render.queue.utilization", pending, p -> (double) p.get() / queueCapacity)
+                .register(meterRegistry);
+
+        log.info("Pool de rendu PDF initialisé: {} threads, file de {} (dont {} pour le pré-rendu)",
+                threads, queueCapacity, backgroundLimit);
+    }
+
+    /**
+     * Soumet un rendu au pool avec la priorité indiquée.
+     *
+     * @param priority La priorité du rendu.
+     * @param task     Le rendu à exécuter.
+     * @return Un future complété avec le résultat du rendu.
+     * @throws PDFRenderingOverloadedException Si la file ne peut plus accepter de rendu de cette priorité.
+     */
+    public <T> CompletableFuture<T> submit(RenderPriority priority, Callable<T> task) {
+        int limit = priority == RenderPriority.INTERACTIVE ? queueCapacity : backgroundLimit;
+        int current;
+        do {
+            current = pending.get();
+            if (current >= limit) {
+                rejectedCounters.get(priority).increment();
+                throw new PDFRenderingOverloadedException(
+                        "La file de rendu PDF est saturée (" + current + "/" + queueCapacity + ")");
+            }
+        } while (!pending.compareAndSet(current, current + 1));
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        queued.get(priority).incrementAndGet();
+        submittedCounters.get(priority).increment();
+        try {
+            executor.execute(new RenderTask(priority, sequence.getAndIncrement(), () -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(renderTimers.get(priority).recordCallable(task));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            queued.get(priority).decrementAndGet();
+            rejectedCounters.get(priority).increment();
+            throw new PDFRenderingOverloadedException("Le pool de rendu PDF est arrêté");
+        }
+        return future;
+    }
+
+    /**
+     * @return Le nombre de rendus en attente, toutes priorités confondues.
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Tâche de rendu ordonnée par priorité puis par ordre d'arrivée.
+     */
+    private final class RenderTask implements Runnable, Comparable<RenderTask> {
+
+        private final RenderPriority priority;
+        private final long sequence;
+        private final long enqueuedAt = System.nanoTime();
+        private final Runnable body;
+
+        private RenderTask(RenderPriority priority, long sequence, Runnable body) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.body = body;
+        }
+
+        @Override
+        public void run() {
+            pending.decrementAndGet();
+            queued.get(priority).decrementAndGet();
+            waitTimers.get(priority).record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            body.run();
+        }
+
+        @Override
+        public int compareTo(RenderTask other) {
+            int byPriority = Integer.compare(priority.ordinal(), other.priority.ordinal());
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
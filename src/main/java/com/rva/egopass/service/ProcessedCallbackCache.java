@@ -0,0 +1,36 @@
+package com.rva.egopass.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache LRU des paiements récemment confirmés par callback, par référence de transaction.
+ * Les passerelles rejouent un callback dans les minutes qui suivent : ces rejeux sont acquittés
+ * sans accès à la base. Un résultat non confirmé n'est pas gardé : il peut encore changer.
+ */
+final class ProcessedCallbackCache {
+
+    private final LinkedHashMap<String, Boolean> entries;
+
+    ProcessedCallbackCache(int maxEntries) {
+        // Ordre d'accès : l'entrée la moins récemment lue est évincée en premier
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    synchronized Boolean get(String transactionReference) {
+        return entries.get(transactionReference);
+    }
+
+    synchronized void put(String transactionReference, boolean confirmed) {
+        entries.put(transactionReference, confirmed);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,19 @@
+package com.rva.egopass.service;
+
+import lombok.Value;
+
+/**
+ * Image de QR code prête à être servie, avec son ETag fort.
+ */
+@Value
+public class QRCodeImage {
+
+    byte[] content;
+    String mediaType;
+    /** ETag fort (entre guillemets), dérivé du contenu. */
+    String eTag;
+
+    public int getSizeBytes() {
+        return content.length;
+    }
+}
@@ -0,0 +1,59 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.enums.QRCodeImageFormat;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache LRU des images de QR code rendues, borné par le volume total des images plutôt que par leur nombre :
+ * une image SVG de 1200 px pèse bien plus qu'un PNG de 150 px.
+ */
+final class QRCodeImageCache {
+
+    record Key(Long eGoPassId, QRCodeImageFormat format, int size, int margin) {
+    }
+
+    private final long maxBytes;
+    // Ordre d'accès : l'entrée la moins récemment lue est en tête
+    private final LinkedHashMap<Key, QRCodeImage> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+
+    QRCodeImageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized QRCodeImage get(Key key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Ajoute une image, puis évince les moins récemment lues jusqu'à revenir sous le budget.
+     * Une image plus grande que le budget entier n'est pas conservée.
+     */
+    synchronized void put(Key key, QRCodeImage image) {
+        if (image.getSizeBytes() > maxBytes) {
+            return;
+        }
+        QRCodeImage previous = entries.put(key, image);
+        if (previous != null) {
+            currentBytes -= previous.getSizeBytes();
+        }
+        currentBytes += image.getSizeBytes();
+
+        Iterator<Map.Entry<Key, QRCodeImage>> eldest = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            currentBytes -= eldest.next().getValue().getSizeBytes();
+            eldest.remove();
+        }
+    }
+
+    synchronized long sizeBytes() {
+        return currentBytes;
+    }
+
+    synchronized int entryCount() {
+        return entries.size();
+    }
+}
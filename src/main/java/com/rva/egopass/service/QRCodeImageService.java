@@ -0,0 +1,133 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.enums.QRCodeImageFormat;
+import com.rva.egopass.exceptions.EGoPassNotFoundException;
+import com.rva.egopass.exceptions.InvalidRequestException;
+import com.rva.egopass.exceptions.QRCodeGenerationException;
+import com.rva.egopass.model.BlobReference;
+import com.rva.egopass.repository.EGoPassRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Sert l'image du QR code d'un e-GoPass, en PNG ou en SVG, à la taille et avec la marge demandées.
+ * Le contenu d'un QR code ne change pas après l'émission : les variantes rendues sont gardées en cache,
+ * et une image déjà rendue est servie sans accès à la base.
+ */
+@Service
+@Slf4j
+public class QRCodeImageService {
+
+    public static final int DEFAULT_SIZE = 300;
+    public static final int MIN_SIZE = 64;
+    public static final int MAX_SIZE = 1200;
+    public static final int DEFAULT_MARGIN = 4;
+    public static final int MAX_MARGIN = 16;
+
+    private static final String SVG_MEDIA_TYPE = "image/svg+xml";
+
+    private final EGoPassRepository eGoPassRepository;
+    private final BlobStore blobStore;
+    private final QRCodeService qrCodeService;
+    private final QRCodeImageCache cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public QRCodeImageService(EGoPassRepository eGoPassRepository,
+                              BlobStore blobStore,
+                              QRCodeService qrCodeService,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.qr-code.cache.max-size:32MB}") DataSize cacheMaxSize) {
+        this.eGoPassRepository = eGoPassRepository;
+        this.blobStore = blobStore;
+        this.qrCodeService = qrCodeService;
+        this.cache = new QRCodeImageCache(cacheMaxSize.toBytes());
+
+        this.hits = Counter.builder("egopass.qrcode.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("egopass.qrcode.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("egopass.qrcode.cache.size", cache, QRCodeImageCache::sizeBytes)
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("egopass.qrcode.cache.entries", cache, QRCodeImageCache::entryCount)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param eGoPassId L'identifiant de l'e-GoPass.
+     * @param format    Le format de l'image.
+     * @param size      Le côté de l'image, en pixels.
+     * @param margin    La zone de silence, en modules.
+     * @return L'image du QR code.
+     * @throws InvalidRequestException   Si la taille ou la marge sont hors limites.
+     * @throws EGoPassNotFoundException  Si l'e-GoPass n'existe pas ou n'a pas de QR code.
+     * @throws QRCodeGenerationException En cas d'erreur lors du rendu.
+     */
+    public QRCodeImage getQRCodeImage(Long eGoPassId, QRCodeImageFormat format, int size, int margin) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new InvalidRequestException("size",
+                    "La taille du QR code doit être comprise entre " + MIN_SIZE + " et " + MAX_SIZE + " pixels.");
+        }
+        if (margin < 0 || margin > MAX_MARGIN) {
+            throw new InvalidRequestException("margin",
+                    "La marge du QR code doit être comprise entre 0 et " + MAX_MARGIN + " modules.");
+        }
+
+        QRCodeImageCache.Key key = new QRCodeImageCache.Key(eGoPassId, format, size, margin);
+        QRCodeImage cached = cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        String content = loadContent(eGoPassId);
+        byte[] image = format == QRCodeImageFormat.SVG
+                ? qrCodeService.generateQRCodeSvg(content, size, margin)
+                : qrCodeService.generateQRCode(content, size, margin);
+        QRCodeImage qrCodeImage = new QRCodeImage(image,
+                format == QRCodeImageFormat.SVG ? SVG_MEDIA_TYPE : MediaType.IMAGE_PNG_VALUE,
+                "\"" + sha256(image) + "\"");
+
+        cache.put(key, qrCodeImage);
+        log.debug("QR code {} {}px rendu pour l'eGoPass ID: {} ({} octets)", format, size, eGoPassId, image.length);
+        return qrCodeImage;
+    }
+
+    private String loadContent(Long eGoPassId) {
+        // Projection sur le seul contenu du QR code
+        Optional<String> payload = eGoPassRepository.findQrCodePayload(eGoPassId);
+        if (payload.isPresent()) {
+            return payload.get();
+        }
+
+        // Ancien e-GoPass : seule l'image a été conservée, son contenu est relu
+        Optional<BlobReference> qrCodeBlob = eGoPassRepository.findQrCodeBlob(eGoPassId);
+        if (qrCodeBlob.isPresent()) {
+            log.debug("Relecture du QR code enregistré de l'eGoPass ID: {}", eGoPassId);
+            return qrCodeService.decodeQRCode(blobStore.read(qrCodeBlob.get()));
+        }
+
+        if (eGoPassRepository.existsById(eGoPassId)) {
+            throw new EGoPassNotFoundException("Aucun QR code disponible pour l'eGoPass : " + eGoPassId);
+        }
+        throw new EGoPassNotFoundException(eGoPassId);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
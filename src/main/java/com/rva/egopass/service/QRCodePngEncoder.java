@@ -0,0 +1,162 @@
+package com.rva.egopass.service;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodeur PNG dédié aux QR codes : niveaux de gris sur 1 bit, écrit directement depuis la {@link BitMatrix}.
+ * Contrairement à {@code MatrixToImageWriter}, il ne passe ni par une {@code BufferedImage} ARGB ni par ImageIO.
+ * Le compresseur et les tampons sont conservés par thread : un encodage n'alloue que le tableau retourné.
+ */
+final class QRCodePngEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+    private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+    private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+
+    private static final int BIT_DEPTH = 1;
+    private static final int COLOR_TYPE_GRAYSCALE = 0;
+    private static final int FILTER_NONE = 0;
+    private static final int DEFLATE_STEP = 4096;
+
+    private static final ThreadLocal<QRCodePngEncoder> ENCODERS = ThreadLocal.withInitial(QRCodePngEncoder::new);
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final CRC32 crc = new CRC32();
+    private byte[] scanlines = new byte[0];
+    private byte[] buffer = new byte[DEFLATE_STEP];
+    private int size;
+
+    private QRCodePngEncoder() {
+    }
+
+    /**
+     * @param matrix La matrice du QR code ; un module noir devient un pixel noir.
+     * @return L'image PNG.
+     */
+    static byte[] encode(BitMatrix matrix) {
+        return ENCODERS.get().write(matrix);
+    }
+
+    private byte[] write(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int length = packScanlines(matrix, width, height);
+
+        size = 0;
+        put(SIGNATURE, 0, SIGNATURE.length);
+
+        int start = beginChunk(IHDR);
+        putInt(width);
+        putInt(height);
+        putByte(BIT_DEPTH);
+        putByte(COLOR_TYPE_GRAYSCALE);
+        putByte(0); // compression deflate
+        putByte(0); // filtrage adaptatif standard
+        putByte(0); // pas d'entrelacement
+        endChunk(start);
+
+        start = beginChunk(IDAT);
+        deflater.reset();
+        deflater.setInput(scanlines, 0, length);
+        deflater.finish();
+        while (!deflater.finished()) {
+            ensureCapacity(DEFLATE_STEP);
+            size += deflater.deflate(buffer, size, buffer.length - size);
+        }
+        endChunk(start);
+
+        start = beginChunk(IEND);
+        endChunk(start);
+
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Produit les lignes de l'image : un octet de filtre puis 8 pixels par octet, bit de poids fort en premier
+     * (1 = blanc).
+     *
+     * @return La taille des données produites.
+     */
+    private int packScanlines(BitMatrix matrix, int width, int height) {
+        int stride = 1 + (width + 7) / 8;
+        int length = stride * height;
+        if (scanlines.length < length) {
+            scanlines = new byte[length];
+        }
+
+        int offset = 0;
+        for (int y = 0; y < height; y++) {
+            scanlines[offset++] = FILTER_NONE;
+            for (int x = 0; x < width; x += 8) {
+                int packed = 0;
+                for (int bit = 0; bit < 8; bit++) {
+                    int px = x + bit;
+                    packed <<= 1;
+                    if (px < width && !matrix.get(px, y)) {
+                        packed |= 1;
+                    }
+                }
+                scanlines[offset++] = (byte) packed;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Réserve la longueur du chunk et écrit son type.
+     *
+     * @return La position du champ longueur.
+     */
+    private int beginChunk(byte[] type) {
+        int start = size;
+        putInt(0);
+        put(type, 0, type.length);
+        return start;
+    }
+
+    /**
+     * Renseigne la longueur du chunk commencé en {@code start} et ajoute son CRC (type + données).
+     */
+    private void endChunk(int start) {
+        int dataLength = size - start - 8;
+        writeInt(start, dataLength);
+        crc.reset();
+        crc.update(buffer, start + 4, dataLength + 4);
+        putInt((int) crc.getValue());
+    }
+
+    private void put(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+    }
+
+    private void putByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+    }
+
+    private void putInt(int value) {
+        ensureCapacity(4);
+        writeInt(size, value);
+        size += 4;
+    }
+
+    private void writeInt(int position, int value) {
+        buffer[position] = (byte) (value >>> 24);
+        buffer[position + 1] = (byte) (value >>> 16);
+        buffer[position + 2] = (byte) (value >>> 8);
+        buffer[position + 3] = (byte) value;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+        }
+    }
+}
@@ -1,16 +1,26 @@
 package com.rva.egopass.service;
 
 import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
 import com.google.zxing.EncodeHintType;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.ReaderException;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
 import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
 import com.google.zxing.qrcode.QRCodeWriter;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
 import com.rva.egopass.exceptions.QRCodeGenerationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -23,7 +33,7 @@ public class QRCodeService {
 
     private static final int QR_CODE_WIDTH = 300;  // Largeur du QR Code en pixels
     private static final int QR_CODE_HEIGHT = 300; // Hauteur du QR Code en pixels
-    private static final String QR_CODE_FORMAT = "PNG"; // Format du QR Code
+    private static final int DEFAULT_MARGIN = 4;   // Zone de silence en modules
 
     /**
      * Génère un QR Code sous forme d'un tableau de bytes (format PNG).
@@ -36,19 +46,11 @@ public class QRCodeService {
         log.info("Début de la génération du QR Code pour le contenu : {}", content);
 
         try {
-            // Définition des paramètres du QR Code
-            Map<EncodeHintType, Object> hints = new HashMap<>();
-            hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H); // Correction d'erreur élevée
-            hints.put(EncodeHintType.CHARACTER_SET, "UTF-8"); // Encodage UTF-8
-
             // Création du QR Code
-            QRCodeWriter qrCodeWriter = new QRCodeWriter();
-            BitMatrix bitMatrix = qrCodeWriter.encode(content, BarcodeFormat.QR_CODE, QR_CODE_WIDTH, QR_CODE_HEIGHT, hints);
+            BitMatrix bitMatrix = encode(content, QR_CODE_WIDTH, QR_CODE_HEIGHT, DEFAULT_MARGIN);
 
-            // Conversion en image PNG
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            MatrixToImageWriter.writeToStream(bitMatrix, QR_CODE_FORMAT, outputStream);
-            byte[] qrCodeBytes = outputStream.toByteArray();
+            // Conversion en image PNG 1 bit, directement depuis la matrice
+            byte[] qrCodeBytes = QRCodePngEncoder.encode(bitMatrix);
 
             log.info("QR Code généré avec succès pour le contenu : {}", content);
             return qrCodeBytes;
@@ -57,4 +59,89 @@ public class QRCodeService {
             throw new QRCodeGenerationException("Erreur lors de la génération du QR Code", e);
         }
     }
+
+    /**
+     * Encode un contenu en matrice de modules, sans mise à l'échelle : un bit par module,
+     * zone de silence comprise. Destiné au dessin vectoriel du QR Code.
+     *
+     * @param content Le contenu à encoder dans le QR Code.
+     * @return La matrice du QR Code.
+     * @throws QRCodeGenerationException En cas d'erreur lors de l'encodage.
+     */
+    public BitMatrix generateQRCodeMatrix(String content) {
+        try {
+            return encode(content, 0, 0, DEFAULT_MARGIN);
+        } catch (WriterException e) {
+            log.error("Erreur lors de l'encodage du QR Code pour le contenu : {}", content, e);
+            throw new QRCodeGenerationException("Erreur lors de la génération du QR Code", e);
+        }
+    }
+
+    /**
+     * Génère un QR Code PNG aux dimensions demandées. Les modules gardent une taille entière en pixels :
+     * l'image est complétée en blanc jusqu'à la taille demandée.
+     *
+     * @param content Le contenu à encoder dans le QR Code.
+     * @param size    Le côté de l'image, en pixels.
+     * @param margin  La zone de silence, en modules.
+     * @return L'image PNG du QR Code.
+     * @throws QRCodeGenerationException En cas d'erreur lors de la génération.
+     */
+    public byte[] generateQRCode(String content, int size, int margin) {
+        try {
+            return QRCodePngEncoder.encode(encode(content, size, size, margin));
+        } catch (Exception e) {
+            log.error("Erreur lors de la génération du QR Code PNG ({} px) pour le contenu : {}", size, content, e);
+            throw new QRCodeGenerationException("Erreur lors de la génération du QR Code", e);
+        }
+    }
+
+    /**
+     * Génère un QR Code au format SVG, dessiné module par module.
+     *
+     * @param content Le contenu à encoder dans le QR Code.
+     * @param size    La taille d'affichage, en pixels.
+     * @param margin  La zone de silence, en modules.
+     * @return Le document SVG, encodé en UTF-8.
+     * @throws QRCodeGenerationException En cas d'erreur lors de la génération.
+     */
+    public byte[] generateQRCodeSvg(String content, int size, int margin) {
+        try {
+            return QRCodeSvgRenderer.render(encode(content, 0, 0, margin), size).getBytes(StandardCharsets.UTF_8);
+        } catch (WriterException e) {
+            log.error("Erreur lors de la génération du QR Code SVG pour le contenu : {}", content, e);
+            throw new QRCodeGenerationException("Erreur lors de la génération du QR Code", e);
+        }
+    }
+
+    /**
+     * Relit le contenu d'une image de QR Code. Sert aux anciens e-GoPass, dont seule l'image a été conservée.
+     *
+     * @param image L'image du QR Code (PNG).
+     * @return Le contenu encodé dans le QR Code.
+     * @throws QRCodeGenerationException Si l'image est illisible ou ne contient pas de QR Code.
+     */
+    public String decodeQRCode(byte[] image) {
+        try {
+            BufferedImage bufferedImage = ImageIO.read(new ByteArrayInputStream(image));
+            if (bufferedImage == null) {
+                throw new QRCodeGenerationException("Format d'image du QR Code non reconnu");
+            }
+            BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(bufferedImage)));
+            return new QRCodeReader().decode(bitmap, Map.of(DecodeHintType.CHARACTER_SET, "UTF-8")).getText();
+        } catch (IOException | ReaderException e) {
+            log.error("Erreur lors de la lecture d'une image de QR Code", e);
+            throw new QRCodeGenerationException("Impossible de lire l'image du QR Code", e);
+        }
+    }
+
+    private BitMatrix encode(String content, int width, int height, int margin) throws WriterException {
+        // Définition des paramètres du QR Code
+        Map<EncodeHintType, Object> hints = new HashMap<>();
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.H); // Correction d'erreur élevée
+        hints.put(EncodeHintType.CHARACTER_SET, "UTF-8"); // Encodage UTF-8
+        hints.put(EncodeHintType.MARGIN, margin); // Zone de silence
+
+        return new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, width, height, hints);
+    }
 }
@@ -0,0 +1,49 @@
+package com.rva.egopass.service;
+
+import com.google.zxing.common.BitMatrix;
+
+/**
+ * Produit un QR code au format SVG. Comme pour {@link QRCodeVectorRenderer}, les modules noirs contigus
+ * d'une même ligne sont fusionnés, et l'ensemble tient dans un seul chemin.
+ */
+final class QRCodeSvgRenderer {
+
+    private QRCodeSvgRenderer() {
+    }
+
+    /**
+     * @param matrix La matrice du QR code, un bit par module (zone de silence comprise).
+     * @param size   La taille d'affichage, en pixels ; le dessin est exprimé en modules.
+     * @return Le document SVG.
+     */
+    static String render(BitMatrix matrix, int size) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+
+        StringBuilder svg = new StringBuilder(256 + width * height / 2);
+        svg.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\" width=\"").append(size)
+                .append("\" height=\"").append(size)
+                .append("\" viewBox=\"0 0 ").append(width).append(' ').append(height)
+                .append("\" shape-rendering=\"crispEdges\">\n")
+                .append("<rect width=\"").append(width).append("\" height=\"").append(height).append("\" fill=\"#FFFFFF\"/>\n")
+                .append("<path fill=\"#000000\" d=\"");
+        for (int y = 0; y < height; y++) {
+            int x = 0;
+            while (x < width) {
+                if (!matrix.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int runStart = x;
+                while (x < width && matrix.get(x, y)) {
+                    x++;
+                }
+                svg.append('M').append(runStart).append(' ').append(y)
+                        .append('h').append(x - runStart).append("v1h-").append(x - runStart).append('z');
+            }
+        }
+        svg.append("\"/>\n</svg>\n");
+        return svg.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package com.rva.egopass.service;
+
+import com.google.zxing.common.BitMatrix;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+
+/**
+ * Dessine un QR code sous forme vectorielle sur un canevas PDF.
+ * Les modules noirs contigus d'une même ligne sont fusionnés en un seul rectangle,
+ * et l'ensemble est rempli en une seule opération.
+ */
+final class QRCodeVectorRenderer {
+
+    private QRCodeVectorRenderer() {
+    }
+
+    /**
+     * @param canvas Le canevas sur lequel dessiner.
+     * @param matrix La matrice du QR code (zone de silence comprise).
+     * @param area   La zone carrée à occuper.
+     */
+    static void draw(PdfCanvas canvas, BitMatrix matrix, Rectangle area) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        float moduleSize = Math.min(area.getWidth() / width, area.getHeight() / height);
+        float left = area.getX() + (area.getWidth() - moduleSize * width) / 2;
+        float top = area.getY() + (area.getHeight() + moduleSize * height) / 2;
+
+        canvas.saveState();
+        canvas.setFillColor(ColorConstants.BLACK);
+        for (int y = 0; y < height; y++) {
+            // La première ligne de la matrice est en haut du QR code, l'axe PDF est orienté vers le haut
+            float rowBottom = top - (y + 1) * moduleSize;
+            int x = 0;
+            while (x < width) {
+                if (!matrix.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int runStart = x;
+                while (x < width && matrix.get(x, y)) {
+                    x++;
+                }
+                canvas.rectangle(left + runStart * moduleSize, rowBottom, (x - runStart) * moduleSize, moduleSize);
+            }
+        }
+        canvas.fill();
+        canvas.restoreState();
+    }
+
+    /**
+     * Produit le QR code comme Form XObject, pour l'insérer dans une mise en page iText.
+     *
+     * @param matrix   La matrice du QR code.
+     * @param size     Le côté du QR code, en points.
+     * @param document Le document auquel rattacher l'objet.
+     * @return Le Form XObject.
+     */
+    static PdfFormXObject toFormXObject(BitMatrix matrix, float size, PdfDocument document) {
+        Rectangle bounds = new Rectangle(0, 0, size, size);
+        PdfFormXObject formXObject = new PdfFormXObject(bounds);
+        draw(new PdfCanvas(formXObject, document), matrix, bounds);
+        return formXObject;
+    }
+}
@@ -0,0 +1,45 @@
+package com.rva.egopass.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Durée de validité des réservations en attente de paiement. Une réservation non payée à temps
+ * passe à {@code EXPIRED} (voir {@link com.rva.egopass.serviceimpl.ReservationExpiryJob}).
+ */
+@Component
+public class ReservationExpiryPolicy {
+
+    private final Duration ttl;
+
+    public ReservationExpiryPolicy(@Value("${app.reservation.ttl:1h}") Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * @param createdAt La date de création de la réservation.
+     * @return La date d'expiration d'une réservation faite par un passager.
+     */
+    public LocalDateTime expiresAt(LocalDateTime createdAt) {
+        return createdAt.plus(ttl);
+    }
+
+    /**
+     * Les réservations pré-enregistrées par une compagnie restent valables jusqu'au jour du vol inclus.
+     *
+     * @param departureDate La date du vol, si elle est connue.
+     * @param createdAt     La date de création de la réservation.
+     * @return La date d'expiration d'une réservation importée d'un manifeste.
+     */
+    public LocalDateTime manifestExpiresAt(LocalDate departureDate, LocalDateTime createdAt) {
+        return departureDate != null ? departureDate.plusDays(1).atStartOfDay() : expiresAt(createdAt);
+    }
+}
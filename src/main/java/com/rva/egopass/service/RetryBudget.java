@@ -0,0 +1,38 @@
+package com.rva.egopass.service;
+
+/**
+ * Budget de nouvelles tentatives d'un prestataire de paiement : chaque appel initial crédite une fraction
+ * de tentative, chaque nouvelle tentative en consomme une. Les nouvelles tentatives restent ainsi une part
+ * bornée du trafic, et ne multiplient pas la charge d'un prestataire déjà en difficulté.
+ */
+final class RetryBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    /**
+     * @param ratio     Les nouvelles tentatives permises par appel initial (0,1 : une pour dix appels).
+     * @param maxTokens Les nouvelles tentatives qui peuvent s'accumuler, disponibles dès le démarrage.
+     */
+    RetryBudget(double ratio, int maxTokens) {
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    synchronized void onRequest() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    /**
+     * @return true si une nouvelle tentative est permise ; elle est alors décomptée.
+     */
+    synchronized boolean tryRetry() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+}
@@ -1,22 +1,34 @@
 package com.rva.egopass.serviceimpl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rva.egopass.dto.EGoPassDTO;
 import com.rva.egopass.dto.EGoPassRequest;
-import com.rva.egopass.dto.QRCodeData;
+import com.rva.egopass.dto.GroupEGoPassRequest;
+import com.rva.egopass.dto.GroupPassengerRequest;
 import com.rva.egopass.enums.ReservationStatus;
 import com.rva.egopass.exceptions.*;
 import com.rva.egopass.mapper.EGoPassMapper;
+import com.rva.egopass.model.BlobReference;
 import com.rva.egopass.model.EGoPass;
 import com.rva.egopass.model.Reservation;
+import com.rva.egopass.model.ReservationGroup;
 import com.rva.egopass.model.User;
+import com.rva.egopass.payload.PassPayload;
+import com.rva.egopass.payload.PassPayloadCodec;
 import com.rva.egopass.repository.EGoPassRepository;
+import com.rva.egopass.repository.LegacyDocumentRepository;
+import com.rva.egopass.repository.ReservationBatchRepository;
+import com.rva.egopass.repository.ReservationGroupRepository;
 import com.rva.egopass.repository.ReservationRepository;
 import com.rva.egopass.repository.UserRepository;
+import com.rva.egopass.service.BlobStore;
+import com.rva.egopass.service.DocumentContent;
 import com.rva.egopass.service.EGoPassService;
 import com.rva.egopass.service.PDFGeneratorService;
-import com.rva.egopass.service.QRCodeService;
+import com.rva.egopass.service.PassNumberFormat;
+import com.rva.egopass.service.PassNumberGenerator;
+import com.rva.egopass.service.PassValidationIndex;
+import com.rva.egopass.service.PassengerRequestValidator;
+import com.rva.egopass.service.ReservationExpiryPolicy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ByteArrayResource;
@@ -25,6 +37,12 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -36,13 +54,21 @@ import java.util.UUID;
 @Slf4j
 public class EGoPassServiceImpl implements EGoPassService {
 
+    static final int MAX_GROUP_SIZE = 50;
+
     private final EGoPassRepository eGoPassRepository;
     private final ReservationRepository reservationRepository;
-    private final QRCodeService qrCodeService;
     private final PDFGeneratorService pdfGeneratorService;
-    private final ObjectMapper objectMapper = new ObjectMapper();
     private final EGoPassMapper eGoPassMapper;
     private final UserRepository userRepository;
+    private final LegacyDocumentRepository legacyDocumentRepository;
+    private final BlobStore blobStore;
+    private final PassPayloadCodec passPayloadCodec;
+    private final PassNumberGenerator passNumberGenerator;
+    private final ReservationGroupRepository reservationGroupRepository;
+    private final ReservationBatchRepository reservationBatchRepository;
+    private final ReservationExpiryPolicy reservationExpiryPolicy;
+    private final PassValidationIndex passValidationIndex;
 
 
     /**
@@ -77,6 +103,8 @@ public class EGoPassServiceImpl implements EGoPassService {
         reservation.setFlightInfo(eGoPassMapper.mapToFlightInfo(request));
         reservation.setStatus(ReservationStatus.PENDING_PAYMENT);
         reservation.setUser(user);
+        reservation.setCreatedAt(LocalDateTime.now());
+        reservation.setExpiresAt(reservationExpiryPolicy.expiresAt(reservation.getCreatedAt()));
 
         // Sauvegarder la réservation
         log.debug("Sauvegarde de la réservation en base de données");
@@ -86,15 +114,81 @@ public class EGoPassServiceImpl implements EGoPassService {
         return reservation.getId();
     }
 
+    /**
+     * Crée les réservations temporaires d'un groupe de passagers d'un même vol.
+     * Tous les passagers sont validés avant la moindre écriture ; les réservations sont insérées en un seul lot.
+     *
+     * @param request Les données du vol et des passagers du groupe
+     * @param id L'identifiant de l'utilisateur effectuant la réservation
+     * @return L'identifiant du groupe créé
+     * @throws InvalidRequestException Si un passager est invalide ; le champ est préfixé par sa position dans le groupe
+     */
+    @Transactional
+    public Long createGroupReservation(GroupEGoPassRequest request, Long id) {
+        log.info("Début de création d'une réservation de groupe pour l'utilisateur ID: {}", id);
+
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.error("Utilisateur non trouvé avec l'ID: {}", id);
+                    return new UserNotFoundException("Utilisateur non trouvé avec l'ID : " + id);
+                });
+
+        List<GroupPassengerRequest> passengers = request.getPassengers();
+        if (passengers == null || passengers.isEmpty()) {
+            throw new InvalidRequestException("passengers", "Au moins un passager est requis.");
+        }
+        if (passengers.size() > MAX_GROUP_SIZE) {
+            throw new InvalidRequestException("passengers", "Un groupe compte au plus " + MAX_GROUP_SIZE + " passagers.");
+        }
+
+        // Le vol est commun au groupe : validé une seule fois
+        validateFlightInfo(request.toPassengerRequest(passengers.get(0)));
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = reservationExpiryPolicy.expiresAt(now);
+        List<Reservation> reservations = new ArrayList<>(passengers.size());
+        Set<String> passportNumbers = new HashSet<>();
+        for (int i = 0; i < passengers.size(); i++) {
+            EGoPassRequest passengerRequest = request.toPassengerRequest(passengers.get(i));
+            try {
+                validatePassengerInfo(passengerRequest);
+            } catch (InvalidRequestException e) {
+                throw new InvalidRequestException("passengers[" + i + "]." + e.getField(), e.getMessage());
+            }
+            if (!passportNumbers.add(passengerRequest.getPassportNumber().trim().toUpperCase())) {
+                throw new InvalidRequestException("passengers[" + i + "].passportNumber",
+                        "Ce numéro de passeport figure déjà dans le groupe.");
+            }
+
+            Reservation reservation = new Reservation();
+            reservation.setPassengerInfo(eGoPassMapper.mapToPassengerInfo(passengerRequest));
+            reservation.setFlightInfo(eGoPassMapper.mapToFlightInfo(passengerRequest));
+            reservation.setStatus(ReservationStatus.PENDING_PAYMENT);
+            reservation.setCreatedAt(now);
+            reservation.setExpiresAt(expiresAt);
+            reservations.add(reservation);
+        }
+
+        ReservationGroup group = reservationGroupRepository.save(ReservationGroup.builder()
+                .user(user)
+                .passengerCount(reservations.size())
+                .createdAt(now)
+                .build());
+        reservationBatchRepository.insertAll(group.getId(), user.getId(), reservations);
+
+        log.info("Réservation de groupe créée avec succès, ID: {}, {} passagers", group.getId(), reservations.size());
+        return group.getId();
+    }
+
     /**
      * Génère un eGoPass à partir d'une réservation existante après paiement.
-     * Crée le QR code et met à jour le statut de la réservation.
+     * Crée le QR code et met à jour le statut de la réservation. Une réservation expirée dont le paiement a été
+     * confirmé après l'expiration est relancée tant que son vol n'est pas parti.
      *
      * @param reservationId L'identifiant de la réservation
-     * @throws JsonProcessingException Si une erreur survient lors de la génération du contenu JSON
      */
     @Transactional
-    public void generateEGoPassFromReservation(Long reservationId) throws JsonProcessingException {
+    public void generateEGoPassFromReservation(Long reservationId) {
         log.info("Début de génération d'eGoPass pour la réservation ID: {}", reservationId);
 
         // Récupérer la réservation
@@ -105,8 +199,11 @@ public class EGoPassServiceImpl implements EGoPassService {
                 });
         log.debug("Réservation trouvée: {}", reservation.getId());
 
-        // Vérifier que la réservation est en attente de paiement
-        if (reservation.getStatus() != ReservationStatus.PENDING_PAYMENT) {
+        // Vérifier que la réservation est en attente de paiement, ou expirée avant la confirmation d'un vol à venir
+        if (reservation.getStatus() == ReservationStatus.EXPIRED && isFlightAhead(reservation)) {
+            log.warn("Réservation ID: {} expirée avant la confirmation de son paiement, relancée pour l'émission",
+                    reservationId);
+        } else if (reservation.getStatus() != ReservationStatus.PENDING_PAYMENT) {
             log.error("État invalide de la réservation ID: {}, statut actuel: {}",
                     reservationId, reservation.getStatus());
             throw new InvalidReservationStateException(reservationId.toString());
@@ -117,18 +214,20 @@ public class EGoPassServiceImpl implements EGoPassService {
         String eGoPassNumber = generateEGoPassNumber();
         log.debug("Numéro d'eGoPass généré: {}", eGoPassNumber);
 
+        // Date d'émission à la seconde : c'est la précision conservée dans le QR code
+        LocalDateTime issueDate = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
         // Générer le QR code qui contiendra les informations essentielles
         log.debug("Génération du contenu du QR code");
-        String qrCodeContent = generateQRCodeContent(reservation, eGoPassNumber);
-        log.debug("Génération de l'image QR code");
-        byte[] qrCodeImage = qrCodeService.generateQRCode(qrCodeContent);
+        String qrCodeContent = generateQRCodeContent(reservation, eGoPassNumber, issueDate);
 
         // Créer l'eGoPass
         log.debug("Création d'un nouvel objet eGoPass");
         EGoPass eGoPass = new EGoPass();
         eGoPass.setPassNumber(eGoPassNumber);
-        eGoPass.setQrCodeImage(qrCodeImage);
-        eGoPass.setIssueDate(LocalDateTime.now());
+        // Seul le contenu est conservé : le QR code est dessiné en vectoriel lors du rendu du PDF
+        eGoPass.setQrCodePayload(qrCodeContent);
+        eGoPass.setIssueDate(issueDate);
         eGoPass.setUser(reservation.getUser());
         eGoPass.setFlightInfo(reservation.getFlightInfo());
         eGoPass.setPassengerInfo(reservation.getPassengerInfo());
@@ -137,6 +236,7 @@ public class EGoPassServiceImpl implements EGoPassService {
         // Sauvegarder l'eGoPass
         log.debug("Sauvegarde de l'eGoPass en base de données");
         eGoPassRepository.save(eGoPass);
+        passValidationIndex.indexIssued(eGoPass);
 
         // Mettre à jour le statut de la réservation
         log.debug("Mise à jour du statut de la réservation à COMPLETED");
@@ -151,6 +251,12 @@ public class EGoPassServiceImpl implements EGoPassService {
         log.info("eGoPass généré avec succès, ID: {}", eGoPass.getId());
     }
 
+    private boolean isFlightAhead(Reservation reservation) {
+        LocalDate departureDate = reservation.getFlightInfo() != null
+                ? reservation.getFlightInfo().getDepartureDate() : null;
+        return departureDate != null && !departureDate.isBefore(LocalDate.now());
+    }
+
     /**
      * Génère ou récupère le document PDF associé à un eGoPass.
      *
@@ -170,22 +276,53 @@ public class EGoPassServiceImpl implements EGoPassService {
         log.debug("eGoPass trouvé: {}", eGoPass.getId());
 
         // Vérifier si le PDF existe déjà
-        if (eGoPass.getPdfDocument() != null) {
+        if (eGoPass.getPdfBlob() != null) {
             log.debug("PDF déjà généré, retour du document existant");
-            return new ByteArrayResource(eGoPass.getPdfDocument());
+            return new ByteArrayResource(blobStore.read(eGoPass.getPdfBlob()));
         }
 
-        // Sinon, générer le PDF
+        // Sinon, générer et enregistrer le PDF en priorité sur le pool de rendu
         log.debug("Génération d'un nouveau document PDF");
-        byte[] pdfDocument = pdfGeneratorService.generateEGoPassPDF(eGoPass);
+        BlobReference pdfBlob = pdfGeneratorService.renderForDownload(eGoPass);
 
-        // Sauvegarder le PDF généré
-        log.debug("Sauvegarde du document PDF généré");
-        eGoPass.setPdfDocument(pdfDocument);
-        eGoPassRepository.save(eGoPass);
+        log.info("PDF généré avec succès pour l'eGoPass ID: {}", eGoPassId);
+        return new ByteArrayResource(blobStore.read(pdfBlob));
+    }
+
+    /**
+     * Récupère le document PDF d'un eGoPass sous une forme consultable par plages, sans le charger en mémoire.
+     * Si le PDF n'a pas encore été généré, il est d'abord rendu et enregistré.
+     *
+     * @param eGoPassId L'identifiant de l'eGoPass
+     * @return Le document PDF
+     * @throws Exception Si une erreur survient lors de la génération du PDF
+     */
+    public DocumentContent getPDFDocument(Long eGoPassId) throws Exception {
+        log.info("Demande de téléchargement du PDF pour l'eGoPass ID: {}", eGoPassId);
+
+        EGoPass eGoPass = eGoPassRepository.findById(eGoPassId)
+                .orElseThrow(() -> {
+                    log.error("eGoPass non trouvé avec l'ID: {}", eGoPassId);
+                    return new EGoPassNotFoundException(eGoPassId);
+                });
+
+        if (eGoPass.getPdfBlob() != null) {
+            log.debug("PDF déjà généré, diffusion du document stocké");
+            return blobStore.open(eGoPass.getPdfBlob());
+        }
+
+        // PDF pas encore migré hors de la base
+        Optional<DocumentContent> legacy = legacyDocumentRepository.findPdfDocument(eGoPassId);
+        if (legacy.isPresent()) {
+            log.debug("PDF non migré, diffusion depuis la base");
+            return legacy.get();
+        }
+
+        // PDF absent : génération puis diffusion depuis le stockage
+        BlobReference pdfBlob = pdfGeneratorService.renderForDownload(eGoPass);
 
         log.info("PDF généré avec succès pour l'eGoPass ID: {}", eGoPassId);
-        return new ByteArrayResource(pdfDocument);
+        return blobStore.open(pdfBlob);
     }
 
     /**
@@ -209,6 +346,24 @@ public class EGoPassServiceImpl implements EGoPassService {
         return dto;
     }
 
+    /**
+     * Récupère un eGoPass par son numéro, tel que saisi ou lu au contrôle.
+     *
+     * @param passNumber Le numéro de l'eGoPass
+     * @return Les informations de l'eGoPass
+     * @throws InvalidRequestException Si le numéro est mal formé
+     * @throws EGoPassNotFoundException Si aucun eGoPass ne porte ce numéro
+     */
+    @Transactional(readOnly = true)
+    public EGoPassDTO getEGoPassByNumber(String passNumber) {
+        String number = PassNumberFormat.normalizeForLookup(passNumber);
+        log.info("Récupération de l'eGoPass numéro: {}", number);
+
+        EGoPass egopass = eGoPassRepository.findByPassNumber(number)
+                .orElseThrow(() -> new EGoPassNotFoundException("EGoPass not found with number: " + number));
+        return EGoPassMapper.INSTANCE.toDto(egopass);
+    }
+
     // Méthodes utilitaires
 
     /**
@@ -223,41 +378,40 @@ public class EGoPassServiceImpl implements EGoPassService {
     }
 
     /**
-     * Génère un numéro unique pour un eGoPass.
+     * Génère un numéro unique pour un eGoPass, à partir d'un bloc de la séquence réservé en mémoire.
      *
      * @return Le numéro généré
      */
     private String generateEGoPassNumber() {
-        String number = "EGP-" + UUID.randomUUID().toString().substring(0, 10).toUpperCase();
+        String number = passNumberGenerator.next();
         log.debug("Numéro d'eGoPass généré: {}", number);
         return number;
     }
 
     /**
-     * Génère le contenu JSON qui sera encodé dans le QR code de l'eGoPass.
+     * Génère le contenu signé et compact qui sera encodé dans le QR code de l'eGoPass.
      *
      * @param reservation La réservation associée
      * @param eGoPassNumber Le numéro d'eGoPass
-     * @return Le contenu JSON sous forme de chaîne
-     * @throws JsonProcessingException Si une erreur survient lors de la conversion en JSON
+     * @param issueDate La date d'émission de l'eGoPass
+     * @return Le contenu du QR code
      */
-    private String generateQRCodeContent(Reservation reservation, String eGoPassNumber) throws JsonProcessingException {
+    private String generateQRCodeContent(Reservation reservation, String eGoPassNumber, LocalDateTime issueDate) {
         log.debug("Génération du contenu QR code pour eGoPass: {}", eGoPassNumber);
 
-        // Créer un objet JSON contenant toutes les informations essentielles
-        QRCodeData data = new QRCodeData();
-        data.setPassNumber(eGoPassNumber);
-        data.setPassengerName(reservation.getPassengerInfo().getFullName());
-        data.setNationality(reservation.getPassengerInfo().getNationality());
-        data.setFlightNumber(reservation.getFlightInfo().getFlightNumber());
-        data.setFlightCompany(reservation.getFlightInfo().getFlightCompany());
-        data.setOrigin(reservation.getFlightInfo().getOrigin());
-        data.setDestination(reservation.getFlightInfo().getDestination());
-        data.setIssueDate(LocalDateTime.now().toString());
-
-        String jsonContent = objectMapper.writeValueAsString(data);
-        log.debug("Contenu QR code généré: {}", jsonContent);
-        return jsonContent;
+        PassPayload payload = PassPayload.builder()
+                .passNumber(eGoPassNumber)
+                .flightNumber(reservation.getFlightInfo().getFlightNumber())
+                .origin(reservation.getFlightInfo().getOrigin())
+                .destination(reservation.getFlightInfo().getDestination())
+                .departureDate(reservation.getFlightInfo().getDepartureDate())
+                .passengerName(reservation.getPassengerInfo().getFullName())
+                .issueDate(issueDate)
+                .build();
+
+        String content = passPayloadCodec.encode(payload);
+        log.debug("Contenu QR code généré: {}", content);
+        return content;
     }
 
     /**
@@ -270,33 +424,10 @@ public class EGoPassServiceImpl implements EGoPassService {
     private void validatePassengerInfo(EGoPassRequest request) {
         log.debug("Validation des informations passager");
 
-        if (request.getFirstName() == null || request.getFirstName().trim().isEmpty()) {
-            log.warn("Validation échouée: prénom manquant");
-            throw new InvalidRequestException("firstName", "Le prénom du passager est requis.");
-        }
-        if (request.getLastName() == null || request.getLastName().trim().isEmpty()) {
-            log.warn("Validation échouée: nom manquant");
-            throw new InvalidRequestException("lastName", "Le nom du passager est requis.");
-        }
-        if (request.getNationality() == null || request.getNationality().trim().isEmpty()) {
-            log.warn("Validation échouée: nationalité manquante");
-            throw new InvalidRequestException("nationality", "La nationalité du passager est requise.");
-        }
-        if (request.getPassportNumber() == null || request.getPassportNumber().trim().isEmpty()) {
-            log.warn("Validation échouée: numéro de passeport manquant");
-            throw new InvalidRequestException("passportNumber", "Le numéro de passeport est requis.");
-        }
-        if (request.getPassportIssueDate() == null || request.getPassportIssueDate().isAfter(LocalDate.now())) {
-            log.warn("Validation échouée: date de délivrance du passeport invalide");
-            throw new InvalidRequestException("passportIssueDate", "La date de délivrance du passeport est invalide.");
-        }
-        if (request.getEmail() == null || !request.getEmail().matches("^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,}$")) {
-            log.warn("Validation échouée: email invalide: {}", request.getEmail());
-            throw new InvalidRequestException("email", "L'email du passager est invalide.");
-        }
-        if (request.getPhone() == null || !request.getPhone().matches("^\\+?[0-9]{7,15}$")) {
-            log.warn("Validation échouée: numéro de téléphone invalide: {}", request.getPhone());
-            throw new InvalidRequestException("phone", "Le numéro de téléphone est invalide.");
+        PassengerRequestValidator.Violation violation = PassengerRequestValidator.checkPassenger(request);
+        if (violation != null) {
+            log.warn("Validation échouée ({}): {}", violation.field(), violation.message());
+            throw violation.toException();
         }
 
         log.debug("Validation des informations passager réussie");
@@ -312,29 +443,10 @@ public class EGoPassServiceImpl implements EGoPassService {
     private void validateFlightInfo(EGoPassRequest request) {
         log.debug("Validation des informations de vol");
 
-        if (request.getFlightType() == null || (!request.getFlightType().equals("LOCAL") && !request.getFlightType().equals("INTERNATIONAL"))) {
-            log.warn("Validation échouée: type de vol invalide: {}", request.getFlightType());
-            throw new InvalidRequestException("flightType", "Le type de vol doit être 'LOCAL' ou 'INTERNATIONAL'.");
-        }
-        if (request.getFlightCompany() == null || request.getFlightCompany().trim().isEmpty()) {
-            log.warn("Validation échouée: compagnie aérienne manquante");
-            throw new InvalidRequestException("airline", "Le nom de la compagnie aérienne est requis.");
-        }
-        if (request.getFlightNumber() == null || request.getFlightNumber().trim().isEmpty()) {
-            log.warn("Validation échouée: numéro de vol manquant");
-            throw new InvalidRequestException("flightNumber", "Le numéro de vol est requis.");
-        }
-        if (request.getOrigin() == null || request.getOrigin().trim().isEmpty()) {
-            log.warn("Validation échouée: origine manquante");
-            throw new InvalidRequestException("origin", "L'aéroport d'origine est requis.");
-        }
-        if (request.getDestination() == null || request.getDestination().trim().isEmpty()) {
-            log.warn("Validation échouée: destination manquante");
-            throw new InvalidRequestException("destination", "L'aéroport de destination est requis.");
-        }
-        if (request.getOrigin().equalsIgnoreCase(request.getDestination())) {
-            log.warn("Validation échouée: origine et destination identiques: {}", request.getOrigin());
-            throw new InvalidRequestException("destination", "L'origine et la destination ne peuvent pas être identiques.");
+        PassengerRequestValidator.Violation violation = PassengerRequestValidator.checkFlight(request);
+        if (violation != null) {
+            log.warn("Validation échouée ({}): {}", violation.field(), violation.message());
+            throw violation.toException();
         }
 
         log.debug("Validation des informations de vol réussie");
@@ -0,0 +1,179 @@
+package com.rva.egopass.serviceimpl;
+
+import com.rva.egopass.exceptions.DocumentException;
+import com.rva.egopass.model.BlobReference;
+import com.rva.egopass.service.BlobStore;
+import com.rva.egopass.service.DocumentContent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * BlobStore par défaut, sur le système de fichiers local.
+ * Chaque contenu est stocké sous {@code <racine>/ab/cd/<sha256>} : la clé dérive de l'empreinte SHA-256,
+ * les deux premiers niveaux de répertoires répartissent les fichiers, et les lectures passent par un mapping mémoire.
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "filesystem", matchIfMissing = true)
+@Slf4j
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final String KEY_PREFIX = "sha256/";
+    private static final Pattern KEY_PATTERN = Pattern.compile("^sha256/[0-9a-f]{64}$");
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path rootDir;
+    private final Path tmpDir;
+
+    public FileSystemBlobStore(@Value("${app.storage.filesystem.root-dir:./data/blobs}") String rootDir) {
+        this.rootDir = Paths.get(rootDir).toAbsolutePath().normalize();
+        this.tmpDir = this.rootDir.resolve("tmp");
+        try {
+            Files.createDirectories(tmpDir);
+        } catch (IOException e) {
+            throw new DocumentException("Impossible d'initialiser le stockage des documents: " + this.rootDir, e);
+        }
+        log.info("Stockage des documents sur le système de fichiers: {}", this.rootDir);
+    }
+
+    @Override
+    public BlobReference put(byte[] content) {
+        String sha256 = sha256Hex(content);
+        String key = KEY_PREFIX + sha256;
+        Path target = resolve(key);
+
+        try {
+            if (Files.exists(target) && Files.size(target) == content.length) {
+                log.debug("Contenu déjà présent dans le stockage: {}", key);
+            } else {
+                Files.createDirectories(target.getParent());
+                Path tmp = Files.createTempFile(tmpDir, sha256, ".tmp");
+                try {
+                    Files.write(tmp, content);
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+                log.debug("Contenu enregistré dans le stockage: {} ({} octets)", key, content.length);
+            }
+        } catch (IOException e) {
+            throw new DocumentException("Erreur lors de l'enregistrement du document " + key, e);
+        }
+
+        return BlobReference.builder()
+                .blobKey(key)
+                .sizeBytes((long) content.length)
+                .sha256(sha256)
+                .build();
+    }
+
+    @Override
+    public DocumentContent open(BlobReference reference) {
+        MappedByteBuffer buffer = map(reference);
+        String eTag = "\"" + reference.getSha256() + "\"";
+        return new DocumentContent() {
+            @Override
+            public long getContentLength() {
+                return buffer.capacity();
+            }
+
+            @Override
+            public String getETag() {
+                return eTag;
+            }
+
+            @Override
+            public InputStream openStream(long offset, long length) {
+                return new ByteBufferInputStream(buffer.slice((int) offset, (int) length));
+            }
+        };
+    }
+
+    @Override
+    public byte[] read(BlobReference reference) {
+        MappedByteBuffer buffer = map(reference);
+        byte[] content = new byte[buffer.capacity()];
+        buffer.get(content);
+        return content;
+    }
+
+    private MappedByteBuffer map(BlobReference reference) {
+        Path path = resolve(reference.getBlobKey());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Le mapping reste valide après la fermeture du canal
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            throw new DocumentException("Document introuvable dans le stockage: " + reference.getBlobKey(), e);
+        } catch (IOException e) {
+            throw new DocumentException("Erreur lors de la lecture du document " + reference.getBlobKey(), e);
+        }
+    }
+
+    private Path resolve(String key) {
+        if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+            throw new DocumentException("Clé de document invalide: " + key);
+        }
+        String hash = key.substring(KEY_PREFIX.length());
+        return rootDir.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static String sha256Hex(byte[] content) {
+        try {
+            return HEX.formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    /**
+     * Flux de lecture sur une vue d'un buffer mappé.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
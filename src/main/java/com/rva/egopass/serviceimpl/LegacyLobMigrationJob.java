@@ -0,0 +1,120 @@
+package com.rva.egopass.serviceimpl;
+
+import com.rva.egopass.model.BlobReference;
+import com.rva.egopass.repository.LegacyDocumentRepository;
+import com.rva.egopass.repository.LegacyDocumentRepository.LegacyLobRow;
+import com.rva.egopass.service.BlobStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Déplace les images QR et PDF encore stockés en large objects PostgreSQL vers le BlobStore.
+ * Chaque exécution traite un lot : le contenu est d'abord écrit dans le stockage, puis la référence
+ * remplace le large object et celui-ci est supprimé dans une même transaction.
+ * Une ligne modifiée entre-temps n'est pas écrasée (mise à jour conditionnée par l'OID lu).
+ * <p>
+ * Les lignes sont parcourues par identifiant croissant, d'un lot au suivant : une ligne en échec (large object
+ * manquant ou illisible) est dépassée et ne bloque pas les suivantes. Au bout de la table, les lignes en échec sont
+ * reprises lors d'un nouveau parcours, tant que le parcours précédent a migré des documents ; sinon la migration
+ * s'arrête et les signale.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.migration.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class LegacyLobMigrationJob {
+
+    private final LegacyDocumentRepository legacyDocumentRepository;
+    private final BlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private volatile boolean completed;
+    private long lastId;
+    private int migratedInPass;
+    private int failedInPass;
+
+    public LegacyLobMigrationJob(LegacyDocumentRepository legacyDocumentRepository,
+                                 BlobStore blobStore,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.storage.migration.batch-size:50}") int batchSize) {
+        this.legacyDocumentRepository = legacyDocumentRepository;
+        this.blobStore = blobStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${app.storage.migration.initial-delay:30s}",
+            fixedDelayString = "${app.storage.migration.interval:30s}")
+    public void migrateBatch() {
+        if (completed || !legacyDocumentRepository.hasLegacyColumns()) {
+            return;
+        }
+
+        List<LegacyLobRow> rows = legacyDocumentRepository.findRowsWithLegacyLobs(lastId, batchSize);
+        if (rows.isEmpty()) {
+            endPass();
+            return;
+        }
+
+        int migrated = 0;
+        for (LegacyLobRow row : rows) {
+            try {
+                migrated += migrateRow(row);
+            } catch (Exception e) {
+                failedInPass++;
+                log.error("Erreur lors de la migration des documents de l'eGoPass ID: {}", row.id(), e);
+            }
+            lastId = row.id();
+        }
+        migratedInPass += migrated;
+        log.info("Migration des documents: {} document(s) déplacé(s) vers le stockage", migrated);
+    }
+
+    /**
+     * Fin d'un parcours de la table : les lignes en échec ne sont reprises que si le parcours a progressé.
+     */
+    private void endPass() {
+        if (failedInPass == 0) {
+            log.info("Migration des documents vers le stockage terminée");
+            completed = true;
+        } else if (migratedInPass == 0) {
+            log.warn("Migration des documents arrêtée: {} eGoPass conservent des documents en large object "
+                    + "illisibles, à corriger avant de relancer l'application", failedInPass);
+            completed = true;
+        } else {
+            log.info("Migration des documents: reprise des {} eGoPass en échec", failedInPass);
+        }
+        lastId = 0;
+        migratedInPass = 0;
+        failedInPass = 0;
+    }
+
+    private int migrateRow(LegacyLobRow row) {
+        BlobReference qrCode = row.qrCodeOid() != null
+                ? blobStore.put(legacyDocumentRepository.readLargeObject(row.qrCodeOid()))
+                : null;
+        BlobReference pdf = row.pdfOid() != null
+                ? blobStore.put(legacyDocumentRepository.readLargeObject(row.pdfOid()))
+                : null;
+
+        Integer migrated = transactionTemplate.execute(status -> {
+            int count = 0;
+            if (qrCode != null && legacyDocumentRepository.replaceQrCodeImage(row.id(), row.qrCodeOid(), qrCode)) {
+                count++;
+            }
+            if (pdf != null && legacyDocumentRepository.replacePdfDocument(row.id(), row.pdfOid(), pdf)) {
+                count++;
+            }
+            return count;
+        });
+        log.debug("Documents de l'eGoPass ID: {} migrés ({})", row.id(), migrated);
+        return migrated != null ? migrated : 0;
+    }
+}
@@ -1,17 +1,22 @@
 package com.rva.egopass.serviceimpl;
 
+import com.rva.egopass.dto.CardDetails;
 import com.rva.egopass.dto.PaymentCallbackRequest;
 import com.rva.egopass.dto.PaymentInitiationRequest;
 import com.rva.egopass.dto.PaymentInitiationResponse;
 import com.rva.egopass.dto.PaymentStatusResponse;
+import com.rva.egopass.enums.PaymentMethod;
 import com.rva.egopass.enums.PaymentStatus;
 import com.rva.egopass.exceptions.PaymentException;
+import com.rva.egopass.exceptions.PaymentGatewayUnavailableException;
 import com.rva.egopass.exceptions.ReservationNotFoundException;
 import com.rva.egopass.model.Payment;
 import com.rva.egopass.model.Reservation;
+import com.rva.egopass.model.ReservationGroup;
 import com.rva.egopass.repository.PaymentRepository;
+import com.rva.egopass.repository.ReservationGroupRepository;
 import com.rva.egopass.repository.ReservationRepository;
-import com.rva.egopass.service.PaymentGatewayService;
+import com.rva.egopass.service.PaymentGatewayClient;
 import com.rva.egopass.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,12 +25,20 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Implémentation du service de paiement qui gère les transactions pour les réservations d'eGoPass.
  * Ce service coordonne l'initiation, la vérification et le suivi des paiements à travers
  * différentes passerelles de paiement.
+ * <p>
+ * L'appel au prestataire lors de l'initiation est fait hors transaction, par {@link PaymentGatewayClient} :
+ * aucune connexion à la base n'est retenue pendant l'attente du prestataire. Le paiement est enregistré avant
+ * l'appel, puis complété de la référence du prestataire ou marqué en échec. De même, la vérification d'un callback
+ * ({@link #checkPayment}) précède la transaction qui en enregistre le résultat ({@link #recordVerification}).
  */
 @Service
 @RequiredArgsConstructor
@@ -34,7 +47,8 @@ public class PaymentServiceImpl implements PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final ReservationRepository reservationRepository;
-    private final PaymentGatewayService paymentGatewayService;
+    private final PaymentGatewayClient paymentGatewayClient;
+    private final ReservationGroupRepository reservationGroupRepository;
 
     /**
      * Initie un processus de paiement pour une réservation.
@@ -43,8 +57,8 @@ public class PaymentServiceImpl implements PaymentService {
      * @return Une réponse contenant les informations nécessaires pour compléter le paiement
      * @throws ReservationNotFoundException Si la réservation associée n'existe pas
      * @throws PaymentException Si une erreur survient pendant l'initiation du paiement
+     * @throws PaymentGatewayUnavailableException Si le prestataire est saturé, indisponible ou hors délai
      */
-    @Transactional
     public PaymentInitiationResponse initiatePayment(PaymentInitiationRequest request) {
         log.info("Début d'initiation de paiement pour la réservation ID: {}", request.getReservationId());
 
@@ -73,35 +87,67 @@ public class PaymentServiceImpl implements PaymentService {
         log.debug("Sauvegarde du paiement initial en base de données");
         paymentRepository.save(payment);
 
-        // Initier le paiement avec la passerelle de paiement appropriée
-        PaymentInitiationResponse gatewayResponse;
-        log.info("Initiation du paiement avec la méthode: {}", request.getPaymentMethod());
+        return submitToGateway(payment, request.getPaymentMethod(), request.getCardDetails());
+    }
+
+    /**
+     * Initie un paiement unique pour toutes les réservations d'un groupe.
+     * Le montant est la somme des montants individuels ; les eGoPass du groupe sont émis à la confirmation.
+     *
+     * @param reservationGroupId L'identifiant du groupe de réservations
+     * @param paymentMethod La méthode de paiement
+     * @param cardDetails Les détails de la carte, pour un paiement par carte
+     * @return Une réponse contenant les informations nécessaires pour compléter le paiement
+     * @throws ReservationNotFoundException Si le groupe n'existe pas ou n'a aucune réservation
+     * @throws PaymentException Si une erreur survient pendant l'initiation du paiement
+     * @throws PaymentGatewayUnavailableException Si le prestataire est saturé, indisponible ou hors délai
+     */
+    public PaymentInitiationResponse initiateGroupPayment(Long reservationGroupId, PaymentMethod paymentMethod,
+                                                          CardDetails cardDetails) {
+        log.info("Début d'initiation de paiement pour le groupe de réservations ID: {}", reservationGroupId);
+
+        ReservationGroup group = reservationGroupRepository.findById(reservationGroupId)
+                .orElseThrow(() -> new ReservationNotFoundException("Groupe de réservations non trouvé: " + reservationGroupId));
+        List<Reservation> reservations = reservationRepository.findByGroupIdOrderById(reservationGroupId);
+        if (reservations.isEmpty()) {
+            throw new ReservationNotFoundException("Aucune réservation dans le groupe: " + reservationGroupId);
+        }
+
+        // Même vol pour tout le groupe : même montant par passager
+        BigDecimal amount = calculateAmount(reservations.get(0)).multiply(BigDecimal.valueOf(reservations.size()));
+        log.debug("Montant calculé pour {} passagers: {}", reservations.size(), amount);
+
+        Payment payment = new Payment();
+        payment.setAmount(amount);
+        payment.setPaymentMethod(paymentMethod);
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setReservation(reservations.get(0));
+        payment.setReservationGroup(group);
+        payment.setCreatedAt(LocalDateTime.now());
+        paymentRepository.save(payment);
+
+        return submitToGateway(payment, paymentMethod, cardDetails);
+    }
+
+    /**
+     * Transmet un paiement enregistré au prestataire correspondant à sa méthode, puis enregistre sa référence.
+     */
+    private PaymentInitiationResponse submitToGateway(Payment payment, PaymentMethod paymentMethod, CardDetails cardDetails) {
+        log.info("Initiation du paiement avec la méthode: {}", paymentMethod);
 
+        PaymentInitiationResponse gatewayResponse;
         try {
-            switch (request.getPaymentMethod()) {
-                case MOBILE_MONEY:
-                    log.debug("Traitement d'un paiement par Mobile Money");
-                    gatewayResponse = paymentGatewayService.initiateMobileMoneyPayment(payment);
-                    break;
-                case CREDIT_CARD:
-                    log.debug("Traitement d'un paiement par Carte de Crédit");
-                    gatewayResponse = paymentGatewayService.initiateCreditCardPayment(payment, request.getCardDetails());
-                    break;
-                case PAYPAL:
-                    log.debug("Traitement d'un paiement par PayPal");
-                    gatewayResponse = paymentGatewayService.initiatePayPalPayment(payment);
-                    break;
-                default:
-                    log.error("Méthode de paiement non supportée: {}", request.getPaymentMethod());
-                    throw new PaymentException("Méthode de paiement non supportée");
-            }
+            gatewayResponse = await(paymentGatewayClient.initiate(payment, cardDetails));
         } catch (Exception e) {
             // En cas d'erreur, marquer le paiement comme échoué
-            log.error("Erreur lors de l'initiation du paiement: {}", e.getMessage(), e);
+            log.error("Erreur lors de l'initiation du paiement: {}", e.getMessage());
             payment.setStatus(PaymentStatus.FAILED);
             payment.setErrorMessage(e.getMessage());
             paymentRepository.save(payment);
 
+            if (e instanceof PaymentGatewayUnavailableException unavailable) {
+                throw unavailable;
+            }
             throw new PaymentException("Erreur lors de l'initiation du paiement: " + e.getMessage(), e);
         }
 
@@ -128,21 +174,38 @@ public class PaymentServiceImpl implements PaymentService {
      * @return true si le paiement est valide et confirmé, false sinon
      * @throws PaymentException Si le paiement associé n'est pas trouvé
      */
-    @Transactional
     public boolean verifyPayment(PaymentCallbackRequest callback) {
-        log.info("Vérification du paiement avec référence de transaction: {}", callback.getTransactionReference());
+        boolean isValid = checkPayment(callback);
+        recordVerification(callback, isValid);
+        return isValid;
+    }
 
-        // Récupérer le paiement
-        Payment payment = paymentRepository.findByTransactionReference(callback.getTransactionReference())
-                .orElseThrow(() -> {
-                    log.error("Paiement non trouvé pour la référence de transaction: {}", callback.getTransactionReference());
-                    return new PaymentException("Paiement non trouvé pour la référence: " + callback.getTransactionReference());
-                });
-        log.debug("Paiement trouvé avec ID: {}", payment.getId());
+    /**
+     * Vérifie un paiement auprès de la passerelle, hors transaction et sans rien modifier : la vérification
+     * peut être répétée.
+     *
+     * @param callback Les informations reçues du service de paiement
+     * @return true si la passerelle confirme le paiement
+     * @throws PaymentException Si le paiement associé n'est pas trouvé
+     */
+    public boolean checkPayment(PaymentCallbackRequest callback) {
+        log.info("Vérification du paiement avec référence de transaction: {}", callback.getTransactionReference());
+        Payment payment = findByTransactionReference(callback.getTransactionReference());
 
-        // Vérifier le paiement avec la passerelle
         log.debug("Vérification du paiement auprès de la passerelle de paiement");
-        boolean isValid = paymentGatewayService.verifyPayment(callback);
+        return await(paymentGatewayClient.verify(payment.getPaymentMethod(), callback));
+    }
+
+    /**
+     * Enregistre le résultat de la vérification d'un paiement, dans la transaction de l'appelant s'il y en a une.
+     *
+     * @param callback Les informations reçues du service de paiement
+     * @param isValid  Le résultat de {@link #checkPayment}
+     * @throws PaymentException Si le paiement associé n'est pas trouvé
+     */
+    @Transactional
+    public void recordVerification(PaymentCallbackRequest callback, boolean isValid) {
+        Payment payment = findByTransactionReference(callback.getTransactionReference());
 
         if (isValid) {
             // Mettre à jour le statut du paiement
@@ -157,8 +220,16 @@ public class PaymentServiceImpl implements PaymentService {
 
         log.debug("Sauvegarde du paiement mis à jour en base de données");
         paymentRepository.save(payment);
+    }
 
-        return isValid;
+    private Payment findByTransactionReference(String transactionReference) {
+        Payment payment = paymentRepository.findByTransactionReference(transactionReference)
+                .orElseThrow(() -> {
+                    log.error("Paiement non trouvé pour la référence de transaction: {}", transactionReference);
+                    return new PaymentException("Paiement non trouvé pour la référence: " + transactionReference);
+                });
+        log.debug("Paiement trouvé avec ID: {}", payment.getId());
+        return payment;
     }
 
     /**
@@ -191,6 +262,20 @@ public class PaymentServiceImpl implements PaymentService {
         return response;
     }
 
+    /**
+     * Attend le résultat d'un appel au prestataire et relance son erreur telle quelle.
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new PaymentException("Erreur du prestataire de paiement: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
     /**
      * Génère un identifiant unique pour un paiement.
      *
@@ -0,0 +1,139 @@
+package com.rva.egopass.serviceimpl;
+
+import com.rva.egopass.repository.LegacyDocumentRepository;
+import com.rva.egopass.repository.ReservationArchiveRepository;
+import com.rva.egopass.repository.ReservationArchiveRepository.Candidate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Archive les réservations terminées depuis plus de {@code app.archive.retention}, par lots validés séparément
+ * (voir {@link ReservationArchiveRepository}). Les partitions mensuelles de l'archive sont créées à la demande ;
+ * celles de plus de {@code app.archive.detach-after-months} mois sont détachées de l'archive, une fois archivées
+ * toutes les réservations de leur mois : une réservation terminée tardivement ne vise jamais une partition détachée.
+ */
+@Component
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ReservationArchiveJob {
+
+    private final ReservationArchiveRepository archiveRepository;
+    private final LegacyDocumentRepository legacyDocumentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final int detachAfterMonths;
+    private final int batchSize;
+
+    private final Set<YearMonth> knownPartitions = ConcurrentHashMap.newKeySet();
+
+    private final Counter archived;
+    private final Timer runTimer;
+
+    public ReservationArchiveJob(ReservationArchiveRepository archiveRepository,
+                                 LegacyDocumentRepository legacyDocumentRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.archive.retention:180d}") Duration retention,
+                                 @Value("${app.archive.detach-after-months:0}") int detachAfterMonths,
+                                 @Value("${app.archive.batch-size:200}") int batchSize) {
+        if (detachAfterMonths > 0 && Duration.ofDays(31L * (detachAfterMonths - 1)).compareTo(retention) <= 0) {
+            // Sinon, la partition d'un mois serait presque toujours conservée faute d'avoir archivé ses réservations
+            throw new IllegalStateException("app.archive.detach-after-months doit dépasser la durée de rétention "
+                    + "d'au moins un mois");
+        }
+        this.archiveRepository = archiveRepository;
+        this.legacyDocumentRepository = legacyDocumentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.detachAfterMonths = detachAfterMonths;
+        this.batchSize = batchSize;
+
+        this.archived = Counter.builder("egopass.archive.reservations").register(meterRegistry);
+        this.runTimer = Timer.builder("egopass.archive.run").register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.archive.initial-delay:5m}",
+            fixedDelayString = "${app.archive.interval:1h}")
+    public void run() {
+        try {
+            runTimer.record(() -> {
+                archiveAll();
+                detachOldPartitions();
+            });
+        } catch (Exception e) {
+            log.error("Erreur lors de l'archivage des réservations: {}", e.getMessage(), e);
+        }
+    }
+
+    void archiveAll() {
+        archiveRepository.ensureArchiveTable();
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        boolean legacyColumnsExist = legacyDocumentRepository.hasLegacyColumns();
+
+        long start = System.nanoTime();
+        int total = 0;
+        int locked;
+        do {
+            List<Candidate> batch = transactionTemplate.execute(status -> archiveBatch(cutoff, legacyColumnsExist));
+            locked = batch != null ? batch.size() : 0;
+            if (locked > 0) {
+                // Partitions connues une fois la transaction qui les a créées validée
+                batch.forEach(candidate -> knownPartitions.add(candidate.month()));
+                total += locked;
+                archived.increment(locked);
+            }
+        } while (locked == batchSize);
+
+        if (total > 0) {
+            log.info("{} réservation(s) archivée(s) en {} ms", total, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private List<Candidate> archiveBatch(LocalDateTime cutoff, boolean legacyColumnsExist) {
+        List<Candidate> batch = archiveRepository.lockArchivable(cutoff, legacyColumnsExist, batchSize);
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        batch.stream()
+                .map(Candidate::month)
+                .distinct()
+                .filter(month -> !knownPartitions.contains(month))
+                .forEach(archiveRepository::ensurePartition);
+        archiveRepository.archive(batch.stream().map(Candidate::reservationId).toList());
+        return batch;
+    }
+
+    void detachOldPartitions() {
+        if (detachAfterMonths <= 0) {
+            return;
+        }
+        YearMonth oldestKept = YearMonth.now().minusMonths(detachAfterMonths);
+        for (YearMonth month : archiveRepository.findPartitions()) {
+            if (!month.isBefore(oldestKept)) {
+                continue;
+            }
+            if (archiveRepository.hasLiveReservations(month)) {
+                log.info("Partition d'archive {} conservée : des réservations de ce mois ne sont pas encore archivées", month);
+            } else {
+                archiveRepository.detachPartition(month);
+                knownPartitions.remove(month);
+                log.info("Partition d'archive {} détachée", month);
+            }
+        }
+    }
+}
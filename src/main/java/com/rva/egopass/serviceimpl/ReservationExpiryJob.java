@@ -0,0 +1,112 @@
+package com.rva.egopass.serviceimpl;
+
+import com.rva.egopass.repository.ReservationExpiryRepository;
+import com.rva.egopass.repository.ReservationExpiryRepository.Cursor;
+import com.rva.egopass.service.ReservationExpiryPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Fait expirer les réservations restées en attente de paiement au-delà de leur date d'expiration.
+ * Chaque passage traite les réservations échues par lots d'un {@code UPDATE} chacun, validés séparément :
+ * les verrous sont courts et un passage interrompu reprend au suivant. Les réservations antérieures
+ * à la date d'expiration en reçoivent une au préalable, comptée à partir de leur création. Un paiement encore
+ * en attente chez le prestataire retient sa réservation pendant {@code app.reservation.expiry.payment-grace}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.reservation.expiry.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ReservationExpiryJob {
+
+    private static final Comparator<Cursor> CURSOR_ORDER =
+            Comparator.comparing(Cursor::expiresAt).thenComparingLong(Cursor::id);
+
+    private final ReservationExpiryRepository expiryRepository;
+    private final ReservationExpiryPolicy expiryPolicy;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration paymentGrace;
+
+    private final Counter expired;
+    private final Timer sweepTimer;
+    private final AtomicLong backlog = new AtomicLong();
+
+    public ReservationExpiryJob(ReservationExpiryRepository expiryRepository,
+                                ReservationExpiryPolicy expiryPolicy,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.reservation.expiry.batch-size:500}") int batchSize,
+                                @Value("${app.reservation.expiry.payment-grace:1h}") Duration paymentGrace) {
+        this.expiryRepository = expiryRepository;
+        this.expiryPolicy = expiryPolicy;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.paymentGrace = paymentGrace;
+
+        this.expired = Counter.builder("egopass.reservation.expiry.expired").register(meterRegistry);
+        this.sweepTimer = Timer.builder("egopass.reservation.expiry.sweep").register(meterRegistry);
+        meterRegistry.gauge("egopass.reservation.expiry.backlog", backlog);
+    }
+
+    @Scheduled(initialDelayString = "${app.reservation.expiry.initial-delay:1m}",
+            fixedDelayString = "${app.reservation.expiry.interval:1m}")
+    public void sweep() {
+        try {
+            sweepTimer.record(this::expireDue);
+        } catch (Exception e) {
+            log.error("Erreur lors de l'expiration des réservations: {}", e.getMessage(), e);
+        }
+    }
+
+    void expireDue() {
+        int backfilled = 0;
+        int updated;
+        do {
+            updated = inTransaction(() -> expiryRepository.backfillExpiry(expiryPolicy.getTtl(), batchSize));
+            backfilled += updated;
+        } while (updated == batchSize);
+        if (backfilled > 0) {
+            log.info("Date d'expiration attribuée à {} réservation(s) en attente", backfilled);
+        }
+
+        long start = System.nanoTime();
+        int total = 0;
+        Cursor cursor = Cursor.START;
+        List<Cursor> batch;
+        do {
+            Cursor after = cursor;
+            batch = inTransaction(() -> expiryRepository.expireDue(after, paymentGrace, batchSize));
+            if (!batch.isEmpty()) {
+                // RETURNING ne garantit pas l'ordre : le curseur avance jusqu'à la plus grande position
+                cursor = Collections.max(batch, CURSOR_ORDER);
+                total += batch.size();
+                expired.increment(batch.size());
+            }
+        } while (batch.size() == batchSize);
+
+        backlog.set(expiryRepository.countOverdue());
+        if (total > 0) {
+            log.info("{} réservation(s) expirée(s) en {} ms, {} encore échue(s)",
+                    total, (System.nanoTime() - start) / 1_000_000, backlog.get());
+        }
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+}
@@ -2,8 +2,10 @@ package com.rva.egopass;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
 @SpringBootTest(classes = ProductApplication.class)
+@ActiveProfiles("test")
 class ProductApplicationTests {
 
 	@Test
@@ -0,0 +1,97 @@
+package com.rva.egopass.common;
+
+import com.rva.egopass.service.DocumentContent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeDownloadSupportTest {
+
+    private static final String ETAG = "\"1-42\"";
+
+    private DocumentContent document;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        document = DocumentContent.of("0123456789".getBytes(StandardCharsets.US_ASCII), ETAG);
+        request = new MockHttpServletRequest("GET", "/api/v1/passes/1/download");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void write_shouldServeWholeDocument_whenNoRange() throws Exception {
+        write();
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+        assertEquals(10, response.getContentLengthLong());
+        assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+    }
+
+    @Test
+    void write_shouldServePartialContent_whenSingleRange() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        write();
+
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", response.getContentAsString());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getContentLengthLong());
+    }
+
+    @Test
+    void write_shouldServeSuffixRange() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+
+        write();
+
+        assertEquals(206, response.getStatus());
+        assertEquals("789", response.getContentAsString());
+    }
+
+    @Test
+    void write_shouldIgnoreRange_whenIfRangeDoesNotMatch() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"1-41\"");
+
+        write();
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    void write_shouldRejectUnsatisfiableRange() throws Exception {
+        request.addHeader(HttpHeaders.RANGE, "bytes=20-30");
+
+        write();
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void write_shouldAnswerNotModified_whenETagMatches() throws Exception {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+
+        write();
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    private void write() throws Exception {
+        RangeDownloadSupport.write(document, MediaType.APPLICATION_PDF, "egopass-1.pdf", request, response);
+    }
+}
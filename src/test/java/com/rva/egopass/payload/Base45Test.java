@@ -0,0 +1,45 @@
+package com.rva.egopass.payload;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Base45Test {
+
+    @Test
+    void encode_shouldMatchRfc9285Examples() {
+        assertEquals("BB8", Base45.encode("AB".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("%69 VD92EX0", Base45.encode("Hello!!".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("UJCLQE7W581", Base45.encode("base-45".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void decode_shouldMatchRfc9285Examples() {
+        assertEquals("ietf!", new String(Base45.decode("QED8WEX0"), StandardCharsets.US_ASCII));
+        assertEquals("Hello!!", new String(Base45.decode("%69 VD92EX0"), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void decode_shouldRoundTripEveryByteValue() {
+        byte[] data = new byte[257];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        data[0] = (byte) 0xFF;
+        data[1] = (byte) 0xFF;
+
+        assertArrayEquals(data, Base45.decode(Base45.encode(data)));
+    }
+
+    @Test
+    void decode_shouldRejectInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> Base45.decode("BB8A"));
+        assertThrows(IllegalArgumentException.class, () -> Base45.decode("bb8"));
+        // Groupe supérieur à 0xFFFF
+        assertThrows(IllegalArgumentException.class, () -> Base45.decode("GGW"));
+        // Octet final supérieur à 0xFF
+        assertThrows(IllegalArgumentException.class, () -> Base45.decode("::"));
+    }
+}
@@ -0,0 +1,198 @@
+package com.rva.egopass.payload;
+
+import com.rva.egopass.exceptions.InvalidPassPayloadException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PassPayloadCodecTest {
+
+    private static final String HMAC_KEY = "6B3F2A9C1D8E4F7051A6C3E9B2D4F8A17E5C0B9D3A6F2E8C4B1D7A9E3F5C2B80";
+    // Contenu version 1 (HMAC) de payload(), émis avant le passage à Ed25519
+    private static final String VERSION_1_CONTENT =
+            "EGP:W50U5DRT02/98 1V094W5+A8RG8EM81S8TW8LN9VW6QV6%*8U499+9T:9AI9CECY34UJCPVDRJ3H30R6B5B9";
+
+    private final PassSigningKeys signingKeys = ephemeralKeys();
+    private final PassPayloadCodec codec = new PassPayloadCodec(signingKeys, true, HMAC_KEY, false);
+
+    @Test
+    void decode_shouldReturnEncodedPayload() {
+        PassPayload payload = payload();
+
+        PassPayload decoded = codec.decode(codec.encode(payload));
+
+        assertEquals(payload, decoded);
+    }
+
+    @Test
+    void decode_shouldAcceptPayloadWithoutDepartureDate() {
+        PassPayload payload = payload().toBuilder().departureDate(null).build();
+
+        assertEquals(payload, codec.decode(codec.encode(payload)));
+    }
+
+    @Test
+    void encode_shouldStayInQrCodeAlphanumericMode() {
+        String content = codec.encode(payload());
+
+        assertTrue(content.startsWith(PassPayloadCodec.PREFIX));
+        for (char c : content.toCharArray()) {
+            assertNotEquals(-1, alphanumericCode(c), "Caractère hors mode alphanumérique : " + c);
+        }
+        // L'ancien contenu JSON faisait environ 230 caractères, encodés en mode octet ; la signature Ed25519 en prend 96
+        assertTrue(content.length() < 200, "Contenu trop long : " + content.length());
+    }
+
+    @Test
+    void encode_shouldTruncatePassengerName() {
+        PassPayload payload = payload().toBuilder().passengerName("Jean-Christophe Mbala Kabongo").build();
+
+        PassPayload decoded = codec.decode(codec.encode(payload));
+
+        assertEquals("Jean-Christophe Mbal", decoded.getPassengerName());
+    }
+
+    @Test
+    void decode_shouldRejectTamperedContent() {
+        String content = codec.encode(payload());
+        byte[] data = Base45.decode(content.substring(PassPayloadCodec.PREFIX.length()));
+        // "KQ555" devient "KQ556", signature inchangée
+        int index = new String(data, StandardCharsets.ISO_8859_1).indexOf("KQ555") + 4;
+        data[index] = '6';
+        String tampered = PassPayloadCodec.PREFIX + Base45.encode(data);
+
+        assertThrows(InvalidPassPayloadException.class, () -> codec.decode(tampered));
+    }
+
+    @Test
+    void decode_shouldRejectContentSignedWithUnknownKey() {
+        String content = new PassPayloadCodec(ephemeralKeys(), true, HMAC_KEY, false).encode(payload());
+
+        assertThrows(InvalidPassPayloadException.class, () -> codec.decode(content));
+    }
+
+    @Test
+    void decode_shouldRejectContentSignedWithAnotherKeyUnderSameId() throws Exception {
+        KeyPair keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        KeyPair otherPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        PassPayloadCodec signing = new PassPayloadCodec(configuredKeys("k1", keyPair, List.of()), true, HMAC_KEY, false);
+        PassPayloadCodec verifying =
+                new PassPayloadCodec(configuredKeys("k1", otherPair, List.of()), true, HMAC_KEY, false);
+
+        String content = signing.encode(payload());
+
+        assertThrows(InvalidPassPayloadException.class, () -> verifying.decode(content));
+    }
+
+    @Test
+    void decode_shouldAcceptContentSignedWithRetiredKey() throws Exception {
+        KeyPair retiredPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        KeyPair activePair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        String content = new PassPayloadCodec(configuredKeys("2025-01", retiredPair, List.of()), true, HMAC_KEY, false)
+                .encode(payload());
+
+        PassSigningKeys rotated = configuredKeys("2025-07", activePair,
+                List.of("2025-01:" + Base64.getEncoder().encodeToString(retiredPair.getPublic().getEncoded())));
+
+        assertEquals(payload(), new PassPayloadCodec(rotated, true, HMAC_KEY, false).decode(content));
+        assertEquals("2025-07", rotated.getActiveKeyId());
+    }
+
+    @Test
+    void verifier_shouldAuthenticateWithPublicKeysOnly() {
+        String content = codec.encode(payload());
+
+        PassPayloadVerifier verifier = new PassPayloadVerifier(signingKeys.getPublicKeys());
+
+        assertEquals(payload(), verifier.verify(content));
+        // Un contenu version 1 exige le secret du serveur
+        assertThrows(InvalidPassPayloadException.class, () -> verifier.verify(VERSION_1_CONTENT));
+    }
+
+    @Test
+    void decode_shouldAcceptVersion1Content() {
+        assertEquals(payload(), codec.decode(VERSION_1_CONTENT));
+    }
+
+    @Test
+    void decode_shouldRejectVersion1Content_unlessExplicitlyAccepted() {
+        PassPayloadCodec defaultCodec = new PassPayloadCodec(signingKeys, false, HMAC_KEY, false);
+
+        assertThrows(InvalidPassPayloadException.class, () -> defaultCodec.decode(VERSION_1_CONTENT));
+        // Sans la version 1, la clé HMAC n'est pas requise
+        assertDoesNotThrow(() -> new PassPayloadCodec(signingKeys, false, "", false));
+    }
+
+    @Test
+    void decode_shouldRejectVersion1ContentWithAnotherHmacKey() {
+        PassPayloadCodec otherCodec = new PassPayloadCodec(signingKeys, true,
+                "00112233445566778899AABBCCDDEEFF00112233445566778899AABBCCDDEEFF", false);
+
+        assertThrows(InvalidPassPayloadException.class, () -> otherCodec.decode(VERSION_1_CONTENT));
+    }
+
+    @Test
+    void decode_shouldRejectForeignOrMalformedContent() {
+        assertThrows(InvalidPassPayloadException.class, () -> codec.decode("{\"passNumber\":\"EGP-1A2B3C4D5E\"}"));
+        assertThrows(InvalidPassPayloadException.class, () -> codec.decode(PassPayloadCodec.PREFIX + "A"));
+        assertThrows(InvalidPassPayloadException.class, () -> codec.decode(PassPayloadCodec.PREFIX));
+        // Version inconnue
+        assertThrows(InvalidPassPayloadException.class,
+                () -> codec.decode(PassPayloadCodec.PREFIX + Base45.encode(new byte[]{9, 0, 0, 0, 0, 0, 0, 0, 0, 0})));
+    }
+
+    @Test
+    void constructor_shouldRejectShortKey() {
+        assertThrows(IllegalStateException.class, () -> new PassPayloadCodec(signingKeys, true, "00112233", false));
+        assertThrows(IllegalStateException.class, () -> new PassSigningKeys("k1", "bm90IGEga2V5", "", List.of(), false));
+    }
+
+    @Test
+    void constructor_shouldRequireHmacKeyOutsideTestProfile() {
+        assertThrows(IllegalStateException.class, () -> new PassPayloadCodec(signingKeys, true, "", false));
+
+        PassPayloadCodec withoutHmacKey = new PassPayloadCodec(signingKeys, true, "", true);
+        assertThrows(InvalidPassPayloadException.class, () -> withoutHmacKey.decode(VERSION_1_CONTENT));
+        assertEquals(payload(), withoutHmacKey.decode(withoutHmacKey.encode(payload())));
+    }
+
+    @Test
+    void signingKeys_shouldRequireConfiguredKeyOutsideDevAndTestProfiles() {
+        assertThrows(IllegalStateException.class, () -> new PassSigningKeys("", "", "", List.of(), false));
+    }
+
+    private static PassSigningKeys ephemeralKeys() {
+        return new PassSigningKeys("", "", "", List.of(), true);
+    }
+
+    private static PassSigningKeys configuredKeys(String keyId, KeyPair keyPair, List<String> retired) {
+        return new PassSigningKeys(keyId,
+                Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()),
+                Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()),
+                retired, false);
+    }
+
+    private static PassPayload payload() {
+        return PassPayload.builder()
+                .passNumber("EGP-1A2B3C4D5E")
+                .flightNumber("KQ555")
+                .origin("FIH")
+                .destination("NBO")
+                .departureDate(LocalDate.of(2025, 3, 15))
+                .passengerName("Jean Mbala")
+                .issueDate(LocalDateTime.of(2025, 3, 14, 10, 30, 12))
+                .build();
+    }
+
+    private static int alphanumericCode(char c) {
+        return "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:".indexOf(c);
+    }
+}
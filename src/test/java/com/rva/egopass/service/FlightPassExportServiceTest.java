@@ -0,0 +1,117 @@
+package com.rva.egopass.service;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.rva.egopass.enums.PassExportFormat;
+import com.rva.egopass.enums.RenderPriority;
+import com.rva.egopass.exceptions.EGoPassNotFoundException;
+import com.rva.egopass.model.BlobReference;
+import com.rva.egopass.model.EGoPass;
+import com.rva.egopass.model.FlightInfo;
+import com.rva.egopass.model.PassengerInfo;
+import com.rva.egopass.repository.EGoPassRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FlightPassExportServiceTest {
+
+    private static final EGoPassPdfTemplate TEMPLATE = new EGoPassPdfTemplate();
+
+    @Mock
+    private EGoPassRepository eGoPassRepository;
+
+    @Mock
+    private PDFGeneratorService pdfGeneratorService;
+
+    @Mock
+    private BlobStore blobStore;
+
+    private FlightPassExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new FlightPassExportService(eGoPassRepository, pdfGeneratorService, blobStore, 2);
+    }
+
+    @Test
+    void findFlightPasses_shouldThrowException_whenNoPassForFlight() {
+        LocalDate date = LocalDate.of(2025, 3, 14);
+        when(eGoPassRepository.findByFlight("KQ555", date, date.atStartOfDay(), date.plusDays(1).atStartOfDay()))
+                .thenReturn(List.of());
+
+        assertThrows(EGoPassNotFoundException.class, () -> exportService.findFlightPasses("KQ555", date));
+    }
+
+    @Test
+    void export_zip_shouldWriteEntriesInPassOrder() throws Exception {
+        List<EGoPass> passes = List.of(pass(1L, "EGP-A"), pass(2L, "EGP-B"), pass(3L, "EGP-C"));
+        byte[][] contents = {{1}, {2, 2, 2}, {3, 3}};
+        for (int i = 0; i < passes.size(); i++) {
+            BlobReference reference = BlobReference.builder().blobKey("sha256/" + i).build();
+            when(pdfGeneratorService.renderAndStore(passes.get(i), RenderPriority.BACKGROUND))
+                    .thenReturn(CompletableFuture.completedFuture(reference));
+            when(blobStore.open(reference)).thenReturn(DocumentContent.of(contents[i], null));
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.export(passes, PassExportFormat.ZIP, output);
+
+        List<String> names = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                sizes.add(zip.readAllBytes().length);
+            }
+        }
+        assertEquals(List.of("EGP-A.pdf", "EGP-B.pdf", "EGP-C.pdf"), names);
+        assertEquals(List.of(1, 3, 2), sizes);
+    }
+
+    @Test
+    void export_pdf_shouldMergeAllPasses() throws Exception {
+        List<EGoPass> passes = List.of(pass(1L, "EGP-A"), pass(2L, "EGP-B"));
+        for (EGoPass eGoPass : passes) {
+            BlobReference reference = BlobReference.builder().blobKey("sha256/" + eGoPass.getId()).build();
+            when(pdfGeneratorService.renderAndStore(eGoPass, RenderPriority.BACKGROUND))
+                    .thenReturn(CompletableFuture.completedFuture(reference));
+            when(blobStore.open(reference))
+                    .thenReturn(DocumentContent.of(TEMPLATE.stamp(eGoPass, null, null), null));
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.export(passes, PassExportFormat.PDF, output);
+
+        try (PdfDocument merged = new PdfDocument(new PdfReader(new ByteArrayInputStream(output.toByteArray())))) {
+            assertEquals(2, merged.getNumberOfPages());
+        }
+    }
+
+    private static EGoPass pass(Long id, String passNumber) {
+        return EGoPass.builder()
+                .id(id)
+                .passNumber(passNumber)
+                .issueDate(LocalDateTime.of(2025, 3, 14, 10, 30))
+                .passengerInfo(PassengerInfo.builder().firstName("Jean").lastName("Mbala").build())
+                .flightInfo(FlightInfo.builder().flightNumber("KQ555").build())
+                .build();
+    }
+}
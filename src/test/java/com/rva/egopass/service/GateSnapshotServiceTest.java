@@ -0,0 +1,77 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.dto.GateSnapshot;
+import com.rva.egopass.exceptions.InvalidRequestException;
+import com.rva.egopass.repository.PassValidationRepository;
+import com.rva.egopass.repository.PassValidationRepository.PassSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GateSnapshotServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 15);
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 15, 8, 0);
+
+    private PassValidationRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private GateSnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(PassValidationRepository.class);
+        when(repository.currentTimestamp()).thenReturn(NOW);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new GateSnapshotService(repository, meterRegistry, Duration.ofSeconds(30), 7);
+    }
+
+    @Test
+    void snapshot_shouldSplitSortedPassesAndVersionBeforeOverlap() {
+        when(repository.findSummaries("KQ555", DAY, DAY, null)).thenReturn(List.of(
+                pass("EGP-C", false), pass("EGP-A", true), pass("EGP-B", false)));
+
+        GateSnapshot snapshot = service.snapshot(" KQ555 ", DAY, null, null);
+
+        assertEquals(List.of("EGP-B", "EGP-C"), snapshot.getValid());
+        assertEquals(List.of("EGP-A"), snapshot.getUsed());
+        assertFalse(snapshot.isDelta());
+        assertEquals(DAY, snapshot.getTo());
+        assertEquals(NOW.minusSeconds(30), GateSnapshotService.fromVersion(snapshot.getVersion()));
+        assertEquals(1.0, meterRegistry.get("egopass.gate.snapshots").tag("type", "full").counter().count());
+    }
+
+    @Test
+    void snapshot_shouldReturnOnlyChangesSinceVersion() {
+        LocalDateTime previous = NOW.minusMinutes(5);
+        when(repository.findSummaries(null, DAY, DAY.plusDays(1), previous)).thenReturn(List.of(pass("EGP-A", true)));
+
+        GateSnapshot snapshot = service.snapshot(null, DAY, DAY.plusDays(1), GateSnapshotService.toVersion(previous));
+
+        assertTrue(snapshot.isDelta());
+        assertEquals(List.of("EGP-A"), snapshot.getUsed());
+        assertTrue(snapshot.getValid().isEmpty());
+        assertEquals(1.0, meterRegistry.get("egopass.gate.snapshots").tag("type", "delta").counter().count());
+    }
+
+    @Test
+    void snapshot_shouldRejectInvertedOrTooLongWindow() {
+        assertThrows(InvalidRequestException.class, () -> service.snapshot(null, DAY, DAY.minusDays(1), null));
+        assertThrows(InvalidRequestException.class, () -> service.snapshot(null, DAY, DAY.plusDays(7), null));
+
+        verify(repository, never()).findSummaries(any(), any(), any(), any());
+    }
+
+    private static PassSummary pass(String passNumber, boolean validated) {
+        return new PassSummary(passNumber, validated, null, null, "Jean", "MBALA", "Congolaise", "OB0000001",
+                "KQ555", "FIH", "NBO", DAY);
+    }
+}
@@ -0,0 +1,90 @@
+package com.rva.egopass.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GatewayCircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private GatewayCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        breaker = new GatewayCircuitBreaker(4, 0.5, Duration.ofSeconds(30), now::get);
+    }
+
+    @Test
+    void shouldOpenOnlyOnceWindowIsFullAndThresholdReached() {
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(GatewayCircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onSuccess();
+        breaker.onSuccess();
+
+        assertEquals(GatewayCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void shouldSlideWindowOverOldestOutcomes() {
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        // L'échec le plus ancien sort de la fenêtre
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertEquals(GatewayCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void shouldLetSingleTrialThroughAfterOpenDuration() {
+        open();
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess();
+
+        assertEquals(GatewayCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void shouldReopenWhenTrialFails() {
+        open();
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(GatewayCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void shouldReleaseTrialThatWasNotStarted() {
+        open();
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onNotPermitted();
+
+        assertTrue(breaker.tryAcquire());
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure();
+        }
+        assertEquals(GatewayCircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
@@ -0,0 +1,106 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.exceptions.InvalidReservationStateException;
+import com.rva.egopass.repository.IssuanceOutboxRepository;
+import com.rva.egopass.repository.IssuanceOutboxRepository.OutboxEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IssuanceOutboxWorkerTest {
+
+    private IssuanceOutboxRepository outboxRepository;
+    private EGoPassService eGoPassService;
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry meterRegistry;
+    private IssuanceOutboxWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(IssuanceOutboxRepository.class);
+        eGoPassService = mock(EGoPassService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        meterRegistry = new SimpleMeterRegistry();
+        worker = new IssuanceOutboxWorker(outboxRepository, eGoPassService, transactionManager, meterRegistry,
+                2, Duration.ofMinutes(2), 3, Duration.ofSeconds(5), Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    @Test
+    void drain_shouldIssuePassesAndAcknowledgeInSameTransaction() {
+        when(outboxRepository.claimDue(eq(2), any()))
+                .thenReturn(List.of(new OutboxEntry(10L, 1L, 1), new OutboxEntry(11L, 2L, 1)))
+                .thenReturn(List.of(new OutboxEntry(12L, 3L, 1)));
+
+        worker.drain();
+
+        verify(eGoPassService).generateEGoPassFromReservation(1L);
+        verify(eGoPassService).generateEGoPassFromReservation(2L);
+        verify(eGoPassService).generateEGoPassFromReservation(3L);
+        verify(outboxRepository).markDone(10L);
+        verify(outboxRepository).markDone(12L);
+        // Un lot incomplet signifie que la file est vide
+        verify(outboxRepository, times(2)).claimDue(eq(2), any());
+        verify(transactionManager, times(3)).commit(any());
+        assertEquals(3.0, meterRegistry.get("egopass.issuance.outbox.processed").tag("result", "issued").counter().count());
+    }
+
+    @Test
+    void drain_shouldScheduleRetryWithBackoff_whenIssuanceFails() {
+        when(outboxRepository.claimDue(eq(2), any())).thenReturn(List.of(new OutboxEntry(10L, 1L, 2)));
+        doThrow(new IllegalStateException("base indisponible")).when(eGoPassService).generateEGoPassFromReservation(1L);
+
+        worker.drain();
+
+        verify(transactionManager).rollback(any());
+        verify(outboxRepository, never()).markDone(anyLong());
+        verify(outboxRepository).scheduleRetry(10L, "base indisponible", Duration.ofSeconds(10));
+    }
+
+    @Test
+    void drain_shouldGiveUp_whenAttemptsExhausted() {
+        when(outboxRepository.claimDue(eq(2), any())).thenReturn(List.of(new OutboxEntry(10L, 1L, 3)));
+        doThrow(new IllegalStateException("base indisponible")).when(eGoPassService).generateEGoPassFromReservation(1L);
+
+        worker.drain();
+
+        verify(outboxRepository).markFailed(10L, "base indisponible");
+        verify(outboxRepository, never()).scheduleRetry(anyLong(), any(), any());
+    }
+
+    @Test
+    void drain_shouldGiveUpImmediately_whenReservationNoLongerPending() {
+        when(outboxRepository.claimDue(eq(2), any())).thenReturn(List.of(new OutboxEntry(10L, 1L, 1)));
+        doThrow(new InvalidReservationStateException("1")).when(eGoPassService).generateEGoPassFromReservation(1L);
+
+        worker.drain();
+
+        verify(outboxRepository).markFailed(eq(10L), any());
+        verify(outboxRepository, never()).scheduleRetry(anyLong(), any(), any());
+        // Le paiement a été encaissé : l'abandon doit être signalé pour compensation
+        assertEquals(1.0, meterRegistry.get("egopass.issuance.compensation").counter().count());
+    }
+
+    @Test
+    void backoff_shouldDoubleUpToMaximum() {
+        assertEquals(Duration.ofSeconds(5), worker.backoff(1));
+        assertEquals(Duration.ofSeconds(20), worker.backoff(3));
+        assertEquals(Duration.ofSeconds(30), worker.backoff(4));
+        assertEquals(Duration.ofSeconds(30), worker.backoff(60));
+    }
+}
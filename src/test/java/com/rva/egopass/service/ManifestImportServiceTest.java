@@ -0,0 +1,96 @@
+package com.rva.egopass.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rva.egopass.dto.ManifestImportReport;
+import com.rva.egopass.enums.ManifestFormat;
+import com.rva.egopass.mapper.EGoPassMapper;
+import com.rva.egopass.model.Reservation;
+import com.rva.egopass.model.User;
+import com.rva.egopass.repository.ReservationBatchRepository;
+import com.rva.egopass.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ManifestImportServiceTest {
+
+    private static final String HEADER = "flightType,flightNumber,origin,destination,flightCompany,departureDate,"
+            + "firstName,lastName,nationality,passportNumber,passportIssueDate,email,phone\n";
+
+    private ReservationBatchRepository reservationBatchRepository;
+    private ManifestImportService manifestImportService;
+
+    @Captor
+    private ArgumentCaptor<List<Reservation>> batch;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        User user = new User();
+        user.setId(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        reservationBatchRepository = mock(ReservationBatchRepository.class);
+        manifestImportService = new ManifestImportService(userRepository, reservationBatchRepository,
+                EGoPassMapper.INSTANCE, new ReservationExpiryPolicy(Duration.ofHours(1)), new ObjectMapper(), 2, 1);
+    }
+
+    @Test
+    void importManifest_shouldInsertValidRowsInBatchesAndReportInvalidOnes() throws Exception {
+        String csv = HEADER
+                + row("OB0000001", "jean@example.com")
+                + row("OB0000002", "pas-un-email")
+                + row("OB0000003", "marie@example.com")
+                + row("OB0000004", "paul@example.com")
+                + row("", "luc@example.com");
+        List<Integer> batchSizes = new ArrayList<>();
+        doAnswer(invocation -> batchSizes.add(invocation.<List<Reservation>>getArgument(2).size()))
+                .when(reservationBatchRepository).insertAll(isNull(), eq(1L), anyList());
+
+        ManifestImportReport report = manifestImportService.importManifest(1L, ManifestFormat.CSV,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(5, report.getTotalRows());
+        assertEquals(3, report.getImportedRows());
+        assertEquals(2, report.getRejectedRows());
+        assertEquals(List.of(2, 1), batchSizes);
+        // Erreurs plafonnées à une : la seconde n'est que comptée
+        assertEquals(1, report.getErrors().size());
+        assertEquals(3, report.getErrors().get(0).getLine());
+        assertEquals("email", report.getErrors().get(0).getField());
+        assertTrue(report.isErrorsTruncated());
+    }
+
+    @Test
+    void importManifest_shouldMapReservationsFromRows() throws Exception {
+        manifestImportService.importManifest(1L, ManifestFormat.CSV,
+                new ByteArrayInputStream((HEADER + row("OB0000001", "jean@example.com")).getBytes(StandardCharsets.UTF_8)));
+
+        verify(reservationBatchRepository).insertAll(isNull(), eq(1L), batch.capture());
+        Reservation reservation = batch.getValue().get(0);
+        assertEquals("OB0000001", reservation.getPassengerInfo().getPassportNumber());
+        assertEquals("KQ555", reservation.getFlightInfo().getFlightNumber());
+        // Valable jusqu'à la fin du jour du vol
+        assertEquals(LocalDateTime.of(2025, 3, 16, 0, 0), reservation.getExpiresAt());
+    }
+
+    private static String row(String passportNumber, String email) {
+        return "INTERNATIONAL,KQ555,FIH,NBO,Kenya Airways,2025-03-15,Jean,Mbala,Congolaise,"
+                + passportNumber + ",2020-01-01," + email + ",+243810000000\n";
+    }
+}
@@ -0,0 +1,92 @@
+package com.rva.egopass.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.rva.egopass.enums.ManifestFormat;
+import com.rva.egopass.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManifestReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Test
+    void next_shouldMapCsvColumnsByHeaderName() throws IOException {
+        ManifestReader reader = reader(ManifestFormat.CSV, """
+                \uFEFFLastName,firstName,unknown,passportNumber,passportIssueDate
+                Mbala,Jean,x,OB1234567,2020-01-01
+
+                "Kabila, Jr",Marie,,"OB""765",2019-05-02
+                """);
+
+        ManifestReader.Row first = reader.next();
+        assertEquals(2, first.line());
+        assertEquals("Mbala", first.request().getLastName());
+        assertEquals("Jean", first.request().getFirstName());
+        assertEquals(LocalDate.of(2020, 1, 1), first.request().getPassportIssueDate());
+
+        ManifestReader.Row second = reader.next();
+        assertEquals(4, second.line());
+        assertEquals("Kabila, Jr", second.request().getLastName());
+        assertEquals("OB\"765", second.request().getPassportNumber());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void next_shouldAcceptSemicolonSeparatedCsv() throws IOException {
+        ManifestReader reader = reader(ManifestFormat.CSV, "firstName;lastName\nJean;Mbala\n");
+
+        assertEquals("Mbala", reader.next().request().getLastName());
+    }
+
+    @Test
+    void next_shouldReportMalformedCsvRowsWithoutStopping() throws IOException {
+        ManifestReader reader = reader(ManifestFormat.CSV, """
+                firstName,passportIssueDate
+                Jean,01/02/2020
+                "Marie,2020-01-01
+                Paul,2020-01-01
+                """);
+
+        ManifestReader.Row badDate = reader.next();
+        assertNull(badDate.request());
+        assertEquals("passportIssueDate", badDate.error().field());
+        assertNotNull(reader.next().error());
+        assertEquals("Paul", reader.next().request().getFirstName());
+    }
+
+    @Test
+    void next_shouldRejectCsvWithoutHeader() {
+        assertThrows(InvalidRequestException.class, () -> reader(ManifestFormat.CSV, "\n\n").next());
+    }
+
+    @Test
+    void next_shouldParseJsonLines() throws IOException {
+        ManifestReader reader = reader(ManifestFormat.NDJSON, """
+                {"firstName":"Jean","departureDate":"2025-03-15","extra":true}
+                {"firstName":
+                """);
+
+        ManifestReader.Row first = reader.next();
+        assertEquals(1, first.line());
+        assertEquals("Jean", first.request().getFirstName());
+        assertEquals(LocalDate.of(2025, 3, 15), first.request().getDepartureDate());
+
+        ManifestReader.Row second = reader.next();
+        assertEquals(2, second.line());
+        assertNotNull(second.error());
+    }
+
+    private ManifestReader reader(ManifestFormat format, String content) {
+        return new ManifestReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format, objectMapper);
+    }
+}
@@ -0,0 +1,108 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.dto.OfflineScan;
+import com.rva.egopass.dto.OfflineScanBatch;
+import com.rva.egopass.dto.OfflineScanReport;
+import com.rva.egopass.dto.ScanRejectionDetail;
+import com.rva.egopass.enums.ScanRejection;
+import com.rva.egopass.exceptions.InvalidRequestException;
+import com.rva.egopass.repository.OfflineScanRepository;
+import com.rva.egopass.repository.OfflineScanRepository.Rejected;
+import com.rva.egopass.repository.OfflineScanRepository.Scan;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OfflineScanServiceTest {
+
+    private static final String FIRST = PassNumberFormat.format(42);
+    private static final String SECOND = PassNumberFormat.format(43);
+    private static final LocalDateTime SCANNED_AT = LocalDateTime.of(2025, 3, 15, 8, 42);
+
+    private OfflineScanRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private OfflineScanService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(OfflineScanRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new OfflineScanService(repository, meterRegistry, 3);
+    }
+
+    @Test
+    void upload_shouldApplyValidScansAndReportConflicts() {
+        when(repository.apply(anyList(), eq(7L))).thenReturn(List.of(
+                new Rejected(1, FIRST, ScanRejection.ALREADY_VALIDATED, SCANNED_AT, "A3")));
+
+        OfflineScanReport report = service.upload(batch(
+                scan(FIRST.toLowerCase(), " A3 ", SCANNED_AT),
+                scan(FIRST, "B1", SCANNED_AT.plusMinutes(1)),
+                scan(SECOND, "A3", SCANNED_AT)), 7L);
+
+        verify(repository).apply(List.of(
+                new Scan(0, FIRST, "A3", SCANNED_AT),
+                new Scan(1, FIRST, "B1", SCANNED_AT.plusMinutes(1)),
+                new Scan(2, SECOND, "A3", SCANNED_AT)), 7L);
+        assertEquals(3, report.getReceived());
+        assertEquals(2, report.getApplied());
+        assertEquals(1, report.getConflicts());
+        assertEquals(0, report.getRejected());
+        ScanRejectionDetail conflict = report.getRejections().get(0);
+        assertEquals(1, conflict.getIndex());
+        assertEquals("A3", conflict.getValidationGate());
+        assertEquals(2.0, meterRegistry.get("egopass.gate.offline.scans").tag("result", "applied").counter().count());
+        assertEquals(1.0, meterRegistry.get("egopass.gate.offline.scans").tag("result", "conflict").counter().count());
+    }
+
+    @Test
+    void upload_shouldRejectMalformedScansWithoutSendingThem() {
+        when(repository.apply(anyList(), eq(7L))).thenReturn(List.of(
+                new Rejected(2, SECOND, ScanRejection.UNKNOWN_PASS, null, null)));
+
+        OfflineScanReport report = service.upload(batch(
+                scan("not-a-pass", "A3", SCANNED_AT),
+                scan(FIRST, "A3", null),
+                scan(SECOND, "A3", SCANNED_AT)), 7L);
+
+        verify(repository).apply(List.of(new Scan(2, SECOND, "A3", SCANNED_AT)), 7L);
+        assertEquals(0, report.getApplied());
+        assertEquals(3, report.getRejected());
+        assertEquals(List.of(ScanRejection.INVALID, ScanRejection.INVALID, ScanRejection.UNKNOWN_PASS),
+                report.getRejections().stream().map(ScanRejectionDetail::getReason).toList());
+        assertEquals(2.0, meterRegistry.get("egopass.gate.offline.scans").tag("result", "invalid").counter().count());
+    }
+
+    @Test
+    void upload_shouldNotQueryDatabaseWhenEveryScanIsInvalid() {
+        OfflineScanReport report = service.upload(batch(scan(FIRST, " ", SCANNED_AT)), 7L);
+
+        assertEquals(1, report.getRejected());
+        verify(repository, never()).apply(any(), any());
+    }
+
+    @Test
+    void upload_shouldRejectEmptyOrOversizedBatch() {
+        assertThrows(InvalidRequestException.class, () -> service.upload(batch(), 7L));
+        assertThrows(InvalidRequestException.class, () -> service.upload(
+                new OfflineScanBatch(Collections.nCopies(4, scan(FIRST, "A3", SCANNED_AT))), 7L));
+
+        verify(repository, never()).apply(any(), any());
+    }
+
+    private static OfflineScanBatch batch(OfflineScan... scans) {
+        return new OfflineScanBatch(List.of(scans));
+    }
+
+    private static OfflineScan scan(String passNumber, String gate, LocalDateTime scannedAt) {
+        return OfflineScan.builder().passNumber(passNumber).gate(gate).scannedAt(scannedAt).build();
+    }
+}
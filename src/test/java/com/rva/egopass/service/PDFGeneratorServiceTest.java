@@ -0,0 +1,148 @@
+package com.rva.egopass.service;
+
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.rva.egopass.enums.PdfRenderingMode;
+import com.rva.egopass.model.EGoPass;
+import com.rva.egopass.model.FlightInfo;
+import com.rva.egopass.model.PassengerInfo;
+import com.rva.egopass.repository.EGoPassRepository;
+import com.rva.egopass.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class PDFGeneratorServiceTest {
+
+    private static final EGoPassPdfTemplate TEMPLATE = new EGoPassPdfTemplate();
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private EGoPassRepository eGoPassRepository;
+
+    @Mock
+    private BlobStore blobStore;
+
+    @Mock
+    private PdfRenderCoordinator renderCoordinator;
+
+    private PDFGeneratorService pdfGeneratorService;
+    private EGoPass eGoPass;
+
+    @BeforeEach
+    void setUp() {
+        pdfGeneratorService = new PDFGeneratorService(userRepository, eGoPassRepository, TEMPLATE, blobStore,
+                new QRCodeService(), renderCoordinator);
+
+        eGoPass = EGoPass.builder()
+                .id(1L)
+                .passNumber("EGP-1234567890")
+                .issueDate(LocalDateTime.of(2025, 3, 14, 10, 30))
+                .passengerInfo(PassengerInfo.builder()
+                        .firstName("Jean")
+                        .lastName("Mbala")
+                        .nationality("Congolaise")
+                        .passportNumber("OB1234567")
+                        .passportIssueDate(LocalDate.of(2020, 1, 1))
+                        .build())
+                .flightInfo(FlightInfo.builder()
+                        .flightType("INTERNATIONAL")
+                        .flightNumber("KQ555")
+                        .flightCompany("Kenya Airways")
+                        .origin("FIH")
+                        .destination("NBO")
+                        .build())
+                .build();
+    }
+
+    @Test
+    void generateEGoPassPDF_templateMode_shouldStampPassValues() throws Exception {
+        ReflectionTestUtils.setField(pdfGeneratorService, "renderingMode", PdfRenderingMode.TEMPLATE);
+
+        String text = extractText(pdfGeneratorService.generateEGoPassPDF(eGoPass));
+
+        assertTrue(text.contains("E-GOPASS"));
+        assertTrue(text.contains("Informations du Voyageur"));
+        assertTrue(text.contains("EGP-1234567890"));
+        assertTrue(text.contains("14/03/2025"));
+        assertTrue(text.contains("Mbala"));
+        assertTrue(text.contains("KQ555"));
+        assertTrue(text.contains("NBO"));
+    }
+
+    @Test
+    void generateEGoPassPDF_templateMode_shouldShrinkOverlongValues() throws Exception {
+        eGoPass.getPassengerInfo().setLastName("Nom".repeat(60));
+
+        String text = extractText(pdfGeneratorService.generateEGoPassPDF(eGoPass));
+
+        assertTrue(text.contains("EGP-1234567890"));
+    }
+
+    @Test
+    void generateEGoPassPDF_layoutMode_shouldRenderSameValues() throws Exception {
+        ReflectionTestUtils.setField(pdfGeneratorService, "renderingMode", PdfRenderingMode.LAYOUT);
+
+        String text = extractText(pdfGeneratorService.generateEGoPassPDF(eGoPass));
+
+        assertTrue(text.contains("EGP-1234567890"));
+        assertTrue(text.contains("Kenya Airways"));
+    }
+
+    @Test
+    void generateEGoPassPDF_shouldDrawQrCodeAsVectorsWithoutEmbeddedImage() throws Exception {
+        eGoPass.setQrCodePayload("{\"passNumber\":\"EGP-1234567890\"}");
+
+        for (PdfRenderingMode mode : PdfRenderingMode.values()) {
+            ReflectionTestUtils.setField(pdfGeneratorService, "renderingMode", mode);
+            byte[] pdf = pdfGeneratorService.generateEGoPassPDF(eGoPass);
+
+            try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+                List<PdfName> imageSubtypes = new ArrayList<>();
+                collectImages(document.getFirstPage().getResources().getPdfObject(), imageSubtypes);
+                assertTrue(imageSubtypes.isEmpty(), "Aucune image raster attendue en mode " + mode);
+            }
+        }
+    }
+
+    private void collectImages(PdfDictionary resources, List<PdfName> imageSubtypes) {
+        PdfDictionary xObjects = resources != null ? resources.getAsDictionary(PdfName.XObject) : null;
+        if (xObjects == null) {
+            return;
+        }
+        for (PdfName name : xObjects.keySet()) {
+            PdfStream xObject = xObjects.getAsStream(name);
+            if (PdfName.Image.equals(xObject.getAsName(PdfName.Subtype))) {
+                imageSubtypes.add(name);
+            } else {
+                collectImages(xObject.getAsDictionary(PdfName.Resources), imageSubtypes);
+            }
+        }
+    }
+
+    private String extractText(byte[] pdf) throws Exception {
+        assertNotNull(pdf);
+        try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            assertEquals(1, document.getNumberOfPages());
+            return PdfTextExtractor.getTextFromPage(document.getFirstPage());
+        }
+    }
+}
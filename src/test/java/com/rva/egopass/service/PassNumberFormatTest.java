@@ -0,0 +1,112 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PassNumberFormatTest {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    @Test
+    void format_shouldProduceCanonicalNumber() {
+        String number = PassNumberFormat.format(1);
+
+        assertTrue(number.matches("EGP-[0-9A-HJKMNP-TV-Z]{8}-[0-9A-HJKMNP-TV-Z]"), number);
+        assertEquals(number, PassNumberFormat.normalize(number));
+    }
+
+    @Test
+    void format_shouldNotRevealSequenceOrder() {
+        Set<String> numbers = new HashSet<>();
+        for (long value = 1; value <= 10_000; value++) {
+            numbers.add(PassNumberFormat.format(value));
+        }
+
+        assertEquals(10_000, numbers.size());
+        assertNotEquals(PassNumberFormat.format(1).substring(0, 8), PassNumberFormat.format(2).substring(0, 8));
+    }
+
+    @Test
+    void scramble_shouldBeBijectiveOnSmallRange() {
+        Set<Long> scrambled = new HashSet<>();
+        for (long value = 0; value < 100_000; value++) {
+            long x = PassNumberFormat.scramble(value);
+            assertTrue(x >= 0 && x <= PassNumberFormat.MAX_VALUE);
+            scrambled.add(x);
+        }
+        assertEquals(100_000, scrambled.size());
+    }
+
+    @Test
+    void normalize_shouldTolerateCaseSeparatorsAndAmbiguousCharacters() {
+        String number = PassNumberFormat.format(123_456);
+        String code = number.substring(4, 12) + number.charAt(13);
+        String typed = code.toLowerCase().replace('0', 'o').replace('1', 'l');
+
+        assertEquals(number, PassNumberFormat.normalize(" " + typed + " "));
+        assertEquals(number, PassNumberFormat.normalize("egp " + code.substring(0, 4) + " " + code.substring(4)));
+    }
+
+    @Test
+    void normalize_shouldRejectEverySingleCharacterTypo() {
+        String number = PassNumberFormat.format(987_654);
+        for (int position : new int[]{4, 5, 6, 7, 8, 9, 10, 11, 13}) {
+            for (char replacement : ALPHABET.toCharArray()) {
+                if (replacement == number.charAt(position)) {
+                    continue;
+                }
+                String typo = number.substring(0, position) + replacement + number.substring(position + 1);
+                assertThrows(InvalidRequestException.class, () -> PassNumberFormat.normalize(typo), typo);
+            }
+        }
+    }
+
+    @Test
+    void normalize_shouldRejectMalformedInput() {
+        assertThrows(InvalidRequestException.class, () -> PassNumberFormat.normalize(null));
+        assertThrows(InvalidRequestException.class, () -> PassNumberFormat.normalize("EGP-1234"));
+        assertThrows(InvalidRequestException.class, () -> PassNumberFormat.normalize("EGP-1234567U-0"));
+        assertThrows(InvalidRequestException.class, () -> PassNumberFormat.normalize("EGP-12345678-é"));
+    }
+
+    @Test
+    void normalizeForLookup_shouldKeepLegacyNumbersAndNormalizeOthers() {
+        // Ancien format : "EGP-" + UUID.randomUUID().toString().substring(0, 10).toUpperCase()
+        assertEquals("EGP-3F2504E0-4", PassNumberFormat.normalizeForLookup(" egp-3f2504e0-4 "));
+        String number = PassNumberFormat.format(42);
+        assertEquals(number, PassNumberFormat.normalizeForLookup(number.toLowerCase()));
+        assertThrows(InvalidRequestException.class, () -> PassNumberFormat.normalizeForLookup(null));
+    }
+
+    @Test
+    void normalizeForLookup_shouldKeepLegacyNumbersFailingTheCheckCharacter() {
+        String legacy = "EGP-" + UUID.fromString("3f2504e0-4f89-11d3-9a0c-0305e82c3301").toString().substring(0, 10).toUpperCase();
+
+        assertEquals("EGP-3F2504E0-4", legacy);
+        assertThrows(InvalidRequestException.class, () -> PassNumberFormat.normalize(legacy));
+        assertEquals(legacy, PassNumberFormat.normalizeForLookup(legacy));
+    }
+
+    @Test
+    void key_shouldBeDistinctForNewAndLegacyNumbers() {
+        assertNotEquals(PassNumberFormat.key(PassNumberFormat.format(42)), PassNumberFormat.key(PassNumberFormat.format(43)));
+        assertTrue(PassNumberFormat.key(PassNumberFormat.format(PassNumberFormat.MAX_VALUE)) >= 0);
+        assertNotEquals(PassNumberFormat.key("EGP-3F2504E0-4"), PassNumberFormat.key(PassNumberFormat.format(42)));
+        assertNotEquals(PassNumberFormat.key("EGP-3F2504E0-4"), PassNumberFormat.key("EGP-3F2504E0-5"));
+        assertTrue(PassNumberFormat.key("EGP-3F2504E0-4") >= 0);
+        assertEquals(-1, PassNumberFormat.key("EGP-1234"));
+        assertEquals(-1, PassNumberFormat.key(null));
+    }
+
+    @Test
+    void format_shouldRejectValuesOutsideNumberSpace() {
+        assertThrows(IllegalArgumentException.class, () -> PassNumberFormat.format(-1));
+        assertThrows(IllegalArgumentException.class, () -> PassNumberFormat.format(PassNumberFormat.MAX_VALUE + 1));
+    }
+}
@@ -0,0 +1,68 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.repository.PassNumberSequenceRepository;
+import com.rva.egopass.repository.PassNumberSequenceRepository.Block;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PassNumberGeneratorTest {
+
+    @Test
+    void nextValue_shouldHandOutBlockBeforeAllocatingNextOne() {
+        PassNumberSequenceRepository repository = mock(PassNumberSequenceRepository.class);
+        when(repository.allocateBlock(3)).thenReturn(new Block(1, 3), new Block(4, 3));
+        PassNumberGenerator generator = new PassNumberGenerator(repository, 3);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), IntStream.range(0, 4).mapToObj(i -> generator.nextValue()).toList());
+        verify(repository, times(2)).allocateBlock(3);
+    }
+
+    @Test
+    void nextValue_shouldFollowSequenceIncrement_whenDifferentFromConfiguredBlockSize() {
+        PassNumberSequenceRepository repository = mock(PassNumberSequenceRepository.class);
+        when(repository.allocateBlock(100)).thenReturn(new Block(501, 2), new Block(503, 2));
+        PassNumberGenerator generator = new PassNumberGenerator(repository, 100);
+
+        assertEquals(List.of(501L, 502L, 503L), IntStream.range(0, 3).mapToObj(i -> generator.nextValue()).toList());
+    }
+
+    @Test
+    void next_shouldNeverReturnDuplicates_underConcurrency() throws Exception {
+        AtomicLong sequence = new AtomicLong(1);
+        PassNumberSequenceRepository repository = mock(PassNumberSequenceRepository.class);
+        when(repository.allocateBlock(50)).thenAnswer(invocation -> new Block(sequence.getAndAdd(50), 50));
+        PassNumberGenerator generator = new PassNumberGenerator(repository, 50);
+
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = IntStream.range(0, 8)
+                    .mapToObj(t -> executor.submit(() -> {
+                        for (int i = 0; i < 1_000; i++) {
+                            assertTrue(numbers.add(generator.next()));
+                        }
+                    }))
+                    .<Future<?>>map(future -> future)
+                    .toList();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(8_000, numbers.size());
+        verify(repository, times(160)).allocateBlock(50);
+    }
+}
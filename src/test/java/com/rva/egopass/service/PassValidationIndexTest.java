@@ -0,0 +1,116 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.model.EGoPass;
+import com.rva.egopass.model.FlightInfo;
+import com.rva.egopass.model.PassengerInfo;
+import com.rva.egopass.repository.PassValidationRepository;
+import com.rva.egopass.repository.PassValidationRepository.PassSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PassValidationIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 15, 8, 0);
+    private static final LocalDate TODAY = NOW.toLocalDate();
+
+    private PassValidationRepository passValidationRepository;
+    private PassValidationIndex index;
+
+    @BeforeEach
+    void setUp() {
+        passValidationRepository = mock(PassValidationRepository.class);
+        when(passValidationRepository.currentTimestamp()).thenReturn(NOW);
+        index = new PassValidationIndex(passValidationRepository, new SimpleMeterRegistry(),
+                true, Duration.ofHours(24), Duration.ofMinutes(15), Duration.ofSeconds(30));
+    }
+
+    @Test
+    void refresh_shouldIndexPassesOfUpcomingFlights() {
+        List<PassSummary> passes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            passes.add(pass(PassNumberFormat.format(i), i % 3 == 0));
+        }
+        passes.add(pass("EGP-3F2504E0-4", true));
+        when(passValidationRepository.findSummaries(null, TODAY, TODAY.plusDays(1), null)).thenReturn(passes);
+
+        index.refresh();
+
+        assertEquals(1001, index.size());
+        assertTrue(index.find(PassNumberFormat.format(3)).validated());
+        assertFalse(index.find(PassNumberFormat.format(4)).validated());
+        assertTrue(index.find("EGP-3F2504E0-4").validated());
+        assertNull(index.find(PassNumberFormat.format(5000)));
+        assertNull(index.find("pas un numéro"));
+    }
+
+    @Test
+    void refresh_shouldApplyChangesSinceLastRefreshUntilNextRebuild() {
+        String number = PassNumberFormat.format(7);
+        when(passValidationRepository.findSummaries(null, TODAY, TODAY.plusDays(1), null)).thenReturn(List.of(pass(number, false)));
+        when(passValidationRepository.findSummaries(null, TODAY, TODAY.plusDays(1), NOW.minusSeconds(30)))
+                .thenReturn(List.of(pass(number, true)));
+
+        index.refresh();
+        index.refresh();
+
+        assertTrue(index.find(number).validated());
+        verify(passValidationRepository).findSummaries(null, TODAY, TODAY.plusDays(1), null);
+    }
+
+    @Test
+    void record_shouldNotReplaceValidationWithOlderRead() {
+        String number = PassNumberFormat.format(7);
+        index.refresh();
+
+        index.record(pass(number, true));
+        index.record(pass(number, false));
+
+        assertTrue(index.find(number).validated());
+    }
+
+    @Test
+    void indexIssued_shouldIgnoreFlightsOutsideWindow() {
+        index.refresh();
+
+        index.indexIssued(issued(PassNumberFormat.format(1), TODAY));
+        index.indexIssued(issued(PassNumberFormat.format(2), TODAY.plusDays(5)));
+
+        assertNotNull(index.find(PassNumberFormat.format(1)));
+        assertNull(index.find(PassNumberFormat.format(2)));
+    }
+
+    @Test
+    void disabledIndex_shouldNeverQueryDatabase() {
+        PassValidationIndex disabled = new PassValidationIndex(passValidationRepository,
+                new SimpleMeterRegistry(), false, Duration.ofHours(24), Duration.ofMinutes(15), Duration.ofSeconds(30));
+
+        disabled.scheduledRefresh();
+
+        verifyNoInteractions(passValidationRepository);
+        assertNull(disabled.find(PassNumberFormat.format(1)));
+    }
+
+    private static PassSummary pass(String number, boolean validated) {
+        return new PassSummary(number, validated, null, null, "Jean", "Mbala", "Congolaise", "OB0000001",
+                "KQ555", "FIH", "NBO", TODAY);
+    }
+
+    private static EGoPass issued(String number, LocalDate departureDate) {
+        EGoPass eGoPass = new EGoPass();
+        eGoPass.setPassNumber(number);
+        eGoPass.setPassengerInfo(PassengerInfo.builder().firstName("Jean").lastName("Mbala").build());
+        eGoPass.setFlightInfo(FlightInfo.builder().flightNumber("KQ555").departureDate(departureDate).build());
+        return eGoPass;
+    }
+}
@@ -0,0 +1,221 @@
+package com.rva.egopass.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rva.egopass.dto.PassValidationRequest;
+import com.rva.egopass.dto.PassValidationResponse;
+import com.rva.egopass.enums.PassRefusal;
+import com.rva.egopass.exceptions.EGoPassNotFoundException;
+import com.rva.egopass.exceptions.InvalidPassPayloadException;
+import com.rva.egopass.exceptions.InvalidRequestException;
+import com.rva.egopass.exceptions.PassAlreadyValidatedException;
+import com.rva.egopass.exceptions.PassRefusedException;
+import com.rva.egopass.payload.PassPayload;
+import com.rva.egopass.payload.PassPayloadCodec;
+import com.rva.egopass.payload.PassSigningKeys;
+import com.rva.egopass.repository.PassValidationRepository;
+import com.rva.egopass.repository.PassValidationRepository.PassSummary;
+import com.rva.egopass.repository.PassValidationRepository.ValidationState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PassValidationServiceTest {
+
+    private static final String HMAC_KEY = "6B3F2A9C1D8E4F7051A6C3E9B2D4F8A17E5C0B9D3A6F2E8C4B1D7A9E3F5C2B80";
+    private static final String PASS_NUMBER = PassNumberFormat.format(42);
+
+    private final PassPayloadCodec codec =
+            new PassPayloadCodec(new PassSigningKeys("", "", "", List.of(), true), true, HMAC_KEY, false);
+    private PassValidationRepository repository;
+    private PassValidationIndex index;
+    private SimpleMeterRegistry meterRegistry;
+    private PassValidationService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(PassValidationRepository.class);
+        index = mock(PassValidationIndex.class);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new PassValidationService(repository, codec, index, new ObjectMapper(), meterRegistry, 0);
+    }
+
+    @Test
+    void validate_shouldMarkPassFromQrContentAndReturnSummary() {
+        PassSummary summary = summary(false).validatedAt(LocalDateTime.of(2025, 3, 15, 9, 30), "A3");
+        when(repository.markValidated(PASS_NUMBER, "A3", 9L, 0)).thenReturn(Optional.of(summary));
+
+        PassValidationResponse response = service.validate(request(codec.encode(payload()), null, " A3 "), 9L);
+
+        assertEquals(PASS_NUMBER, response.getPassNumber());
+        assertEquals("MBALA", response.getLastName());
+        assertEquals("A3", response.getGate());
+        verify(repository, never()).findValidationState(any(), anyInt());
+        verify(index).record(summary);
+        assertEquals(1.0, meterRegistry.get("egopass.gate.scans").tag("result", "validated").counter().count());
+        assertEquals(1, meterRegistry.get("egopass.gate.scan").timer().count());
+        assertFalse(response.isLegacyPayload());
+    }
+
+    @Test
+    void validate_shouldLookUpLegacyJsonQrContentByPassNumberAndFlagIt() {
+        String legacyNumber = "EGP-3F2504E0-4";
+        String content = "{\"passNumber\":\"" + legacyNumber + "\",\"passengerName\":\"MBALA JEAN\","
+                + "\"flightNumber\":\"KQ555\",\"issueDate\":\"2024-11-02T10:15:30\"}";
+        when(repository.markValidated(legacyNumber, "A3", 9L, 0)).thenReturn(Optional.of(summary(false)));
+
+        PassValidationResponse response = service.validate(request(content, null, "A3"), 9L);
+
+        assertTrue(response.isLegacyPayload());
+        verify(repository).markValidated(legacyNumber, "A3", 9L, 0);
+        assertEquals(1.0, meterRegistry.get("egopass.gate.scans.legacy").counter().count());
+    }
+
+    @Test
+    void validate_shouldRejectLegacyJsonQrContentWithoutPassNumber() {
+        assertThrows(InvalidPassPayloadException.class,
+                () -> service.validate(request("{\"flightNumber\":\"KQ555\"}", null, "A3"), 9L));
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void validate_shouldAcceptTypedPassNumber() {
+        when(repository.markValidated(eq(PASS_NUMBER), eq("A3"), eq(9L), eq(0)))
+                .thenReturn(Optional.of(summary(true)));
+
+        service.validate(request(null, PASS_NUMBER.toLowerCase().replace("-", " "), "A3"), 9L);
+
+        verify(repository).markValidated(PASS_NUMBER, "A3", 9L, 0);
+    }
+
+    @Test
+    void validate_shouldReportPreviousValidation_whenPassAlreadyUsed() {
+        LocalDateTime validatedAt = LocalDateTime.of(2025, 3, 15, 9, 30);
+        when(repository.markValidated(any(), any(), any(), anyInt())).thenReturn(Optional.empty());
+        when(repository.findValidationState(PASS_NUMBER, 0))
+                .thenReturn(Optional.of(new ValidationState(true, validatedAt, "B1", null)));
+
+        PassAlreadyValidatedException e = assertThrows(PassAlreadyValidatedException.class,
+                () -> service.validate(request(null, PASS_NUMBER, "A3"), 9L));
+
+        assertEquals(validatedAt, e.getValidationDate());
+        assertEquals("B1", e.getValidationGate());
+        assertEquals(1.0, meterRegistry.get("egopass.gate.scans").tag("result", "already_validated").counter().count());
+    }
+
+    @Test
+    void validate_shouldRejectPassKnownAsUsedWithoutDatabaseAccess() {
+        when(index.find(PASS_NUMBER)).thenReturn(summary(false).validatedAt(LocalDateTime.of(2025, 3, 15, 9, 30), "B1"));
+
+        PassAlreadyValidatedException e = assertThrows(PassAlreadyValidatedException.class,
+                () -> service.validate(request(null, PASS_NUMBER, "A3"), 9L));
+
+        assertEquals("B1", e.getValidationGate());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void validate_shouldThrowNotFound_whenPassUnknown() {
+        when(repository.markValidated(any(), any(), any(), anyInt())).thenReturn(Optional.empty());
+        when(repository.findValidationState(PASS_NUMBER, 0)).thenReturn(Optional.empty());
+
+        assertThrows(EGoPassNotFoundException.class, () -> service.validate(request(null, PASS_NUMBER, "A3"), 9L));
+    }
+
+    @Test
+    void validate_shouldRefuseExpiredPass() {
+        when(repository.markValidated(any(), any(), any(), anyInt())).thenReturn(Optional.empty());
+        when(repository.findValidationState(PASS_NUMBER, 0))
+                .thenReturn(Optional.of(new ValidationState(false, null, null, PassRefusal.EXPIRED)));
+
+        PassRefusedException e = assertThrows(PassRefusedException.class,
+                () -> service.validate(request(null, PASS_NUMBER, "A3"), 9L));
+
+        assertEquals("EXPIRED", e.getErrorCode());
+        assertEquals(1.0, meterRegistry.get("egopass.gate.scans").tag("result", "expired").counter().count());
+    }
+
+    @Test
+    void validate_shouldRefusePassForFlightOnAnotherDay() {
+        when(repository.markValidated(any(), any(), any(), anyInt())).thenReturn(Optional.empty());
+        when(repository.findValidationState(PASS_NUMBER, 0))
+                .thenReturn(Optional.of(new ValidationState(false, null, null, PassRefusal.WRONG_DATE)));
+
+        PassRefusedException e = assertThrows(PassRefusedException.class,
+                () -> service.validate(request(null, PASS_NUMBER, "A3"), 9L));
+
+        assertEquals("WRONG_DATE", e.getErrorCode());
+        verify(index, never()).record(any());
+    }
+
+    @Test
+    void validate_shouldRefusePassOfCancelledReservation() {
+        when(repository.markValidated(any(), any(), any(), anyInt())).thenReturn(Optional.empty());
+        when(repository.findValidationState(PASS_NUMBER, 0))
+                .thenReturn(Optional.of(new ValidationState(false, null, null, PassRefusal.RESERVATION_INACTIVE)));
+
+        PassRefusedException e = assertThrows(PassRefusedException.class,
+                () -> service.validate(request(null, PASS_NUMBER, "A3"), 9L));
+
+        assertEquals(PassRefusal.RESERVATION_INACTIVE, e.getRefusal());
+    }
+
+    @Test
+    void validate_shouldReportAlreadyValidated_beforeRefusalOfUsedPass() {
+        LocalDateTime validatedAt = LocalDateTime.of(2025, 3, 14, 9, 30);
+        when(repository.markValidated(any(), any(), any(), anyInt())).thenReturn(Optional.empty());
+        when(repository.findValidationState(PASS_NUMBER, 0))
+                .thenReturn(Optional.of(new ValidationState(true, validatedAt, "B1", PassRefusal.WRONG_DATE)));
+
+        assertThrows(PassAlreadyValidatedException.class, () -> service.validate(request(null, PASS_NUMBER, "A3"), 9L));
+    }
+
+    @Test
+    void validate_shouldRejectTamperedQrContentWithoutDatabaseAccess() {
+        String content = codec.encode(payload());
+        String tampered = content.substring(0, content.length() - 1) + (content.endsWith("0") ? "1" : "0");
+
+        assertThrows(InvalidPassPayloadException.class, () -> service.validate(request(tampered, null, "A3"), 9L));
+
+        verifyNoInteractions(repository);
+        assertEquals(1.0, meterRegistry.get("egopass.gate.scans").tag("result", "invalid").counter().count());
+    }
+
+    @Test
+    void validate_shouldRequireGate() {
+        InvalidRequestException e = assertThrows(InvalidRequestException.class,
+                () -> service.validate(request(null, PASS_NUMBER, " "), 9L));
+
+        assertEquals("gate", e.getField());
+        verifyNoInteractions(repository);
+    }
+
+    private static PassSummary summary(boolean validated) {
+        return new PassSummary(PASS_NUMBER, validated, null, null, "Jean", "MBALA", "Congolaise", "OB0000001",
+                "KQ555", "FIH", "NBO", LocalDate.of(2025, 3, 15));
+    }
+
+    private static PassValidationRequest request(String qrContent, String passNumber, String gate) {
+        return PassValidationRequest.builder().qrContent(qrContent).passNumber(passNumber).gate(gate).build();
+    }
+
+    private static PassPayload payload() {
+        return PassPayload.builder()
+                .passNumber(PASS_NUMBER)
+                .flightNumber("KQ555")
+                .origin("FIH")
+                .destination("NBO")
+                .passengerName("MBALA JEAN")
+                .issueDate(LocalDateTime.of(2025, 3, 1, 12, 0))
+                .build();
+    }
+}
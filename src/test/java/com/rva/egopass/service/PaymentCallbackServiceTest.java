@@ -0,0 +1,208 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.dto.PaymentCallbackRequest;
+import com.rva.egopass.exceptions.PaymentException;
+import com.rva.egopass.repository.IssuanceOutboxRepository;
+import com.rva.egopass.repository.ProcessedCallbackRepository;
+import com.rva.egopass.repository.ReservationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+class PaymentCallbackServiceTest {
+
+    private PaymentService paymentService;
+    private IssuanceOutboxRepository outboxRepository;
+    private ProcessedCallbackRepository processedCallbackRepository;
+    private ReservationRepository reservationRepository;
+    private IssuanceOutboxWorker issuanceOutboxWorker;
+    private SimpleMeterRegistry meterRegistry;
+    private PlatformTransactionManager transactionManager;
+    private PaymentCallbackService paymentCallbackService;
+
+    private final PaymentCallbackRequest callback = PaymentCallbackRequest.builder()
+            .transactionReference("TXN123")
+            .reservationId(1L)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        paymentService = mock(PaymentService.class);
+        outboxRepository = mock(IssuanceOutboxRepository.class);
+        processedCallbackRepository = mock(ProcessedCallbackRepository.class);
+        reservationRepository = mock(ReservationRepository.class);
+        issuanceOutboxWorker = mock(IssuanceOutboxWorker.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        meterRegistry = new SimpleMeterRegistry();
+        paymentCallbackService = new PaymentCallbackService(paymentService, outboxRepository,
+                processedCallbackRepository, reservationRepository, issuanceOutboxWorker, transactionManager, meterRegistry, 100);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void handleCallback_shouldEnqueueIssuanceAndWakeWorkerAfterCommit() {
+        when(processedCallbackRepository.claim("TXN123", 1L)).thenReturn(true);
+        when(paymentService.checkPayment(callback)).thenReturn(true);
+        when(outboxRepository.enqueue(1L)).thenReturn(true);
+
+        assertTrue(paymentCallbackService.handleCallback(callback));
+
+        verify(paymentService).recordVerification(callback, true);
+        verify(processedCallbackRepository).complete("TXN123", true);
+        // Rien n'est émis pendant la transaction du callback
+        verify(issuanceOutboxWorker, never()).wakeUp();
+        commit();
+        verify(issuanceOutboxWorker).wakeUp();
+    }
+
+    @Test
+    void handleCallback_shouldVerifyWithProviderBeforeOpeningTransaction() {
+        when(processedCallbackRepository.claim("TXN123", 1L)).thenReturn(true);
+        when(paymentService.checkPayment(callback)).thenReturn(true);
+        when(outboxRepository.enqueue(1L)).thenReturn(true);
+
+        paymentCallbackService.handleCallback(callback);
+
+        InOrder inOrder = inOrder(paymentService, transactionManager, processedCallbackRepository);
+        inOrder.verify(paymentService).checkPayment(callback);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(processedCallbackRepository).claim("TXN123", 1L);
+        inOrder.verify(paymentService).recordVerification(callback, true);
+    }
+
+    @Test
+    void handleCallback_shouldEnqueueWholeGroup_whenGroupPaymentConfirmed() {
+        when(processedCallbackRepository.claim("TXN123", 1L)).thenReturn(true);
+        when(paymentService.checkPayment(callback)).thenReturn(true);
+        when(reservationRepository.findIdsByGroupPaymentReference("TXN123")).thenReturn(List.of(1L, 2L, 3L));
+        when(outboxRepository.enqueueAll(List.of(1L, 2L, 3L))).thenReturn(3);
+
+        assertTrue(paymentCallbackService.handleCallback(callback));
+
+        verify(outboxRepository, never()).enqueue(any());
+        commit();
+        verify(issuanceOutboxWorker, times(1)).wakeUp();
+    }
+
+    @Test
+    void handleCallback_shouldNotEnqueue_whenPaymentRejected() {
+        when(processedCallbackRepository.claim("TXN123", 1L)).thenReturn(true);
+        when(paymentService.checkPayment(callback)).thenReturn(false);
+
+        assertFalse(paymentCallbackService.handleCallback(callback));
+
+        verify(processedCallbackRepository).complete("TXN123", false);
+        verifyNoInteractions(outboxRepository);
+        commit();
+        verifyNoInteractions(issuanceOutboxWorker);
+    }
+
+    @Test
+    void handleCallback_shouldVerifyAgain_whenPendingPaymentIsConfirmedLater() {
+        PaymentCallbackRequest pending = PaymentCallbackRequest.builder()
+                .transactionReference("TXN123").reservationId(1L).status("PENDING").build();
+        PaymentCallbackRequest success = PaymentCallbackRequest.builder()
+                .transactionReference("TXN123").reservationId(1L).status("SUCCESS").build();
+        when(processedCallbackRepository.claim("TXN123", 1L)).thenReturn(true);
+        when(paymentService.checkPayment(pending)).thenReturn(false);
+        when(paymentService.checkPayment(success)).thenReturn(true);
+        when(outboxRepository.enqueue(1L)).thenReturn(true);
+
+        assertFalse(paymentCallbackService.handleCallback(pending));
+        commit();
+        assertTrue(paymentCallbackService.handleCallback(success));
+
+        verify(processedCallbackRepository, times(2)).claim("TXN123", 1L);
+        verify(processedCallbackRepository).complete("TXN123", true);
+        verify(outboxRepository).enqueue(1L);
+    }
+
+    @Test
+    void handleCallback_shouldAcknowledgeReplayFromMemory_afterCommit() {
+        when(processedCallbackRepository.claim("TXN123", 1L)).thenReturn(true);
+        when(paymentService.checkPayment(callback)).thenReturn(true);
+        when(outboxRepository.enqueue(1L)).thenReturn(true);
+        paymentCallbackService.handleCallback(callback);
+        commit();
+
+        assertTrue(paymentCallbackService.handleCallback(callback));
+
+        verify(paymentService, times(1)).checkPayment(callback);
+        verify(processedCallbackRepository, times(1)).claim(any(), any());
+        assertEquals(1.0, meterRegistry.get("egopass.payment.callback.requests")
+                .tag("result", "duplicate_memory").counter().count());
+    }
+
+    @Test
+    void handleCallback_shouldAcknowledgeReplayFromDatabase_whenAlreadyProcessed() {
+        when(processedCallbackRepository.findOutcome("TXN123")).thenReturn(Optional.of(true));
+
+        assertTrue(paymentCallbackService.handleCallback(callback));
+        assertTrue(paymentCallbackService.handleCallback(callback));
+
+        verifyNoInteractions(paymentService, outboxRepository);
+        verify(transactionManager, never()).getTransaction(any());
+        // Le second rejeu est servi par le cache
+        verify(processedCallbackRepository, times(1)).findOutcome("TXN123");
+        verify(processedCallbackRepository, never()).claim(any(), any());
+    }
+
+    @Test
+    void handleCallback_shouldKeepConcurrentConfirmation_whenClaimLost() {
+        when(processedCallbackRepository.findOutcome("TXN123")).thenReturn(Optional.empty(), Optional.of(true));
+        when(paymentService.checkPayment(callback)).thenReturn(true);
+        when(processedCallbackRepository.claim("TXN123", 1L)).thenReturn(false);
+
+        assertTrue(paymentCallbackService.handleCallback(callback));
+
+        verify(paymentService, never()).recordVerification(any(), anyBoolean());
+        verify(processedCallbackRepository, never()).complete(any(), anyBoolean());
+        verifyNoInteractions(outboxRepository);
+    }
+
+    @Test
+    void handleCallback_shouldNotCacheResult_whenTransactionRolledBack() {
+        when(processedCallbackRepository.claim("TXN123", 1L)).thenReturn(true);
+        when(paymentService.checkPayment(callback)).thenReturn(true);
+        when(outboxRepository.enqueue(1L)).thenReturn(true);
+
+        paymentCallbackService.handleCallback(callback);
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        paymentCallbackService.handleCallback(callback);
+
+        verify(paymentService, times(2)).checkPayment(callback);
+    }
+
+    @Test
+    void handleCallback_shouldReject_whenTransactionReferenceMissing() {
+        PaymentCallbackRequest withoutReference = PaymentCallbackRequest.builder().reservationId(1L).build();
+
+        assertThrows(PaymentException.class, () -> paymentCallbackService.handleCallback(withoutReference));
+        verifyNoInteractions(paymentService, processedCallbackRepository);
+    }
+
+    private void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+}
@@ -0,0 +1,207 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.dto.CardDetails;
+import com.rva.egopass.dto.PaymentCallbackRequest;
+import com.rva.egopass.dto.PaymentInitiationResponse;
+import com.rva.egopass.enums.PaymentMethod;
+import com.rva.egopass.exceptions.PaymentException;
+import com.rva.egopass.exceptions.PaymentGatewayUnavailableException;
+import com.rva.egopass.model.Payment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PaymentGatewayClientTest {
+
+    private static final PaymentInitiationResponse RESPONSE =
+            new PaymentInitiationResponse(1L, "TXN123", "https://payment.com", "instructions");
+
+    private PaymentGatewayService gateway;
+    private SimpleMeterRegistry meterRegistry;
+    private PaymentGatewayClient client;
+
+    @BeforeEach
+    void setUp() {
+        gateway = mock(PaymentGatewayService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        client = client(2, 1, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    void initiate_shouldCallProviderOfPaymentMethod() {
+        CardDetails card = new CardDetails();
+        when(gateway.initiateCreditCardPayment(any(Payment.class), eq(card))).thenReturn(RESPONSE);
+
+        assertSame(RESPONSE, client.initiate(payment(PaymentMethod.CREDIT_CARD), card).join());
+        assertEquals(1, meterRegistry.get("egopass.payment.gateway.calls")
+                .tag("provider", "credit_card").tag("result", "success").timer().count());
+        verify(gateway, never()).initiateMobileMoneyPayment(any());
+    }
+
+    @Test
+    void verify_shouldRetryTechnicalFailure() {
+        PaymentCallbackRequest callback = PaymentCallbackRequest.builder().transactionReference("TXN123").build();
+        when(gateway.verifyPayment(callback))
+                .thenThrow(new IllegalStateException("connexion refusée"))
+                .thenReturn(true);
+
+        assertTrue(client.verify(PaymentMethod.MOBILE_MONEY, callback).join());
+        verify(gateway, times(2)).verifyPayment(callback);
+        assertEquals(1.0, meterRegistry.get("egopass.payment.gateway.retries").tag("provider", "mobile_money").counter().count());
+    }
+
+    @Test
+    void initiate_shouldNotRetryTechnicalFailure() {
+        when(gateway.initiateMobileMoneyPayment(any(Payment.class)))
+                .thenThrow(new IllegalStateException("connexion interrompue"))
+                .thenReturn(RESPONSE);
+
+        assertCause(IllegalStateException.class, client.initiate(payment(PaymentMethod.MOBILE_MONEY), null));
+        verify(gateway, times(1)).initiateMobileMoneyPayment(any(Payment.class));
+        assertEquals(0.0, meterRegistry.get("egopass.payment.gateway.retries").tag("provider", "mobile_money").counter().count());
+    }
+
+    @Test
+    void initiate_shouldNotRetryRefusalOrTimeout() {
+        when(gateway.initiatePayPalPayment(any(Payment.class))).thenThrow(new PaymentException("Paiement refusé"));
+        when(gateway.initiateMobileMoneyPayment(any(Payment.class))).thenAnswer(invocation -> {
+            Thread.sleep(2_000);
+            return RESPONSE;
+        });
+
+        assertCause(PaymentException.class, client.initiate(payment(PaymentMethod.PAYPAL), null));
+        assertCause(PaymentGatewayUnavailableException.class, client.initiate(payment(PaymentMethod.MOBILE_MONEY), null));
+
+        verify(gateway, times(1)).initiatePayPalPayment(any(Payment.class));
+        verify(gateway, times(1)).initiateMobileMoneyPayment(any(Payment.class));
+        assertEquals(GatewayCircuitBreaker.State.CLOSED, client.getCircuitState(PaymentMethod.PAYPAL));
+    }
+
+    @Test
+    void initiate_shouldRejectImmediatelyWhenProviderIsSaturatedWithoutAffectingOthers() throws Exception {
+        client.shutdown();
+        client = client(1, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(gateway.initiateMobileMoneyPayment(any(Payment.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return RESPONSE;
+        });
+        when(gateway.initiateCreditCardPayment(any(Payment.class), any())).thenReturn(RESPONSE);
+
+        CompletableFuture<PaymentInitiationResponse> running = client.initiate(payment(PaymentMethod.MOBILE_MONEY), null);
+        CompletableFuture<PaymentInitiationResponse> queued = client.initiate(payment(PaymentMethod.MOBILE_MONEY), null);
+        assertCause(PaymentGatewayUnavailableException.class, client.initiate(payment(PaymentMethod.MOBILE_MONEY), null));
+        assertSame(RESPONSE, client.initiate(payment(PaymentMethod.CREDIT_CARD), null).get(1, TimeUnit.SECONDS));
+
+        release.countDown();
+        assertSame(RESPONSE, running.get(5, TimeUnit.SECONDS));
+        assertSame(RESPONSE, queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("egopass.payment.gateway.rejected")
+                .tag("provider", "mobile_money").tag("reason", "bulkhead_full").counter().count());
+    }
+
+    @Test
+    void initiate_shouldStartTimeoutWhenCallRuns_notWhenQueued() throws Exception {
+        client.shutdown();
+        client = client(1, 1, 2);
+        when(gateway.initiateMobileMoneyPayment(any(Payment.class))).thenAnswer(invocation -> {
+            Thread.sleep(120);
+            return RESPONSE;
+        });
+
+        CompletableFuture<PaymentInitiationResponse> first = client.initiate(payment(PaymentMethod.MOBILE_MONEY), null);
+        CompletableFuture<PaymentInitiationResponse> queued = client.initiate(payment(PaymentMethod.MOBILE_MONEY), null);
+
+        // Le second appel se termine plus de 200 ms après sa soumission, mais 120 ms après son début
+        assertSame(RESPONSE, first.get(5, TimeUnit.SECONDS));
+        assertSame(RESPONSE, queued.get(5, TimeUnit.SECONDS));
+        assertEquals(0, meterRegistry.get("egopass.payment.gateway.calls")
+                .tag("provider", "mobile_money").tag("result", "timeout").timer().count());
+    }
+
+    @Test
+    void initiate_shouldReportCallCancelledInQueueAsSaturation_notAsProviderTimeout() throws Exception {
+        client.shutdown();
+        client = client(1, 1, 20);
+        CountDownLatch release = new CountDownLatch(1);
+        when(gateway.initiateMobileMoneyPayment(any(Payment.class))).thenAnswer(invocation -> {
+            // Un prestataire qui ignore l'interruption garde sa place dans la cloison
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                    // l'appel continue
+                }
+            }
+            return RESPONSE;
+        });
+
+        CompletableFuture<PaymentInitiationResponse> blocked = client.initiate(payment(PaymentMethod.MOBILE_MONEY), null);
+        CompletableFuture<PaymentInitiationResponse> queued = client.initiate(payment(PaymentMethod.MOBILE_MONEY), null);
+
+        assertCause(PaymentGatewayUnavailableException.class, blocked);
+        assertCause(PaymentGatewayUnavailableException.class, queued);
+        release.countDown();
+
+        verify(gateway, times(1)).initiateMobileMoneyPayment(any(Payment.class));
+        assertEquals(1, meterRegistry.get("egopass.payment.gateway.calls")
+                .tag("provider", "mobile_money").tag("result", "timeout").timer().count());
+        assertEquals(1.0, meterRegistry.get("egopass.payment.gateway.rejected")
+                .tag("provider", "mobile_money").tag("reason", "bulkhead_full").counter().count());
+    }
+
+    @Test
+    void initiate_shouldShortCircuitProviderOnceFailureRateIsReached() {
+        when(gateway.initiatePayPalPayment(any(Payment.class))).thenThrow(new IllegalStateException("erreur 502"));
+
+        assertCause(IllegalStateException.class, client.initiate(payment(PaymentMethod.PAYPAL), null));
+        assertCause(IllegalStateException.class, client.initiate(payment(PaymentMethod.PAYPAL), null));
+        assertEquals(GatewayCircuitBreaker.State.OPEN, client.getCircuitState(PaymentMethod.PAYPAL));
+        assertCause(PaymentGatewayUnavailableException.class, client.initiate(payment(PaymentMethod.PAYPAL), null));
+
+        // Deux appels sans nouvelle tentative, aucun après l'ouverture
+        verify(gateway, times(2)).initiatePayPalPayment(any(Payment.class));
+        assertEquals(GatewayCircuitBreaker.State.CLOSED, client.getCircuitState(PaymentMethod.MOBILE_MONEY));
+    }
+
+    @Test
+    void initiate_shouldRejectMethodWithoutProvider() {
+        assertCause(PaymentException.class, client.initiate(payment(PaymentMethod.CASH), null));
+        verifyNoInteractions(gateway);
+    }
+
+    private PaymentGatewayClient client(int maxConcurrentCalls, int queueCapacity, int windowSize) {
+        return new PaymentGatewayClient(gateway, meterRegistry,
+                Duration.ofMillis(200), Duration.ofSeconds(5), Duration.ofSeconds(5),
+                maxConcurrentCalls, queueCapacity, windowSize, 0.5, Duration.ofMinutes(1),
+                2, Duration.ofMillis(1), 0.1);
+    }
+
+    private static Payment payment(PaymentMethod paymentMethod) {
+        Payment payment = new Payment();
+        payment.setId(1L);
+        payment.setPaymentMethod(paymentMethod);
+        return payment;
+    }
+
+    private static void assertCause(Class<? extends Throwable> expected, CompletableFuture<?> future) {
+        CompletionException e = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(expected, e.getCause());
+    }
+}
@@ -0,0 +1,117 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.enums.RenderPriority;
+import com.rva.egopass.model.BlobReference;
+import com.rva.egopass.repository.EGoPassRepository;
+import com.rva.egopass.repository.PdfRenderClaimRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PdfRenderCoordinatorTest {
+
+    private static final BlobReference REFERENCE =
+            BlobReference.builder().blobKey("sha256/abc").sizeBytes(3L).sha256("abc").build();
+
+    @Mock
+    private EGoPassRepository eGoPassRepository;
+
+    @Mock
+    private PdfRenderClaimRepository renderClaimRepository;
+
+    @Mock
+    private BlobStore blobStore;
+
+    private PdfRenderingExecutor renderingExecutor;
+    private PdfRenderCoordinator coordinator;
+
+    @BeforeEach
+    void setUp() {
+        renderingExecutor = new PdfRenderingExecutor(new SimpleMeterRegistry(), 2, 10, 0.8);
+        coordinator = new PdfRenderCoordinator(eGoPassRepository, renderClaimRepository, renderingExecutor, blobStore,
+                "node-test", Duration.ofMinutes(2), Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        renderingExecutor.shutdown();
+    }
+
+    @Test
+    void render_shouldShareInFlightRenderingBetweenConcurrentRequests() throws Exception {
+        when(eGoPassRepository.findPdfBlob(1L)).thenReturn(Optional.empty());
+        when(renderClaimRepository.tryClaim(eq(1L), eq("node-test"), any())).thenReturn(true);
+        when(blobStore.put(any())).thenReturn(REFERENCE);
+        when(eGoPassRepository.attachPdfBlob(eq(1L), anyString(), anyLong(), anyString())).thenReturn(1);
+
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger renderings = new AtomicInteger();
+        CompletableFuture<BlobReference> first = coordinator.render(1L, RenderPriority.BACKGROUND, () -> {
+            renderings.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return new byte[]{1, 2, 3};
+        });
+        CompletableFuture<BlobReference> second = coordinator.render(1L, RenderPriority.INTERACTIVE, () -> {
+            renderings.incrementAndGet();
+            return new byte[]{1, 2, 3};
+        });
+        release.countDown();
+
+        assertSame(REFERENCE, first.get(5, TimeUnit.SECONDS));
+        assertSame(REFERENCE, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, renderings.get());
+        verify(renderClaimRepository, times(1)).tryClaim(eq(1L), eq("node-test"), any());
+        verify(renderClaimRepository).release(1L, "node-test");
+    }
+
+    @Test
+    void render_shouldWaitForOtherNode_whenClaimIsHeldElsewhere() throws Exception {
+        when(eGoPassRepository.findPdfBlob(1L))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(REFERENCE));
+        when(renderClaimRepository.tryClaim(eq(1L), eq("node-test"), any())).thenReturn(false);
+
+        CompletableFuture<BlobReference> result = coordinator.render(1L, RenderPriority.INTERACTIVE,
+                () -> fail("Le rendu doit rester au nœud détenteur de la réservation"));
+
+        assertSame(REFERENCE, result.get(5, TimeUnit.SECONDS));
+        verify(blobStore, never()).put(any());
+    }
+
+    @Test
+    void render_shouldKeepExistingReference_whenAnotherRenderWasStoredFirst() throws Exception {
+        BlobReference existing = BlobReference.builder().blobKey("sha256/def").sizeBytes(3L).sha256("def").build();
+        when(eGoPassRepository.findPdfBlob(1L))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(existing));
+        when(renderClaimRepository.tryClaim(eq(1L), eq("node-test"), any())).thenReturn(true);
+        when(blobStore.put(any())).thenReturn(REFERENCE);
+        when(eGoPassRepository.attachPdfBlob(eq(1L), anyString(), anyLong(), anyString())).thenReturn(0);
+
+        BlobReference result = coordinator.render(1L, RenderPriority.INTERACTIVE, () -> new byte[]{1})
+                .get(5, TimeUnit.SECONDS);
+
+        assertSame(existing, result);
+    }
+}
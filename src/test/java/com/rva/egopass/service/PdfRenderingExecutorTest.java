@@ -0,0 +1,86 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.enums.RenderPriority;
+import com.rva.egopass.exceptions.PDFRenderingOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfRenderingExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PdfRenderingExecutor executor;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new PdfRenderingExecutor(meterRegistry, 1, 4, 0.5);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void submit_shouldRunInteractiveBeforeQueuedBackground() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(RenderPriority.BACKGROUND, () -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        List<String> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> background = executor.submit(RenderPriority.BACKGROUND, () -> {
+            order.add("background");
+            return "background";
+        });
+        CompletableFuture<String> interactive = executor.submit(RenderPriority.INTERACTIVE, () -> {
+            order.add("interactive");
+            return "interactive";
+        });
+        release.countDown();
+
+        assertEquals("interactive", interactive.get(5, TimeUnit.SECONDS));
+        assertEquals("background", background.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("interactive", "background"), order);
+    }
+
+    @Test
+    void submit_shouldRejectBackgroundBeyondItsShareButKeepRoomForInteractive() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(RenderPriority.INTERACTIVE, () -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        executor.submit(RenderPriority.BACKGROUND, () -> null);
+        executor.submit(RenderPriority.BACKGROUND, () -> null);
+        assertThrows(PDFRenderingOverloadedException.class,
+                () -> executor.submit(RenderPriority.BACKGROUND, () -> null));
+
+        executor.submit(RenderPriority.INTERACTIVE, () -> null);
+        executor.submit(RenderPriority.INTERACTIVE, () -> null);
+        assertThrows(PDFRenderingOverloadedException.class,
+                () -> executor.submit(RenderPriority.INTERACTIVE, () -> null));
+
+        assertEquals(1.0, meterRegistry.get("egopass.pdf.render.rejected").tag("priority", "background").counter().count());
+        assertEquals(1.0, meterRegistry.get("egopass.pdf.render.rejected").tag("priority", "interactive").counter().count());
+    }
+}
@@ -0,0 +1,124 @@
+package com.rva.egopass.service;
+
+import com.rva.egopass.enums.QRCodeImageFormat;
+import com.rva.egopass.exceptions.EGoPassNotFoundException;
+import com.rva.egopass.exceptions.InvalidRequestException;
+import com.rva.egopass.model.BlobReference;
+import com.rva.egopass.repository.EGoPassRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class QRCodeImageServiceTest {
+
+    private static final String PAYLOAD = "EGP:0A1B2C3D4E5F6G7H8I9J";
+
+    private final QRCodeService qrCodeService = new QRCodeService();
+    private EGoPassRepository eGoPassRepository;
+    private BlobStore blobStore;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        eGoPassRepository = mock(EGoPassRepository.class);
+        blobStore = mock(BlobStore.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(eGoPassRepository.findQrCodePayload(1L)).thenReturn(Optional.of(PAYLOAD));
+    }
+
+    @Test
+    void getQRCodeImage_shouldRenderPngAtRequestedSize() throws Exception {
+        QRCodeImage image = service(DataSize.ofMegabytes(1)).getQRCodeImage(1L, QRCodeImageFormat.PNG, 400, 2);
+
+        assertEquals("image/png", image.getMediaType());
+        BufferedImage bufferedImage = ImageIO.read(new ByteArrayInputStream(image.getContent()));
+        assertEquals(400, bufferedImage.getWidth());
+        assertEquals(PAYLOAD, qrCodeService.decodeQRCode(image.getContent()));
+        assertTrue(image.getETag().matches("\"[0-9a-f]{64}\""));
+    }
+
+    @Test
+    void getQRCodeImage_shouldRenderSvg() {
+        QRCodeImage image = service(DataSize.ofMegabytes(1)).getQRCodeImage(1L, QRCodeImageFormat.SVG, 250, 4);
+
+        String svg = new String(image.getContent(), StandardCharsets.UTF_8);
+        assertEquals("image/svg+xml", image.getMediaType());
+        assertTrue(svg.contains("width=\"250\" height=\"250\""));
+        assertTrue(svg.contains("<path"));
+    }
+
+    @Test
+    void getQRCodeImage_shouldServeCachedVariantWithoutRepository() {
+        QRCodeImageService service = service(DataSize.ofMegabytes(1));
+
+        QRCodeImage first = service.getQRCodeImage(1L, QRCodeImageFormat.PNG, 300, 4);
+        QRCodeImage second = service.getQRCodeImage(1L, QRCodeImageFormat.PNG, 300, 4);
+        QRCodeImage other = service.getQRCodeImage(1L, QRCodeImageFormat.PNG, 200, 4);
+
+        assertSame(first, second);
+        assertNotEquals(first.getETag(), other.getETag());
+        verify(eGoPassRepository, times(2)).findQrCodePayload(1L);
+        assertEquals(1.0, meterRegistry.get("egopass.qrcode.cache.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void getQRCodeImage_shouldEvictLeastRecentlyUsedBeyondByteBudget() {
+        int imageSize = qrCodeService.generateQRCode(PAYLOAD, 300, 4).length;
+        QRCodeImageService service = service(DataSize.ofBytes(imageSize + imageSize / 2));
+
+        service.getQRCodeImage(1L, QRCodeImageFormat.PNG, 300, 4);
+        service.getQRCodeImage(1L, QRCodeImageFormat.PNG, 300, 3);
+        service.getQRCodeImage(1L, QRCodeImageFormat.PNG, 300, 4);
+
+        // Le second rendu a évincé le premier
+        verify(eGoPassRepository, times(3)).findQrCodePayload(1L);
+        assertTrue(meterRegistry.get("egopass.qrcode.cache.size").gauge().value() <= imageSize + imageSize / 2);
+    }
+
+    @Test
+    void getQRCodeImage_shouldReadLegacyImage_whenPayloadMissing() {
+        BlobReference qrCodeBlob = BlobReference.builder().blobKey("sha256/abc").build();
+        when(eGoPassRepository.findQrCodePayload(2L)).thenReturn(Optional.empty());
+        when(eGoPassRepository.findQrCodeBlob(2L)).thenReturn(Optional.of(qrCodeBlob));
+        when(blobStore.read(qrCodeBlob)).thenReturn(qrCodeService.generateQRCode("{\"passNumber\":\"EGP-1A2B3C4D-5\"}"));
+
+        QRCodeImage image = service(DataSize.ofMegabytes(1)).getQRCodeImage(2L, QRCodeImageFormat.PNG, 200, 4);
+
+        assertEquals("{\"passNumber\":\"EGP-1A2B3C4D-5\"}", qrCodeService.decodeQRCode(image.getContent()));
+    }
+
+    @Test
+    void getQRCodeImage_shouldThrow_whenEGoPassNotFound() {
+        when(eGoPassRepository.findQrCodePayload(3L)).thenReturn(Optional.empty());
+        when(eGoPassRepository.findQrCodeBlob(3L)).thenReturn(Optional.empty());
+        when(eGoPassRepository.existsById(3L)).thenReturn(false);
+
+        assertThrows(EGoPassNotFoundException.class,
+                () -> service(DataSize.ofMegabytes(1)).getQRCodeImage(3L, QRCodeImageFormat.PNG, 300, 4));
+    }
+
+    @Test
+    void getQRCodeImage_shouldRejectOutOfRangeParameters() {
+        QRCodeImageService service = service(DataSize.ofMegabytes(1));
+
+        assertThrows(InvalidRequestException.class, () -> service.getQRCodeImage(1L, QRCodeImageFormat.PNG, 10, 4));
+        assertThrows(InvalidRequestException.class, () -> service.getQRCodeImage(1L, QRCodeImageFormat.SVG, 5000, 4));
+        assertThrows(InvalidRequestException.class, () -> service.getQRCodeImage(1L, QRCodeImageFormat.PNG, 300, -1));
+        verify(eGoPassRepository, never()).findQrCodePayload(anyLong());
+    }
+
+    private QRCodeImageService service(DataSize cacheMaxSize) {
+        return new QRCodeImageService(eGoPassRepository, blobStore, qrCodeService, meterRegistry, cacheMaxSize);
+    }
+}
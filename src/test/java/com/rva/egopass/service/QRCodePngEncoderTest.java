@@ -0,0 +1,52 @@
+package com.rva.egopass.service;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QRCodePngEncoderTest {
+
+    private final QRCodeService qrCodeService = new QRCodeService();
+
+    @Test
+    void generateQRCode_shouldProduceStandardPngThatStillScans() throws Exception {
+        String content = "{\"passNumber\":\"EGP-1234567890\",\"flightNumber\":\"KQ555\"}";
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(qrCodeService.generateQRCode(content)));
+
+        assertNotNull(image);
+        assertEquals(300, image.getWidth());
+        assertEquals(300, image.getHeight());
+        String decoded = new QRCodeReader().decode(
+                new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)))).getText();
+        assertEquals(content, decoded);
+    }
+
+    @Test
+    void encode_shouldMatchMatrixPixelForPixel_whenWidthIsNotAMultipleOfEight() throws Exception {
+        // Réutilise le tampon du thread avec une image plus grande, puis plus petite
+        QRCodePngEncoder.encode(qrCodeService.generateQRCodeMatrix("premier contenu, plus long que le second"));
+        BitMatrix matrix = qrCodeService.generateQRCodeMatrix("EGP-1");
+        assertNotEquals(0, matrix.getWidth() % 8);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(QRCodePngEncoder.encode(matrix)));
+
+        assertEquals(matrix.getWidth(), image.getWidth());
+        assertEquals(matrix.getHeight(), image.getHeight());
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                int expected = matrix.get(x, y) ? 0x000000 : 0xFFFFFF;
+                assertEquals(expected, image.getRGB(x, y) & 0xFFFFFF, "pixel " + x + "," + y);
+            }
+        }
+    }
+}
@@ -5,27 +5,47 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 import com.rva.egopass.dto.EGoPassDTO;
 import com.rva.egopass.dto.EGoPassRequest;
+import com.rva.egopass.dto.GroupEGoPassRequest;
+import com.rva.egopass.dto.GroupPassengerRequest;
 import com.rva.egopass.enums.ReservationStatus;
 import com.rva.egopass.exceptions.EGoPassNotFoundException;
+import com.rva.egopass.exceptions.InvalidRequestException;
+import com.rva.egopass.exceptions.InvalidReservationStateException;
 import com.rva.egopass.exceptions.ReservationNotFoundException;
 import com.rva.egopass.exceptions.UserNotFoundException;
 import com.rva.egopass.mapper.EGoPassMapper;
+import com.rva.egopass.model.BlobReference;
 import com.rva.egopass.model.EGoPass;
+import com.rva.egopass.model.FlightInfo;
+import com.rva.egopass.model.PassengerInfo;
 import com.rva.egopass.model.Reservation;
+import com.rva.egopass.model.ReservationGroup;
 import com.rva.egopass.model.User;
+import com.rva.egopass.payload.PassPayload;
+import com.rva.egopass.payload.PassPayloadCodec;
 import com.rva.egopass.repository.EGoPassRepository;
+import com.rva.egopass.repository.ReservationBatchRepository;
+import com.rva.egopass.repository.ReservationGroupRepository;
 import com.rva.egopass.repository.ReservationRepository;
 import com.rva.egopass.repository.UserRepository;
+import com.rva.egopass.service.BlobStore;
 import com.rva.egopass.service.PDFGeneratorService;
-import com.rva.egopass.service.QRCodeService;
+import com.rva.egopass.service.PassNumberFormat;
+import com.rva.egopass.service.PassNumberGenerator;
+import com.rva.egopass.service.PassValidationIndex;
+import com.rva.egopass.service.ReservationExpiryPolicy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.ByteArrayResource;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import static org.mockito.Mockito.*;
 
@@ -41,18 +61,39 @@ class EGoPassServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
-    @Mock
-    private QRCodeService qrCodeService;
-
     @Mock
     private PDFGeneratorService pdfGeneratorService;
 
     @Mock
     private EGoPassMapper eGoPassMapper;
 
+    @Mock
+    private BlobStore blobStore;
+
+    @Mock
+    private PassPayloadCodec passPayloadCodec;
+
+    @Mock
+    private PassNumberGenerator passNumberGenerator;
+
+    @Mock
+    private ReservationGroupRepository reservationGroupRepository;
+
+    @Mock
+    private ReservationBatchRepository reservationBatchRepository;
+
+    @Mock
+    private ReservationExpiryPolicy reservationExpiryPolicy;
+
+    @Mock
+    private PassValidationIndex passValidationIndex;
+
     @InjectMocks
     private EGoPassServiceImpl eGoPassService;
 
+    @Captor
+    private ArgumentCaptor<List<Reservation>> reservations;
+
     private User user;
     private Reservation reservation;
     private EGoPass eGoPass;
@@ -80,12 +121,111 @@ class EGoPassServiceImplTest {
         assertThrows(UserNotFoundException.class, () -> eGoPassService.createReservation(request, 1L));
     }
 
+    @Test
+    void createGroupReservation_shouldInsertAllPassengersInOneBatch() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(reservationGroupRepository.save(any(ReservationGroup.class))).thenAnswer(invocation -> {
+            ReservationGroup group = invocation.getArgument(0);
+            group.setId(7L);
+            return group;
+        });
+        when(reservationExpiryPolicy.expiresAt(any())).thenAnswer(invocation -> invocation.<LocalDateTime>getArgument(0).plusHours(1));
+
+        Long groupId = eGoPassService.createGroupReservation(groupRequest(passenger("P1"), passenger("P2"), passenger("P3")), 1L);
+
+        assertEquals(7L, groupId);
+        verify(reservationBatchRepository).insertAll(eq(7L), eq(1L), reservations.capture());
+        assertEquals(3, reservations.getValue().size());
+        assertTrue(reservations.getValue().stream().allMatch(r -> r.getStatus() == ReservationStatus.PENDING_PAYMENT));
+        assertTrue(reservations.getValue().stream().allMatch(r -> r.getExpiresAt().equals(r.getCreatedAt().plusHours(1))));
+    }
+
+    @Test
+    void createGroupReservation_shouldRejectWholeGroup_whenOnePassengerIsInvalid() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        GroupPassengerRequest invalid = passenger("P2");
+        invalid.setPassportNumber(" ");
+
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> eGoPassService.createGroupReservation(groupRequest(passenger("P1"), invalid), 1L));
+
+        assertEquals("passengers[1].passportNumber", exception.getField());
+        verifyNoInteractions(reservationGroupRepository, reservationBatchRepository);
+    }
+
+    @Test
+    void createGroupReservation_shouldRejectDuplicatePassport() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> eGoPassService.createGroupReservation(groupRequest(passenger("P1"), passenger("p1")), 1L));
+
+        assertEquals("passengers[1].passportNumber", exception.getField());
+    }
+
     @Test
     void generateEGoPassFromReservation_shouldThrowException_whenReservationNotFound() {
         when(reservationRepository.findById(1L)).thenReturn(Optional.empty());
         assertThrows(ReservationNotFoundException.class, () -> eGoPassService.generateEGoPassFromReservation(1L));
     }
 
+    @Test
+    void generateEGoPassFromReservation_shouldStoreSignedPayload() {
+        reservation.setPassengerInfo(PassengerInfo.builder().firstName("Jean").lastName("Mbala").build());
+        reservation.setFlightInfo(FlightInfo.builder()
+                .flightNumber("KQ555")
+                .origin("FIH")
+                .destination("NBO")
+                .departureDate(LocalDate.of(2025, 3, 15))
+                .build());
+        when(reservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
+        when(passPayloadCodec.encode(any())).thenReturn("EGP:SIGNED");
+        when(passNumberGenerator.next()).thenReturn("EGP-7K3MQ9XZ-4");
+
+        eGoPassService.generateEGoPassFromReservation(1L);
+
+        ArgumentCaptor<PassPayload> payload = ArgumentCaptor.forClass(PassPayload.class);
+        verify(passPayloadCodec).encode(payload.capture());
+        ArgumentCaptor<EGoPass> saved = ArgumentCaptor.forClass(EGoPass.class);
+        verify(eGoPassRepository).save(saved.capture());
+
+        assertEquals("EGP:SIGNED", saved.getValue().getQrCodePayload());
+        assertEquals("EGP-7K3MQ9XZ-4", saved.getValue().getPassNumber());
+        assertEquals(saved.getValue().getPassNumber(), payload.getValue().getPassNumber());
+        assertEquals(saved.getValue().getIssueDate(), payload.getValue().getIssueDate());
+        assertEquals("KQ555", payload.getValue().getFlightNumber());
+        assertEquals(LocalDate.of(2025, 3, 15), payload.getValue().getDepartureDate());
+        assertEquals("Jean Mbala", payload.getValue().getPassengerName());
+        assertEquals(ReservationStatus.COMPLETED, reservation.getStatus());
+        verify(passValidationIndex).indexIssued(saved.getValue());
+    }
+
+    @Test
+    void generateEGoPassFromReservation_shouldReviveExpiredReservation_whenPaymentConfirmedAfterGrace() {
+        reservation.setStatus(ReservationStatus.EXPIRED);
+        reservation.setPassengerInfo(PassengerInfo.builder().firstName("Jean").lastName("Mbala").build());
+        reservation.setFlightInfo(FlightInfo.builder().flightNumber("KQ555").departureDate(LocalDate.now()).build());
+        when(reservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
+        when(passPayloadCodec.encode(any())).thenReturn("EGP:SIGNED");
+        when(passNumberGenerator.next()).thenReturn("EGP-7K3MQ9XZ-4");
+
+        eGoPassService.generateEGoPassFromReservation(1L);
+
+        verify(eGoPassRepository).save(any(EGoPass.class));
+        assertEquals(ReservationStatus.COMPLETED, reservation.getStatus());
+    }
+
+    @Test
+    void generateEGoPassFromReservation_shouldRefuseExpiredReservation_whenFlightHasLeft() {
+        reservation.setStatus(ReservationStatus.EXPIRED);
+        reservation.setFlightInfo(FlightInfo.builder().flightNumber("KQ555")
+                .departureDate(LocalDate.now().minusDays(1)).build());
+        when(reservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
+
+        assertThrows(InvalidReservationStateException.class, () -> eGoPassService.generateEGoPassFromReservation(1L));
+        verify(eGoPassRepository, never()).save(any());
+    }
+
     @Test
     void getEGoPass_shouldReturnDTO_whenEGoPassExists() {
         when(eGoPassRepository.findById(1L)).thenReturn(Optional.of(eGoPass));
@@ -104,16 +244,62 @@ class EGoPassServiceImplTest {
         assertThrows(EGoPassNotFoundException.class, () -> eGoPassService.getEGoPass(1L));
     }
 
+    @Test
+    void getEGoPassByNumber_shouldLookUpCanonicalNumber() {
+        String number = PassNumberFormat.format(42);
+        eGoPass.setPassNumber(number);
+        when(eGoPassRepository.findByPassNumber(number)).thenReturn(Optional.of(eGoPass));
+
+        EGoPassDTO result = eGoPassService.getEGoPassByNumber(number.replace("-", "").toLowerCase());
+
+        assertEquals(number, result.getPassNumber());
+    }
+
+    @Test
+    void getEGoPassByNumber_shouldRejectTypoWithoutQueryingDatabase() {
+        String number = PassNumberFormat.format(42);
+        String typo = number.substring(0, 4) + (number.charAt(4) == 'A' ? 'B' : 'A') + number.substring(5);
+
+        assertThrows(InvalidRequestException.class, () -> eGoPassService.getEGoPassByNumber(typo));
+        verifyNoInteractions(eGoPassRepository);
+    }
+
     @Test
     void generatePDF_shouldReturnPDF_whenEGoPassExists() throws Exception {
         byte[] pdfData = new byte[]{1, 2, 3};
-        eGoPass.setPdfDocument(pdfData);
+        BlobReference pdfBlob = BlobReference.builder().blobKey("sha256/abc").sizeBytes(3L).sha256("abc").build();
+        eGoPass.setPdfBlob(pdfBlob);
 
         when(eGoPassRepository.findById(1L)).thenReturn(Optional.of(eGoPass));
+        when(blobStore.read(pdfBlob)).thenReturn(pdfData);
 
         ByteArrayResource result = eGoPassService.generatePDF(1L);
 
         assertNotNull(result);
         assertArrayEquals(pdfData, result.getByteArray());
     }
-}
\ No newline at end of file
+
+    private static GroupEGoPassRequest groupRequest(GroupPassengerRequest... passengers) {
+        return GroupEGoPassRequest.builder()
+                .flightType("INTERNATIONAL")
+                .flightNumber("KQ555")
+                .origin("FIH")
+                .destination("NBO")
+                .flightCompany("Kenya Airways")
+                .departureDate(LocalDate.now().plusDays(10))
+                .email("famille@example.com")
+                .phone("+243810000000")
+                .passengers(List.of(passengers))
+                .build();
+    }
+
+    private static GroupPassengerRequest passenger(String passportNumber) {
+        return GroupPassengerRequest.builder()
+                .firstName("Jean")
+                .lastName("Mbala")
+                .nationality("CD")
+                .passportNumber(passportNumber)
+                .passportIssueDate(LocalDate.of(2020, 1, 1))
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.rva.egopass.serviceimpl;
+
+import com.rva.egopass.exceptions.DocumentException;
+import com.rva.egopass.model.BlobReference;
+import com.rva.egopass.service.DocumentContent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemBlobStoreTest {
+
+    @TempDir
+    Path rootDir;
+
+    private FileSystemBlobStore blobStore;
+
+    @BeforeEach
+    void setUp() {
+        blobStore = new FileSystemBlobStore(rootDir.toString());
+    }
+
+    @Test
+    void put_shouldStoreContentUnderShardedHashPath() {
+        byte[] content = "contenu du PDF".getBytes(StandardCharsets.UTF_8);
+
+        BlobReference reference = blobStore.put(content);
+
+        assertEquals("sha256/" + reference.getSha256(), reference.getBlobKey());
+        assertEquals(content.length, reference.getSizeBytes());
+        String hash = reference.getSha256();
+        assertTrue(Files.exists(rootDir.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash)));
+        assertArrayEquals(content, blobStore.read(reference));
+    }
+
+    @Test
+    void put_shouldDeduplicateIdenticalContent() {
+        byte[] content = new byte[]{1, 2, 3};
+
+        BlobReference first = blobStore.put(content);
+        BlobReference second = blobStore.put(content.clone());
+
+        assertEquals(first, second);
+    }
+
+    @Test
+    void open_shouldServeRequestedRange() throws Exception {
+        byte[] content = "0123456789".getBytes(StandardCharsets.US_ASCII);
+        BlobReference reference = blobStore.put(content);
+
+        DocumentContent document = blobStore.open(reference);
+
+        assertEquals(10, document.getContentLength());
+        assertEquals("\"" + reference.getSha256() + "\"", document.getETag());
+        try (InputStream inputStream = document.openStream(3, 4)) {
+            assertEquals("3456", new String(inputStream.readAllBytes(), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    void read_shouldRejectKeysOutsideStore() {
+        BlobReference reference = BlobReference.builder().blobKey("sha256/../../etc/passwd").build();
+
+        assertThrows(DocumentException.class, () -> blobStore.read(reference));
+    }
+}
@@ -0,0 +1,89 @@
+package com.rva.egopass.serviceimpl;
+
+import com.rva.egopass.model.BlobReference;
+import com.rva.egopass.repository.LegacyDocumentRepository;
+import com.rva.egopass.repository.LegacyDocumentRepository.LegacyLobRow;
+import com.rva.egopass.service.BlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LegacyLobMigrationJobTest {
+
+    private static final byte[] CONTENT = {1, 2, 3};
+
+    private LegacyDocumentRepository repository;
+    private BlobStore blobStore;
+    private LegacyLobMigrationJob job;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(LegacyDocumentRepository.class);
+        blobStore = mock(BlobStore.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        when(repository.hasLegacyColumns()).thenReturn(true);
+        when(blobStore.put(any())).thenReturn(new BlobReference());
+        job = new LegacyLobMigrationJob(repository, blobStore, transactionManager, 2);
+    }
+
+    @Test
+    void migrateBatch_shouldMoveCursorPastFailingRows() {
+        when(repository.findRowsWithLegacyLobs(0, 2)).thenReturn(List.of(row(1), row(2)));
+        when(repository.findRowsWithLegacyLobs(2, 2)).thenReturn(List.of(row(3)));
+        when(repository.readLargeObject(anyLong())).thenReturn(CONTENT);
+        when(repository.readLargeObject(101L)).thenThrow(new DataRetrievalFailureException("large object 101 absent"));
+        when(repository.replaceQrCodeImage(anyLong(), anyLong(), any())).thenReturn(true);
+
+        job.migrateBatch();
+        job.migrateBatch();
+
+        verify(repository).findRowsWithLegacyLobs(2, 2);
+        verify(repository).replaceQrCodeImage(eq(2L), eq(102L), any());
+        verify(repository).replaceQrCodeImage(eq(3L), eq(103L), any());
+    }
+
+    @Test
+    void migrateBatch_shouldStop_whenPassOverFailingRowsMakesNoProgress() {
+        when(repository.findRowsWithLegacyLobs(0, 2)).thenReturn(List.of(row(1)));
+        when(repository.findRowsWithLegacyLobs(1, 2)).thenReturn(List.of());
+        when(repository.readLargeObject(101L)).thenThrow(new DataRetrievalFailureException("large object 101 absent"));
+
+        job.migrateBatch();
+        job.migrateBatch();
+        job.migrateBatch();
+        job.migrateBatch();
+
+        // Un seul essai par ligne en échec, puis plus aucune lecture
+        verify(repository, times(1)).readLargeObject(101L);
+        verify(repository, times(2)).findRowsWithLegacyLobs(anyLong(), anyInt());
+    }
+
+    @Test
+    void migrateBatch_shouldRetryFailedRowsOnce_whenPassMadeProgress() {
+        when(repository.findRowsWithLegacyLobs(0, 2)).thenReturn(List.of(row(1), row(2)), List.of(row(1)));
+        when(repository.findRowsWithLegacyLobs(2, 2)).thenReturn(List.of());
+        when(repository.findRowsWithLegacyLobs(1, 2)).thenReturn(List.of());
+        when(repository.readLargeObject(101L)).thenThrow(new DataRetrievalFailureException("large object 101 absent"));
+        when(repository.readLargeObject(102L)).thenReturn(CONTENT);
+        when(repository.replaceQrCodeImage(anyLong(), anyLong(), any())).thenReturn(true);
+
+        for (int i = 0; i < 6; i++) {
+            job.migrateBatch();
+        }
+
+        verify(repository, times(2)).readLargeObject(101L);
+        verify(repository, times(4)).findRowsWithLegacyLobs(anyLong(), anyInt());
+    }
+
+    private static LegacyLobRow row(long id) {
+        return new LegacyLobRow(id, 100 + id, null);
+    }
+}
@@ -4,23 +4,30 @@ import com.rva.egopass.dto.*;
 import com.rva.egopass.enums.PaymentMethod;
 import com.rva.egopass.enums.PaymentStatus;
 import com.rva.egopass.exceptions.PaymentException;
+import com.rva.egopass.exceptions.PaymentGatewayUnavailableException;
 import com.rva.egopass.exceptions.ReservationNotFoundException;
 import com.rva.egopass.model.Payment;
+import com.rva.egopass.model.FlightInfo;
 import com.rva.egopass.model.Reservation;
+import com.rva.egopass.model.ReservationGroup;
 import com.rva.egopass.repository.PaymentRepository;
+import com.rva.egopass.repository.ReservationGroupRepository;
 import com.rva.egopass.repository.ReservationRepository;
-import com.rva.egopass.service.PaymentGatewayService;
+import com.rva.egopass.service.PaymentGatewayClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,7 +42,10 @@ class PaymentServiceImplTest {
     private ReservationRepository reservationRepository;
 
     @Mock
-    private PaymentGatewayService paymentGatewayService;
+    private PaymentGatewayClient paymentGatewayClient;
+
+    @Mock
+    private ReservationGroupRepository reservationGroupRepository;
 
     @InjectMocks
     private PaymentServiceImpl paymentService;
@@ -52,6 +62,7 @@ class PaymentServiceImplTest {
         payment.setId(1L);
         payment.setReservation(reservation);
         payment.setStatus(PaymentStatus.PENDING);
+        payment.setPaymentMethod(PaymentMethod.MOBILE_MONEY);
         payment.setAmount(BigDecimal.valueOf(25.0));
         payment.setCreatedAt(LocalDateTime.now());
         payment.setTransactionReference(UUID.randomUUID().toString());
@@ -62,8 +73,8 @@ class PaymentServiceImplTest {
         PaymentInitiationRequest request = new PaymentInitiationRequest(1L, PaymentMethod.MOBILE_MONEY, null);
         when(reservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
         when(paymentRepository.save(any(Payment.class))).thenReturn(payment);
-        when(paymentGatewayService.initiateMobileMoneyPayment(any(Payment.class)))
-                .thenReturn(new PaymentInitiationResponse(1L, "TXN123", "https://payment.com", "instructions"));
+        when(paymentGatewayClient.initiate(any(Payment.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(new PaymentInitiationResponse(1L, "TXN123", "https://payment.com", "instructions")));
 
         PaymentInitiationResponse response = paymentService.initiatePayment(request);
 
@@ -72,6 +83,53 @@ class PaymentServiceImplTest {
         verify(paymentRepository, times(2)).save(any(Payment.class));
     }
 
+    @Test
+    void testInitiateGroupPayment_ShouldCreateSingleAggregatedPayment() {
+        ReservationGroup group = ReservationGroup.builder().id(7L).passengerCount(3).build();
+        List<Reservation> reservations = List.of(groupReservation(11L), groupReservation(12L), groupReservation(13L));
+        when(reservationGroupRepository.findById(7L)).thenReturn(Optional.of(group));
+        when(reservationRepository.findByGroupIdOrderById(7L)).thenReturn(reservations);
+        when(paymentGatewayClient.initiate(any(Payment.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(new PaymentInitiationResponse(1L, "TXN-GROUP", "https://payment.com", "instructions")));
+
+        PaymentInitiationResponse response = paymentService.initiateGroupPayment(7L, PaymentMethod.MOBILE_MONEY, null);
+
+        assertEquals("TXN-GROUP", response.getTransactionReference());
+        ArgumentCaptor<Payment> saved = ArgumentCaptor.forClass(Payment.class);
+        verify(paymentRepository, times(2)).save(saved.capture());
+        Payment groupPayment = saved.getValue();
+        assertEquals(0, BigDecimal.valueOf(150).compareTo(groupPayment.getAmount()));
+        assertSame(group, groupPayment.getReservationGroup());
+        assertSame(reservations.get(0), groupPayment.getReservation());
+        verify(paymentGatewayClient, times(1)).initiate(any(Payment.class), any());
+    }
+
+    @Test
+    void testInitiateGroupPayment_GatewayUnavailable_ShouldMarkPaymentFailed() {
+        ReservationGroup group = ReservationGroup.builder().id(7L).passengerCount(1).build();
+        when(reservationGroupRepository.findById(7L)).thenReturn(Optional.of(group));
+        when(reservationRepository.findByGroupIdOrderById(7L)).thenReturn(List.of(groupReservation(11L)));
+        when(paymentGatewayClient.initiate(any(Payment.class), any()))
+                .thenReturn(CompletableFuture.failedFuture(new PaymentGatewayUnavailableException("indisponible")));
+
+        assertThrows(PaymentGatewayUnavailableException.class,
+                () -> paymentService.initiateGroupPayment(7L, PaymentMethod.MOBILE_MONEY, null));
+
+        ArgumentCaptor<Payment> saved = ArgumentCaptor.forClass(Payment.class);
+        verify(paymentRepository, times(2)).save(saved.capture());
+        assertEquals(PaymentStatus.FAILED, saved.getValue().getStatus());
+        assertEquals("indisponible", saved.getValue().getErrorMessage());
+    }
+
+    @Test
+    void testInitiateGroupPayment_GroupNotFound() {
+        when(reservationGroupRepository.findById(7L)).thenReturn(Optional.empty());
+
+        assertThrows(ReservationNotFoundException.class,
+                () -> paymentService.initiateGroupPayment(7L, PaymentMethod.MOBILE_MONEY, null));
+        verifyNoInteractions(paymentGatewayClient);
+    }
+
     @Test
     void testInitiatePayment_ReservationNotFound() {
         PaymentInitiationRequest request = new PaymentInitiationRequest(2L, PaymentMethod.MOBILE_MONEY, null);
@@ -84,7 +142,7 @@ class PaymentServiceImplTest {
     void testVerifyPayment_Success() {
         PaymentCallbackRequest callback = new PaymentCallbackRequest(payment.getTransactionReference(), 1L, "COMPLETED", null);
         when(paymentRepository.findByTransactionReference(callback.getTransactionReference())).thenReturn(Optional.of(payment));
-        when(paymentGatewayService.verifyPayment(callback)).thenReturn(true);
+        when(paymentGatewayClient.verify(PaymentMethod.MOBILE_MONEY, callback)).thenReturn(CompletableFuture.completedFuture(true));
 
         boolean isValid = paymentService.verifyPayment(callback);
 
@@ -97,7 +155,7 @@ class PaymentServiceImplTest {
     void testVerifyPayment_Failed() {
         PaymentCallbackRequest callback = new PaymentCallbackRequest(payment.getTransactionReference(), 1L, "FAILED", null);
         when(paymentRepository.findByTransactionReference(callback.getTransactionReference())).thenReturn(Optional.of(payment));
-        when(paymentGatewayService.verifyPayment(callback)).thenReturn(false);
+        when(paymentGatewayClient.verify(PaymentMethod.MOBILE_MONEY, callback)).thenReturn(CompletableFuture.completedFuture(false));
 
         boolean isValid = paymentService.verifyPayment(callback);
 
@@ -122,4 +180,11 @@ class PaymentServiceImplTest {
 
         assertThrows(PaymentException.class, () -> paymentService.getPaymentStatus(2L));
     }
+
+    private static Reservation groupReservation(Long id) {
+        Reservation groupReservation = new Reservation();
+        groupReservation.setId(id);
+        groupReservation.setFlightInfo(FlightInfo.builder().flightType("INTERNATIONAL").flightNumber("KQ555").build());
+        return groupReservation;
+    }
 }
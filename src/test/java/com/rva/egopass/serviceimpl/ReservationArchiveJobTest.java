@@ -0,0 +1,98 @@
+package com.rva.egopass.serviceimpl;
+
+import com.rva.egopass.repository.LegacyDocumentRepository;
+import com.rva.egopass.repository.ReservationArchiveRepository;
+import com.rva.egopass.repository.ReservationArchiveRepository.Candidate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReservationArchiveJobTest {
+
+    private static final YearMonth JANUARY = YearMonth.of(2025, 1);
+    private static final YearMonth FEBRUARY = YearMonth.of(2025, 2);
+
+    private ReservationArchiveRepository archiveRepository;
+    private LegacyDocumentRepository legacyDocumentRepository;
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        archiveRepository = mock(ReservationArchiveRepository.class);
+        legacyDocumentRepository = mock(LegacyDocumentRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private ReservationArchiveJob job(int detachAfterMonths) {
+        return new ReservationArchiveJob(archiveRepository, legacyDocumentRepository, transactionManager,
+                meterRegistry, Duration.ofDays(180), detachAfterMonths, 2);
+    }
+
+    @Test
+    void archiveAll_shouldArchiveInBatchesAndCreateEachPartitionOnce() {
+        when(legacyDocumentRepository.hasLegacyColumns()).thenReturn(true);
+        when(archiveRepository.lockArchivable(any(), eq(true), eq(2)))
+                .thenReturn(List.of(new Candidate(1, JANUARY), new Candidate(2, JANUARY)))
+                .thenReturn(List.of(new Candidate(3, JANUARY), new Candidate(4, FEBRUARY)))
+                .thenReturn(List.of());
+
+        job(0).archiveAll();
+
+        verify(archiveRepository).ensureArchiveTable();
+        verify(archiveRepository).archive(List.of(1L, 2L));
+        verify(archiveRepository).archive(List.of(3L, 4L));
+        verify(archiveRepository).ensurePartition(JANUARY);
+        verify(archiveRepository).ensurePartition(FEBRUARY);
+        // Chaque lot est validé séparément
+        verify(transactionManager, times(3)).commit(any());
+        assertEquals(4.0, meterRegistry.get("egopass.archive.reservations").counter().count());
+    }
+
+    @Test
+    void detachOldPartitions_shouldDetachOnlyPartitionsOlderThanLimit() {
+        YearMonth old = YearMonth.now().minusMonths(13);
+        YearMonth recent = YearMonth.now().minusMonths(11);
+        when(archiveRepository.findPartitions()).thenReturn(List.of(old, recent));
+
+        job(12).detachOldPartitions();
+
+        verify(archiveRepository).detachPartition(old);
+        verify(archiveRepository, never()).detachPartition(recent);
+    }
+
+    @Test
+    void detachOldPartitions_shouldKeepPartition_whenReservationsOfThatMonthAreNotArchived() {
+        YearMonth old = YearMonth.now().minusMonths(13);
+        when(archiveRepository.findPartitions()).thenReturn(List.of(old));
+        when(archiveRepository.hasLiveReservations(old)).thenReturn(true);
+
+        job(12).detachOldPartitions();
+
+        verify(archiveRepository, never()).detachPartition(any());
+    }
+
+    @Test
+    void detachOldPartitions_shouldDoNothing_whenDisabled() {
+        job(0).detachOldPartitions();
+
+        verifyNoInteractions(archiveRepository);
+    }
+
+    @Test
+    void constructor_shouldReject_whenPartitionsWouldBeDetachedBeforeRetention() {
+        assertThrows(IllegalStateException.class, () -> job(6));
+    }
+}
@@ -0,0 +1,83 @@
+package com.rva.egopass.serviceimpl;
+
+import com.rva.egopass.repository.ReservationExpiryRepository;
+import com.rva.egopass.repository.ReservationExpiryRepository.Cursor;
+import com.rva.egopass.service.ReservationExpiryPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReservationExpiryJobTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 3, 15, 10, 0);
+    private static final Duration PAYMENT_GRACE = Duration.ofHours(1);
+
+    private ReservationExpiryRepository expiryRepository;
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry meterRegistry;
+    private ReservationExpiryJob job;
+
+    @BeforeEach
+    void setUp() {
+        expiryRepository = mock(ReservationExpiryRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        meterRegistry = new SimpleMeterRegistry();
+        job = new ReservationExpiryJob(expiryRepository, new ReservationExpiryPolicy(Duration.ofHours(1)),
+                transactionManager, meterRegistry, 2, PAYMENT_GRACE);
+    }
+
+    @Test
+    void expireDue_shouldAdvanceCursorPastEachBatchUntilIncompleteBatch() {
+        Cursor first = new Cursor(T0, 5);
+        Cursor second = new Cursor(T0.plusMinutes(1), 3);
+        Cursor third = new Cursor(T0.plusMinutes(2), 9);
+        when(expiryRepository.expireDue(any(), eq(PAYMENT_GRACE), eq(2)))
+                // Positions renvoyées dans le désordre
+                .thenReturn(List.of(second, first))
+                .thenReturn(List.of(third));
+        when(expiryRepository.countOverdue()).thenReturn(1L);
+
+        job.expireDue();
+
+        verify(expiryRepository).expireDue(Cursor.START, PAYMENT_GRACE, 2);
+        verify(expiryRepository).expireDue(second, PAYMENT_GRACE, 2);
+        verify(expiryRepository, times(2)).expireDue(any(), any(), anyInt());
+        // Chaque lot est validé séparément
+        verify(transactionManager, times(3)).commit(any());
+        assertEquals(3.0, meterRegistry.get("egopass.reservation.expiry.expired").counter().count());
+        assertEquals(1.0, meterRegistry.get("egopass.reservation.expiry.backlog").gauge().value());
+    }
+
+    @Test
+    void expireDue_shouldBackfillMissingExpiryBeforeExpiring() {
+        when(expiryRepository.backfillExpiry(Duration.ofHours(1), 2)).thenReturn(2, 1);
+        when(expiryRepository.expireDue(any(), eq(PAYMENT_GRACE), eq(2))).thenReturn(List.of());
+
+        job.expireDue();
+
+        var order = inOrder(expiryRepository);
+        order.verify(expiryRepository, times(2)).backfillExpiry(Duration.ofHours(1), 2);
+        order.verify(expiryRepository).expireDue(Cursor.START, PAYMENT_GRACE, 2);
+        assertEquals(0.0, meterRegistry.get("egopass.reservation.expiry.expired").counter().count());
+    }
+
+    @Test
+    void sweep_shouldRecordDurationAndSwallowErrors() {
+        when(expiryRepository.backfillExpiry(any(), anyInt())).thenThrow(new IllegalStateException("base indisponible"));
+
+        assertDoesNotThrow(() -> job.sweep());
+
+        assertEquals(1, meterRegistry.get("egopass.reservation.expiry.sweep").timer().count());
+    }
+}